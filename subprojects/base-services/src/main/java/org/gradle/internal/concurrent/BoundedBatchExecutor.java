@@ -0,0 +1,232 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.internal.concurrent;
+
+import org.gradle.internal.Stoppable;
+import org.gradle.internal.UncheckedException;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Runs batches of jobs concurrently, using at most the given number of threads for each batch. Jobs are started in the order they are added to a
+ * batch. Once a job fails, or the batch is cancelled, the jobs which have not yet started are discarded.
+ */
+public class BoundedBatchExecutor implements Stoppable {
+    private final ExecutorFactory executorFactory;
+    private final String displayName;
+    private final int maxThreads;
+    private StoppableExecutor executor;
+
+    public BoundedBatchExecutor(ExecutorFactory executorFactory, String displayName, int maxThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException(String.format("Not a valid number of threads for %s: %s", displayName, maxThreads));
+        }
+        this.executorFactory = executorFactory;
+        this.displayName = displayName;
+        this.maxThreads = maxThreads;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    /**
+     * Runs the given jobs and blocks until they have all completed or one of them has failed, in which case the failure is rethrown. When only a single
+     * thread is available, or there is a single job, the jobs are run on the calling thread.
+     */
+    public void run(List<? extends Runnable> jobs) {
+        if (maxThreads < 2 || jobs.size() < 2) {
+            for (Runnable job : jobs) {
+                job.run();
+            }
+            return;
+        }
+        Batch batch = start();
+        for (Runnable job : jobs) {
+            batch.add(job);
+        }
+        batch.await();
+    }
+
+    /**
+     * Starts a new, empty batch.
+     */
+    public Batch start() {
+        return new Batch();
+    }
+
+    /**
+     * Waits for all running jobs to complete, then stops the threads of this executor.
+     */
+    public void stop() {
+        StoppableExecutor executor;
+        synchronized (this) {
+            executor = this.executor;
+            this.executor = null;
+        }
+        if (executor != null) {
+            executor.stop();
+        }
+    }
+
+    private synchronized StoppableExecutor getExecutor() {
+        if (executor == null) {
+            executor = executorFactory.create(displayName);
+        }
+        return executor;
+    }
+
+    public class Batch {
+        private final LinkedList<Job> queued = new LinkedList<Job>();
+        private int workers;
+        private int outstanding;
+        private Throwable failure;
+        private boolean cancelled;
+
+        private Batch() {
+        }
+
+        /**
+         * Adds a job to this batch, starting it as soon as a thread is free. May be called from a job of this batch. A job added after this batch has
+         * failed or been cancelled is discarded.
+         */
+        public Job add(Runnable action) {
+            Job job = new Job(action);
+            synchronized (this) {
+                if (cancelled || failure != null) {
+                    job.finished();
+                    return job;
+                }
+                queued.add(job);
+                outstanding++;
+                if (workers >= maxThreads) {
+                    return job;
+                }
+                workers++;
+            }
+            getExecutor().execute(new Worker());
+            return job;
+        }
+
+        /**
+         * Discards the jobs which have not yet started. Jobs which are running are allowed to complete, use {@link #await()} to wait for them.
+         */
+        public synchronized void cancel() {
+            cancelled = true;
+            discardQueued();
+        }
+
+        /**
+         * Blocks until every job of this batch has completed or been discarded, then rethrows the first failure of a job, if any.
+         */
+        public void await() {
+            synchronized (this) {
+                while (outstanding > 0) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                }
+                if (failure != null) {
+                    throw UncheckedException.throwAsUncheckedException(failure);
+                }
+            }
+        }
+
+        private void discardQueued() {
+            while (!queued.isEmpty()) {
+                queued.removeFirst().finished();
+                outstanding--;
+            }
+            notifyAll();
+        }
+
+        private class Worker implements Runnable {
+            public void run() {
+                while (true) {
+                    Job job;
+                    synchronized (Batch.this) {
+                        if (queued.isEmpty()) {
+                            workers--;
+                            return;
+                        }
+                        job = queued.removeFirst();
+                    }
+                    Throwable jobFailure = null;
+                    try {
+                        job.action.run();
+                    } catch (Throwable throwable) {
+                        jobFailure = throwable;
+                    } finally {
+                        job.finished();
+                    }
+                    synchronized (Batch.this) {
+                        outstanding--;
+                        if (jobFailure != null && failure == null) {
+                            failure = jobFailure;
+                            discardQueued();
+                        }
+                        Batch.this.notifyAll();
+                    }
+                }
+            }
+
+            @Override
+            public String toString() {
+                return displayName;
+            }
+        }
+    }
+
+    public static class Job {
+        private final Runnable action;
+        private final CountDownLatch finished = new CountDownLatch(1);
+
+        private Job(Runnable action) {
+            this.action = action;
+        }
+
+        private void finished() {
+            finished.countDown();
+        }
+
+        /**
+         * Returns true when this job has completed or been discarded.
+         */
+        public boolean isFinished() {
+            return finished.getCount() == 0;
+        }
+
+        /**
+         * Blocks until this job has completed or been discarded.
+         */
+        public void await() {
+            try {
+                finished.await();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return action.toString();
+        }
+    }
+}
@@ -235,7 +235,7 @@ public class DefaultServiceRegistry extends AbstractServiceRegistry {
     private static abstract class ManagedObjectProvider<T> implements Provider {
         private T instance;
 
-        public T getInstance() {
+        public synchronized T getInstance() {
             if (instance == null) {
                 instance = create();
                 assert instance != null : String.format("create() of %s returned null", toString());
@@ -245,7 +245,7 @@ public class DefaultServiceRegistry extends AbstractServiceRegistry {
 
         protected abstract T create();
 
-        public void stop() {
+        public synchronized void stop() {
             try {
                 CompositeStoppable.stoppable(instance).stop();
             } finally {
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.internal.concurrent
+
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class BoundedBatchExecutorTest extends Specification {
+    final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+    final BoundedBatchExecutor executor = new BoundedBatchExecutor(executorFactory, "Test worker", 3)
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "runs jobs using at most the given number of threads"() {
+        def active = new AtomicInteger()
+        def maxActive = new AtomicInteger()
+        def threads = new CopyOnWriteArrayList<Thread>()
+        def jobs = (1..20).collect {
+            { ->
+                threads << Thread.currentThread()
+                def count = active.incrementAndGet()
+                while (maxActive.get() < count) {
+                    maxActive.compareAndSet(maxActive.get(), count)
+                }
+                Thread.sleep(10)
+                active.decrementAndGet()
+            } as Runnable
+        }
+
+        when:
+        executor.run(jobs)
+
+        then:
+        threads.size() == 20
+        !threads.contains(Thread.currentThread())
+        maxActive.get() <= 3
+    }
+
+    def "runs a single job on the calling thread"() {
+        def threads = []
+
+        when:
+        executor.run([{ -> threads << Thread.currentThread() } as Runnable])
+
+        then:
+        threads == [Thread.currentThread()]
+    }
+
+    def "rethrows the first failure and discards the jobs not yet started"() {
+        def failure = new RuntimeException("broken")
+        def started = new AtomicInteger()
+        def singleThreaded = new BoundedBatchExecutor(executorFactory, "Test worker", 1)
+        def batch = singleThreaded.start()
+
+        when:
+        batch.add({ -> started.incrementAndGet(); throw failure } as Runnable)
+        def discarded = batch.add({ -> started.incrementAndGet() } as Runnable)
+        batch.await()
+
+        then:
+        RuntimeException e = thrown()
+        e.is(failure)
+        started.get() == 1
+        discarded.finished
+    }
+
+    def "jobs can add further jobs to the batch"() {
+        def ran = new CopyOnWriteArrayList<Integer>()
+        def batch = executor.start()
+
+        when:
+        batch.add({ ->
+            ran << 1
+            batch.add({ -> ran << 2 } as Runnable)
+        } as Runnable)
+        batch.await()
+
+        then:
+        ran == [1, 2]
+    }
+
+    def "cancel discards jobs not yet started and await waits for running jobs"() {
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def completed = new AtomicInteger()
+        def singleThreaded = new BoundedBatchExecutor(executorFactory, "Test worker", 1)
+        def batch = singleThreaded.start()
+
+        when:
+        def running = batch.add({ -> started.countDown(); release.await(); completed.incrementAndGet() } as Runnable)
+        def queued = batch.add({ -> completed.incrementAndGet() } as Runnable)
+        started.await(5, TimeUnit.SECONDS)
+        batch.cancel()
+
+        then:
+        queued.finished
+        !running.finished
+
+        when:
+        release.countDown()
+        batch.await()
+
+        then:
+        running.finished
+        completed.get() == 1
+    }
+
+    def "does not accept an invalid number of threads"() {
+        when:
+        new BoundedBatchExecutor(executorFactory, "Test worker", 0)
+
+        then:
+        IllegalArgumentException e = thrown()
+        e.message == "Not a valid number of threads for Test worker: 0"
+    }
+}
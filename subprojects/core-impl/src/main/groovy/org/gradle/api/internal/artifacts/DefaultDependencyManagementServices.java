@@ -35,26 +35,39 @@ import org.gradle.api.internal.artifacts.dsl.dependencies.ProjectFinder;
 import org.gradle.api.internal.artifacts.ivyservice.*;
 import org.gradle.api.internal.artifacts.ivyservice.dynamicversions.ModuleResolutionCache;
 import org.gradle.api.internal.artifacts.ivyservice.dynamicversions.SingleFileBackedModuleResolutionCache;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ParallelRemoteLookups;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolveIvyFactory;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.StartParameterResolutionOverride;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.ParsedPomCache;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.ParserRegistry;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.DefaultModuleDescriptorCache;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleDescriptorCache;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.*;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies.*;
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.DefaultProjectModuleRegistry;
+import org.gradle.api.internal.artifacts.ivyservice.resolvedgraph.CachingArtifactDependencyResolver;
+import org.gradle.api.internal.artifacts.ivyservice.resolvedgraph.ResolvedGraphCache;
+import org.gradle.api.internal.artifacts.ivyservice.resolvedgraph.ResolvedGraphFingerprinter;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.DefaultDependencyResolver;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.ModuleMetaDataPrefetcher;
 import org.gradle.api.internal.artifacts.mvnsettings.*;
 import org.gradle.api.internal.artifacts.repositories.DefaultBaseRepositoryFactory;
 import org.gradle.api.internal.artifacts.repositories.cachemanager.DownloadingRepositoryCacheManager;
 import org.gradle.api.internal.artifacts.repositories.cachemanager.LocalFileRepositoryCacheManager;
+import org.gradle.api.internal.artifacts.repositories.resolver.VersionListingCache;
 import org.gradle.api.internal.artifacts.repositories.transport.RepositoryTransportFactory;
 import org.gradle.api.internal.externalresource.cached.ByUrlCachedExternalResourceIndex;
+import org.gradle.api.internal.externalresource.cached.CachedVersionListingIndex;
 import org.gradle.api.internal.externalresource.ivy.ArtifactAtRepositoryCachedExternalResourceIndex;
 import org.gradle.api.internal.externalresource.local.LocallyAvailableResourceFinder;
 import org.gradle.api.internal.externalresource.local.ivy.LocallyAvailableResourceFinderFactory;
+import org.gradle.api.internal.externalresource.transport.http.HttpConnectionPool;
 import org.gradle.api.internal.file.FileResolver;
+import org.gradle.api.internal.file.DefaultTemporaryFileProvider;
 import org.gradle.api.internal.file.IdentityFileResolver;
+import org.gradle.api.internal.file.TemporaryFileProvider;
 import org.gradle.api.internal.file.TmpDirTemporaryFileProvider;
+import org.gradle.api.internal.filestore.ContentAddressedFileStore;
 import org.gradle.api.internal.filestore.PathKeyFileStore;
 import org.gradle.api.internal.filestore.UniquePathKeyFileStore;
 import org.gradle.api.internal.filestore.ivy.ArtifactRevisionIdFileStore;
@@ -63,6 +76,8 @@ import org.gradle.api.internal.notations.api.NotationParser;
 import org.gradle.cache.CacheRepository;
 import org.gradle.internal.Factory;
 import org.gradle.internal.SystemProperties;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.nativeplatform.filesystem.FileSystems;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.service.DefaultServiceRegistry;
 import org.gradle.internal.service.ServiceRegistry;
@@ -73,6 +88,7 @@ import org.gradle.util.WrapUtil;
 
 import java.io.File;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class DefaultDependencyManagementServices extends DefaultServiceRegistry implements DependencyManagementServices {
 
@@ -189,6 +205,13 @@ public class DefaultDependencyManagementServices extends DefaultServiceRegistry
         );
     }
 
+    protected ResolvedGraphCache createResolvedGraphCache() {
+        return new ResolvedGraphCache(
+                get(ArtifactCacheMetaData.class),
+                get(CacheLockingManager.class)
+        );
+    }
+
     protected ArtifactAtRepositoryCachedExternalResourceIndex createArtifactAtRepositoryCachedResolutionIndex() {
         return new ArtifactAtRepositoryCachedExternalResourceIndex(
                 new File(get(ArtifactCacheMetaData.class).getCacheDir(), "artifact-at-repository.bin"),
@@ -205,12 +228,29 @@ public class DefaultDependencyManagementServices extends DefaultServiceRegistry
         );
     }
 
+    protected VersionListingCache createVersionListingCache() {
+        boolean refresh = get(StartParameter.class).isRefreshDependencies();
+        long timeToLive = refresh ? -1 : TimeUnit.SECONDS.toMillis(Integer.getInteger(VersionListingCache.TIME_TO_LIVE_PROPERTY, 0));
+        // Like missing modules and dynamic versions, remember a missing listing for a day by default
+        long missingTimeToLive = refresh ? -1 : TimeUnit.SECONDS.toMillis(Integer.getInteger(VersionListingCache.MISSING_TIME_TO_LIVE_PROPERTY, (int) TimeUnit.DAYS.toSeconds(1)));
+        return new VersionListingCache(
+                new CachedVersionListingIndex(
+                        new File(get(ArtifactCacheMetaData.class).getCacheDir(), "version-listings.bin"),
+                        get(BuildCommencedTimeProvider.class),
+                        get(CacheLockingManager.class)),
+                get(BuildCommencedTimeProvider.class),
+                timeToLive,
+                missingTimeToLive
+        );
+    }
+
     protected PathKeyFileStore createUniquePathFileStore() {
         return new UniquePathKeyFileStore(new File(get(ArtifactCacheMetaData.class).getCacheDir(), "filestore"));
     }
 
     protected ArtifactRevisionIdFileStore createArtifactRevisionIdFileStore() {
-        return new ArtifactRevisionIdFileStore(get(PathKeyFileStore.class), new TmpDirTemporaryFileProvider());
+        ContentAddressedFileStore contentStore = new ContentAddressedFileStore(new File(get(ArtifactCacheMetaData.class).getCacheDir(), "filestore-content"));
+        return new ArtifactRevisionIdFileStore(get(PathKeyFileStore.class), downloadFileProvider(), contentStore, FileSystems.getDefault());
     }
 
     protected SettingsConverter createSettingsConverter() {
@@ -240,13 +280,29 @@ public class DefaultDependencyManagementServices extends DefaultServiceRegistry
         return finderFactory.create();
     }
 
+    protected ParserRegistry createParserRegistry() {
+        return new ParserRegistry(get(GlobalDependencyManagementServices.class).get(ParsedPomCache.class));
+    }
+
     protected LocalFileRepositoryCacheManager createLocalRepositoryCacheManager() {
-        return new LocalFileRepositoryCacheManager("local");
+        return new LocalFileRepositoryCacheManager("local", get(ParserRegistry.class));
     }
 
     protected DownloadingRepositoryCacheManager createDownloadingRepositoryCacheManager() {
         return new DownloadingRepositoryCacheManager("downloading", get(ArtifactRevisionIdFileStore.class), get(ByUrlCachedExternalResourceIndex.class),
-                new TmpDirTemporaryFileProvider(), get(CacheLockingManager.class));
+                downloadFileProvider(), get(CacheLockingManager.class), get(ParserRegistry.class));
+    }
+
+    /**
+     * Places temporary files in the artifact cache, so that a downloaded file can be renamed into the file store rather than copied.
+     */
+    private TemporaryFileProvider downloadFileProvider() {
+        final File downloadDir = new File(get(ArtifactCacheMetaData.class).getCacheDir(), "downloads");
+        return new DefaultTemporaryFileProvider(new Factory<File>() {
+            public File create() {
+                return downloadDir;
+            }
+        });
     }
 
     protected RepositoryTransportFactory createRepositoryTransportFactory() {
@@ -255,7 +311,9 @@ public class DefaultDependencyManagementServices extends DefaultServiceRegistry
                 get(LocalFileRepositoryCacheManager.class),
                 get(DownloadingRepositoryCacheManager.class),
                 new TmpDirTemporaryFileProvider(),
-                get(ByUrlCachedExternalResourceIndex.class)
+                get(ByUrlCachedExternalResourceIndex.class),
+                get(VersionListingCache.class),
+                get(GlobalDependencyManagementServices.class).get(HttpConnectionPool.class)
         );
     }
 
@@ -372,25 +430,68 @@ public class DefaultDependencyManagementServices extends DefaultServiceRegistry
                     get(ArtifactAtRepositoryCachedExternalResourceIndex.class),
                     get(CacheLockingManager.class),
                     startParameterResolutionOverride,
-                    get(BuildCommencedTimeProvider.class));
+                    get(BuildCommencedTimeProvider.class),
+                    remoteLookups(startParameter));
 
             ResolvedArtifactFactory resolvedArtifactFactory = new ResolvedArtifactFactory(
                     get(CacheLockingManager.class)
             );
 
+            ParallelArtifactDownloader artifactDownloader = artifactDownloader(startParameter);
             ArtifactDependencyResolver resolver = new DefaultDependencyResolver(
                     ivyFactory,
                     get(PublishModuleDescriptorConverter.class),
                     resolvedArtifactFactory,
                     new DefaultProjectModuleRegistry(
-                            get(PublishModuleDescriptorConverter.class))
+                            get(PublishModuleDescriptorConverter.class)),
+                    metaDataPrefetcher(startParameter),
+                    artifactDownloader
             );
             return new ErrorHandlingArtifactDependencyResolver(
                     new ShortcircuitEmptyConfigsArtifactDependencyResolver(
                             new SelfResolvingDependencyResolver(
-                                    new CacheLockingArtifactDependencyResolver(
+                                    new CachingArtifactDependencyResolver(
+                                            new CacheLockingArtifactDependencyResolver(
+                                                    get(CacheLockingManager.class),
+                                                    resolver),
+                                            new ResolvedGraphFingerprinter(resolverProvider),
+                                            get(ResolvedGraphCache.class),
                                             get(CacheLockingManager.class),
-                                            resolver))));
+                                            artifactDownloader,
+                                            startParameter.isRefreshDependencies()))));
+        }
+
+        private ModuleMetaDataPrefetcher metaDataPrefetcher(StartParameter startParameter) {
+            int resolutionThreads = resolutionThreads(startParameter);
+            if (resolutionThreads > 1) {
+                return new ModuleMetaDataPrefetcher(get(CacheLockingManager.class), get(ExecutorFactory.class), resolutionThreads);
+            }
+            return null;
+        }
+
+        private ParallelRemoteLookups remoteLookups(StartParameter startParameter) {
+            int resolutionThreads = resolutionThreads(startParameter);
+            if (resolutionThreads > 1) {
+                return new ParallelRemoteLookups(get(CacheLockingManager.class), get(ExecutorFactory.class), resolutionThreads);
+            }
+            return null;
+        }
+
+        private ParallelArtifactDownloader artifactDownloader(StartParameter startParameter) {
+            int resolutionThreads = resolutionThreads(startParameter);
+            if (resolutionThreads > 1) {
+                return new ParallelArtifactDownloader(get(ExecutorFactory.class), get(ProgressLoggerFactory.class), resolutionThreads);
+            }
+            return null;
+        }
+
+        private int resolutionThreads(StartParameter startParameter) {
+            int resolutionThreads = startParameter.getDependencyResolutionThreadCount();
+            if (resolutionThreads < 0) {
+                // Resolution mostly waits on the network, so use more threads than there are processors
+                resolutionThreads = 2 * Runtime.getRuntime().availableProcessors();
+            }
+            return resolutionThreads;
         }
 
         ArtifactPublisher createArtifactPublisher(ResolverProvider resolverProvider) {
@@ -24,6 +24,7 @@ import org.gradle.internal.Factory;
 import org.gradle.util.DeprecationLogger;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -40,13 +41,17 @@ public class DefaultResolvedArtifact implements ResolvedArtifact {
     private File file;
 
     public DefaultResolvedArtifact(ResolvedDependency resolvedDependency, Artifact artifact, Factory<File> artifactSource) {
-        this.resolvedDependency = resolvedDependency;
         // Unpack the stuff that we're interested from the artifact and discard. The artifact instance drags in a whole pile of stuff that
         // we don't want to retain references to.
-        this.name = artifact.getName();
-        this.type = artifact.getType();
-        this.ext = artifact.getExt();
-        this.extraAttributes = new HashMap<String, String>(artifact.getQualifiedExtraAttributes());
+        this(resolvedDependency, artifact.getName(), artifact.getType(), artifact.getExt(), artifact.getQualifiedExtraAttributes(), artifactSource);
+    }
+
+    public DefaultResolvedArtifact(ResolvedDependency resolvedDependency, String name, String type, String ext, Map<String, String> extraAttributes, Factory<File> artifactSource) {
+        this.resolvedDependency = resolvedDependency;
+        this.name = name;
+        this.type = type;
+        this.ext = ext;
+        this.extraAttributes = new HashMap<String, String>(extraAttributes);
         this.artifactSource = artifactSource;
     }
 
@@ -114,8 +119,19 @@ public class DefaultResolvedArtifact implements ResolvedArtifact {
     public String getClassifier() {
         return extraAttributes.get(Dependency.CLASSIFIER);
     }
+
+    public Map<String, String> getExtraAttributes() {
+        return Collections.unmodifiableMap(extraAttributes);
+    }
     
-    public File getFile() {
+    /**
+     * Returns true if the file for this artifact has been resolved.
+     */
+    public synchronized boolean isResolved() {
+        return artifactSource == null;
+    }
+
+    public synchronized File getFile() {
         if (file == null) {
             file = artifactSource.create();
             artifactSource = null;
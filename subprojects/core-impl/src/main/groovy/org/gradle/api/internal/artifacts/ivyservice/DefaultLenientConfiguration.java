@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.*;
 import org.gradle.api.internal.CachingDirectedGraphWalker;
 import org.gradle.api.internal.DirectedGraphWithEdgeValues;
@@ -33,10 +34,20 @@ public class DefaultLenientConfiguration implements ResolvedConfigurationBuilder
     private final Set<UnresolvedDependency> unresolvedDependencies = new LinkedHashSet<UnresolvedDependency>();
     private final CachingDirectedGraphWalker<ResolvedDependency, ResolvedArtifact> walker
             = new CachingDirectedGraphWalker<ResolvedDependency, ResolvedArtifact>(new ResolvedDependencyArtifactsGraph());
+    private final ParallelArtifactDownloader downloader;
 
     public DefaultLenientConfiguration(Configuration configuration, ResolvedDependency root) {
+        this(configuration, root, null);
+    }
+
+    /**
+     * @param downloader Used to download the files of the artifacts concurrently before they are used. May be null, in which case each file is downloaded
+     * when it is first used.
+     */
+    public DefaultLenientConfiguration(Configuration configuration, ResolvedDependency root, @Nullable ParallelArtifactDownloader downloader) {
         this.configuration = configuration;
         this.root = root;
+        this.downloader = downloader;
     }
 
     public boolean hasError() {
@@ -65,6 +76,13 @@ public class DefaultLenientConfiguration implements ResolvedConfigurationBuilder
         return root;
     }
 
+    /**
+     * Returns the resolved dependency that each of the first level module dependencies of the configuration refers to.
+     */
+    public Map<ModuleDependency, ResolvedDependency> getFirstLevelDependencies() {
+        return firstLevelDependencies;
+    }
+
     public void addFirstLevelDependency(ModuleDependency moduleDependency, ResolvedDependency refersTo) {
         firstLevelDependencies.put(moduleDependency, refersTo);
     }
@@ -108,6 +126,7 @@ public class DefaultLenientConfiguration implements ResolvedConfigurationBuilder
      */
     public Set<ResolvedArtifact> getArtifacts(Spec<? super Dependency> dependencySpec) {
         Set<ResolvedArtifact> allArtifacts = getAllArtifacts(dependencySpec);
+        download(allArtifacts);
         return CollectionUtils.filter(allArtifacts, new Spec<ResolvedArtifact>() {
             public boolean isSatisfiedBy(ResolvedArtifact element) {
                 try {
@@ -121,6 +140,7 @@ public class DefaultLenientConfiguration implements ResolvedConfigurationBuilder
     }
 
     private Set<File> getFiles(Set<ResolvedArtifact> artifacts) {
+        download(artifacts);
         Set<File> files = new LinkedHashSet<File>();
         for (ResolvedArtifact artifact : artifacts) {
             File depFile = artifact.getFile();
@@ -131,6 +151,12 @@ public class DefaultLenientConfiguration implements ResolvedConfigurationBuilder
         return files;
     }
 
+    private void download(Set<ResolvedArtifact> artifacts) {
+        if (downloader != null) {
+            downloader.download(artifacts);
+        }
+    }
+
     /**
      * Recursive, includes unsuccessfully resolved artifacts
      *
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.gradle.api.artifacts.ResolvedArtifact;
+import org.gradle.api.internal.artifacts.DefaultResolvedArtifact;
+import org.gradle.internal.concurrent.BoundedBatchExecutor;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.logging.ProgressLogger;
+import org.gradle.logging.ProgressLoggerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Downloads the files for a batch of resolved artifacts concurrently, using at most the given number of threads. Each artifact keeps its file once it has
+ * been downloaded. A download that fails is ignored, so that the failure is reported when the caller asks the artifact for its file.
+ *
+ * <p>Must not be called by a thread that holds the artifact cache lock.</p>
+ */
+public class ParallelArtifactDownloader {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelArtifactDownloader.class);
+    private final ProgressLoggerFactory progressLoggerFactory;
+    private final BoundedBatchExecutor executor;
+
+    public ParallelArtifactDownloader(ExecutorFactory executorFactory, ProgressLoggerFactory progressLoggerFactory, int maxThreads) {
+        this.progressLoggerFactory = progressLoggerFactory;
+        this.executor = new BoundedBatchExecutor(executorFactory, "Artifact downloader", maxThreads);
+    }
+
+    public void download(Collection<? extends ResolvedArtifact> artifacts) {
+        final List<ResolvedArtifact> downloads = new ArrayList<ResolvedArtifact>();
+        for (ResolvedArtifact artifact : artifacts) {
+            if (artifact instanceof DefaultResolvedArtifact && !((DefaultResolvedArtifact) artifact).isResolved()) {
+                downloads.add(artifact);
+            }
+        }
+        if (Math.min(executor.getMaxThreads(), downloads.size()) < 2) {
+            return;
+        }
+
+        final ProgressLogger progressLogger = progressLoggerFactory.newOperation(ParallelArtifactDownloader.class);
+        progressLogger.setDescription(String.format("Download %d artifacts", downloads.size()));
+        progressLogger.started();
+
+        final AtomicInteger completed = new AtomicInteger();
+        List<Runnable> jobs = new ArrayList<Runnable>(downloads.size());
+        for (final ResolvedArtifact artifact : downloads) {
+            jobs.add(new Runnable() {
+                public void run() {
+                    download(artifact);
+                    String status = String.format("%d/%d artifacts", completed.incrementAndGet(), downloads.size());
+                    synchronized (progressLogger) {
+                        progressLogger.progress(status);
+                    }
+                }
+            });
+        }
+        try {
+            executor.run(jobs);
+        } finally {
+            progressLogger.completed();
+        }
+    }
+
+    private void download(ResolvedArtifact artifact) {
+        try {
+            artifact.getFile();
+        } catch (Throwable throwable) {
+            LOGGER.debug(String.format("Could not download %s.", artifact), throwable);
+        }
+    }
+}
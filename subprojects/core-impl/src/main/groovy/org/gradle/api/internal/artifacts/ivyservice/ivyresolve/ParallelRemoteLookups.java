@@ -0,0 +1,129 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve;
+
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.internal.concurrent.BoundedBatchExecutor;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the remote lookups for a dependency concurrently, using at most the given number of threads. Each lookup runs while holding the artifact cache lock,
+ * which it releases while it talks to a repository. Lookups are started in the order they are given, and those not yet started when the batch is cancelled
+ * are never run.
+ */
+public class ParallelRemoteLookups {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelRemoteLookups.class);
+    private final CacheLockingManager cacheLockingManager;
+    private final BoundedBatchExecutor executor;
+
+    public ParallelRemoteLookups(CacheLockingManager cacheLockingManager, ExecutorFactory executorFactory, int maxThreads) {
+        this.cacheLockingManager = cacheLockingManager;
+        this.executor = new BoundedBatchExecutor(executorFactory, "Remote repository lookup", maxThreads);
+    }
+
+    /**
+     * Starts the given lookups. Must be called by the thread that holds the artifact cache lock. A single lookup is run on the calling thread.
+     */
+    public Batch start(List<? extends Runnable> lookups) {
+        if (lookups.size() < 2) {
+            for (Runnable lookup : lookups) {
+                new Lookup(lookup).run();
+            }
+            return new Batch(lookups, null, null);
+        }
+        BoundedBatchExecutor.Batch batch = executor.start();
+        List<BoundedBatchExecutor.Job> jobs = new ArrayList<BoundedBatchExecutor.Job>(lookups.size());
+        for (Runnable lookup : lookups) {
+            jobs.add(batch.add(new Lookup(lookup)));
+        }
+        return new Batch(lookups, batch, jobs);
+    }
+
+    private class Lookup implements Runnable {
+        private final Runnable lookup;
+
+        private Lookup(Runnable lookup) {
+            this.lookup = lookup;
+        }
+
+        public void run() {
+            try {
+                cacheLockingManager.useCache(String.format("Look up %s", lookup), lookup);
+            } catch (Throwable throwable) {
+                LOGGER.debug(String.format("Could not look up %s.", lookup), throwable);
+            }
+        }
+    }
+
+    public class Batch {
+        private final List<? extends Runnable> lookups;
+        private final BoundedBatchExecutor.Batch batch;
+        private final List<BoundedBatchExecutor.Job> jobs;
+
+        private Batch(List<? extends Runnable> lookups, BoundedBatchExecutor.Batch batch, List<BoundedBatchExecutor.Job> jobs) {
+            this.lookups = lookups;
+            this.batch = batch;
+            this.jobs = jobs;
+        }
+
+        /**
+         * Blocks until the lookup at the given index has completed. Must be called by the thread that holds the artifact cache lock, and not after
+         * this batch has been cancelled.
+         */
+        public void await(int index) {
+            if (batch == null) {
+                return;
+            }
+            final BoundedBatchExecutor.Job job = jobs.get(index);
+            if (job.isFinished()) {
+                return;
+            }
+            cacheLockingManager.longRunningOperation(String.format("Wait for %s", lookups.get(index)), new Runnable() {
+                public void run() {
+                    job.await();
+                }
+            });
+        }
+
+        /**
+         * Prevents any lookups which have not yet started from being run, and blocks until those in progress have completed. Must be called by the thread
+         * that holds the artifact cache lock.
+         */
+        public void cancel() {
+            if (batch == null) {
+                return;
+            }
+            batch.cancel();
+            boolean finished = true;
+            for (BoundedBatchExecutor.Job job : jobs) {
+                finished &= job.isFinished();
+            }
+            if (finished) {
+                return;
+            }
+            cacheLockingManager.longRunningOperation(String.format("Wait for lookups of %d repositories", lookups.size()), new Runnable() {
+                public void run() {
+                    batch.await();
+                }
+            });
+        }
+    }
+}
@@ -22,6 +22,7 @@ import org.apache.ivy.core.module.id.ModuleRevisionId;
 import org.apache.ivy.plugins.latest.ArtifactInfo;
 import org.apache.ivy.plugins.latest.ComparatorLatestStrategy;
 import org.apache.ivy.plugins.resolver.ResolverSettings;
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.artifacts.ivyservice.BuildableModuleVersionResolveResult;
 import org.gradle.api.internal.artifacts.ivyservice.DependencyToModuleResolver;
 import org.gradle.api.internal.artifacts.ivyservice.ModuleVersionResolveException;
@@ -35,8 +36,20 @@ public class UserResolverChain implements DependencyToModuleResolver {
 
     private final List<LocalAwareModuleVersionRepository> moduleVersionRepositories = new ArrayList<LocalAwareModuleVersionRepository>();
     private final List<String> moduleVersionRepositoryNames = new ArrayList<String>();
+    private final ParallelRemoteLookups remoteLookups;
     private ResolverSettings settings;
 
+    public UserResolverChain() {
+        this(null);
+    }
+
+    /**
+     * @param remoteLookups Used to search the remote repositories concurrently. When null, the repositories are searched one at a time.
+     */
+    public UserResolverChain(@Nullable ParallelRemoteLookups remoteLookups) {
+        this.remoteLookups = remoteLookups;
+    }
+
     public void setSettings(ResolverSettings settings) {
         this.settings = settings;
     }
@@ -87,6 +100,9 @@ public class UserResolverChain implements DependencyToModuleResolver {
 
     private ModuleResolution findLatestModule(DependencyDescriptor dependencyDescriptor, LinkedList<RepositoryResolveState> queue, Collection<Throwable> failures, Collection<RepositoryResolveState> missing) {
         boolean isStaticVersion = !settings.getVersionMatcher().isDynamic(dependencyDescriptor.getDependencyRevisionId());
+        if (remoteLookups != null && !isStaticVersion) {
+            return findLatestModuleInParallel(dependencyDescriptor, queue, failures, missing);
+        }
         ModuleResolution best = null;
         while (!queue.isEmpty()) {
             RepositoryResolveState request = queue.removeFirst();
@@ -126,6 +142,72 @@ public class UserResolverChain implements DependencyToModuleResolver {
         return best;
     }
 
+    /**
+     * Does the same work as the serial search for a dynamic version, but starts all the remote searches required for this pass at once, rather than one
+     * after another. Every repository is searched for a dynamic version, so no repository is searched that the serial search would not have searched.
+     * The results are still considered in repository order. A static version is always searched for serially, so that a repository is only searched
+     * once all the earlier repositories have missed.
+     */
+    private ModuleResolution findLatestModuleInParallel(final DependencyDescriptor dependencyDescriptor, LinkedList<RepositoryResolveState> queue, Collection<Throwable> failures, Collection<RepositoryResolveState> missing) {
+        // Search locally first
+        List<RepositoryResolveState> requests = new ArrayList<RepositoryResolveState>();
+        List<Runnable> lookups = new ArrayList<Runnable>();
+        while (!queue.isEmpty()) {
+            final RepositoryResolveState request = queue.removeFirst();
+            requests.add(request);
+            if (request.searchedLocally) {
+                // Queued up by an earlier pass
+                request.remoteLookup = lookups.size();
+                lookups.add(new RemoteLookup(request, dependencyDescriptor));
+                continue;
+            }
+            request.tryResolve(dependencyDescriptor);
+            if (request.failure != null) {
+                continue;
+            }
+            if (request.descriptor.getState() == BuildableModuleVersionDescriptor.State.Unknown) {
+                request.remoteLookup = lookups.size();
+                lookups.add(new RemoteLookup(request, dependencyDescriptor));
+            }
+        }
+        queue.clear();
+
+        ParallelRemoteLookups.Batch batch = remoteLookups.start(lookups);
+        try {
+            ModuleResolution best = null;
+            for (RepositoryResolveState request : requests) {
+                if (request.remoteLookup >= 0) {
+                    batch.await(request.remoteLookup);
+                }
+                if (request.failure != null) {
+                    failures.add(request.failure);
+                    continue;
+                }
+                switch (request.descriptor.getState()) {
+                    case Missing:
+                        break;
+                    case ProbablyMissing:
+                        // Queue this up for checking again later
+                        if (request.canMakeFurtherAttempts()) {
+                            missing.add(request);
+                        }
+                        break;
+                    case Unknown:
+                        // Has already been searched remotely
+                        break;
+                    case Resolved:
+                        best = chooseBest(best, new ModuleResolution(request.repository, request.descriptor));
+                        break;
+                    default:
+                        throw new IllegalStateException("Unexpected state for resolution: " + request.descriptor.getState());
+                }
+            }
+            return best;
+        } finally {
+            batch.cancel();
+        }
+    }
+
     private ModuleResolution chooseBest(ModuleResolution one, ModuleResolution two) {
         if (one == null || two == null) {
             return two == null ? one : two;
@@ -153,6 +235,8 @@ public class UserResolverChain implements DependencyToModuleResolver {
         final DefaultBuildableModuleVersionDescriptor descriptor = new DefaultBuildableModuleVersionDescriptor();
         boolean searchedLocally;
         boolean searchedRemotely;
+        int remoteLookup = -1;
+        Throwable failure;
 
         private RepositoryResolveState(LocalAwareModuleVersionRepository repository) {
             this.repository = repository;
@@ -171,11 +255,38 @@ public class UserResolverChain implements DependencyToModuleResolver {
             }
         }
 
+        void tryResolve(DependencyDescriptor dependencyDescriptor) {
+            try {
+                resolve(dependencyDescriptor);
+            } catch (Throwable t) {
+                failure = t;
+            }
+        }
+
         public boolean canMakeFurtherAttempts() {
             return !searchedRemotely;
         }
     }
 
+    private static class RemoteLookup implements Runnable {
+        private final RepositoryResolveState request;
+        private final DependencyDescriptor dependencyDescriptor;
+
+        private RemoteLookup(RepositoryResolveState request, DependencyDescriptor dependencyDescriptor) {
+            this.request = request;
+            this.dependencyDescriptor = dependencyDescriptor;
+        }
+
+        public void run() {
+            request.tryResolve(dependencyDescriptor);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s using repository %s", dependencyDescriptor.getDependencyRevisionId(), request.repository.getName());
+        }
+    }
+
     private static class ModuleResolution implements ArtifactInfo {
         public final ModuleVersionRepository repository;
         public final ModuleVersionDescriptor module;
@@ -32,13 +32,19 @@ import org.apache.ivy.plugins.repository.Resource;
 import org.apache.ivy.plugins.repository.url.URLResource;
 import org.apache.ivy.plugins.resolver.DependencyResolver;
 import org.apache.ivy.util.Message;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleDescriptorSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolvedgraph.ResolvedGraphFingerprinter;
 import org.xml.sax.SAXException;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -48,6 +54,13 @@ import java.util.Map;
  * number of remote call in half to resolve a module.
  */
 public final class GradlePomModuleDescriptorParser implements ModuleDescriptorParser {
+    private final ParsedPomCache parsedPomCache;
+    private final ModuleDescriptorSerializer serializer = new ModuleDescriptorSerializer(this);
+
+    public GradlePomModuleDescriptorParser(ParsedPomCache parsedPomCache) {
+        this.parsedPomCache = parsedPomCache;
+    }
+
     public void toIvyFile(InputStream is, Resource res, File destFile, ModuleDescriptor md)
             throws ParseException, IOException {
         throw new UnsupportedOperationException();
@@ -78,7 +91,51 @@ public final class GradlePomModuleDescriptorParser implements ModuleDescriptorPa
 
     public ModuleDescriptor parseDescriptor(ParserSettings ivySettings, URL descriptorURL,
                                             Resource res, boolean validate) throws ParseException, IOException {
+        if (!descriptorURL.getProtocol().equals("file") || !(ivySettings instanceof ModuleScopedParserSettings)) {
+            return doParseDescriptor(ivySettings, descriptorURL, res, validate, new ArrayList<ModuleRevisionId>());
+        }
+
+        String resolverScope = ((ModuleScopedParserSettings) ivySettings).getResolverScope();
+        ParsedPomCache.Key key = parsedPomCache.createKey(toFile(descriptorURL), res.getLastModified(), validate, resolverScope);
+        byte[] serializedDescriptor = parsedPomCache.get(key);
+        if (serializedDescriptor != null) {
+            DefaultModuleDescriptor descriptor = (DefaultModuleDescriptor) serializer.read(new ByteArrayInputStream(serializedDescriptor), ivySettings);
+            descriptor.setModuleArtifact(getMetadataArtifact(descriptor.getModuleRevisionId(), res));
+            return descriptor;
+        }
+        List<ModuleRevisionId> otherPoms = new ArrayList<ModuleRevisionId>();
+        ModuleDescriptor descriptor = doParseDescriptor(ivySettings, descriptorURL, res, validate, otherPoms);
+        if (!dependsOnChangingPom(otherPoms)) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            serializer.write(descriptor, outputStream);
+            parsedPomCache.put(key, outputStream.toByteArray());
+        }
+        return descriptor;
+    }
+
+    private File toFile(URL url) throws IOException {
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException(e.getMessage());
+        }
+    }
+
+    /**
+     * The result of parsing a POM includes content from its parent POM and the POM it is relocated to. When either of these may change over time, the
+     * result cannot be reused even though this POM has not changed.
+     */
+    private boolean dependsOnChangingPom(List<ModuleRevisionId> otherPoms) {
+        for (ModuleRevisionId otherPom : otherPoms) {
+            if (ResolvedGraphFingerprinter.isDynamicOrChanging(otherPom.getRevision())) {
+                return true;
+            }
+        }
+        return false;
+    }
 
+    private ModuleDescriptor doParseDescriptor(ParserSettings ivySettings, URL descriptorURL, Resource res, boolean validate,
+                                               List<ModuleRevisionId> otherPoms) throws ParseException, IOException {
         GradlePomModuleDescriptorBuilder mdBuilder = new GradlePomModuleDescriptorBuilder(this, res, ivySettings);
 
         try {
@@ -103,6 +160,7 @@ public final class GradlePomModuleDescriptorParser implements ModuleDescriptorPa
                         domReader.getParentGroupId(),
                         domReader.getParentArtifactId(),
                         domReader.getParentVersion());
+                otherPoms.add(parentModRevID);
                 ResolvedModuleRevision parentModule = parseOtherPom(ivySettings,
                         parentModRevID);
                 if (parentModule != null) {
@@ -142,6 +200,7 @@ public final class GradlePomModuleDescriptorParser implements ModuleDescriptorPa
                             + ". Please update your dependency to directly use the right version.");
                     Message.warn("Resolution will only pick dependencies of the relocated element."
                             + "  Artefact and other metadata will be ignored.");
+                    otherPoms.add(relocation);
                     ResolvedModuleRevision relocatedModule = parseOtherPom(ivySettings, relocation);
                     if (relocatedModule == null) {
                         throw new ParseException("impossible to load module "
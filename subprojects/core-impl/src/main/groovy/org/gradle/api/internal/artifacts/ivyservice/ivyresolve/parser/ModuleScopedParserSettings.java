@@ -20,13 +20,18 @@ import org.apache.ivy.core.cache.ResolutionCacheManager;
 import org.apache.ivy.core.module.id.ModuleId;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
 import org.apache.ivy.core.module.status.StatusManager;
+import org.apache.ivy.core.settings.IvySettings;
 import org.apache.ivy.plugins.conflict.ConflictManager;
 import org.apache.ivy.plugins.matcher.PatternMatcher;
 import org.apache.ivy.plugins.namespace.Namespace;
 import org.apache.ivy.plugins.parser.ParserSettings;
 import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.DependencyResolverIdentifier;
+import org.gradle.util.CollectionUtils;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -52,6 +57,20 @@ public class ModuleScopedParserSettings implements ParserSettings {
         return settings.getResolver(mRevId);
     }
 
+    /**
+     * Returns an identifier for the repositories which are searched for other modules using these settings.
+     */
+    public String getResolverScope() {
+        List<String> ids = new ArrayList<String>();
+        ids.add(new DependencyResolverIdentifier(currentResolver).getUniqueId());
+        if (settings instanceof IvySettings) {
+            for (Object resolver : ((IvySettings) settings).getResolvers()) {
+                ids.add(new DependencyResolverIdentifier((DependencyResolver) resolver).getUniqueId());
+            }
+        }
+        return CollectionUtils.join(",", ids);
+    }
+
     public ConflictManager getConflictManager(String name) {
         return settings.getConflictManager(name);
     }
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import org.gradle.api.Nullable;
+import org.gradle.util.hash.HashUtil;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, thread-safe, in-memory cache of parsed POM files, shared by all builds in this process so that a POM which is used by many modules,
+ * such as a shared parent POM, is parsed only once per daemon. Entries are keyed by the POM file, a checksum of its content and the repositories
+ * searched for its parent and imported POMs, so a POM which has changed, or which is parsed for a different set of repositories, is parsed again.
+ * The least recently used entries are discarded once the cache is full.
+ *
+ * <p>Each entry holds the parsed module descriptor in serialized form, so that every caller gets its own copy of the descriptor.</p>
+ *
+ * <p>The size of the cache can be changed using the {@value #MAX_ENTRIES_PROPERTY} system property.</p>
+ */
+public class ParsedPomCache {
+    public static final String MAX_ENTRIES_PROPERTY = "org.gradle.pom.cacheSize";
+    public static final int DEFAULT_MAX_ENTRIES = 500;
+
+    private final Map<Key, byte[]> entries;
+
+    public ParsedPomCache(final int maxEntries) {
+        entries = new LinkedHashMap<Key, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, byte[]> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Creates the key for the given POM file, including a checksum of its current content.
+     *
+     * @param resolverScope Identifies the repositories which are searched for the parent and imported POMs of the POM.
+     */
+    public Key createKey(File pomFile, long lastModified, boolean validate, String resolverScope) {
+        return new Key(pomFile.getAbsolutePath(), HashUtil.sha1(pomFile).asHexString(), lastModified, validate, resolverScope);
+    }
+
+    @Nullable
+    public synchronized byte[] get(Key key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(Key key, byte[] serializedDescriptor) {
+        entries.put(key, serializedDescriptor);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public static class Key {
+        private final String path;
+        private final String checksum;
+        private final long lastModified;
+        private final boolean validate;
+        private final String resolverScope;
+
+        private Key(String path, String checksum, long lastModified, boolean validate, String resolverScope) {
+            this.path = path;
+            this.checksum = checksum;
+            this.lastModified = lastModified;
+            this.validate = validate;
+            this.resolverScope = resolverScope;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (o == null || o.getClass() != getClass()) {
+                return false;
+            }
+            Key other = (Key) o;
+            return path.equals(other.path) && checksum.equals(other.checksum) && lastModified == other.lastModified && validate == other.validate
+                    && resolverScope.equals(other.resolverScope);
+        }
+
+        @Override
+        public int hashCode() {
+            return path.hashCode() ^ checksum.hashCode() ^ resolverScope.hashCode();
+        }
+    }
+}
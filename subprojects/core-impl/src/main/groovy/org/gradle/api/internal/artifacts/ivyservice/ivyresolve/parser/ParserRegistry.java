@@ -24,8 +24,8 @@ import java.util.List;
 public class ParserRegistry {
     private List<ModuleDescriptorParser> parsers = new ArrayList<ModuleDescriptorParser>();
 
-    public ParserRegistry() {
-        parsers.add(new GradlePomModuleDescriptorParser());
+    public ParserRegistry(ParsedPomCache parsedPomCache) {
+        parsers.add(new GradlePomModuleDescriptorParser(parsedPomCache));
         parsers.add(new DownloadedIvyModuleDescriptorParser());
     }
 
@@ -0,0 +1,473 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import org.apache.ivy.core.IvyPatternHelper;
+import org.apache.ivy.core.module.descriptor.*;
+import org.apache.ivy.core.module.id.ArtifactId;
+import org.apache.ivy.core.module.id.ModuleId;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.plugins.matcher.MapMatcher;
+import org.apache.ivy.plugins.matcher.PatternMatcher;
+import org.apache.ivy.plugins.namespace.Namespace;
+import org.apache.ivy.plugins.parser.ModuleDescriptorParser;
+import org.apache.ivy.plugins.parser.ParserSettings;
+import org.gradle.api.Nullable;
+
+import java.io.*;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * Reads and writes module descriptors in a compact binary format, so that cached descriptors can be loaded without
+ * parsing ivy.xml. Holds the same information as {@link org.gradle.api.internal.artifacts.ivyservice.IvyXmlModuleDescriptorWriter}
+ * writes.
+ */
+public class ModuleDescriptorSerializer {
+    private static final int MAGIC = 0x47444d44;
+    private static final int FORMAT_VERSION = 1;
+
+    private final ModuleDescriptorParser parser;
+
+    public ModuleDescriptorSerializer(ModuleDescriptorParser parser) {
+        this.parser = parser;
+    }
+
+    public void write(ModuleDescriptor md, OutputStream outputStream) throws IOException {
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream));
+        output.writeInt(MAGIC);
+        output.writeInt(FORMAT_VERSION);
+        writeInfo(md, output);
+        writeConfigurations(md, output);
+        writeArtifacts(md, output);
+        writeDependencies(md, output);
+        writeExcludes(md.getAllExcludeRules(), output);
+        writeMediators(md, output);
+        output.flush();
+    }
+
+    /**
+     * Reads a descriptor written by {@link #write}.
+     *
+     * @throws IOException If the content is not a descriptor in the current format.
+     */
+    public ModuleDescriptor read(InputStream inputStream, ParserSettings settings) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream));
+        if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+            throw new IOException("Unexpected module descriptor format.");
+        }
+        DefaultModuleDescriptor md = new DefaultModuleDescriptor(parser, null);
+        readInfo(md, input, settings);
+        readConfigurations(md, input);
+        readArtifacts(md, input);
+        readDependencies(md, input, settings);
+        for (ExcludeRule rule : readExcludes(input, settings)) {
+            md.addExcludeRule(rule);
+        }
+        readMediators(md, input, settings);
+        md.setModuleArtifact(DefaultArtifact.newIvyArtifact(md.getResolvedModuleRevisionId(), md.getPublicationDate()));
+        return md;
+    }
+
+    private void writeInfo(ModuleDescriptor md, DataOutputStream output) throws IOException {
+        ModuleRevisionId id = md.getModuleRevisionId();
+        ModuleRevisionId resolvedId = md.getResolvedModuleRevisionId();
+        writeModuleRevisionId(ModuleRevisionId.newInstance(id.getOrganisation(), id.getName(), resolvedId.getBranch(), resolvedId.getRevision(), id.getQualifiedExtraAttributes()), output);
+        writeString(md.getStatus(), output);
+        output.writeLong(md.getResolvedPublicationDate().getTime());
+        output.writeBoolean(md.isDefault());
+        DefaultModuleDescriptor dmd = md instanceof DefaultModuleDescriptor ? (DefaultModuleDescriptor) md : null;
+        output.writeBoolean(dmd != null && dmd.isMappingOverride());
+        Namespace namespace = dmd == null ? null : dmd.getNamespace();
+        writeString(namespace == null || namespace.getName().equals("system") ? null : namespace.getName(), output);
+        writeMap(md.getExtraAttributesNamespaces(), output);
+
+        ExtendsDescriptor[] parents = md.getInheritedDescriptors();
+        output.writeInt(parents.length);
+        for (ExtendsDescriptor parent : parents) {
+            writeModuleRevisionId(parent.getParentRevisionId(), output);
+            writeModuleRevisionId(parent.getResolvedParentRevisionId(), output);
+            writeString(parent.getLocation(), output);
+            writeStrings(parent.getExtendsTypes(), output);
+        }
+        License[] licenses = md.getLicenses();
+        output.writeInt(licenses.length);
+        for (License license : licenses) {
+            writeString(license.getName(), output);
+            writeString(license.getUrl(), output);
+        }
+        writeString(md.getHomePage(), output);
+        writeString(md.getDescription(), output);
+        writeMap(md.getExtraInfo(), output);
+    }
+
+    private void readInfo(DefaultModuleDescriptor md, DataInputStream input, ParserSettings settings) throws IOException {
+        ModuleRevisionId id = readModuleRevisionId(input);
+        md.setModuleRevisionId(id);
+        md.setResolvedModuleRevisionId(id);
+        md.setStatus(readString(input));
+        Date publicationDate = new Date(input.readLong());
+        md.setPublicationDate(publicationDate);
+        md.setResolvedPublicationDate(publicationDate);
+        md.setDefault(input.readBoolean());
+        md.setMappingOverride(input.readBoolean());
+        String namespace = readString(input);
+        if (namespace != null && settings.getNamespace(namespace) != null) {
+            md.setNamespace(settings.getNamespace(namespace));
+        }
+        for (Map.Entry<String, String> entry : readMap(input).entrySet()) {
+            md.addExtraAttributeNamespace(entry.getKey(), entry.getValue());
+        }
+
+        int parents = input.readInt();
+        for (int i = 0; i < parents; i++) {
+            ModuleRevisionId parentId = readModuleRevisionId(input);
+            ModuleRevisionId resolvedParentId = readModuleRevisionId(input);
+            String location = readString(input);
+            md.addInheritedDescriptor(new DefaultExtendsDescriptor(parentId, resolvedParentId, location, readStrings(input)));
+        }
+        int licenses = input.readInt();
+        for (int i = 0; i < licenses; i++) {
+            String name = readString(input);
+            md.addLicense(new License(name, readString(input)));
+        }
+        md.setHomePage(readString(input));
+        md.setDescription(readString(input));
+        for (Map.Entry<String, String> entry : readMap(input).entrySet()) {
+            md.addExtraInfo(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void writeConfigurations(ModuleDescriptor md, DataOutputStream output) throws IOException {
+        Configuration[] configurations = md.getConfigurations();
+        output.writeInt(configurations.length);
+        for (Configuration configuration : configurations) {
+            writeString(configuration.getName(), output);
+            writeString(configuration.getVisibility().toString(), output);
+            writeString(configuration.getDescription(), output);
+            writeStrings(configuration.getExtends(), output);
+            output.writeBoolean(configuration.isTransitive());
+            writeString(configuration.getDeprecated(), output);
+            writeMap(configuration.getQualifiedExtraAttributes(), output);
+        }
+    }
+
+    private void readConfigurations(DefaultModuleDescriptor md, DataInputStream input) throws IOException {
+        int count = input.readInt();
+        for (int i = 0; i < count; i++) {
+            String name = readString(input);
+            Configuration.Visibility visibility = Configuration.Visibility.getVisibility(readString(input));
+            String description = readString(input);
+            String[] extendsFrom = readStrings(input);
+            boolean transitive = input.readBoolean();
+            String deprecated = readString(input);
+            Configuration configuration = new Configuration(name, visibility, description, extendsFrom, transitive, deprecated);
+            for (Map.Entry<String, String> entry : readMap(input).entrySet()) {
+                configuration.setExtraAttribute(entry.getKey(), entry.getValue());
+            }
+            md.addConfiguration(configuration);
+        }
+    }
+
+    private void writeArtifacts(ModuleDescriptor md, DataOutputStream output) throws IOException {
+        Artifact[] artifacts = md.getAllArtifacts();
+        String[] configurations = md.getConfigurationsNames();
+        output.writeInt(artifacts.length);
+        for (Artifact artifact : artifacts) {
+            writeString(artifact.getName(), output);
+            writeString(artifact.getType(), output);
+            writeString(artifact.getExt(), output);
+            writeString(artifact.getUrl() == null ? null : artifact.getUrl().toString(), output);
+            writeMap(artifact.getQualifiedExtraAttributes(), output);
+            List<String> artifactConfigurations = new ArrayList<String>();
+            for (String configuration : configurations) {
+                if (Arrays.asList(md.getArtifacts(configuration)).contains(artifact)) {
+                    artifactConfigurations.add(configuration);
+                }
+            }
+            writeStrings(artifactConfigurations.toArray(new String[artifactConfigurations.size()]), output);
+        }
+    }
+
+    private void readArtifacts(DefaultModuleDescriptor md, DataInputStream input) throws IOException {
+        int count = input.readInt();
+        for (int i = 0; i < count; i++) {
+            String name = readString(input);
+            String type = readString(input);
+            String ext = readString(input);
+            URL url = readUrl(input);
+            MDArtifact artifact = new MDArtifact(md, name, type, ext, url, readMap(input));
+            for (String configuration : readStrings(input)) {
+                artifact.addConfiguration(configuration);
+                md.addArtifact(configuration, artifact);
+            }
+        }
+    }
+
+    private void writeDependencies(ModuleDescriptor md, DataOutputStream output) throws IOException {
+        DependencyDescriptor[] dependencies = md.getDependencies();
+        output.writeInt(dependencies.length);
+        for (DependencyDescriptor dependency : dependencies) {
+            writeModuleRevisionId(dependency.getDependencyRevisionId(), output);
+            writeModuleRevisionId(dependency.getDynamicConstraintDependencyRevisionId(), output);
+            output.writeBoolean(dependency.isForce());
+            output.writeBoolean(dependency.isChanging());
+            output.writeBoolean(dependency.isTransitive());
+
+            String[] moduleConfigurations = dependency.getModuleConfigurations();
+            output.writeInt(moduleConfigurations.length);
+            for (String moduleConfiguration : moduleConfigurations) {
+                writeString(moduleConfiguration, output);
+                writeStrings(dependency.getDependencyConfigurations(moduleConfiguration), output);
+            }
+
+            DependencyArtifactDescriptor[] artifacts = dependency.getAllDependencyArtifacts();
+            output.writeInt(artifacts.length);
+            for (DependencyArtifactDescriptor artifact : artifacts) {
+                writeString(artifact.getName(), output);
+                writeString(artifact.getType(), output);
+                writeString(artifact.getExt(), output);
+                writeString(artifact.getUrl() == null ? null : artifact.getUrl().toString(), output);
+                writeMap(artifact.getQualifiedExtraAttributes(), output);
+                writeStrings(artifact.getConfigurations(), output);
+            }
+
+            IncludeRule[] includes = dependency.getAllIncludeRules();
+            output.writeInt(includes.length);
+            for (IncludeRule include : includes) {
+                writeArtifactRule(include.getId(), include.getMatcher(), include.getQualifiedExtraAttributes(), include.getConfigurations(), output);
+            }
+
+            writeExcludes(dependency.getAllExcludeRules(), output);
+        }
+    }
+
+    private void readDependencies(DefaultModuleDescriptor md, DataInputStream input, ParserSettings settings) throws IOException {
+        int count = input.readInt();
+        for (int i = 0; i < count; i++) {
+            ModuleRevisionId id = readModuleRevisionId(input);
+            ModuleRevisionId dynamicId = readModuleRevisionId(input);
+            boolean force = input.readBoolean();
+            boolean changing = input.readBoolean();
+            boolean transitive = input.readBoolean();
+            DefaultDependencyDescriptor dependency = new DefaultDependencyDescriptor(md, id, dynamicId, force, changing, transitive);
+            md.addDependency(dependency);
+
+            int moduleConfigurations = input.readInt();
+            for (int j = 0; j < moduleConfigurations; j++) {
+                String moduleConfiguration = readString(input);
+                for (String dependencyConfiguration : readStrings(input)) {
+                    dependency.addDependencyConfiguration(moduleConfiguration, dependencyConfiguration);
+                }
+            }
+
+            int artifacts = input.readInt();
+            for (int j = 0; j < artifacts; j++) {
+                String name = readString(input);
+                String type = readString(input);
+                String ext = readString(input);
+                URL url = readUrl(input);
+                DefaultDependencyArtifactDescriptor artifact = new DefaultDependencyArtifactDescriptor(dependency, name, type, ext, url, readMap(input));
+                for (String configuration : readStrings(input)) {
+                    artifact.addConfiguration(configuration);
+                    dependency.addDependencyArtifact(configuration, artifact);
+                }
+            }
+
+            int includes = input.readInt();
+            for (int j = 0; j < includes; j++) {
+                ArtifactId artifactId = readArtifactId(input);
+                PatternMatcher matcher = readMatcher(input, settings);
+                DefaultIncludeRule include = new DefaultIncludeRule(artifactId, matcher, readMap(input));
+                for (String configuration : readStrings(input)) {
+                    include.addConfiguration(configuration);
+                    dependency.addIncludeRule(configuration, include);
+                }
+            }
+
+            for (ExcludeRule exclude : readExcludes(input, settings)) {
+                for (String configuration : exclude.getConfigurations()) {
+                    dependency.addExcludeRule(configuration, exclude);
+                }
+            }
+        }
+    }
+
+    private void writeExcludes(ExcludeRule[] excludes, DataOutputStream output) throws IOException {
+        output.writeInt(excludes.length);
+        for (ExcludeRule exclude : excludes) {
+            writeArtifactRule(exclude.getId(), exclude.getMatcher(), exclude.getQualifiedExtraAttributes(), exclude.getConfigurations(), output);
+        }
+    }
+
+    private List<ExcludeRule> readExcludes(DataInputStream input, ParserSettings settings) throws IOException {
+        int count = input.readInt();
+        List<ExcludeRule> excludes = new ArrayList<ExcludeRule>(count);
+        for (int i = 0; i < count; i++) {
+            ArtifactId artifactId = readArtifactId(input);
+            PatternMatcher matcher = readMatcher(input, settings);
+            DefaultExcludeRule exclude = new DefaultExcludeRule(artifactId, matcher, readMap(input));
+            for (String configuration : readStrings(input)) {
+                exclude.addConfiguration(configuration);
+            }
+            excludes.add(exclude);
+        }
+        return excludes;
+    }
+
+    private void writeArtifactRule(ArtifactId id, PatternMatcher matcher, Map extraAttributes, String[] configurations, DataOutputStream output) throws IOException {
+        writeString(id.getModuleId().getOrganisation(), output);
+        writeString(id.getModuleId().getName(), output);
+        writeString(id.getName(), output);
+        writeString(id.getType(), output);
+        writeString(id.getExt(), output);
+        writeString(matcher.getName(), output);
+        writeMap(extraAttributes, output);
+        writeStrings(configurations, output);
+    }
+
+    private ArtifactId readArtifactId(DataInputStream input) throws IOException {
+        String organisation = readString(input);
+        String module = readString(input);
+        String name = readString(input);
+        String type = readString(input);
+        String ext = readString(input);
+        return new ArtifactId(new ModuleId(organisation, module), name, type, ext);
+    }
+
+    private void writeMediators(ModuleDescriptor md, DataOutputStream output) throws IOException {
+        List<Map.Entry> overrides = new ArrayList<Map.Entry>();
+        for (Object rule : md.getAllDependencyDescriptorMediators().getAllRules().entrySet()) {
+            Map.Entry entry = (Map.Entry) rule;
+            if (entry.getValue() instanceof OverrideDependencyDescriptorMediator) {
+                overrides.add(entry);
+            }
+        }
+        output.writeInt(overrides.size());
+        for (Map.Entry entry : overrides) {
+            MapMatcher matcher = (MapMatcher) entry.getKey();
+            OverrideDependencyDescriptorMediator mediator = (OverrideDependencyDescriptorMediator) entry.getValue();
+            writeString((String) matcher.getAttributes().get(IvyPatternHelper.ORGANISATION_KEY), output);
+            writeString((String) matcher.getAttributes().get(IvyPatternHelper.MODULE_KEY), output);
+            writeString(matcher.getPatternMatcher().getName(), output);
+            writeString(mediator.getBranch(), output);
+            writeString(mediator.getVersion(), output);
+        }
+    }
+
+    private void readMediators(DefaultModuleDescriptor md, DataInputStream input, ParserSettings settings) throws IOException {
+        int count = input.readInt();
+        for (int i = 0; i < count; i++) {
+            String organisation = readString(input);
+            String module = readString(input);
+            PatternMatcher matcher = readMatcher(input, settings);
+            String branch = readString(input);
+            String version = readString(input);
+            md.addDependencyDescriptorMediator(new ModuleId(organisation, module), matcher, new OverrideDependencyDescriptorMediator(branch, version));
+        }
+    }
+
+    private PatternMatcher readMatcher(DataInputStream input, ParserSettings settings) throws IOException {
+        String name = readString(input);
+        PatternMatcher matcher = settings.getMatcher(name);
+        if (matcher == null) {
+            throw new IOException(String.format("Unknown matcher '%s'.", name));
+        }
+        return matcher;
+    }
+
+    private void writeModuleRevisionId(ModuleRevisionId id, DataOutputStream output) throws IOException {
+        writeString(id.getOrganisation(), output);
+        writeString(id.getName(), output);
+        writeString(id.getBranch(), output);
+        writeString(id.getRevision(), output);
+        writeMap(id.getQualifiedExtraAttributes(), output);
+    }
+
+    private ModuleRevisionId readModuleRevisionId(DataInputStream input) throws IOException {
+        String organisation = readString(input);
+        String name = readString(input);
+        String branch = readString(input);
+        String revision = readString(input);
+        return ModuleRevisionId.newInstance(organisation, name, branch, revision, readMap(input));
+    }
+
+    @Nullable
+    private URL readUrl(DataInputStream input) throws IOException {
+        String url = readString(input);
+        return url == null ? null : new URL(url);
+    }
+
+    private void writeMap(Map map, DataOutputStream output) throws IOException {
+        if (map == null) {
+            output.writeInt(0);
+            return;
+        }
+        output.writeInt(map.size());
+        for (Object o : map.entrySet()) {
+            Map.Entry entry = (Map.Entry) o;
+            writeString(entry.getKey().toString(), output);
+            writeString(entry.getValue() == null ? null : entry.getValue().toString(), output);
+        }
+    }
+
+    private Map<String, String> readMap(DataInputStream input) throws IOException {
+        int count = input.readInt();
+        Map<String, String> map = new LinkedHashMap<String, String>(count);
+        for (int i = 0; i < count; i++) {
+            String key = readString(input);
+            map.put(key, readString(input));
+        }
+        return map;
+    }
+
+    private void writeStrings(String[] values, DataOutputStream output) throws IOException {
+        output.writeInt(values.length);
+        for (String value : values) {
+            writeString(value, output);
+        }
+    }
+
+    private String[] readStrings(DataInputStream input) throws IOException {
+        String[] values = new String[input.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readString(input);
+        }
+        return values;
+    }
+
+    private void writeString(@Nullable String value, DataOutputStream output) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes("UTF-8");
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    @Nullable
+    private String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+}
@@ -29,38 +29,63 @@ import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.IvyXmlModu
 import org.gradle.api.internal.filestore.FileStoreEntry;
 import org.gradle.api.internal.filestore.PathKeyFileStore;
 import org.gradle.internal.UncheckedException;
+import org.gradle.util.hash.HashUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.io.File;
+import java.io.*;
 import java.net.URL;
 import java.util.Collections;
 
+/**
+ * Stores module descriptors as ivy.xml files, along with a binary copy of each descriptor which is faster to read. The binary copy records the length and
+ * SHA1 hash of the ivy.xml it was created from, and is only used while the ivy.xml still matches it, as older versions sharing this cache only rewrite the
+ * ivy.xml.
+ */
 public class ModuleDescriptorStore {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(ModuleDescriptorStore.class);
+
     private static final String DESCRIPTOR_ARTIFACT_PATTERN =
-            "module-metadata/[organisation]/[module](/[branch])/[revision]/[resolverId].ivy.xml";
+            "module-metadata/[organisation]/[module](/[branch])/[revision]/[resolverId].[ext]";
+    private static final String XML_EXTENSION = "ivy.xml";
+    private static final String BINARY_EXTENSION = "ivy.bin";
 
     private final IvyXmlModuleDescriptorParser parser;
     private final PathKeyFileStore pathKeyFileStore;
     private final IvyModuleDescriptorWriter ivyModuleDescriptorWriter;
+    private final ModuleDescriptorSerializer moduleDescriptorSerializer;
 
-    public ModuleDescriptorStore(PathKeyFileStore pathKeyFileStore, IvyModuleDescriptorWriter ivyModuleDescriptorWriter, IvyXmlModuleDescriptorParser ivyXmlModuleDescriptorParser) {
+    public ModuleDescriptorStore(PathKeyFileStore pathKeyFileStore, IvyModuleDescriptorWriter ivyModuleDescriptorWriter, IvyXmlModuleDescriptorParser ivyXmlModuleDescriptorParser,
+                                 ModuleDescriptorSerializer moduleDescriptorSerializer) {
         this.pathKeyFileStore = pathKeyFileStore;
         this.ivyModuleDescriptorWriter = ivyModuleDescriptorWriter;
+        this.moduleDescriptorSerializer = moduleDescriptorSerializer;
         parser = ivyXmlModuleDescriptorParser;
     }
 
     public ModuleDescriptor getModuleDescriptor(ModuleVersionRepository repository, ModuleRevisionId moduleRevisionId) {
-        String filePath = getFilePath(repository, moduleRevisionId);
-        final FileStoreEntry fileStoreEntry = pathKeyFileStore.get(filePath);
-        if (fileStoreEntry != null) {
-            return parseModuleDescriptorFile(fileStoreEntry.getFile());
+        final FileStoreEntry fileStoreEntry = pathKeyFileStore.get(getFilePath(repository, moduleRevisionId, XML_EXTENSION));
+        if (fileStoreEntry == null) {
+            return null;
         }
-        return null;
+        SourceFingerprint source = SourceFingerprint.of(fileStoreEntry.getFile());
+        FileStoreEntry binaryEntry = pathKeyFileStore.get(getFilePath(repository, moduleRevisionId, BINARY_EXTENSION));
+        if (binaryEntry != null) {
+            ModuleDescriptor moduleDescriptor = readBinaryModuleDescriptorFile(binaryEntry.getFile(), source);
+            if (moduleDescriptor != null) {
+                return moduleDescriptor;
+            }
+        }
+        ModuleDescriptor moduleDescriptor = parseModuleDescriptorFile(fileStoreEntry.getFile());
+        putBinaryModuleDescriptor(repository, moduleRevisionId, moduleDescriptor, source);
+        return moduleDescriptor;
     }
 
     public void putModuleDescriptor(ModuleVersionRepository repository, final ModuleDescriptor moduleDescriptor) {
-        String filePath = getFilePath(repository, moduleDescriptor.getModuleRevisionId());
-        pathKeyFileStore.add(filePath, new Action<File>() {
+        // Keep writing ivy.xml, as older versions share this cache
+        String filePath = getFilePath(repository, moduleDescriptor.getModuleRevisionId(), XML_EXTENSION);
+        FileStoreEntry fileStoreEntry = pathKeyFileStore.add(filePath, new Action<File>() {
             public void execute(File moduleDescriptorFile) {
                 try {
                     ivyModuleDescriptorWriter.write(moduleDescriptor, moduleDescriptorFile);
@@ -69,6 +94,46 @@ public class ModuleDescriptorStore {
                 }
             }
         });
+        putBinaryModuleDescriptor(repository, moduleDescriptor.getModuleRevisionId(), moduleDescriptor, SourceFingerprint.of(fileStoreEntry.getFile()));
+    }
+
+    private void putBinaryModuleDescriptor(ModuleVersionRepository repository, ModuleRevisionId moduleRevisionId, final ModuleDescriptor moduleDescriptor,
+                                           final SourceFingerprint source) {
+        String filePath = getFilePath(repository, moduleRevisionId, BINARY_EXTENSION);
+        pathKeyFileStore.add(filePath, new Action<File>() {
+            public void execute(File moduleDescriptorFile) {
+                try {
+                    OutputStream outputStream = new FileOutputStream(moduleDescriptorFile);
+                    try {
+                        source.write(outputStream);
+                        moduleDescriptorSerializer.write(moduleDescriptor, outputStream);
+                    } finally {
+                        outputStream.close();
+                    }
+                } catch (Exception e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+        });
+    }
+
+    private ModuleDescriptor readBinaryModuleDescriptorFile(File moduleDescriptorFile, SourceFingerprint source) {
+        ParserSettings settings = IvyContextualiser.getIvyContext().getSettings();
+        try {
+            InputStream inputStream = new FileInputStream(moduleDescriptorFile);
+            try {
+                if (!source.equals(SourceFingerprint.read(inputStream))) {
+                    LOGGER.debug("Cached module descriptor {} does not match ivy.xml. Using ivy.xml instead.", moduleDescriptorFile);
+                    return null;
+                }
+                return moduleDescriptorSerializer.read(inputStream, settings);
+            } finally {
+                inputStream.close();
+            }
+        } catch (Exception e) {
+            LOGGER.debug(String.format("Could not read cached module descriptor %s. Using ivy.xml instead.", moduleDescriptorFile), e);
+            return null;
+        }
     }
 
     private ModuleDescriptor parseModuleDescriptorFile(File moduleDescriptorFile) {
@@ -81,9 +146,57 @@ public class ModuleDescriptorStore {
         }
     }
 
-    private String getFilePath(ModuleVersionRepository repository, ModuleRevisionId moduleRevisionId) {
+    private String getFilePath(ModuleVersionRepository repository, ModuleRevisionId moduleRevisionId, String extension) {
         String resolverId = repository.getId();
-        Artifact artifact = new DefaultArtifact(moduleRevisionId, null, "ivy", "ivy", "xml", Collections.singletonMap("resolverId", resolverId));
+        Artifact artifact = new DefaultArtifact(moduleRevisionId, null, "ivy", "ivy", extension, Collections.singletonMap("resolverId", resolverId));
         return IvyPatternHelper.substitute(DESCRIPTOR_ARTIFACT_PATTERN, artifact);
     }
+
+    /**
+     * The length and SHA1 hash of the ivy.xml a binary descriptor was created from. Modification times are not used, as they have a granularity of a
+     * second or more on some file systems.
+     */
+    private static class SourceFingerprint {
+        private final long length;
+        private final String sha1;
+
+        private SourceFingerprint(long length, String sha1) {
+            this.length = length;
+            this.sha1 = sha1;
+        }
+
+        static SourceFingerprint of(File file) {
+            return new SourceFingerprint(file.length(), HashUtil.sha1(file).asHexString());
+        }
+
+        static SourceFingerprint read(InputStream inputStream) throws IOException {
+            // Not buffered, so that the serialized descriptor following the fingerprint is left in the stream
+            DataInputStream input = new DataInputStream(inputStream);
+            return new SourceFingerprint(input.readLong(), input.readUTF());
+        }
+
+        void write(OutputStream outputStream) throws IOException {
+            DataOutputStream output = new DataOutputStream(outputStream);
+            output.writeLong(length);
+            output.writeUTF(sha1);
+            output.flush();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            SourceFingerprint other = (SourceFingerprint) obj;
+            return length == other.length && sha1.equals(other.sha1);
+        }
+
+        @Override
+        public int hashCode() {
+            return sha1.hashCode();
+        }
+    }
 }
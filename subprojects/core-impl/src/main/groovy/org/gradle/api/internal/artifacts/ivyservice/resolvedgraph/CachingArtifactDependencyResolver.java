@@ -0,0 +1,136 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolvedgraph;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.artifacts.Module;
+import org.gradle.api.artifacts.ModuleDependency;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.ResolveException;
+import org.gradle.api.artifacts.ResolvedArtifact;
+import org.gradle.api.artifacts.result.DependencyResult;
+import org.gradle.api.internal.artifacts.ArtifactDependencyResolver;
+import org.gradle.api.internal.artifacts.ResolverResults;
+import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.ParallelArtifactDownloader;
+import org.gradle.internal.Factory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An {@link ArtifactDependencyResolver} which reuses the result of a previous resolve of a configuration, when nothing that the result depends on has
+ * changed since. The dependency graph is only traversed when there is no usable stored result.
+ *
+ * <p>A result is stored once the files of all its artifacts are known, and is only reused while all of those files still exist.</p>
+ */
+public class CachingArtifactDependencyResolver implements ArtifactDependencyResolver {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingArtifactDependencyResolver.class);
+    private final ArtifactDependencyResolver resolver;
+    private final ResolvedGraphFingerprinter fingerprinter;
+    private final ResolvedGraphCache cache;
+    private final CacheLockingManager lockingManager;
+    private final ParallelArtifactDownloader downloader;
+    private final boolean refresh;
+
+    /**
+     * @param refresh When true, stored results are not reused, but are replaced by the new results.
+     */
+    public CachingArtifactDependencyResolver(ArtifactDependencyResolver resolver, ResolvedGraphFingerprinter fingerprinter, ResolvedGraphCache cache,
+                                             CacheLockingManager lockingManager, @Nullable ParallelArtifactDownloader downloader, boolean refresh) {
+        this.resolver = resolver;
+        this.fingerprinter = fingerprinter;
+        this.cache = cache;
+        this.lockingManager = lockingManager;
+        this.downloader = downloader;
+        this.refresh = refresh;
+    }
+
+    public ResolverResults resolve(final ConfigurationInternal configuration) throws ResolveException {
+        final List<ModuleDependency> moduleDependencies = new ArrayList<ModuleDependency>();
+        final String fingerprint = fingerprinter.fingerprint(configuration, moduleDependencies);
+        if (fingerprint == null) {
+            return resolver.resolve(configuration);
+        }
+
+        final String key = getKey(configuration);
+        if (!refresh) {
+            final ResolvedGraph graph = lockingManager.useCache(String.format("load resolved graph for %s", configuration), new Factory<ResolvedGraph>() {
+                public ResolvedGraph create() {
+                    return cache.get(key, fingerprint);
+                }
+            });
+            if (graph != null && graph.filesExist()) {
+                LOGGER.debug("Using stored result for {}", configuration);
+                return graph.restore(configuration, moduleDependencies, new ResolvedGraph.ArtifactFiles() {
+                    public File getFile(int artifact) {
+                        return graph.getFile(artifact);
+                    }
+                }, downloader);
+            }
+        }
+
+        ResolverResults results = resolver.resolve(configuration);
+        if (results.getResolvedConfiguration().hasError() || usesDynamicOrChangingVersions(results)) {
+            return results;
+        }
+        final List<ResolvedArtifact> artifacts = new ArrayList<ResolvedArtifact>();
+        final ResolvedGraph graph = ResolvedGraph.snapshot(fingerprint, moduleDependencies, results, artifacts);
+        if (graph == null) {
+            return results;
+        }
+        if (graph.isComplete()) {
+            store(key, graph);
+        }
+        return graph.restore(configuration, moduleDependencies, new ResolvedGraph.ArtifactFiles() {
+            public File getFile(int artifact) {
+                File file = artifacts.get(artifact).getFile();
+                if (graph.recordFile(artifact, file)) {
+                    store(key, graph);
+                }
+                return file;
+            }
+        }, downloader);
+    }
+
+    private void store(final String key, final ResolvedGraph graph) {
+        lockingManager.useCache(String.format("store resolved graph for %s", key), new Factory<Object>() {
+            public Object create() {
+                cache.put(key, graph);
+                return null;
+            }
+        });
+    }
+
+    private boolean usesDynamicOrChangingVersions(ResolverResults results) {
+        for (DependencyResult dependency : results.getResolutionResult().getAllDependencies()) {
+            ModuleVersionSelector requested = dependency.getRequested();
+            if (ResolvedGraphFingerprinter.isDynamicOrChanging(requested.getVersion())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String getKey(ConfigurationInternal configuration) {
+        Module module = configuration.getModule();
+        return String.format("%s:%s:%s %s", module.getGroup(), module.getName(), module.getVersion(), configuration.getIncoming().getPath());
+    }
+}
@@ -0,0 +1,465 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolvedgraph;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.artifacts.*;
+import org.gradle.api.artifacts.result.DependencyResult;
+import org.gradle.api.artifacts.result.ModuleVersionSelectionReason;
+import org.gradle.api.artifacts.result.ResolutionResult;
+import org.gradle.api.artifacts.result.ResolvedDependencyResult;
+import org.gradle.api.artifacts.result.ResolvedModuleVersionResult;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector;
+import org.gradle.api.internal.artifacts.DefaultResolvedArtifact;
+import org.gradle.api.internal.artifacts.DefaultResolvedDependency;
+import org.gradle.api.internal.artifacts.ResolverResults;
+import org.gradle.api.internal.artifacts.ivyservice.DefaultLenientConfiguration;
+import org.gradle.api.internal.artifacts.ivyservice.DefaultResolvedConfiguration;
+import org.gradle.api.internal.artifacts.ivyservice.ParallelArtifactDownloader;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.InternalDependencyResult;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ModuleVersionSelection;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ResolutionResultBuilder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.VersionSelectionReasons;
+import org.gradle.internal.Factory;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * A serializable snapshot of the result of resolving a configuration: the graph of resolved dependencies with their artifacts, and the resolution result.
+ * The file of each artifact is recorded once it is known. A snapshot can be turned back into a {@link ResolverResults} without traversing the
+ * dependency graph again.
+ */
+public class ResolvedGraph implements Serializable {
+    private static final ModuleVersionSelectionReason[] SELECTION_REASONS = new ModuleVersionSelectionReason[]{
+            VersionSelectionReasons.REQUESTED, VersionSelectionReasons.ROOT, VersionSelectionReasons.FORCED, VersionSelectionReasons.CONFLICT_RESOLUTION
+    };
+
+    private final String fingerprint;
+    private final List<Node> nodes = new ArrayList<Node>();
+    private final List<ArtifactEntry> artifacts = new ArrayList<ArtifactEntry>();
+    private final List<Edge> edges = new ArrayList<Edge>();
+    private final List<Integer> configurationArtifacts = new ArrayList<Integer>();
+    private final Map<Integer, Integer> firstLevelDependencies = new LinkedHashMap<Integer, Integer>();
+    private final List<ModuleEntry> modules = new ArrayList<ModuleEntry>();
+    private final List<DependencyEntry> dependencies = new ArrayList<DependencyEntry>();
+    private int missingFiles;
+
+    private ResolvedGraph(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Takes a snapshot of the given results.
+     *
+     * @param moduleDependencies The module dependencies of the configuration, in a stable order.
+     * @return The snapshot, or null if the results cannot be represented as a snapshot.
+     */
+    @Nullable
+    public static ResolvedGraph snapshot(String fingerprint, List<ModuleDependency> moduleDependencies, ResolverResults results, List<ResolvedArtifact> resolvedArtifacts) {
+        if (!(results.getResolvedConfiguration().getLenientConfiguration() instanceof DefaultLenientConfiguration)) {
+            return null;
+        }
+        ResolvedGraph graph = new ResolvedGraph(fingerprint);
+        DefaultLenientConfiguration configuration = (DefaultLenientConfiguration) results.getResolvedConfiguration().getLenientConfiguration();
+        if (!graph.addResolvedDependencies(moduleDependencies, configuration, resolvedArtifacts)) {
+            return null;
+        }
+        if (!graph.addResolutionResult(results.getResolutionResult())) {
+            return null;
+        }
+        return graph;
+    }
+
+    private boolean addResolvedDependencies(List<ModuleDependency> moduleDependencies, DefaultLenientConfiguration configuration, List<ResolvedArtifact> resolvedArtifacts) {
+        Map<ResolvedDependency, Integer> nodeIndexes = new LinkedHashMap<ResolvedDependency, Integer>();
+        Map<ResolvedArtifact, Integer> artifactIndexes = new IdentityHashMap<ResolvedArtifact, Integer>();
+        LinkedList<ResolvedDependency> queue = new LinkedList<ResolvedDependency>();
+
+        addNode(configuration.getRoot(), nodeIndexes, queue);
+        while (!queue.isEmpty()) {
+            ResolvedDependency parent = queue.removeFirst();
+            for (ResolvedDependency child : parent.getChildren()) {
+                addNode(child, nodeIndexes, queue);
+                List<Integer> edgeArtifacts = new ArrayList<Integer>();
+                for (ResolvedArtifact artifact : child.getParentArtifacts(parent)) {
+                    edgeArtifacts.add(addArtifact(artifact, child, artifactIndexes, resolvedArtifacts));
+                }
+                edges.add(new Edge(nodeIndexes.get(parent), nodeIndexes.get(child), edgeArtifacts));
+            }
+        }
+
+        for (ResolvedArtifact artifact : configuration.getResolvedArtifacts()) {
+            Integer index = artifactIndexes.get(artifact);
+            if (index == null) {
+                return false;
+            }
+            configurationArtifacts.add(index);
+        }
+
+        for (Map.Entry<ModuleDependency, ResolvedDependency> entry : configuration.getFirstLevelDependencies().entrySet()) {
+            int dependencyIndex = indexOf(moduleDependencies, entry.getKey());
+            Integer nodeIndex = nodeIndexes.get(entry.getValue());
+            if (dependencyIndex < 0 || nodeIndex == null) {
+                return false;
+            }
+            firstLevelDependencies.put(dependencyIndex, nodeIndex);
+        }
+        return true;
+    }
+
+    private void addNode(ResolvedDependency dependency, Map<ResolvedDependency, Integer> nodeIndexes, List<ResolvedDependency> queue) {
+        if (nodeIndexes.containsKey(dependency)) {
+            return;
+        }
+        nodeIndexes.put(dependency, nodes.size());
+        nodes.add(new Node(dependency.getModuleGroup(), dependency.getModuleName(), dependency.getModuleVersion(), dependency.getConfiguration()));
+        queue.add(dependency);
+    }
+
+    private int addArtifact(ResolvedArtifact artifact, ResolvedDependency owner, Map<ResolvedArtifact, Integer> artifactIndexes, List<ResolvedArtifact> resolvedArtifacts) {
+        Integer index = artifactIndexes.get(artifact);
+        if (index != null) {
+            return index;
+        }
+        index = artifacts.size();
+        artifactIndexes.put(artifact, index);
+        resolvedArtifacts.add(artifact);
+
+        String file = null;
+        if (artifact instanceof DefaultResolvedArtifact && ((DefaultResolvedArtifact) artifact).isResolved() && artifact.getFile() != null) {
+            file = artifact.getFile().getAbsolutePath();
+        } else {
+            missingFiles++;
+        }
+        ModuleVersionIdentifier moduleVersion = artifact.getModuleVersion().getId();
+        Map<String, String> extraAttributes = new HashMap<String, String>();
+        if (artifact instanceof DefaultResolvedArtifact) {
+            extraAttributes.putAll(((DefaultResolvedArtifact) artifact).getExtraAttributes());
+        } else if (artifact.getClassifier() != null) {
+            extraAttributes.put(Dependency.CLASSIFIER, artifact.getClassifier());
+        }
+        artifacts.add(new ArtifactEntry(moduleVersion.getGroup(), moduleVersion.getName(), moduleVersion.getVersion(), owner.getConfiguration(), artifact.getName(), artifact.getType(),
+                artifact.getExtension(), extraAttributes, file));
+        return index;
+    }
+
+    private static int indexOf(List<ModuleDependency> moduleDependencies, ModuleDependency dependency) {
+        for (int i = 0; i < moduleDependencies.size(); i++) {
+            if (moduleDependencies.get(i) == dependency) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean addResolutionResult(ResolutionResult result) {
+        Map<ModuleVersionIdentifier, Integer> moduleIndexes = new HashMap<ModuleVersionIdentifier, Integer>();
+        List<ResolvedModuleVersionResult> queue = new ArrayList<ResolvedModuleVersionResult>();
+        addModule(result.getRoot(), moduleIndexes, queue);
+        for (int i = 0; i < queue.size(); i++) {
+            ResolvedModuleVersionResult module = queue.get(i);
+            for (DependencyResult dependency : module.getDependencies()) {
+                if (!(dependency instanceof ResolvedDependencyResult)) {
+                    return false;
+                }
+                ResolvedModuleVersionResult selected = ((ResolvedDependencyResult) dependency).getSelected();
+                addModule(selected, moduleIndexes, queue);
+                ModuleVersionSelector requested = dependency.getRequested();
+                dependencies.add(new DependencyEntry(i, requested.getGroup(), requested.getName(), requested.getVersion(), moduleIndexes.get(selected.getId())));
+            }
+        }
+        return true;
+    }
+
+    private void addModule(ResolvedModuleVersionResult module, Map<ModuleVersionIdentifier, Integer> moduleIndexes, List<ResolvedModuleVersionResult> queue) {
+        if (moduleIndexes.containsKey(module.getId())) {
+            return;
+        }
+        moduleIndexes.put(module.getId(), modules.size());
+        queue.add(module);
+        ModuleVersionSelectionReason reason = module.getSelectionReason();
+        modules.add(new ModuleEntry(module.getId().getGroup(), module.getId().getName(), module.getId().getVersion(), reason.getDescription()));
+    }
+
+    /**
+     * Returns true if the file of every artifact in this graph is known.
+     */
+    public synchronized boolean isComplete() {
+        return missingFiles == 0;
+    }
+
+    /**
+     * Returns true if the file of every artifact in this graph is known and still exists.
+     */
+    public synchronized boolean filesExist() {
+        for (ArtifactEntry artifact : artifacts) {
+            if (artifact.file == null || !new File(artifact.file).isFile()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the recorded file for the given artifact, if known.
+     */
+    @Nullable
+    public synchronized File getFile(int artifact) {
+        String file = artifacts.get(artifact).file;
+        return file == null ? null : new File(file);
+    }
+
+    /**
+     * Records the file for the given artifact.
+     *
+     * @return true if this graph has just become complete.
+     */
+    public synchronized boolean recordFile(int artifact, @Nullable File file) {
+        ArtifactEntry entry = artifacts.get(artifact);
+        if (entry.file != null || file == null) {
+            return false;
+        }
+        entry.file = file.getAbsolutePath();
+        missingFiles--;
+        return missingFiles == 0;
+    }
+
+    /**
+     * Recreates the results that this graph was taken from.
+     *
+     * @param configuration The configuration being resolved.
+     * @param moduleDependencies The module dependencies of the configuration, in the same order as used to take the snapshot.
+     * @param files Provides the file for each artifact.
+     */
+    public ResolverResults restore(Configuration configuration, List<ModuleDependency> moduleDependencies, ArtifactFiles files, @Nullable ParallelArtifactDownloader downloader) {
+        List<DefaultResolvedDependency> resolvedDependencies = new ArrayList<DefaultResolvedDependency>();
+        for (Node node : nodes) {
+            resolvedDependencies.add(new DefaultResolvedDependency(node.group, node.name, node.version, node.configuration));
+        }
+
+        List<ResolvedArtifact> resolvedArtifacts = new ArrayList<ResolvedArtifact>();
+        for (int i = 0; i < artifacts.size(); i++) {
+            ArtifactEntry artifact = artifacts.get(i);
+            resolvedArtifacts.add(new DefaultResolvedArtifact(findOwner(artifact, resolvedDependencies), artifact.name, artifact.type, artifact.ext, artifact.extraAttributes, new ArtifactFileFactory(files, i)));
+        }
+
+        DefaultLenientConfiguration result = new DefaultLenientConfiguration(configuration, resolvedDependencies.get(0), downloader);
+        for (Edge edge : edges) {
+            DefaultResolvedDependency parent = resolvedDependencies.get(edge.parent);
+            DefaultResolvedDependency child = resolvedDependencies.get(edge.child);
+            parent.addChild(child);
+            Set<ResolvedArtifact> edgeArtifacts = new LinkedHashSet<ResolvedArtifact>();
+            for (Integer artifact : edge.artifacts) {
+                edgeArtifacts.add(resolvedArtifacts.get(artifact));
+            }
+            child.addParentSpecificArtifacts(parent, edgeArtifacts);
+        }
+        for (Integer artifact : configurationArtifacts) {
+            result.addArtifact(resolvedArtifacts.get(artifact));
+        }
+        for (Map.Entry<Integer, Integer> entry : firstLevelDependencies.entrySet()) {
+            result.addFirstLevelDependency(moduleDependencies.get(entry.getKey()), resolvedDependencies.get(entry.getValue()));
+        }
+
+        return new ResolverResults(new DefaultResolvedConfiguration(result), restoreResolutionResult().getResult());
+    }
+
+    private ResolvedDependency findOwner(ArtifactEntry artifact, List<DefaultResolvedDependency> resolvedDependencies) {
+        // A module can appear once for each of its configurations, so match the configuration that owned the artifact as well
+        for (DefaultResolvedDependency dependency : resolvedDependencies) {
+            if (dependency.getModuleGroup().equals(artifact.group) && dependency.getModuleName().equals(artifact.module) && dependency.getModuleVersion().equals(artifact.version)
+                    && dependency.getConfiguration().equals(artifact.configuration)) {
+                return dependency;
+            }
+        }
+        throw new IllegalStateException(String.format("No resolved dependency found for artifact '%s' of module %s:%s:%s, configuration %s.", artifact.name, artifact.group,
+                artifact.module, artifact.version, artifact.configuration));
+    }
+
+    private ResolutionResultBuilder restoreResolutionResult() {
+        List<ModuleVersionIdentifier> ids = new ArrayList<ModuleVersionIdentifier>();
+        for (ModuleEntry module : modules) {
+            ids.add(new DefaultModuleVersionIdentifier(module.group, module.name, module.version));
+        }
+        Map<Integer, List<InternalDependencyResult>> outgoing = new LinkedHashMap<Integer, List<InternalDependencyResult>>();
+        for (DependencyEntry dependency : dependencies) {
+            List<InternalDependencyResult> results = outgoing.get(dependency.from);
+            if (results == null) {
+                results = new ArrayList<InternalDependencyResult>();
+                outgoing.put(dependency.from, results);
+            }
+            ModuleEntry selected = modules.get(dependency.selected);
+            results.add(new RestoredDependencyResult(new DefaultModuleVersionSelector(dependency.group, dependency.name, dependency.version), ids.get(dependency.selected), toReason(selected.reason)));
+        }
+
+        ResolutionResultBuilder builder = new ResolutionResultBuilder();
+        builder.start(ids.get(0));
+        for (Map.Entry<Integer, List<InternalDependencyResult>> entry : outgoing.entrySet()) {
+            builder.resolvedConfiguration(ids.get(entry.getKey()), entry.getValue());
+        }
+        return builder;
+    }
+
+    private static ModuleVersionSelectionReason toReason(String description) {
+        for (ModuleVersionSelectionReason reason : SELECTION_REASONS) {
+            if (reason.getDescription().equals(description)) {
+                return reason;
+            }
+        }
+        return VersionSelectionReasons.REQUESTED;
+    }
+
+    /**
+     * Provides the file for an artifact of a restored graph.
+     */
+    public interface ArtifactFiles {
+        File getFile(int artifact);
+    }
+
+    private static class ArtifactFileFactory implements Factory<File> {
+        private final ArtifactFiles files;
+        private final int artifact;
+
+        private ArtifactFileFactory(ArtifactFiles files, int artifact) {
+            this.files = files;
+            this.artifact = artifact;
+        }
+
+        public File create() {
+            return files.getFile(artifact);
+        }
+    }
+
+    private static class RestoredDependencyResult implements InternalDependencyResult, ModuleVersionSelection {
+        private final ModuleVersionSelector requested;
+        private final ModuleVersionIdentifier selected;
+        private final ModuleVersionSelectionReason reason;
+
+        private RestoredDependencyResult(ModuleVersionSelector requested, ModuleVersionIdentifier selected, ModuleVersionSelectionReason reason) {
+            this.requested = requested;
+            this.selected = selected;
+            this.reason = reason;
+        }
+
+        public ModuleVersionSelector getRequested() {
+            return requested;
+        }
+
+        public Exception getFailure() {
+            return null;
+        }
+
+        public ModuleVersionSelection getSelected() {
+            return this;
+        }
+
+        public ModuleVersionIdentifier getSelectedId() {
+            return selected;
+        }
+
+        public ModuleVersionSelectionReason getSelectionReason() {
+            return reason;
+        }
+    }
+
+    private static class Node implements Serializable {
+        private final String group;
+        private final String name;
+        private final String version;
+        private final String configuration;
+
+        private Node(String group, String name, String version, String configuration) {
+            this.group = group;
+            this.name = name;
+            this.version = version;
+            this.configuration = configuration;
+        }
+    }
+
+    private static class Edge implements Serializable {
+        private final int parent;
+        private final int child;
+        private final List<Integer> artifacts;
+
+        private Edge(int parent, int child, List<Integer> artifacts) {
+            this.parent = parent;
+            this.child = child;
+            this.artifacts = artifacts;
+        }
+    }
+
+    private static class ArtifactEntry implements Serializable {
+        private final String group;
+        private final String module;
+        private final String version;
+        private final String configuration;
+        private final String name;
+        private final String type;
+        private final String ext;
+        private final Map<String, String> extraAttributes;
+        private String file;
+
+        private ArtifactEntry(String group, String module, String version, String configuration, String name, String type, String ext, Map<String, String> extraAttributes,
+                              String file) {
+            this.group = group;
+            this.module = module;
+            this.version = version;
+            this.configuration = configuration;
+            this.name = name;
+            this.type = type;
+            this.ext = ext;
+            this.extraAttributes = extraAttributes;
+            this.file = file;
+        }
+    }
+
+    private static class ModuleEntry implements Serializable {
+        private final String group;
+        private final String name;
+        private final String version;
+        private final String reason;
+
+        private ModuleEntry(String group, String name, String version, String reason) {
+            this.group = group;
+            this.name = name;
+            this.version = version;
+            this.reason = reason;
+        }
+    }
+
+    private static class DependencyEntry implements Serializable {
+        private final int from;
+        private final String group;
+        private final String name;
+        private final String version;
+        private final int selected;
+
+        private DependencyEntry(int from, String group, String name, String version, int selected) {
+            this.from = from;
+            this.group = group;
+            this.name = name;
+            this.version = version;
+            this.selected = selected;
+        }
+    }
+}
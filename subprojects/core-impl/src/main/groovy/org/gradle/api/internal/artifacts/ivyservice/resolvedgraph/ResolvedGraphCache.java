@@ -0,0 +1,65 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolvedgraph;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.artifacts.ivyservice.ArtifactCacheMetaData;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.cache.PersistentIndexedCache;
+
+import java.io.File;
+
+/**
+ * Stores the most recent {@link ResolvedGraph} for each configuration. Must be used while holding the artifact cache lock.
+ */
+public class ResolvedGraphCache {
+    private final ArtifactCacheMetaData cacheMetadata;
+    private final CacheLockingManager cacheLockingManager;
+    private PersistentIndexedCache<String, ResolvedGraph> cache;
+
+    public ResolvedGraphCache(ArtifactCacheMetaData cacheMetadata, CacheLockingManager cacheLockingManager) {
+        this.cacheMetadata = cacheMetadata;
+        this.cacheLockingManager = cacheLockingManager;
+    }
+
+    private PersistentIndexedCache<String, ResolvedGraph> getCache() {
+        if (cache == null) {
+            cache = initCache();
+        }
+        return cache;
+    }
+
+    private PersistentIndexedCache<String, ResolvedGraph> initCache() {
+        File resolvedGraphsFile = new File(cacheMetadata.getCacheDir(), "resolved-graphs.bin");
+        return cacheLockingManager.createCache(resolvedGraphsFile, String.class, ResolvedGraph.class);
+    }
+
+    /**
+     * Returns the graph stored for the given configuration, provided it was stored with the given fingerprint.
+     */
+    @Nullable
+    public ResolvedGraph get(String configurationKey, String fingerprint) {
+        ResolvedGraph graph = getCache().get(configurationKey);
+        if (graph == null || !graph.getFingerprint().equals(fingerprint)) {
+            return null;
+        }
+        return graph;
+    }
+
+    public void put(String configurationKey, ResolvedGraph graph) {
+        getCache().put(configurationKey, graph);
+    }
+}
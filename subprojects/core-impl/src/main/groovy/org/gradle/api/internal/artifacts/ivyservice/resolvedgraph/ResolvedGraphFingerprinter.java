@@ -0,0 +1,133 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolvedgraph;
+
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.gradle.api.Nullable;
+import org.gradle.api.artifacts.*;
+import org.gradle.api.artifacts.Module;
+import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal;
+import org.gradle.api.internal.artifacts.configurations.ResolverProvider;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.DependencyResolverIdentifier;
+import org.gradle.api.internal.artifacts.repositories.cachemanager.LocalFileRepositoryCacheManager;
+import org.gradle.api.internal.artifacts.repositories.resolver.ExternalResourceResolver;
+import org.gradle.util.hash.HashUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Calculates a fingerprint of everything that the result of resolving a configuration depends on: the declared dependencies and exclude rules of
+ * the configuration and its super configurations, the resolution strategy, and the repositories used.
+ *
+ * <p>A configuration only gets a fingerprint when its result is fully determined by these inputs, which means that it has no project dependencies,
+ * client modules, changing or dynamic versions and uses only remote repositories whose content is cached.</p>
+ */
+public class ResolvedGraphFingerprinter {
+    private static final int FORMAT_VERSION = 1;
+    private final ResolverProvider resolverProvider;
+
+    public ResolvedGraphFingerprinter(ResolverProvider resolverProvider) {
+        this.resolverProvider = resolverProvider;
+    }
+
+    /**
+     * Calculates the fingerprint for the given configuration.
+     *
+     * @param moduleDependencies Receives the module dependencies of the configuration, in a stable order.
+     * @return The fingerprint, or null if the result of resolving the configuration cannot be reused.
+     */
+    @Nullable
+    public String fingerprint(ConfigurationInternal configuration, List<ModuleDependency> moduleDependencies) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(FORMAT_VERSION).append('\n');
+
+        Module module = configuration.getModule();
+        builder.append("module:").append(module.getGroup()).append(':').append(module.getName()).append(':').append(module.getVersion()).append(':').append(module.getStatus()).append('\n');
+
+        for (Configuration superConfiguration : configuration.getHierarchy()) {
+            builder.append("configuration:").append(superConfiguration.getName()).append(':').append(superConfiguration.isTransitive()).append('\n');
+            appendExcludeRules(superConfiguration.getExcludeRules(), builder);
+        }
+
+        for (Dependency dependency : configuration.getAllDependencies()) {
+            if (dependency instanceof ProjectDependency || dependency instanceof ClientModule) {
+                return null;
+            }
+            if (dependency instanceof SelfResolvingDependency) {
+                // Not part of the dependency graph
+                continue;
+            }
+            if (!(dependency instanceof ExternalModuleDependency)) {
+                return null;
+            }
+            ExternalModuleDependency moduleDependency = (ExternalModuleDependency) dependency;
+            if (moduleDependency.isChanging() || isDynamicOrChanging(moduleDependency.getVersion())) {
+                return null;
+            }
+            moduleDependencies.add(moduleDependency);
+            builder.append("dependency:").append(moduleDependency.getGroup()).append(':').append(moduleDependency.getName()).append(':').append(moduleDependency.getVersion());
+            builder.append(':').append(moduleDependency.getConfiguration()).append(':').append(moduleDependency.isTransitive()).append(':').append(moduleDependency.isForce()).append('\n');
+            appendExcludeRules(moduleDependency.getExcludeRules(), builder);
+            for (DependencyArtifact artifact : moduleDependency.getArtifacts()) {
+                builder.append("artifact:").append(artifact.getName()).append(':').append(artifact.getType()).append(':').append(artifact.getExtension());
+                builder.append(':').append(artifact.getClassifier()).append(':').append(artifact.getUrl()).append('\n');
+            }
+        }
+
+        builder.append("conflict-resolution:").append(configuration.getResolutionStrategy().getConflictResolution().getClass().getName()).append('\n');
+        List<String> forcedModules = new ArrayList<String>();
+        for (ModuleVersionSelector forcedModule : configuration.getResolutionStrategy().getForcedModules()) {
+            forcedModules.add(forcedModule.getGroup() + ":" + forcedModule.getName() + ":" + forcedModule.getVersion());
+        }
+        Collections.sort(forcedModules);
+        for (String forcedModule : forcedModules) {
+            builder.append("force:").append(forcedModule).append('\n');
+        }
+
+        for (DependencyResolver resolver : resolverProvider.getResolvers()) {
+            if (!(resolver instanceof ExternalResourceResolver) || resolver.getRepositoryCacheManager() instanceof LocalFileRepositoryCacheManager) {
+                // Don't know how to tell whether the content of this repository has changed
+                return null;
+            }
+            builder.append("repository:").append(resolver.getName()).append(':').append(new DependencyResolverIdentifier(resolver).getUniqueId()).append('\n');
+        }
+
+        return HashUtil.createHash(builder.toString(), "SHA1").asHexString();
+    }
+
+    private void appendExcludeRules(Iterable<ExcludeRule> excludeRules, StringBuilder builder) {
+        for (ExcludeRule excludeRule : excludeRules) {
+            builder.append("exclude:").append(excludeRule.getGroup()).append(':').append(excludeRule.getModule()).append('\n');
+        }
+    }
+
+    /**
+     * Returns true if the given requested version may refer to different module versions over time. This covers the dynamic versions understood by the
+     * default Ivy version matchers, the Maven RELEASE and LATEST versions, and Maven snapshots.
+     */
+    public static boolean isDynamicOrChanging(String version) {
+        if (version == null) {
+            return true;
+        }
+        return version.endsWith("+")
+                || version.startsWith("latest.")
+                || version.equals("RELEASE") || version.equals("LATEST")
+                || version.startsWith("[") || version.startsWith("]") || version.startsWith("(")
+                || version.endsWith("SNAPSHOT");
+    }
+}
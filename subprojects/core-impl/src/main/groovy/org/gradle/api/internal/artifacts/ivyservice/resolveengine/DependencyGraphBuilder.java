@@ -20,6 +20,7 @@ import org.apache.ivy.core.module.id.ModuleId;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
 import org.apache.ivy.core.resolve.IvyNode;
 import org.apache.ivy.core.resolve.ResolveData;
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.ModuleVersionIdentifier;
 import org.gradle.api.artifacts.ModuleVersionSelector;
 import org.gradle.api.artifacts.ResolveException;
@@ -31,7 +32,9 @@ import org.gradle.api.internal.artifacts.DefaultResolvedDependency;
 import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier;
 import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal;
 import org.gradle.api.internal.artifacts.ivyservice.*;
+import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies.ClientModuleDependencyDescriptor;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies.EnhancedDependencyDescriptor;
+import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies.ProjectDependencyDescriptor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.InternalDependencyResult;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ModuleVersionSelection;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ResolvedConfigurationListener;
@@ -49,12 +52,25 @@ public class DependencyGraphBuilder {
     private final ResolvedArtifactFactory resolvedArtifactFactory;
     private final DependencyToModuleVersionIdResolver dependencyResolver;
     private final ForcedModuleConflictResolver conflictResolver;
+    private final ModuleMetaDataPrefetcher prefetcher;
+    private final ParallelArtifactDownloader downloader;
 
     public DependencyGraphBuilder(ModuleDescriptorConverter moduleDescriptorConverter, ResolvedArtifactFactory resolvedArtifactFactory, DependencyToModuleVersionIdResolver dependencyResolver, ModuleConflictResolver conflictResolver) {
+        this(moduleDescriptorConverter, resolvedArtifactFactory, dependencyResolver, conflictResolver, null, null);
+    }
+
+    /**
+     * @param prefetcher Used to fetch the meta-data for the outgoing dependencies of each configuration concurrently. May be null, in which case meta-data is fetched as the graph is traversed.
+     * @param downloader Used to download the artifacts of the result concurrently. May be null, in which case each artifact is downloaded when it is first used.
+     */
+    public DependencyGraphBuilder(ModuleDescriptorConverter moduleDescriptorConverter, ResolvedArtifactFactory resolvedArtifactFactory, DependencyToModuleVersionIdResolver dependencyResolver, ModuleConflictResolver conflictResolver,
+                                  @Nullable ModuleMetaDataPrefetcher prefetcher, @Nullable ParallelArtifactDownloader downloader) {
         this.moduleDescriptorConverter = moduleDescriptorConverter;
         this.resolvedArtifactFactory = resolvedArtifactFactory;
         this.dependencyResolver = dependencyResolver;
         this.conflictResolver = new ForcedModuleConflictResolver(conflictResolver);
+        this.prefetcher = prefetcher;
+        this.downloader = downloader;
     }
 
     public DefaultLenientConfiguration resolve(ConfigurationInternal configuration, ResolveData resolveData, ResolvedConfigurationListener listener) throws ResolveException {
@@ -63,7 +79,7 @@ public class DependencyGraphBuilder {
         ResolveState resolveState = new ResolveState(moduleDescriptor, configuration.getName(), dependencyResolver, resolveData);
         traverseGraph(resolveState);
 
-        DefaultLenientConfiguration result = new DefaultLenientConfiguration(configuration, resolveState.root.getResult());
+        DefaultLenientConfiguration result = new DefaultLenientConfiguration(configuration, resolveState.root.getResult(), downloader);
         assembleResult(resolveState, result, listener);
 
         return result;
@@ -86,6 +102,7 @@ public class DependencyGraphBuilder {
                 // Calculate the outgoing edges of this configuration
                 dependencies.clear();
                 node.visitOutgoingDependencies(dependencies);
+                prefetchMetaData(resolveState, dependencies);
 
                 for (DependencyEdge dependency : dependencies) {
                     LOGGER.debug("Visiting dependency {}", dependency);
@@ -142,6 +159,27 @@ public class DependencyGraphBuilder {
         }
     }
 
+    /**
+     * Fetches the meta-data for those of the given dependencies whose selectors have not been resolved yet. This does not change the graph, so the traversal
+     * sees the same results in the same order as it would if it fetched the meta-data itself.
+     */
+    private void prefetchMetaData(ResolveState resolveState, List<DependencyEdge> dependencies) {
+        if (prefetcher == null) {
+            return;
+        }
+        List<ModuleVersionSelectorResolveState> selectors = new ArrayList<ModuleVersionSelectorResolveState>();
+        for (DependencyEdge dependency : dependencies) {
+            if (dependency.targetModuleRevision != null) {
+                continue;
+            }
+            ModuleVersionSelectorResolveState selector = resolveState.getSelector(dependency.dependencyDescriptor);
+            if (selector.canPrefetch() && !selectors.contains(selector)) {
+                selectors.add(selector);
+            }
+        }
+        prefetcher.prefetch(selectors);
+    }
+
     /**
      * Populates the result from the graph traversal state.
      */
@@ -867,7 +905,7 @@ public class DependencyGraphBuilder {
         }
     }
 
-    private static class ModuleVersionSelectorResolveState {
+    private static class ModuleVersionSelectorResolveState implements Runnable {
         final DependencyDescriptor descriptor;
         final DependencyToModuleVersionIdResolver resolver;
         final ResolveState resolveState;
@@ -876,6 +914,10 @@ public class DependencyGraphBuilder {
         DefaultModuleRevisionResolveState targetModuleRevision;
         ModuleVersionIdResolveResult idResolveResult;
         ModuleVersionResolveResult resolveResult;
+        // Written by the prefetcher, and only read by the traversal once the prefetch has completed
+        boolean prefetched;
+        ModuleVersionIdResolveResult prefetchedIdResolveResult;
+        ModuleVersionResolveResult prefetchedResolveResult;
 
         private ModuleVersionSelectorResolveState(DependencyDescriptor descriptor, ModuleResolveState module, DependencyToModuleVersionIdResolver resolver, ResolveState resolveState) {
             this.descriptor = descriptor;
@@ -904,7 +946,7 @@ public class DependencyGraphBuilder {
                 return null;
             }
 
-            idResolveResult = resolver.resolve(descriptor);
+            idResolveResult = prefetchedIdResolveResult != null ? prefetchedIdResolveResult : resolver.resolve(descriptor);
             if (idResolveResult.getFailure() != null) {
                 failure = idResolveResult.getFailure();
                 return null;
@@ -929,7 +971,7 @@ public class DependencyGraphBuilder {
             }
 
             try {
-                resolveResult = idResolveResult.resolve();
+                resolveResult = prefetchedResolveResult != null ? prefetchedResolveResult : idResolveResult.resolve();
                 resolveState.getRevision(resolveResult.getId()).setDescriptor(resolveResult.getDescriptor());
             } catch (ModuleVersionResolveException e) {
                 failure = e;
@@ -937,6 +979,28 @@ public class DependencyGraphBuilder {
             return resolveResult;
         }
 
+        /**
+         * Returns true if the meta-data for this selector has not been fetched and can be fetched without touching the graph. Project dependencies and client
+         * modules are left to the traversal, as they are resolved from the build itself.
+         */
+        public boolean canPrefetch() {
+            return !prefetched && idResolveResult == null && failure == null
+                    && !(descriptor instanceof ProjectDependencyDescriptor) && !(descriptor instanceof ClientModuleDependencyDescriptor);
+        }
+
+        /**
+         * Resolves the id and meta-data for this selector, for later use by {@link #resolveModuleRevisionId()} and {@link #resolve()}. Does not touch the graph,
+         * and so may be called from any thread.
+         */
+        public void run() {
+            prefetched = true;
+            ModuleVersionIdResolveResult idResult = resolver.resolve(descriptor);
+            if (idResult.getFailure() == null) {
+                prefetchedResolveResult = idResult.resolve();
+            }
+            prefetchedIdResolveResult = idResult;
+        }
+
         public ModuleVersionSelectorResolveState restart(DefaultModuleRevisionResolveState moduleRevision) {
             return resolveState.getSelector(descriptor.clone(moduleRevision.id));
         }
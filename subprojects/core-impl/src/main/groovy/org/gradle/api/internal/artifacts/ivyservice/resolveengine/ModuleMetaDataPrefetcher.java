@@ -0,0 +1,75 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
+
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.internal.concurrent.BoundedBatchExecutor;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a batch of meta-data fetches concurrently, using at most the given number of threads. Each fetch runs while holding the artifact cache lock, which it
+ * releases while it talks to a repository. A fetch that fails is ignored, so that the failure is reported when the caller repeats the work itself.
+ */
+public class ModuleMetaDataPrefetcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ModuleMetaDataPrefetcher.class);
+    private final CacheLockingManager cacheLockingManager;
+    private final BoundedBatchExecutor executor;
+
+    public ModuleMetaDataPrefetcher(CacheLockingManager cacheLockingManager, ExecutorFactory executorFactory, int maxThreads) {
+        this.cacheLockingManager = cacheLockingManager;
+        this.executor = new BoundedBatchExecutor(executorFactory, "Dependency meta-data fetcher", maxThreads);
+    }
+
+    /**
+     * Runs the given fetches and blocks until they have all completed. Must be called by the thread that holds the artifact cache lock.
+     */
+    public void prefetch(List<? extends Runnable> fetches) {
+        if (Math.min(executor.getMaxThreads(), fetches.size()) < 2) {
+            return;
+        }
+
+        final List<Runnable> jobs = new ArrayList<Runnable>(fetches.size());
+        for (Runnable fetch : fetches) {
+            jobs.add(new Fetch(fetch));
+        }
+        cacheLockingManager.longRunningOperation(String.format("Fetch meta-data for %d modules", fetches.size()), new Runnable() {
+            public void run() {
+                executor.run(jobs);
+            }
+        });
+    }
+
+    private class Fetch implements Runnable {
+        private final Runnable fetch;
+
+        private Fetch(Runnable fetch) {
+            this.fetch = fetch;
+        }
+
+        public void run() {
+            try {
+                cacheLockingManager.useCache(String.format("Fetch %s", fetch), fetch);
+            } catch (Throwable throwable) {
+                LOGGER.debug(String.format("Could not fetch %s.", fetch), throwable);
+            }
+        }
+    }
+}
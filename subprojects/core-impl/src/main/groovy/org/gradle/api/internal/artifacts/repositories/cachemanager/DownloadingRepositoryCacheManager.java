@@ -34,6 +34,7 @@ import org.apache.ivy.plugins.resolver.util.ResolvedResource;
 import org.apache.ivy.util.Message;
 import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ArtifactOriginWithMetaData;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.ParserRegistry;
 import org.gradle.api.internal.externalresource.ExternalResource;
 import org.gradle.api.internal.externalresource.cached.CachedExternalResourceIndex;
 import org.gradle.api.internal.externalresource.metadata.ExternalResourceMetaData;
@@ -56,8 +57,8 @@ public class DownloadingRepositoryCacheManager extends AbstractRepositoryCacheMa
     private final CacheLockingManager cacheLockingManager;
 
     public DownloadingRepositoryCacheManager(String name, FileStore<ArtifactRevisionId> fileStore, CachedExternalResourceIndex<String> artifactUrlCachedResolutionIndex,
-                                             TemporaryFileProvider temporaryFileProvider, CacheLockingManager cacheLockingManager) {
-        super(name);
+                                             TemporaryFileProvider temporaryFileProvider, CacheLockingManager cacheLockingManager, ParserRegistry parserRegistry) {
+        super(name, parserRegistry);
         this.fileStore = fileStore;
         this.artifactUrlCachedResolutionIndex = artifactUrlCachedResolutionIndex;
         this.temporaryFileProvider = temporaryFileProvider;
@@ -62,15 +62,23 @@ import java.io.File;
 import java.io.IOException;
 import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.Semaphore;
 
+/**
+ * Resolves modules and artifacts from an {@link ExternalResourceRepository}. At most 4 artifacts are downloaded from a repository at the same time, which can be
+ * changed using the {@value #MAX_CONCURRENT_DOWNLOADS_PROPERTY} system property.
+ */
 public class ExternalResourceResolver extends BasicResolver {
     private static final Logger LOGGER = LoggerFactory.getLogger(ExternalResourceResolver.class);
+    public static final String MAX_CONCURRENT_DOWNLOADS_PROPERTY = "org.gradle.repository.maxConcurrentDownloads";
+    private static final int DEFAULT_MAX_CONCURRENT_DOWNLOADS = 4;
 
     private List<String> ivyPatterns = new ArrayList<String>();
     private List<String> artifactPatterns = new ArrayList<String>();
     private boolean m2compatible;
     private final ExternalResourceRepository repository;
     private final LocallyAvailableResourceFinder<ArtifactRevisionId> locallyAvailableResourceFinder;
+    private final Semaphore downloads;
     protected VersionLister versionLister;
     private ArtifactResourceResolver artifactResourceResolver = new ArtifactResourceResolver() {
         public ResolvedResource resolve(Artifact artifact) {
@@ -92,6 +100,7 @@ public class ExternalResourceResolver extends BasicResolver {
         this.versionLister = versionLister;
         this.repository = repository;
         this.locallyAvailableResourceFinder = locallyAvailableResourceFinder;
+        this.downloads = new Semaphore(Math.max(1, Integer.getInteger(MAX_CONCURRENT_DOWNLOADS_PROPERTY, DEFAULT_MAX_CONCURRENT_DOWNLOADS)), true);
     }
 
     protected ExternalResourceRepository getRepository() {
@@ -442,8 +451,14 @@ public class ExternalResourceResolver extends BasicResolver {
     }
 
     public EnhancedArtifactDownloadReport download(Artifact artifact) {
-        RepositoryCacheManager cacheManager = getRepositoryCacheManager();
-        return (EnhancedArtifactDownloadReport) cacheManager.download(artifact, artifactResourceResolver, resourceDownloader, new CacheDownloadOptions());
+        // Limit the number of artifacts that are downloaded from this repository at the same time
+        downloads.acquireUninterruptibly();
+        try {
+            RepositoryCacheManager cacheManager = getRepositoryCacheManager();
+            return (EnhancedArtifactDownloadReport) cacheManager.download(artifact, artifactResourceResolver, resourceDownloader, new CacheDownloadOptions());
+        } finally {
+            downloads.release();
+        }
     }
 
     @Override
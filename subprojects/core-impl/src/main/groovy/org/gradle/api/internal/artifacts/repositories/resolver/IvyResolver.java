@@ -28,7 +28,7 @@ public class IvyResolver extends ExternalResourceResolver implements PatternBase
     public IvyResolver(String name, RepositoryTransport transport,
                        LocallyAvailableResourceFinder<ArtifactRevisionId> locallyAvailableResourceFinder
     ) {
-        super(name, transport.getRepository(), new ResourceVersionLister(transport.getRepository()), locallyAvailableResourceFinder);
+        super(name, transport.getRepository(), new ResourceVersionLister(transport.getRepository(), transport.getVersionListingCache()), locallyAvailableResourceFinder);
         this.transport = transport;
         this.transport.configureCacheManager(this);
     }
@@ -16,6 +16,8 @@
 
 package org.gradle.api.internal.artifacts.repositories.resolver;
 
+import org.gradle.api.internal.externalresource.metadata.ExternalResourceMetaData;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -23,4 +25,5 @@ class MavenMetadata {
     String timestamp;
     String buildNumber;
     List<String> versions = new ArrayList<String>();
+    ExternalResourceMetaData resourceMetaData;
 }
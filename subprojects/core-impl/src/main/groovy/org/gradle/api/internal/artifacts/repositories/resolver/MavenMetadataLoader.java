@@ -19,7 +19,10 @@ package org.gradle.api.internal.artifacts.repositories.resolver;
 import org.apache.ivy.plugins.repository.Resource;
 import org.apache.ivy.util.ContextualSAXHandler;
 import org.apache.ivy.util.XMLHelper;
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.externalresource.ExternalResource;
+import org.gradle.api.internal.externalresource.UnchangedExternalResource;
+import org.gradle.api.internal.externalresource.metadata.ExternalResourceMetaData;
 import org.gradle.api.internal.externalresource.transport.ExternalResourceRepository;
 import org.gradle.api.internal.resource.ResourceException;
 import org.gradle.api.internal.resource.ResourceNotFoundException;
@@ -41,9 +44,26 @@ class MavenMetadataLoader {
     }
 
     public MavenMetadata load(String metadataLocation) throws ResourceNotFoundException, ResourceException {
+        return load(metadataLocation, null, false);
+    }
+
+    /**
+     * Loads the given meta-data file, unless it is unchanged from the version described by the given resource meta-data. The returned meta-data
+     * includes the meta-data of the resource it was loaded from.
+     *
+     * @return The meta-data, or null if it is unchanged.
+     */
+    @Nullable
+    public MavenMetadata loadIfChanged(String metadataLocation, @Nullable ExternalResourceMetaData cachedMetaData) throws ResourceNotFoundException, ResourceException {
+        return load(metadataLocation, cachedMetaData, true);
+    }
+
+    private MavenMetadata load(String metadataLocation, ExternalResourceMetaData cachedMetaData, boolean includeResourceMetaData) throws ResourceNotFoundException, ResourceException {
         MavenMetadata metadata = new MavenMetadata();
         try {
-            parseMavenMetadataInfo(metadataLocation, metadata);
+            if (!parseMavenMetadataInfo(metadataLocation, cachedMetaData, includeResourceMetaData, metadata)) {
+                return null;
+            }
         } catch (ResourceException e) {
             throw e;
         } catch (Exception e) {
@@ -52,13 +72,20 @@ class MavenMetadataLoader {
         return metadata;
     }
 
-    private void parseMavenMetadataInfo(final String metadataLocation, final MavenMetadata metadata) throws Exception {
-        final ExternalResource resource = repository.getResource(metadataLocation);
+    private boolean parseMavenMetadataInfo(final String metadataLocation, ExternalResourceMetaData cachedMetaData, boolean includeResourceMetaData, final MavenMetadata metadata) throws Exception {
+        final ExternalResource resource = cachedMetaData == null ? repository.getResource(metadataLocation) : repository.getResourceIfChanged(metadataLocation, cachedMetaData);
         if (resource == null) {
             throw new ResourceNotFoundException(String.format("Maven meta-data not available: %s", metadataLocation));
         }
         try {
+            if (resource instanceof UnchangedExternalResource) {
+                return false;
+            }
+            if (includeResourceMetaData) {
+                metadata.resourceMetaData = resource.getMetaData();
+            }
             parseMavenMetadataInto(resource, metadata);
+            return true;
         } finally {
             resource.close();
         }
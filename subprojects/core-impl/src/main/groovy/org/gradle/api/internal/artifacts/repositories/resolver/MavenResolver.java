@@ -53,7 +53,8 @@ public class MavenResolver extends ExternalResourceResolver implements PatternBa
                          LocallyAvailableResourceFinder<ArtifactRevisionId> locallyAvailableResourceFinder) {
         super(name,
                 transport.getRepository(),
-                new ChainedVersionLister(new MavenVersionLister(transport.getRepository()), new ResourceVersionLister(transport.getRepository())),
+                new ChainedVersionLister(new MavenVersionLister(transport.getRepository(), transport.getVersionListingCache()),
+                        new ResourceVersionLister(transport.getRepository(), transport.getVersionListingCache())),
                 locallyAvailableResourceFinder);
         transport.configureCacheManager(this);
 
@@ -217,10 +218,10 @@ public class MavenResolver extends ExternalResourceResolver implements PatternBa
         this.useMavenMetadata = useMavenMetadata;
         if (useMavenMetadata) {
             this.versionLister = new ChainedVersionLister(
-                    new MavenVersionLister(getRepository()),
-                    new ResourceVersionLister(getRepository()));
+                    new MavenVersionLister(getRepository(), transport.getVersionListingCache()),
+                    new ResourceVersionLister(getRepository(), transport.getVersionListingCache()));
         } else {
-            this.versionLister = new ResourceVersionLister(getRepository());
+            this.versionLister = new ResourceVersionLister(getRepository(), transport.getVersionListingCache());
         }
     }
 
@@ -18,6 +18,7 @@ package org.gradle.api.internal.artifacts.repositories.resolver;
 
 import org.apache.ivy.core.module.descriptor.Artifact;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.externalresource.transport.ExternalResourceRepository;
 import org.gradle.api.internal.resource.ResourceException;
 import org.gradle.api.internal.resource.ResourceNotFoundException;
@@ -27,9 +28,15 @@ import java.util.Set;
 
 public class MavenVersionLister implements VersionLister {
     private final MavenMetadataLoader mavenMetadataLoader;
+    private final VersionListingCache versionListingCache;
 
     public MavenVersionLister(ExternalResourceRepository repository) {
+        this(repository, null);
+    }
+
+    public MavenVersionLister(ExternalResourceRepository repository, @Nullable VersionListingCache versionListingCache) {
         this.mavenMetadataLoader = new MavenMetadataLoader(repository);
+        this.versionListingCache = versionListingCache;
     }
 
     public VersionList getVersionList(final ModuleRevisionId moduleRevisionId) {
@@ -41,6 +48,10 @@ public class MavenVersionLister implements VersionLister {
                 if (!searched.add(metadataLocation)) {
                     return;
                 }
+                if (versionListingCache != null) {
+                    add(versionListingCache.loadVersions(mavenMetadataLoader, metadataLocation));
+                    return;
+                }
                 MavenMetadata mavenMetaData = mavenMetadataLoader.load(metadataLocation);
                 add(mavenMetaData.versions);
             }
@@ -19,6 +19,7 @@ package org.gradle.api.internal.artifacts.repositories.resolver;
 import org.apache.ivy.core.IvyPatternHelper;
 import org.apache.ivy.core.module.descriptor.Artifact;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.externalresource.transport.ExternalResourceRepository;
 import org.gradle.api.internal.resource.ResourceException;
 import org.gradle.api.internal.resource.ResourceNotFoundException;
@@ -36,10 +37,23 @@ public class ResourceVersionLister implements VersionLister {
     public static final int REV_TOKEN_LENGTH = REVISION_TOKEN.length();
 
     private final ExternalResourceRepository repository;
+    private final VersionListingCache versionListingCache;
     private final String fileSeparator = "/";
 
     public ResourceVersionLister(ExternalResourceRepository repository) {
+        this(repository, null);
+    }
+
+    public ResourceVersionLister(ExternalResourceRepository repository, @Nullable VersionListingCache versionListingCache) {
         this.repository = repository;
+        this.versionListingCache = versionListingCache;
+    }
+
+    private List<String> list(String parent) throws IOException {
+        if (versionListingCache != null) {
+            return versionListingCache.list(repository, parent);
+        }
+        return repository.list(parent);
     }
 
     public VersionList getVersionList(final ModuleRevisionId moduleRevisionId) {
@@ -76,7 +90,7 @@ public class ResourceVersionLister implements VersionLister {
                     if (!directories.add(revisionParentFolder)) {
                         return Collections.emptyList();
                     }
-                    List<String> all = repository.list(revisionParentFolder);
+                    List<String> all = list(revisionParentFolder);
                     if (all == null) {
                         throw new ResourceNotFoundException(String.format("Cannot list versions from %s.", revisionParentFolder));
                     }
@@ -140,7 +154,7 @@ public class ResourceVersionLister implements VersionLister {
                     return Collections.emptyList();
                 }
                 LOGGER.debug("using {} to list all in {}", repository, parent);
-                List<String> fullPaths = repository.list(parent);
+                List<String> fullPaths = list(parent);
                 if (fullPaths == null) {
                     throw new ResourceNotFoundException(String.format("Cannot list versions from %s.", parent));
                 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.repositories.resolver;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.externalresource.cached.CachedVersionListing;
+import org.gradle.api.internal.externalresource.cached.CachedVersionListingIndex;
+import org.gradle.api.internal.externalresource.metadata.ExternalResourceMetaData;
+import org.gradle.api.internal.externalresource.transport.ExternalResourceRepository;
+import org.gradle.api.internal.resource.ResourceException;
+import org.gradle.api.internal.resource.ResourceNotFoundException;
+import org.gradle.internal.TimeProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Caches the listings used to find the versions of a module: the versions in maven-metadata.xml files and the entries of directories. A listing is
+ * reused without contacting the repository until it is older than the time to live. After that, a maven-metadata.xml file is revalidated with a
+ * conditional request and a directory is listed again. The fact that nothing could be listed has its own time to live, as there is nothing to revalidate
+ * such an entry with, so it is requested again in full.
+ *
+ * <p>Listings are keyed by their URL, so are shared by all the modules and builds which use them.</p>
+ */
+public class VersionListingCache {
+    public static final String TIME_TO_LIVE_PROPERTY = "org.gradle.versionListing.timeToLive";
+    public static final String MISSING_TIME_TO_LIVE_PROPERTY = "org.gradle.versionListing.missingTimeToLive";
+    private static final Logger LOGGER = LoggerFactory.getLogger(VersionListingCache.class);
+    private final CachedVersionListingIndex index;
+    private final TimeProvider timeProvider;
+    private final long timeToLive;
+    private final long missingTimeToLive;
+
+    /**
+     * @param timeToLive How long, in milliseconds, to use a listing without revalidating it. A negative value means that listings are always revalidated.
+     * @param missingTimeToLive How long, in milliseconds, to use the fact that nothing could be listed. A negative value means that it is always requested again.
+     */
+    public VersionListingCache(CachedVersionListingIndex index, TimeProvider timeProvider, long timeToLive, long missingTimeToLive) {
+        this.index = index;
+        this.timeProvider = timeProvider;
+        this.timeToLive = timeToLive;
+        this.missingTimeToLive = missingTimeToLive;
+    }
+
+    /**
+     * Lists the given directory.
+     *
+     * @return The entries of the directory, or null if it cannot be listed.
+     */
+    @Nullable
+    public List<String> list(ExternalResourceRepository repository, String parent) throws IOException {
+        CachedVersionListing cached = index.lookup(parent);
+        if (cached != null && isUpToDate(cached)) {
+            LOGGER.debug("Using cached listing of {}.", parent);
+            return cached.getEntries();
+        }
+        List<String> entries = repository.list(parent);
+        if (entries == null) {
+            index.storeMissing(parent);
+        } else {
+            index.store(parent, entries, null);
+        }
+        return entries;
+    }
+
+    /**
+     * Loads the versions listed in the given maven-metadata.xml file.
+     */
+    public List<String> loadVersions(MavenMetadataLoader loader, String metadataLocation) throws ResourceNotFoundException, ResourceException {
+        CachedVersionListing cached = index.lookup(metadataLocation);
+        if (cached != null && isUpToDate(cached)) {
+            LOGGER.debug("Using cached versions from {}.", metadataLocation);
+            if (cached.isMissing()) {
+                throw new ResourceNotFoundException(String.format("Maven meta-data not available: %s", metadataLocation));
+            }
+            return cached.getEntries();
+        }
+
+        ExternalResourceMetaData cachedMetaData = cached == null ? null : cached.getExternalResourceMetaData();
+        if (cachedMetaData != null && cachedMetaData.getEtag() == null && cachedMetaData.getLastModified() == null) {
+            cachedMetaData = null;
+        }
+        MavenMetadata metadata;
+        try {
+            metadata = loader.loadIfChanged(metadataLocation, cachedMetaData);
+        } catch (ResourceNotFoundException e) {
+            index.storeMissing(metadataLocation);
+            throw e;
+        }
+        if (metadata == null) {
+            LOGGER.debug("Cached versions from {} are up-to-date.", metadataLocation);
+            index.store(metadataLocation, cached.getEntries(), cachedMetaData);
+            return cached.getEntries();
+        }
+        index.store(metadataLocation, metadata.versions, metadata.resourceMetaData);
+        return metadata.versions;
+    }
+
+    private boolean isUpToDate(CachedVersionListing cached) {
+        long maxAge = cached.isMissing() ? missingTimeToLive : timeToLive;
+        return maxAge >= 0 && timeProvider.getCurrentTime() - cached.getCachedAt() <= maxAge;
+    }
+}
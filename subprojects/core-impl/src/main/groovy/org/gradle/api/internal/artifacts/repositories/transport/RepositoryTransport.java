@@ -16,6 +16,8 @@
 package org.gradle.api.internal.artifacts.repositories.transport;
 
 import org.apache.ivy.plugins.resolver.AbstractResolver;
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.artifacts.repositories.resolver.VersionListingCache;
 import org.gradle.api.internal.externalresource.transport.ExternalResourceRepository;
 
 import java.net.URI;
@@ -26,4 +28,10 @@ public interface RepositoryTransport {
     void configureCacheManager(AbstractResolver resolver);
 
     String convertToPath(URI uri);
+
+    /**
+     * Returns the cache to use for the version listings of this transport, or null if listings should not be cached.
+     */
+    @Nullable
+    VersionListingCache getVersionListingCache();
 }
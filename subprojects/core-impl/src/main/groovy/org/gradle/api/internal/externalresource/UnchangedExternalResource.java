@@ -0,0 +1,33 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.externalresource;
+
+import org.gradle.api.internal.externalresource.metadata.ExternalResourceMetaData;
+
+/**
+ * Sentinel for representing that the resource at some source location is unchanged from a previously cached version.
+ */
+public class UnchangedExternalResource extends MetaDataOnlyExternalResource {
+    public UnchangedExternalResource(String source, ExternalResourceMetaData metaData) {
+        super(source, metaData);
+    }
+
+    @Override
+    public String toString() {
+        return "UnchangedResource: " + getName();
+    }
+}
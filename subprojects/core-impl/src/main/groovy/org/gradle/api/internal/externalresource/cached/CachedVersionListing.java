@@ -0,0 +1,75 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.externalresource.cached;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.externalresource.metadata.DefaultExternalResourceMetaData;
+import org.gradle.api.internal.externalresource.metadata.ExternalResourceMetaData;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A record of the names listed at some location in a repository, such as the versions in a maven-metadata.xml file or the entries of a directory.
+ */
+public class CachedVersionListing implements Serializable {
+    private final List<String> entries;
+    private final long cachedAt;
+    private final ExternalResourceMetaData externalResourceMetaData;
+
+    public CachedVersionListing(List<String> entries, long cachedAt, @Nullable ExternalResourceMetaData externalResourceMetaData) {
+        this.entries = new ArrayList<String>(entries);
+        this.cachedAt = cachedAt;
+        this.externalResourceMetaData = externalResourceMetaData == null ? null : new DefaultExternalResourceMetaData(externalResourceMetaData.getLocation(),
+                externalResourceMetaData.getLastModified(), externalResourceMetaData.getContentLength(), externalResourceMetaData.getEtag(), externalResourceMetaData.getSha1());
+    }
+
+    public CachedVersionListing(long cachedAt) {
+        this.cachedAt = cachedAt;
+
+        this.entries = null;
+        this.externalResourceMetaData = null;
+    }
+
+    /**
+     * True if this cache entry represents that nothing could be listed at the location.
+     */
+    public boolean isMissing() {
+        return entries == null;
+    }
+
+    /**
+     * The names listed at the location, or null if this {@link #isMissing()}.
+     */
+    @Nullable
+    public List<String> getEntries() {
+        return entries;
+    }
+
+    public long getCachedAt() {
+        return cachedAt;
+    }
+
+    /**
+     * Information about the listed resource at its source, if known. Used to revalidate the listing.
+     */
+    @Nullable
+    public ExternalResourceMetaData getExternalResourceMetaData() {
+        return externalResourceMetaData;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.externalresource.cached;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.externalresource.metadata.ExternalResourceMetaData;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.Factory;
+import org.gradle.internal.TimeProvider;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * A persistent index of version listings by the URL they were listed from, including a record of those locations where nothing could be listed.
+ */
+public class CachedVersionListingIndex {
+    private final File persistentCacheFile;
+    private final TimeProvider timeProvider;
+    private final CacheLockingManager cacheLockingManager;
+
+    private PersistentIndexedCache<String, CachedVersionListing> persistentCache;
+
+    public CachedVersionListingIndex(File persistentCacheFile, TimeProvider timeProvider, CacheLockingManager cacheLockingManager) {
+        this.persistentCacheFile = persistentCacheFile;
+        this.timeProvider = timeProvider;
+        this.cacheLockingManager = cacheLockingManager;
+    }
+
+    private PersistentIndexedCache<String, CachedVersionListing> getPersistentCache() {
+        if (persistentCache == null) {
+            persistentCache = cacheLockingManager.createCache(persistentCacheFile, String.class, CachedVersionListing.class);
+        }
+        return persistentCache;
+    }
+
+    private String operationName(String action) {
+        return String.format("%s version listing cache '%s'", action, persistentCacheFile.getName());
+    }
+
+    public void store(String location, List<String> entries, @Nullable ExternalResourceMetaData externalResourceMetaData) {
+        storeInternal(location, new CachedVersionListing(entries, timeProvider.getCurrentTime(), externalResourceMetaData));
+    }
+
+    public void storeMissing(String location) {
+        storeInternal(location, new CachedVersionListing(timeProvider.getCurrentTime()));
+    }
+
+    private void storeInternal(final String location, final CachedVersionListing entry) {
+        cacheLockingManager.useCache(operationName("store into"), new Runnable() {
+            public void run() {
+                getPersistentCache().put(location, entry);
+            }
+        });
+    }
+
+    @Nullable
+    public CachedVersionListing lookup(final String location) {
+        return cacheLockingManager.useCache(operationName("lookup from"), new Factory<CachedVersionListing>() {
+            public CachedVersionListing create() {
+                return getPersistentCache().get(location);
+            }
+        });
+    }
+}
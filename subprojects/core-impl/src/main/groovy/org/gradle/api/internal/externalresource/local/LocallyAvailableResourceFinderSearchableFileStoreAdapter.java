@@ -16,39 +16,51 @@
 
 package org.gradle.api.internal.externalresource.local;
 
-import org.gradle.api.Transformer;
 import org.gradle.api.internal.filestore.FileStoreEntry;
 import org.gradle.api.internal.filestore.FileStoreSearcher;
-import org.gradle.internal.Factory;
-import org.gradle.util.CollectionUtils;
+import org.gradle.util.hash.HashValue;
 
-import java.io.File;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Set;
 
 /**
  * Makes a LocallyAvailableResourceFinder out of a FileStoreSearcher.
+ * <p>
+ * Candidates are matched using the SHA1 of each entry, which the file store may know without reading the file.
+ *
  * @param <C> The type of criterion the filestore can be searched for, and therefore locally available resources searched for.
  */
-public class LocallyAvailableResourceFinderSearchableFileStoreAdapter<C> extends AbstractLocallyAvailableResourceFinder<C> {
-
-    public LocallyAvailableResourceFinderSearchableFileStoreAdapter(final FileStoreSearcher<C> fileStore) {
-        super(new Transformer<Factory<List<File>>, C>() {
-            public Factory<List<File>> transform(final C criterion) {
-                return new Factory<List<File>>() {
-                    public List<File> create() {
-                        Set<? extends FileStoreEntry> entries = fileStore.search(criterion);
-                        return CollectionUtils.collect(entries, new ArrayList<File>(entries.size()), new Transformer<File, FileStoreEntry>() {
-                            public File transform(FileStoreEntry original) {
-                                return original.getFile();
-                            }
-                        });
+public class LocallyAvailableResourceFinderSearchableFileStoreAdapter<C> implements LocallyAvailableResourceFinder<C> {
+
+    private final FileStoreSearcher<C> fileStore;
+
+    public LocallyAvailableResourceFinderSearchableFileStoreAdapter(FileStoreSearcher<C> fileStore) {
+        this.fileStore = fileStore;
+    }
+
+    public LocallyAvailableResourceCandidates findCandidates(final C criterion) {
+        return new LocallyAvailableResourceCandidates() {
+            private Set<? extends FileStoreEntry> entries;
+
+            private Set<? extends FileStoreEntry> getEntries() {
+                if (entries == null) {
+                    entries = fileStore.search(criterion);
+                }
+                return entries;
+            }
+
+            public boolean isNone() {
+                return getEntries().isEmpty();
+            }
+
+            public LocallyAvailableResource findByHashValue(HashValue hashValue) {
+                for (FileStoreEntry entry : getEntries()) {
+                    HashValue sha1 = entry.getSha1();
+                    if (sha1.equals(hashValue)) {
+                        return new DefaultLocallyAvailableResource(entry.getFile(), sha1);
                     }
-                };
+                }
+                return null;
             }
-        });
+        };
     }
-
-    
 }
@@ -19,6 +19,7 @@ package org.gradle.api.internal.externalresource.transfer;
 import org.gradle.api.Nullable;
 import org.gradle.api.internal.externalresource.ExternalResource;
 import org.gradle.api.internal.externalresource.LocallyAvailableExternalResource;
+import org.gradle.api.internal.externalresource.UnchangedExternalResource;
 import org.gradle.api.internal.externalresource.cached.CachedExternalResource;
 import org.gradle.api.internal.externalresource.cached.CachedExternalResourceAdapter;
 import org.gradle.api.internal.externalresource.cached.CachedExternalResourceIndex;
@@ -56,6 +57,16 @@ public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExte
 
         // We might be able to use a cached/locally available version
 
+        // Revalidate the cached version and fetch the resource if it has changed, with a single request
+        if (cached != null && canRevalidate(cached.getExternalResourceMetaData())) {
+            ExternalResource resource = delegate.getResourceIfChanged(location, cached.getExternalResourceMetaData());
+            if (resource instanceof UnchangedExternalResource) {
+                LOGGER.info("Cached resource is up-to-date (lastModified: {}). [HTTP: {}]", cached.getExternalLastModified(), location);
+                return new CachedExternalResourceAdapter(location, cached, delegate, resource.getMetaData());
+            }
+            return resource;
+        }
+
         // Get the metadata first to see if it's there
         final ExternalResourceMetaData remoteMetaData = delegate.getMetaData(location);
         if (remoteMetaData == null) {
@@ -103,4 +114,7 @@ public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExte
         return delegate.getResource(location);
     }
 
+    private boolean canRevalidate(@Nullable ExternalResourceMetaData cachedMetaData) {
+        return cachedMetaData != null && (cachedMetaData.getEtag() != null || cachedMetaData.getLastModified() != null);
+    }
 }
@@ -18,6 +18,7 @@ package org.gradle.api.internal.externalresource.transfer;
 
 import org.gradle.api.Nullable;
 import org.gradle.api.internal.externalresource.ExternalResource;
+import org.gradle.api.internal.externalresource.UnchangedExternalResource;
 import org.gradle.api.internal.externalresource.metadata.ExternalResourceMetaData;
 import org.gradle.util.hash.HashValue;
 
@@ -40,6 +41,20 @@ public interface ExternalResourceAccessor {
     @Nullable
     ExternalResource getResource(String location) throws IOException;
 
+    /**
+     * Obtain the resource at the given location, unless it is unchanged from the version described by the given meta-data.
+     *
+     * This allows a cached resource to be revalidated and, if it has changed, fetched with a single request. Implementations
+     * that cannot make such a conditional request may simply return {@link #getResource(String)}.
+     *
+     * @param location The address of the resource to obtain
+     * @param cachedMetaData The meta-data of the cached version of the resource
+     * @return An {@link UnchangedExternalResource} if the resource is unchanged, the resource if it has changed, otherwise null
+     * @throws IOException If the resource may exist, but not could be obtained for some reason
+     */
+    @Nullable
+    ExternalResource getResourceIfChanged(String location, ExternalResourceMetaData cachedMetaData) throws IOException;
+
     /**
      * Obtain the SHA-1 checksum for the resource at the given location.
      *
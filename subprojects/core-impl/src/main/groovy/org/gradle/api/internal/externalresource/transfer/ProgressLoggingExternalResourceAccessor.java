@@ -19,6 +19,7 @@ package org.gradle.api.internal.externalresource.transfer;
 import org.apache.ivy.plugins.repository.Resource;
 import org.gradle.api.Nullable;
 import org.gradle.api.internal.externalresource.ExternalResource;
+import org.gradle.api.internal.externalresource.UnchangedExternalResource;
 import org.gradle.api.internal.externalresource.metadata.ExternalResourceMetaData;
 import org.gradle.logging.ProgressLoggerFactory;
 import org.gradle.util.hash.HashValue;
@@ -42,6 +43,15 @@ public class ProgressLoggingExternalResourceAccessor extends AbstractProgressLog
         }
     }
 
+    @Nullable
+    public ExternalResource getResourceIfChanged(String location, ExternalResourceMetaData cachedMetaData) throws IOException {
+        ExternalResource resource = delegate.getResourceIfChanged(location, cachedMetaData);
+        if (resource == null || resource instanceof UnchangedExternalResource) {
+            return resource;
+        }
+        return new ProgressLoggingExternalResource(resource);
+    }
+
     @Nullable
     public HashValue getResourceSha1(String location) {
         return delegate.getResourceSha1(location);
@@ -65,6 +65,10 @@ public class DefaultExternalResourceRepository implements ExternalResourceReposi
         return cacheAwareAccessor.getResource(source, localCandidates);
     }
 
+    public ExternalResource getResourceIfChanged(String source, ExternalResourceMetaData cachedMetaData) throws IOException {
+        return accessor.getResourceIfChanged(source, cachedMetaData);
+    }
+
     public ExternalResourceMetaData getResourceMetaData(String source) throws IOException {
         return accessor.getMetaData(source);
     }
@@ -41,6 +41,14 @@ public interface ExternalResourceRepository {
      */
     ExternalResource getResource(String source, @Nullable LocallyAvailableResourceCandidates localCandidates) throws IOException;
 
+    /**
+     * Attempts to fetch the given resource, unless it is unchanged from the version described by the given meta-data.
+     *
+     * @return An {@link org.gradle.api.internal.externalresource.UnchangedExternalResource} if the resource is unchanged, null if the resource is not found.
+     */
+    @Nullable
+    ExternalResource getResourceIfChanged(String source, ExternalResourceMetaData cachedMetaData) throws IOException;
+
     /**
      * Transfer a resource to the repository
      *
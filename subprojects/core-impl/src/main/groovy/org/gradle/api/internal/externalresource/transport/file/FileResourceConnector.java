@@ -84,6 +84,10 @@ public class FileResourceConnector implements ExternalResourceLister, ExternalRe
         return new LocallyAvailableExternalResource(location, new DefaultLocallyAvailableResource(localFile));
     }
 
+    public ExternalResource getResourceIfChanged(String location, ExternalResourceMetaData cachedMetaData) throws IOException {
+        return getResource(location);
+    }
+
     public ExternalResourceMetaData getMetaData(String location) throws IOException {
         ExternalResource resource = getResource(location);
         return resource == null ? null : resource.getMetaData();
@@ -18,6 +18,7 @@ package org.gradle.api.internal.externalresource.transport.file;
 import org.apache.ivy.core.cache.RepositoryCacheManager;
 import org.apache.ivy.plugins.resolver.AbstractResolver;
 import org.gradle.api.Nullable;
+import org.gradle.api.internal.artifacts.repositories.resolver.VersionListingCache;
 import org.gradle.api.internal.artifacts.repositories.transport.RepositoryTransport;
 import org.gradle.api.internal.externalresource.ExternalResource;
 import org.gradle.api.internal.externalresource.local.LocallyAvailableResourceCandidates;
@@ -50,6 +51,11 @@ public class FileTransport implements RepositoryTransport {
         resolver.setRepositoryCacheManager(repositoryCacheManager);
     }
 
+    public VersionListingCache getVersionListingCache() {
+        // Local listings are cheap and should always be current
+        return null;
+    }
+
     public String convertToPath(URI uri) {
         return normalisePath(new File(uri).getAbsolutePath());
     }
@@ -16,19 +16,24 @@
 
 package org.gradle.api.internal.externalresource.transport.http;
 
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.impl.client.*;
+import org.apache.http.impl.cookie.DateUtils;
 import org.apache.http.protocol.BasicHttpContext;
 import org.apache.http.util.EntityUtils;
+import org.gradle.api.Nullable;
 import org.gradle.api.UncheckedIOException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Date;
 
 /**
  * Provides some convenience and unified logging.
@@ -37,10 +42,25 @@ public class HttpClientHelper {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientHelper.class);
     private final HttpClient client;
-    private final BasicHttpContext httpContext = new BasicHttpContext();
-
-    public HttpClientHelper(HttpSettings settings) {
-        DefaultHttpClient client = new SystemDefaultHttpClient();
+    private final HttpConnectionPool connectionPool;
+    // Requests may be made from several threads at once, so keep a context per thread
+    private final ThreadLocal<BasicHttpContext> httpContext = new ThreadLocal<BasicHttpContext>() {
+        @Override
+        protected BasicHttpContext initialValue() {
+            return new BasicHttpContext();
+        }
+    };
+
+    public HttpClientHelper(HttpSettings settings, final HttpConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+        // Credentials and other settings live on the client, so that clients for different repositories can share the pooled connections.
+        // The proxy selection and connection reuse strategy still come from the system properties, as SystemDefaultHttpClient sets them up.
+        DefaultHttpClient client = new SystemDefaultHttpClient() {
+            @Override
+            protected ClientConnectionManager createClientConnectionManager() {
+                return connectionPool.getConnectionManager();
+            }
+        };
         new HttpClientConfigurer(settings).configure(client);
         this.client = new DecompressingHttpClient(client);
     }
@@ -61,6 +81,26 @@ public class HttpClientHelper {
         return processResponse(source, "GET", performRawGet(source));
     }
 
+    /**
+     * Performs a GET which the server may answer with 304 (Not Modified) when the resource matches the given validators.
+     *
+     * @return The response, or null if the resource is missing.
+     */
+    public HttpResponse performConditionalGet(String source, @Nullable String etag, @Nullable Date lastModified) {
+        HttpGet request = new HttpGet(source);
+        if (etag != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        if (lastModified != null) {
+            request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, DateUtils.formatDate(lastModified));
+        }
+        HttpResponse response = performRequest(request);
+        if (wasNotModified(response)) {
+            return response;
+        }
+        return processResponse(source, "GET", response);
+    }
+
     public HttpResponse performRequest(HttpRequestBase request) {
         String method = request.getMethod();
 
@@ -89,15 +129,23 @@ public class HttpClientHelper {
         return statusCode == 404;
     }
 
+    public boolean wasNotModified(HttpResponse response) {
+        int statusCode = response.getStatusLine().getStatusCode();
+        return statusCode == 304;
+    }
+
     public boolean wasSuccessful(HttpResponse response) {
         int statusCode = response.getStatusLine().getStatusCode();
         return statusCode >= 200 && statusCode < 300;
     }
 
     public HttpResponse performHttpRequest(HttpRequestBase request) throws IOException {
+        BasicHttpContext httpContext = this.httpContext.get();
         // Without this, HTTP Client prohibits multiple redirects to the same location within the same context
         httpContext.removeAttribute(DefaultRedirectStrategy.REDIRECT_LOCATIONS);
 
+        connectionPool.evictIdleConnections();
+
         LOGGER.debug("Performing HTTP {}: {}", request.getMethod(), request.getURI());
         return client.execute(request, httpContext);
     }
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.externalresource.transport.http;
+
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.gradle.internal.Stoppable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded, thread-safe pool of HTTP connections, shared by all {@link HttpClientHelper} instances so that
+ * connections to a host are kept alive and reused across repositories and, in the daemon, across builds.
+ *
+ * <p>By default, the pool is configured from the same {@code http.keepAlive} and {@code http.maxConnections} system properties as
+ * the JDK and {@link org.apache.http.impl.client.SystemDefaultHttpClient} use. The limits can be changed using the
+ * {@value #MAX_CONNECTIONS_PROPERTY}, {@value #MAX_CONNECTIONS_PER_HOST_PROPERTY} and {@value #IDLE_TIMEOUT_PROPERTY} (in seconds)
+ * system properties.</p>
+ */
+public class HttpConnectionPool implements Stoppable {
+    public static final String MAX_CONNECTIONS_PROPERTY = "org.gradle.http.maxConnections";
+    public static final String MAX_CONNECTIONS_PER_HOST_PROPERTY = "org.gradle.http.maxConnectionsPerHost";
+    public static final String IDLE_TIMEOUT_PROPERTY = "org.gradle.http.idleTimeout";
+
+    private static final String SYSTEM_KEEP_ALIVE_PROPERTY = "http.keepAlive";
+    private static final String SYSTEM_MAX_CONNECTIONS_PROPERTY = "http.maxConnections";
+    private static final int DEFAULT_SYSTEM_MAX_CONNECTIONS = 5;
+    private static final int DEFAULT_IDLE_TIMEOUT_SECONDS = 30;
+    private static final long EVICTION_INTERVAL_MILLIS = 5000;
+
+    private final PoolingClientConnectionManager connectionManager;
+    private final long idleTimeoutMillis;
+    private long lastEviction;
+
+    public HttpConnectionPool(int maxConnections, int maxConnectionsPerHost, long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        connectionManager = new PoolingClientConnectionManager(SchemeRegistryFactory.createSystemDefault());
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(Math.min(maxConnectionsPerHost, maxConnections));
+        lastEviction = System.currentTimeMillis();
+    }
+
+    /**
+     * Creates a pool configured from the system properties. Like {@link org.apache.http.impl.client.SystemDefaultHttpClient}, allows
+     * {@code http.maxConnections} connections per host and twice that in total. When {@code http.keepAlive} is false, connections are
+     * not kept once idle.
+     */
+    public static HttpConnectionPool fromSystemProperties() {
+        boolean keepAlive = Boolean.valueOf(System.getProperty(SYSTEM_KEEP_ALIVE_PROPERTY, "true"));
+        int maxConnectionsPerHost = Integer.getInteger(MAX_CONNECTIONS_PER_HOST_PROPERTY, Integer.getInteger(SYSTEM_MAX_CONNECTIONS_PROPERTY, DEFAULT_SYSTEM_MAX_CONNECTIONS));
+        int maxConnections = Integer.getInteger(MAX_CONNECTIONS_PROPERTY, 2 * maxConnectionsPerHost);
+        long idleTimeout = keepAlive ? TimeUnit.SECONDS.toMillis(Integer.getInteger(IDLE_TIMEOUT_PROPERTY, DEFAULT_IDLE_TIMEOUT_SECONDS)) : 0;
+        return new HttpConnectionPool(maxConnections, maxConnectionsPerHost, idleTimeout);
+    }
+
+    public ClientConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    /**
+     * Closes connections which have expired or have been idle for longer than the idle timeout. Does nothing when called
+     * again within a few seconds, so it is cheap enough to call before every request.
+     */
+    public void evictIdleConnections() {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            if (now - lastEviction < EVICTION_INTERVAL_MILLIS) {
+                return;
+            }
+            lastEviction = now;
+        }
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Closes all connections of this pool.
+     */
+    public void stop() {
+        connectionManager.shutdown();
+    }
+}
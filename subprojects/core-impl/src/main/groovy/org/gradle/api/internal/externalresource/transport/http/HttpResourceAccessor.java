@@ -19,6 +19,7 @@ package org.gradle.api.internal.externalresource.transport.http;
 import org.apache.http.HttpResponse;
 import org.apache.http.util.EntityUtils;
 import org.gradle.api.internal.externalresource.ExternalResource;
+import org.gradle.api.internal.externalresource.UnchangedExternalResource;
 import org.gradle.api.internal.externalresource.metadata.ExternalResourceMetaData;
 import org.gradle.api.internal.externalresource.transfer.ExternalResourceAccessor;
 import org.gradle.util.hash.HashValue;
@@ -34,7 +35,13 @@ public class HttpResourceAccessor implements ExternalResourceAccessor {
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpResourceAccessor.class);
     private final HttpClientHelper http;
 
-    private final List<ExternalResource> openResources = new ArrayList<ExternalResource>();
+    // Resources are downloaded from several threads at once, so only abandon those opened by the calling thread
+    private final ThreadLocal<List<ExternalResource>> openResources = new ThreadLocal<List<ExternalResource>>() {
+        @Override
+        protected List<ExternalResource> initialValue() {
+            return new ArrayList<ExternalResource>();
+        }
+    };
 
     public HttpResourceAccessor(HttpClientHelper http) {
         this.http = http;
@@ -45,20 +52,25 @@ public class HttpResourceAccessor implements ExternalResourceAccessor {
         LOGGER.debug("Constructing external resource: {}", location);
         HttpResponse response = http.performGet(location);
         if (response != null) {
-            HttpResponseResource resource = new HttpResponseResource("GET", location, response) {
-                @Override
-                public void close() throws IOException {
-                    super.close();
-                    HttpResourceAccessor.this.openResources.remove(this);
-                }
-            };
-
-            return recordOpenGetResource(resource);
+            return recordOpenGetResource(location, response);
         } else {
             return null;
         }
     }
 
+    public ExternalResource getResourceIfChanged(String location, ExternalResourceMetaData cachedMetaData) throws IOException {
+        abortOpenResources();
+        LOGGER.debug("Constructing external resource if changed: {}", location);
+        HttpResponse response = http.performConditionalGet(location, cachedMetaData.getEtag(), cachedMetaData.getLastModified());
+        if (response == null) {
+            return null;
+        }
+        if (http.wasNotModified(response)) {
+            return new UnchangedExternalResource(location, cachedMetaData);
+        }
+        return recordOpenGetResource(location, response);
+    }
+
     public ExternalResourceMetaData getMetaData(String location) {
         abortOpenResources();
         LOGGER.debug("Constructing external resource metadata: {}", location);
@@ -66,13 +78,21 @@ public class HttpResourceAccessor implements ExternalResourceAccessor {
         return response == null ? null : new HttpResponseResource("HEAD", location, response).getMetaData();
     }
 
-    private HttpResponseResource recordOpenGetResource(HttpResponseResource httpResource) {
-        openResources.add(httpResource);
+    private HttpResponseResource recordOpenGetResource(String location, HttpResponse response) {
+        HttpResponseResource httpResource = new HttpResponseResource("GET", location, response) {
+            @Override
+            public void close() throws IOException {
+                super.close();
+                HttpResourceAccessor.this.openResources.get().remove(this);
+            }
+        };
+        openResources.get().add(httpResource);
         return httpResource;
     }
 
     private void abortOpenResources() {
-        for (ExternalResource openResource : openResources) {
+        List<ExternalResource> openResources = this.openResources.get();
+        for (ExternalResource openResource : new ArrayList<ExternalResource>(openResources)) {
             LOGGER.warn("Forcing close on abandoned resource: " + openResource);
             try {
                 openResource.close();
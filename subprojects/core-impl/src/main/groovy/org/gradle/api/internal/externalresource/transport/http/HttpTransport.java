@@ -17,7 +17,9 @@ package org.gradle.api.internal.externalresource.transport.http;
 
 import org.apache.ivy.core.cache.RepositoryCacheManager;
 import org.apache.ivy.plugins.resolver.AbstractResolver;
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.repositories.PasswordCredentials;
+import org.gradle.api.internal.artifacts.repositories.resolver.VersionListingCache;
 import org.gradle.api.internal.externalresource.cached.CachedExternalResourceIndex;
 import org.gradle.api.internal.externalresource.transfer.DefaultCacheAwareExternalResourceAccessor;
 import org.gradle.api.internal.externalresource.transport.DefaultExternalResourceRepository;
@@ -37,20 +39,31 @@ public class HttpTransport implements RepositoryTransport {
     private final ProgressLoggerFactory progressLoggerFactory;
     private final TemporaryFileProvider temporaryFileProvider;
     private final CachedExternalResourceIndex<String> cachedExternalResourceIndex;
+    private final VersionListingCache versionListingCache;
+    private final HttpConnectionPool connectionPool;
 
     public HttpTransport(String name, PasswordCredentials credentials, RepositoryCacheManager repositoryCacheManager,
                          ProgressLoggerFactory progressLoggerFactory, TemporaryFileProvider temporaryFileProvider,
-                         CachedExternalResourceIndex<String> cachedExternalResourceIndex) {
+                         CachedExternalResourceIndex<String> cachedExternalResourceIndex, HttpConnectionPool connectionPool) {
+        this(name, credentials, repositoryCacheManager, progressLoggerFactory, temporaryFileProvider, cachedExternalResourceIndex, null, connectionPool);
+    }
+
+    public HttpTransport(String name, PasswordCredentials credentials, RepositoryCacheManager repositoryCacheManager,
+                         ProgressLoggerFactory progressLoggerFactory, TemporaryFileProvider temporaryFileProvider,
+                         CachedExternalResourceIndex<String> cachedExternalResourceIndex, @Nullable VersionListingCache versionListingCache,
+                         HttpConnectionPool connectionPool) {
         this.name = name;
         this.credentials = credentials;
         this.repositoryCacheManager = repositoryCacheManager;
         this.progressLoggerFactory = progressLoggerFactory;
         this.temporaryFileProvider = temporaryFileProvider;
         this.cachedExternalResourceIndex = cachedExternalResourceIndex;
+        this.versionListingCache = versionListingCache;
+        this.connectionPool = connectionPool;
     }
 
     public ExternalResourceRepository getRepository() {
-        HttpClientHelper http = new HttpClientHelper(new DefaultHttpSettings(credentials));
+        HttpClientHelper http = new HttpClientHelper(new DefaultHttpSettings(credentials), connectionPool);
         HttpResourceAccessor accessor = new HttpResourceAccessor(http);
         HttpResourceUploader uploader = new HttpResourceUploader(http);
         ProgressLoggingExternalResourceAccessor loggingAccessor = new ProgressLoggingExternalResourceAccessor(accessor, progressLoggerFactory);
@@ -68,6 +81,10 @@ public class HttpTransport implements RepositoryTransport {
         resolver.setRepositoryCacheManager(repositoryCacheManager);
     }
 
+    public VersionListingCache getVersionListingCache() {
+        return versionListingCache;
+    }
+
     public String convertToPath(URI uri) {
         return normalisePath(uri.toString());
     }
@@ -21,8 +21,10 @@ import org.apache.ivy.core.module.descriptor.DefaultArtifact;
 import org.apache.ivy.core.module.id.ArtifactRevisionId;
 import org.gradle.api.Transformer;
 import org.gradle.api.internal.file.TemporaryFileProvider;
+import org.gradle.api.internal.filestore.ContentAddressedFileStore;
 import org.gradle.api.internal.filestore.GroupedAndNamedUniqueFileStore;
 import org.gradle.api.internal.filestore.PathKeyFileStore;
+import org.gradle.internal.nativeplatform.filesystem.FileSystem;
 
 public class ArtifactRevisionIdFileStore extends GroupedAndNamedUniqueFileStore<ArtifactRevisionId> {
 
@@ -33,6 +35,10 @@ public class ArtifactRevisionIdFileStore extends GroupedAndNamedUniqueFileStore<
         super(pathKeyFileStore, temporaryFileProvider, toTransformer(GROUP_PATTERN), toTransformer(NAME_PATTERN));
     }
 
+    public ArtifactRevisionIdFileStore(PathKeyFileStore pathKeyFileStore, TemporaryFileProvider temporaryFileProvider, ContentAddressedFileStore contentStore, FileSystem fileSystem) {
+        super(pathKeyFileStore, temporaryFileProvider, toTransformer(GROUP_PATTERN), toTransformer(NAME_PATTERN), contentStore, fileSystem);
+    }
+
     private static Transformer<String, ArtifactRevisionId> toTransformer(final String pattern) {
         return new Transformer<String, ArtifactRevisionId>() {
             public String transform(ArtifactRevisionId id) {
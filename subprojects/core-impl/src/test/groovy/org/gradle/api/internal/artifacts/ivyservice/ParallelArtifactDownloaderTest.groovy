@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice
+
+import org.apache.ivy.core.module.descriptor.Artifact
+import org.gradle.api.artifacts.ResolvedDependency
+import org.gradle.api.internal.artifacts.DefaultResolvedArtifact
+import org.gradle.internal.Factory
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.logging.ProgressLogger
+import org.gradle.logging.ProgressLoggerFactory
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArrayList
+
+class ParallelArtifactDownloaderTest extends Specification {
+    final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+    final ProgressLoggerFactory progressLoggerFactory = Mock()
+    final ProgressLogger progressLogger = Mock()
+    final ParallelArtifactDownloader downloader = new ParallelArtifactDownloader(executorFactory, progressLoggerFactory, 3)
+    final threads = new CopyOnWriteArrayList<Thread>()
+
+    def setup() {
+        _ * progressLoggerFactory.newOperation(_) >> progressLogger
+    }
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "downloads the files of artifacts on worker threads"() {
+        def artifacts = (1..10).collect { artifact(new File("file$it")) }
+
+        when:
+        downloader.download(artifacts)
+
+        then:
+        artifacts.every { it.resolved }
+        threads.size() == 10
+        !threads.contains(Thread.currentThread())
+
+        and:
+        1 * progressLogger.started()
+        10 * progressLogger.progress(_)
+        1 * progressLogger.completed()
+    }
+
+    def "does not download artifacts whose files have already been resolved"() {
+        def artifacts = (1..3).collect { artifact(new File("file$it")) }
+        artifacts[0].file
+
+        when:
+        downloader.download(artifacts)
+
+        then:
+        threads.size() == 3
+        threads[0] == Thread.currentThread()
+    }
+
+    def "leaves a failed download for the caller to report"() {
+        def failure = new RuntimeException("broken")
+        def broken = artifact { throw failure }
+        def artifacts = [artifact(new File("file1")), broken]
+
+        when:
+        downloader.download(artifacts)
+
+        then:
+        artifacts[0].resolved
+        !broken.resolved
+
+        when:
+        broken.file
+
+        then:
+        RuntimeException e = thrown()
+        e == failure
+    }
+
+    def "does nothing for a single artifact"() {
+        def artifact = artifact(new File("file"))
+
+        when:
+        downloader.download([artifact])
+
+        then:
+        !artifact.resolved
+        0 * progressLoggerFactory._
+    }
+
+    def artifact(File file) {
+        return artifact { file }
+    }
+
+    def artifact(Closure source) {
+        Artifact ivyArtifact = Mock()
+        ResolvedDependency dependency = Mock()
+        _ * ivyArtifact.qualifiedExtraAttributes >> [:]
+        return new DefaultResolvedArtifact(dependency, ivyArtifact, { threads << Thread.currentThread(); source.call() } as Factory<File>)
+    }
+}
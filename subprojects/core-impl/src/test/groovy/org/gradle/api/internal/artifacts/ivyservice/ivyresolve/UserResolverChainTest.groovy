@@ -24,6 +24,11 @@ import org.apache.ivy.core.module.id.ModuleRevisionId
 import org.apache.ivy.core.module.descriptor.ModuleDescriptor
 import org.apache.ivy.plugins.version.VersionMatcher
 import org.apache.ivy.plugins.latest.LatestRevisionStrategy
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
 
 class UserResolverChainTest extends Specification {
     final UserResolverChain resolver = new UserResolverChain()
@@ -33,6 +38,9 @@ class UserResolverChainTest extends Specification {
     final ModuleRevisionId resolvedId = descriptor.resolvedModuleRevisionId
     final BuildableModuleVersionResolveResult result = Mock()
     final VersionMatcher matcher = Stub()
+    final CacheLockingManager cacheLockingManager = Stub()
+    final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+    final UserResolverChain parallelResolver = new UserResolverChain(new ParallelRemoteLookups(cacheLockingManager, executorFactory, 4))
 
     def setup() {
         dependency.dependencyRevisionId >> dependencyId
@@ -40,6 +48,13 @@ class UserResolverChainTest extends Specification {
         _ * settings.versionMatcher >> matcher
         _ * settings.defaultLatestStrategy >> new LatestRevisionStrategy();
         resolver.settings = settings
+        parallelResolver.settings = settings
+        _ * cacheLockingManager.useCache(_ as String, _ as Runnable) >> { String operation, Runnable action -> action.run() }
+        _ * cacheLockingManager.longRunningOperation(_ as String, _ as Runnable) >> { String operation, Runnable action -> action.run() }
+    }
+
+    def cleanup() {
+        executorFactory.stop()
     }
 
     def "uses local dependency when available"() {
@@ -505,6 +520,106 @@ class UserResolverChainTest extends Specification {
         0 * result._
     }
 
+    def "searches remote repositories one at a time for static version"() {
+        given:
+        _ * matcher.isDynamic(_) >> false
+        def repo1 = Mock(LocalAwareModuleVersionRepository)
+        def repo2 = Mock(LocalAwareModuleVersionRepository)
+        parallelResolver.add(repo1)
+        parallelResolver.add(repo2)
+
+        when:
+        parallelResolver.resolve(dependency, result)
+
+        then:
+        1 * repo1.getLocalDependency(dependency, _)
+        1 * repo1.getDependency(dependency, _) >> { dep, result ->
+            result.resolved(descriptor, true)
+        }
+        1 * result.resolved(resolvedId, descriptor, repo1)
+
+        and:
+        _ * repo1.name >> "repo1"
+        _ * repo2.name >> "repo2"
+        0 * repo1._
+        0 * repo2._
+        0 * result._
+    }
+
+    def "searches remote repositories concurrently and chooses the best remote dependency for dynamic version"() {
+        given:
+        _ * matcher.isDynamic(_) >> true
+        def repo1 = Mock(LocalAwareModuleVersionRepository)
+        def repo2 = Mock(LocalAwareModuleVersionRepository)
+        def repo3 = Mock(LocalAwareModuleVersionRepository)
+        def repo2Searched = new CountDownLatch(1)
+        def version2 = descriptor("1.3")
+        parallelResolver.add(repo1)
+        parallelResolver.add(repo2)
+        parallelResolver.add(repo3)
+
+        when:
+        parallelResolver.resolve(dependency, result)
+
+        then:
+        1 * repo1.getLocalDependency(dependency, _)
+        1 * repo2.getLocalDependency(dependency, _)
+        1 * repo3.getLocalDependency(dependency, _) >> { dep, result ->
+            result.missing()
+        }
+        1 * repo1.getDependency(dependency, _) >> { dep, result ->
+            assert repo2Searched.await(20, TimeUnit.SECONDS)
+            result.resolved(descriptor("1.1"), true)
+        }
+        1 * repo2.getDependency(dependency, _) >> { dep, result ->
+            result.resolved(version2, true)
+            repo2Searched.countDown()
+        }
+        1 * result.resolved(version2.resolvedModuleRevisionId, version2, repo2)
+
+        and:
+        _ * repo1.name >> "repo1"
+        _ * repo2.name >> "repo2"
+        _ * repo3.name >> "repo3"
+        0 * repo1._
+        0 * repo2._
+        0 * repo3._
+        0 * result._
+    }
+
+    def "does not search later repositories when static version is available locally from an earlier repository"() {
+        given:
+        _ * matcher.isDynamic(_) >> false
+        def repo1 = Mock(LocalAwareModuleVersionRepository)
+        def repo2 = Mock(LocalAwareModuleVersionRepository)
+        def repo3 = Mock(LocalAwareModuleVersionRepository)
+        parallelResolver.add(repo1)
+        parallelResolver.add(repo2)
+        parallelResolver.add(repo3)
+
+        when:
+        parallelResolver.resolve(dependency, result)
+
+        then:
+        1 * repo1.getLocalDependency(dependency, _)
+        1 * repo1.getDependency(dependency, _) >> { dep, result ->
+            result.missing()
+        }
+        1 * repo2.getLocalDependency(dependency, _) >> { dep, result ->
+            result.resolved(descriptor, true)
+        }
+        1 * result.resolved(resolvedId, descriptor, repo2)
+
+        and:
+        _ * repo1.name >> "repo1"
+        _ * repo2.name >> "repo2"
+        _ * repo3.name >> "repo3"
+        0 * repo1._
+        0 * repo2._
+        0 * repo3._
+        0 * result._
+    }
+
     def descriptor(def version) {
         def descriptor = Stub(ModuleDescriptor)
         descriptor.resolvedModuleRevisionId >> ModuleRevisionId.newInstance("org", "module", version)
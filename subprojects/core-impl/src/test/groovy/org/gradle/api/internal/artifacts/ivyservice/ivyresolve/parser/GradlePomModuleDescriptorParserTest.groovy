@@ -20,6 +20,7 @@ import org.apache.ivy.core.module.descriptor.ModuleDescriptor
 import org.apache.ivy.core.module.id.ArtifactRevisionId
 import org.apache.ivy.core.module.id.ModuleRevisionId
 import org.apache.ivy.plugins.parser.ParserSettings
+import org.apache.ivy.plugins.resolver.DependencyResolver
 import org.gradle.util.TemporaryFolder
 import org.gradle.util.TestFile
 import org.junit.Rule
@@ -28,7 +29,8 @@ import spock.lang.Issue
 
 class GradlePomModuleDescriptorParserTest extends Specification {
     @Rule public final TemporaryFolder tmpDir = new TemporaryFolder()
-    final GradlePomModuleDescriptorParser parser = new GradlePomModuleDescriptorParser()
+    final ParsedPomCache parsedPomCache = new ParsedPomCache(10)
+    final GradlePomModuleDescriptorParser parser = new GradlePomModuleDescriptorParser(parsedPomCache)
     final ParserSettings ivySettings = Mock()
     TestFile pomFile
 
@@ -149,10 +151,106 @@ class GradlePomModuleDescriptorParserTest extends Specification {
         descriptor.dependencies.length == 0
     }
 
+    def "reuses result of parsing pom when pom has not changed"() {
+        given:
+        pomFile << """
+<project>
+    <modelVersion>4.0.0</modelVersion>
+    <groupId>group-one</groupId>
+    <artifactId>artifact-one</artifactId>
+    <version>version-one</version>
+</project>
+"""
+        def descriptor = parseCachedPom("repo")
+
+        when:
+        def reused = parseCachedPom("repo")
+
+        then:
+        parsedPomCache.size() == 1
+        reused.moduleRevisionId == descriptor.moduleRevisionId
+        reused.status == descriptor.status
+        reused.configurations*.name == descriptor.configurations*.name
+        reused.allArtifacts*.name == descriptor.allArtifacts*.name
+
+        and:
+        !reused.is(descriptor)
+        !parseCachedPom("repo").is(reused)
+    }
+
+    def "parses pom again for a different set of repositories"() {
+        given:
+        pomFile << """
+<project>
+    <modelVersion>4.0.0</modelVersion>
+    <groupId>group-one</groupId>
+    <artifactId>artifact-one</artifactId>
+    <version>version-one</version>
+</project>
+"""
+        parseCachedPom("repo")
+
+        when:
+        parseCachedPom("other-repo")
+
+        then:
+        parsedPomCache.size() == 2
+    }
+
+    def "parses pom again when its content has changed"() {
+        given:
+        pomFile.text = """
+<project>
+    <modelVersion>4.0.0</modelVersion>
+    <groupId>group-one</groupId>
+    <artifactId>artifact-one</artifactId>
+    <version>version-one</version>
+</project>
+"""
+        parseCachedPom("repo")
+
+        when:
+        pomFile.text = """
+<project>
+    <modelVersion>4.0.0</modelVersion>
+    <groupId>group-one</groupId>
+    <artifactId>artifact-one</artifactId>
+    <version>version-two</version>
+</project>
+"""
+        def descriptor = parseCachedPom("repo")
+
+        then:
+        descriptor.moduleRevisionId == moduleId('group-one', 'artifact-one', 'version-two')
+    }
+
+    def "discards least recently used parsed poms when cache is full"() {
+        given:
+        def cache = new ParsedPomCache(2)
+        def descriptor = [1, 2, 3] as byte[]
+        def keys = (1..3).collect { cache.createKey(tmpDir.createFile("pom-${it}.xml"), 0, false, "repo") }
+
+        when:
+        keys.each { cache.put(it, descriptor) }
+
+        then:
+        cache.size() == 2
+        cache.get(keys[0]) == null
+        cache.get(keys[2]).is(descriptor)
+    }
+
     private ModuleDescriptor parsePom() {
         parser.parseDescriptor(ivySettings, pomFile.toURI().toURL(), false)
     }
 
+    private ModuleDescriptor parseCachedPom(String repositoryName) {
+        def resolver = Stub(DependencyResolver) {
+            getName() >> repositoryName
+        }
+        def settings = new ModuleScopedParserSettings(ivySettings, resolver, moduleId('group-one', 'artifact-one', 'version-one'))
+        parser.parseDescriptor(settings, pomFile.toURI().toURL(), false)
+    }
+
     private void hasArtifact(ModuleDescriptor descriptor, String name, String type, String ext, String classifier = null) {
         descriptor.allArtifacts.length == 1
         def artifact = descriptor.allArtifacts.first()
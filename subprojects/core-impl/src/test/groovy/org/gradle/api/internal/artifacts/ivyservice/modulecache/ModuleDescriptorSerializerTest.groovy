@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import org.apache.ivy.core.module.descriptor.*
+import org.apache.ivy.core.module.id.ArtifactId
+import org.apache.ivy.core.module.id.ModuleId
+import org.apache.ivy.core.module.id.ModuleRevisionId
+import org.apache.ivy.core.settings.IvySettings
+import org.apache.ivy.plugins.matcher.ExactPatternMatcher
+import org.apache.ivy.plugins.parser.ModuleDescriptorParser
+import spock.lang.Specification
+
+class ModuleDescriptorSerializerTest extends Specification {
+    final serializer = new ModuleDescriptorSerializer(Mock(ModuleDescriptorParser))
+    final settings = new IvySettings()
+
+    def "reads module descriptor that was written"() {
+        def md = new DefaultModuleDescriptor(ModuleRevisionId.newInstance("org", "module", "1.2", [classifier: "jdk5"]), "release", new Date(1000), false)
+        md.addConfiguration(new Configuration("compile"))
+        md.addConfiguration(new Configuration("runtime", Configuration.Visibility.PUBLIC, "runtime classpath", ["compile"] as String[], true, null))
+        def artifact = new MDArtifact(md, "module", "jar", "jar")
+        artifact.addConfiguration("compile")
+        md.addArtifact("compile", artifact)
+        md.addExtraInfo("info", "value")
+
+        def dependency = new DefaultDependencyDescriptor(md, ModuleRevisionId.newInstance("org", "other", "1.+"), false, true, false)
+        dependency.addDependencyConfiguration("runtime", "default")
+        def exclude = new DefaultExcludeRule(new ArtifactId(new ModuleId("org", "excluded"), "*", "*", "*"), ExactPatternMatcher.INSTANCE, [:])
+        exclude.addConfiguration("runtime")
+        dependency.addExcludeRule("runtime", exclude)
+        md.addDependency(dependency)
+
+        when:
+        def result = roundTrip(md)
+
+        then:
+        result.moduleRevisionId == md.moduleRevisionId
+        result.moduleRevisionId.qualifiedExtraAttributes == [classifier: "jdk5"]
+        result.status == "release"
+        result.publicationDate == new Date(1000)
+        result.configurationsNames as List == ["compile", "runtime"]
+        result.getConfiguration("runtime").description == "runtime classpath"
+        result.getConfiguration("runtime").extends as List == ["compile"]
+        result.getArtifacts("compile")*.name == ["module"]
+        result.getArtifacts("runtime").length == 0
+        result.extraInfo == [info: "value"]
+        result.metadataArtifact != null
+
+        and:
+        result.dependencies.length == 1
+        def resultDependency = result.dependencies[0]
+        resultDependency.dependencyRevisionId == dependency.dependencyRevisionId
+        resultDependency.changing
+        !resultDependency.transitive
+        resultDependency.getDependencyConfigurations("runtime") as List == ["default"]
+        resultDependency.getExcludeRules("runtime")*.id == [exclude.id]
+        resultDependency.getExcludeRules("runtime")[0].matcher == ExactPatternMatcher.INSTANCE
+    }
+
+    def "fails to read content in an unexpected format"() {
+        when:
+        serializer.read(new ByteArrayInputStream("<ivy-module/>".bytes), settings)
+
+        then:
+        thrown(IOException)
+    }
+
+    private ModuleDescriptor roundTrip(ModuleDescriptor md) {
+        def outputStream = new ByteArrayOutputStream()
+        serializer.write(md, outputStream)
+        return serializer.read(new ByteArrayInputStream(outputStream.toByteArray()), settings)
+    }
+}
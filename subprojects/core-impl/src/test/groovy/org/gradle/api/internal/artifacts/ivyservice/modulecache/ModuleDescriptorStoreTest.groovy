@@ -16,8 +16,12 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.modulecache
 
+import org.apache.ivy.Ivy
+import org.apache.ivy.core.IvyContext
 import org.apache.ivy.core.module.descriptor.ModuleDescriptor
 import org.apache.ivy.core.module.id.ModuleRevisionId
+import org.apache.ivy.core.resolve.ResolveData
+import org.apache.ivy.core.resolve.ResolveOptions
 import org.gradle.api.internal.artifacts.ivyservice.IvyModuleDescriptorWriter
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleVersionRepository
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.IvyXmlModuleDescriptorParser
@@ -38,14 +42,22 @@ class ModuleDescriptorStoreTest extends Specification {
     ModuleDescriptor moduleDescriptor = Mock()
     IvyModuleDescriptorWriter ivyModuleDescriptorWriter = Mock()
     IvyXmlModuleDescriptorParser ivyXmlModuleDescriptorParser = Mock()
+    ModuleDescriptorSerializer moduleDescriptorSerializer = Mock()
 
     def setup() {
-        store = new ModuleDescriptorStore(pathKeyFileStore, ivyModuleDescriptorWriter, ivyXmlModuleDescriptorParser);
+        store = new ModuleDescriptorStore(pathKeyFileStore, ivyModuleDescriptorWriter, ivyXmlModuleDescriptorParser, moduleDescriptorSerializer);
         _ * repository.getId() >> "repositoryId"
         _ * moduleRevisionId.getOrganisation() >> "org.test"
         _ * moduleRevisionId.getName() >> "testArtifact"
         _ * moduleRevisionId.getRevision() >> "1.0"
         _ * moduleDescriptor.getModuleRevisionId() >> moduleRevisionId
+        def ivy = Ivy.newInstance()
+        IvyContext.pushNewContext().ivy = ivy
+        IvyContext.context.resolveData = new ResolveData(ivy.resolveEngine, new ResolveOptions())
+    }
+
+    def cleanup() {
+        IvyContext.popContext()
     }
 
     def "getModuleDescriptorFile returns null for not cached descriptors"() {
@@ -71,6 +83,127 @@ class ModuleDescriptorStoreTest extends Specification {
         1 * pathKeyFileStore.add("module-metadata/org.test/testArtifact/1.0/repositoryId.ivy.xml", _) >> {path, action ->
             action.execute(descriptorFile); fileStoreEntry
         };
+        _ * fileStoreEntry.file >> descriptorFile
         1 * ivyModuleDescriptorWriter.write(moduleDescriptor, descriptorFile)
     }
+
+    def "putModuleDescriptor writes binary descriptor alongside ivy.xml"() {
+        setup:
+        File descriptorFile = temporaryFolder.createFile("fileStoreEntry")
+        File binaryDescriptorFile = temporaryFolder.createFile("binaryFileStoreEntry")
+        when:
+        store.putModuleDescriptor(repository, moduleDescriptor);
+        then:
+        1 * pathKeyFileStore.add("module-metadata/org.test/testArtifact/1.0/repositoryId.ivy.xml", _) >> {path, action ->
+            action.execute(descriptorFile); fileStoreEntry
+        };
+        _ * fileStoreEntry.file >> descriptorFile
+        1 * pathKeyFileStore.add("module-metadata/org.test/testArtifact/1.0/repositoryId.ivy.bin", _) >> {path, action ->
+            action.execute(binaryDescriptorFile); fileStoreEntry
+        };
+        1 * moduleDescriptorSerializer.write(moduleDescriptor, _)
+    }
+
+    def "getModuleDescriptor reads binary descriptor when it matches ivy.xml"() {
+        given:
+        def xmlFile = temporaryFolder.createFile("ivy.xml")
+        xmlFile.text = "<ivy-module/>"
+        def binaryFile = temporaryFolder.file("ivy.bin")
+        ModuleDescriptor cachedDescriptor = Mock()
+        putModuleDescriptor(xmlFile, binaryFile)
+
+        when:
+        def result = store.getModuleDescriptor(repository, moduleRevisionId)
+
+        then:
+        result == cachedDescriptor
+        1 * pathKeyFileStore.get("module-metadata/org.test/testArtifact/1.0/repositoryId.ivy.xml") >> entry(xmlFile)
+        1 * pathKeyFileStore.get("module-metadata/org.test/testArtifact/1.0/repositoryId.ivy.bin") >> entry(binaryFile)
+        1 * moduleDescriptorSerializer.read(_, _) >> { InputStream instr, settings ->
+            assert instr.read() == 42
+            cachedDescriptor
+        }
+        0 * ivyXmlModuleDescriptorParser._
+        0 * pathKeyFileStore.add(_, _)
+    }
+
+    def "getModuleDescriptor parses ivy.xml and replaces binary descriptor when ivy.xml has changed"() {
+        given:
+        def xmlFile = temporaryFolder.createFile("ivy.xml")
+        xmlFile.text = "<ivy-module/>"
+        def binaryFile = temporaryFolder.file("ivy.bin")
+        putModuleDescriptor(xmlFile, binaryFile)
+        // Same length and modification time, different content
+        def lastModified = xmlFile.lastModified()
+        xmlFile.text = "<ivy-modulx/>"
+        xmlFile.setLastModified(lastModified)
+
+        when:
+        def result = store.getModuleDescriptor(repository, moduleRevisionId)
+
+        then:
+        result == moduleDescriptor
+        1 * pathKeyFileStore.get("module-metadata/org.test/testArtifact/1.0/repositoryId.ivy.xml") >> entry(xmlFile)
+        1 * pathKeyFileStore.get("module-metadata/org.test/testArtifact/1.0/repositoryId.ivy.bin") >> entry(binaryFile)
+        0 * moduleDescriptorSerializer.read(_, _)
+        1 * ivyXmlModuleDescriptorParser.parseDescriptor(_, xmlFile.toURI().toURL(), false) >> moduleDescriptor
+        1 * pathKeyFileStore.add("module-metadata/org.test/testArtifact/1.0/repositoryId.ivy.bin", _) >> { path, action ->
+            action.execute(binaryFile); entry(binaryFile)
+        }
+        1 * moduleDescriptorSerializer.write(moduleDescriptor, _)
+    }
+
+    def "getModuleDescriptor parses ivy.xml when binary descriptor cannot be read"() {
+        given:
+        def xmlFile = temporaryFolder.createFile("ivy.xml")
+        xmlFile.text = "<ivy-module/>"
+        def binaryFile = temporaryFolder.file("ivy.bin")
+        putModuleDescriptor(xmlFile, binaryFile)
+
+        when:
+        def result = store.getModuleDescriptor(repository, moduleRevisionId)
+
+        then:
+        result == moduleDescriptor
+        1 * pathKeyFileStore.get("module-metadata/org.test/testArtifact/1.0/repositoryId.ivy.xml") >> entry(xmlFile)
+        1 * pathKeyFileStore.get("module-metadata/org.test/testArtifact/1.0/repositoryId.ivy.bin") >> entry(binaryFile)
+        1 * moduleDescriptorSerializer.read(_, _) >> { throw new IOException("corrupt") }
+        1 * ivyXmlModuleDescriptorParser.parseDescriptor(_, xmlFile.toURI().toURL(), false) >> moduleDescriptor
+        1 * pathKeyFileStore.add("module-metadata/org.test/testArtifact/1.0/repositoryId.ivy.bin", _) >> entry(binaryFile)
+    }
+
+    def "getModuleDescriptor parses ivy.xml when binary descriptor is truncated"() {
+        given:
+        def xmlFile = temporaryFolder.createFile("ivy.xml")
+        xmlFile.text = "<ivy-module/>"
+        def binaryFile = temporaryFolder.createFile("ivy.bin")
+        binaryFile.bytes = [0, 0, 0] as byte[]
+
+        when:
+        def result = store.getModuleDescriptor(repository, moduleRevisionId)
+
+        then:
+        result == moduleDescriptor
+        1 * pathKeyFileStore.get("module-metadata/org.test/testArtifact/1.0/repositoryId.ivy.xml") >> entry(xmlFile)
+        1 * pathKeyFileStore.get("module-metadata/org.test/testArtifact/1.0/repositoryId.ivy.bin") >> entry(binaryFile)
+        0 * moduleDescriptorSerializer.read(_, _)
+        1 * ivyXmlModuleDescriptorParser.parseDescriptor(_, xmlFile.toURI().toURL(), false) >> moduleDescriptor
+        1 * pathKeyFileStore.add("module-metadata/org.test/testArtifact/1.0/repositoryId.ivy.bin", _) >> entry(binaryFile)
+    }
+
+    private void putModuleDescriptor(File xmlFile, File binaryFile) {
+        def putStore = new ModuleDescriptorStore(Stub(PathKeyFileStore) {
+            add({ it.endsWith(".ivy.xml") }, _) >> { path, action -> entry(xmlFile) }
+            add({ it.endsWith(".ivy.bin") }, _) >> { path, action -> action.execute(binaryFile); entry(binaryFile) }
+        }, ivyModuleDescriptorWriter, ivyXmlModuleDescriptorParser, Stub(ModuleDescriptorSerializer) {
+            write(_, _) >> { descriptor, OutputStream outstr -> outstr.write(42) }
+        })
+        putStore.putModuleDescriptor(repository, moduleDescriptor)
+    }
+
+    private FileStoreEntry entry(File file) {
+        return Stub(FileStoreEntry) {
+            getFile() >> file
+        }
+    }
 }
\ No newline at end of file
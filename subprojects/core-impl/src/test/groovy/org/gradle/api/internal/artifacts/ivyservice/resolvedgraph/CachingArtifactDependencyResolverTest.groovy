@@ -0,0 +1,261 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolvedgraph
+
+import org.gradle.api.artifacts.Dependency
+import org.gradle.api.artifacts.ExternalModuleDependency
+import org.gradle.api.artifacts.ResolvableDependencies
+import org.gradle.api.internal.artifacts.*
+import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal
+import org.gradle.api.internal.artifacts.ivyservice.ArtifactCacheMetaData
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.api.internal.artifacts.ivyservice.DefaultLenientConfiguration
+import org.gradle.api.internal.artifacts.ivyservice.DefaultResolvedConfiguration
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.InternalDependencyResult
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ModuleVersionSelection
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ResolutionResultBuilder
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.VersionSelectionReasons
+import org.gradle.api.specs.Spec
+import org.gradle.api.specs.Specs
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.Factory
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class CachingArtifactDependencyResolverTest extends Specification {
+    @Rule final TemporaryFolder tmpDir = new TemporaryFolder()
+    final ArtifactDependencyResolver target = Mock()
+    final ResolvedGraphFingerprinter fingerprinter = Mock()
+    final CacheLockingManager lockingManager = Mock()
+    final ArtifactCacheMetaData cacheMetaData = Mock()
+    final ConfigurationInternal configuration = Mock()
+    final ExternalModuleDependency dependency = Mock()
+    final Map<String, byte[]> entries = [:]
+    final ResolvedGraphCache cache = new ResolvedGraphCache(cacheMetaData, lockingManager)
+    final File jar = tmpDir.createFile("lib-1.0.jar")
+
+    def setup() {
+        _ * lockingManager.useCache(_, _) >> { it[1].create() }
+        _ * lockingManager.createCache(_, String, ResolvedGraph) >> serializingCache()
+        _ * cacheMetaData.cacheDir >> tmpDir.testDir
+        _ * configuration.module >> new DefaultModule("org", "root", "1.0")
+        _ * configuration.incoming >> Stub(ResolvableDependencies) { getPath() >> ":compile" }
+    }
+
+    def "resolves without using stored results when configuration has no fingerprint"() {
+        def resolver = resolver(false)
+        def results = resolverResults()
+
+        when:
+        def result = resolver.resolve(configuration)
+
+        then:
+        result == results
+        1 * fingerprinter.fingerprint(configuration, _) >> null
+        1 * target.resolve(configuration) >> results
+    }
+
+    def "stores result once the artifact files are known and reuses it"() {
+        def resolver = resolver(false)
+        _ * fingerprinter.fingerprint(configuration, _) >> { it[1] << dependency; "fingerprint" }
+
+        when:
+        def first = resolver.resolve(configuration)
+
+        then:
+        1 * target.resolve(configuration) >> resolverResults()
+        entries.isEmpty()
+
+        when:
+        def files = first.resolvedConfiguration.getFiles(Specs.<Dependency>satisfyAll())
+
+        then:
+        files == [jar] as Set
+        entries.size() == 1
+
+        when:
+        def second = resolver.resolve(configuration)
+
+        then:
+        0 * target._
+        second.resolvedConfiguration.getFiles(Specs.<Dependency>satisfyAll()) == [jar] as Set
+        second.resolvedConfiguration.firstLevelModuleDependencies*.name == ["org:lib:1.0"]
+        second.resolvedConfiguration.getFirstLevelModuleDependencies({ it == dependency } as Spec)*.name == ["org:lib:1.0"]
+        second.resolutionResult.root.id == DefaultModuleVersionIdentifier.newId("org", "root", "1.0")
+        second.resolutionResult.allModuleVersions*.id*.name as Set == ["root", "lib"] as Set
+    }
+
+    def "reuses all extra attributes of the stored artifacts"() {
+        def resolver = resolver(false)
+        def extraAttributes = [classifier: "sources", "m:custom": "value"]
+        _ * fingerprinter.fingerprint(configuration, _) >> { it[1] << dependency; "fingerprint" }
+
+        given:
+        _ * target.resolve(configuration) >> resolverResults("1.0", extraAttributes)
+        resolver.resolve(configuration).resolvedConfiguration.getFiles(Specs.<Dependency>satisfyAll())
+
+        when:
+        def artifacts = resolver.resolve(configuration).resolvedConfiguration.resolvedArtifacts
+
+        then:
+        artifacts.size() == 1
+        artifacts.iterator().next().classifier == "sources"
+        artifacts.iterator().next().extraAttributes == extraAttributes
+    }
+
+    def "restores artifacts with the configuration of the module which owns them"() {
+        def resolver = resolver(false)
+        def sourcesJar = tmpDir.createFile("lib-1.0-sources.jar")
+        _ * fingerprinter.fingerprint(configuration, _) >> { it[1] << dependency; "fingerprint" }
+
+        given:
+        _ * target.resolve(configuration) >> resolverResultsWithTwoConfigurations(sourcesJar)
+        resolver.resolve(configuration).resolvedConfiguration.getFiles(Specs.<Dependency>satisfyAll())
+
+        when:
+        def artifacts = resolver.resolve(configuration).resolvedConfiguration.resolvedArtifacts
+
+        then:
+        artifacts.collectEntries { [it.file.name, it.resolvedDependency.configuration] } == ["lib-1.0.jar": "default", "lib-1.0-sources.jar": "sources"]
+    }
+
+    def "resolves again when a stored artifact file no longer exists"() {
+        def resolver = resolver(false)
+        _ * fingerprinter.fingerprint(configuration, _) >> { it[1] << dependency; "fingerprint" }
+
+        given:
+        resolver.resolve(configuration).resolvedConfiguration.getFiles(Specs.<Dependency>satisfyAll())
+        jar.delete()
+
+        when:
+        resolver.resolve(configuration)
+
+        then:
+        1 * target.resolve(configuration) >> resolverResults()
+    }
+
+    def "resolves again when fingerprint has changed"() {
+        def resolver = resolver(false)
+        def fingerprint = "fingerprint"
+        _ * fingerprinter.fingerprint(configuration, _) >> { it[1] << dependency; fingerprint }
+
+        given:
+        resolver.resolve(configuration).resolvedConfiguration.getFiles(Specs.<Dependency>satisfyAll())
+        fingerprint = "changed"
+
+        when:
+        resolver.resolve(configuration)
+
+        then:
+        1 * target.resolve(configuration) >> resolverResults()
+    }
+
+    def "does not reuse stored result when refreshing dependencies"() {
+        _ * fingerprinter.fingerprint(configuration, _) >> { it[1] << dependency; "fingerprint" }
+
+        given:
+        resolver(false).resolve(configuration).resolvedConfiguration.getFiles(Specs.<Dependency>satisfyAll())
+
+        when:
+        resolver(true).resolve(configuration)
+
+        then:
+        1 * target.resolve(configuration) >> resolverResults()
+    }
+
+    def "does not store result which uses a dynamic version"() {
+        def resolver = resolver(false)
+        _ * fingerprinter.fingerprint(configuration, _) >> { it[1] << dependency; "fingerprint" }
+
+        when:
+        def results = resolver.resolve(configuration)
+        results.resolvedConfiguration.getFiles(Specs.<Dependency>satisfyAll())
+
+        then:
+        1 * target.resolve(configuration) >> resolverResults("1.+")
+        entries.isEmpty()
+    }
+
+    private CachingArtifactDependencyResolver resolver(boolean refresh) {
+        return new CachingArtifactDependencyResolver(target, fingerprinter, cache, lockingManager, null, refresh)
+    }
+
+    private ResolverResults resolverResults(String requestedVersion = "1.0", Map<String, String> extraAttributes = [:]) {
+        def root = new DefaultResolvedDependency("org", "root", "1.0", "compile")
+        def lib = new DefaultResolvedDependency("org", "lib", "1.0", "default")
+        root.addChild(lib)
+        def artifact = new DefaultResolvedArtifact(lib, "lib", "jar", "jar", extraAttributes, { jar } as Factory)
+        lib.addParentSpecificArtifacts(root, [artifact] as Set)
+
+        def configurationResult = new DefaultLenientConfiguration(configuration, root)
+        configurationResult.addArtifact(artifact)
+        configurationResult.addFirstLevelDependency(dependency, lib)
+
+        def rootId = DefaultModuleVersionIdentifier.newId("org", "root", "1.0")
+        def libId = DefaultModuleVersionIdentifier.newId("org", "lib", "1.0")
+        def selection = Stub(ModuleVersionSelection) {
+            getSelectedId() >> libId
+            getSelectionReason() >> VersionSelectionReasons.REQUESTED
+        }
+        def dependencyResult = Stub(InternalDependencyResult) {
+            getRequested() >> new DefaultModuleVersionSelector("org", "lib", requestedVersion)
+            getSelected() >> selection
+        }
+        def resultBuilder = new ResolutionResultBuilder().start(rootId)
+        resultBuilder.resolvedConfiguration(rootId, [dependencyResult])
+        return new ResolverResults(new DefaultResolvedConfiguration(configurationResult), resultBuilder.result)
+    }
+
+    private ResolverResults resolverResultsWithTwoConfigurations(File sourcesJar) {
+        def root = new DefaultResolvedDependency("org", "root", "1.0", "compile")
+        def lib = new DefaultResolvedDependency("org", "lib", "1.0", "default")
+        def libSources = new DefaultResolvedDependency("org", "lib", "1.0", "sources")
+        root.addChild(lib)
+        root.addChild(libSources)
+        def artifact = new DefaultResolvedArtifact(lib, "lib", "jar", "jar", [:], { jar } as Factory)
+        def sourcesArtifact = new DefaultResolvedArtifact(libSources, "lib", "jar", "jar", [classifier: "sources"], { sourcesJar } as Factory)
+        lib.addParentSpecificArtifacts(root, [artifact] as Set)
+        libSources.addParentSpecificArtifacts(root, [sourcesArtifact] as Set)
+
+        def configurationResult = new DefaultLenientConfiguration(configuration, root)
+        configurationResult.addArtifact(artifact)
+        configurationResult.addArtifact(sourcesArtifact)
+        configurationResult.addFirstLevelDependency(dependency, lib)
+
+        def rootId = DefaultModuleVersionIdentifier.newId("org", "root", "1.0")
+        def resultBuilder = new ResolutionResultBuilder().start(rootId)
+        resultBuilder.resolvedConfiguration(rootId, [])
+        return new ResolverResults(new DefaultResolvedConfiguration(configurationResult), resultBuilder.result)
+    }
+
+    private PersistentIndexedCache<String, ResolvedGraph> serializingCache() {
+        return [
+                get: { String key ->
+                    def bytes = entries[key]
+                    return bytes == null ? null : new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject()
+                },
+                put: { String key, ResolvedGraph graph ->
+                    def outstr = new ByteArrayOutputStream()
+                    def objstr = new ObjectOutputStream(outstr)
+                    objstr.writeObject(graph)
+                    objstr.close()
+                    entries[key] = outstr.toByteArray()
+                },
+                remove: { String key -> entries.remove(key) }
+        ] as PersistentIndexedCache
+    }
+}
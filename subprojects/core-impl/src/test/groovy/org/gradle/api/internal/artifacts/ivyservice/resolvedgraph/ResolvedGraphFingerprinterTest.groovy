@@ -0,0 +1,228 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolvedgraph
+
+import org.apache.ivy.core.cache.RepositoryCacheManager
+import org.apache.ivy.plugins.resolver.DependencyResolver
+import org.gradle.api.artifacts.*
+import org.gradle.api.internal.artifacts.DefaultExcludeRule
+import org.gradle.api.internal.artifacts.DefaultModule
+import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal
+import org.gradle.api.internal.artifacts.configurations.DefaultResolutionStrategy
+import org.gradle.api.internal.artifacts.configurations.ResolverProvider
+import org.gradle.api.internal.artifacts.dependencies.DefaultClientModule
+import org.gradle.api.internal.artifacts.dependencies.DefaultExternalModuleDependency
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.ParsedPomCache
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.ParserRegistry
+import org.gradle.api.internal.artifacts.repositories.cachemanager.LocalFileRepositoryCacheManager
+import org.gradle.api.internal.artifacts.repositories.resolver.ExternalResourceResolver
+import org.gradle.api.internal.artifacts.repositories.resolver.VersionLister
+import org.gradle.api.internal.externalresource.local.LocallyAvailableResourceFinder
+import org.gradle.api.internal.externalresource.transport.ExternalResourceRepository
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class ResolvedGraphFingerprinterTest extends Specification {
+    final ResolverProvider resolverProvider = Mock()
+    final ConfigurationInternal configuration = Mock()
+    final DefaultResolutionStrategy resolutionStrategy = new DefaultResolutionStrategy()
+    final List<Dependency> dependencies = []
+    final Set<ExcludeRule> excludeRules = new LinkedHashSet<ExcludeRule>()
+    final List<DependencyResolver> resolvers = []
+    final ResolvedGraphFingerprinter fingerprinter = new ResolvedGraphFingerprinter(resolverProvider)
+    final DefaultExternalModuleDependency dependency = new DefaultExternalModuleDependency("org", "lib", "1.0")
+
+    def setup() {
+        _ * configuration.module >> new DefaultModule("org", "root", "1.0")
+        _ * configuration.hierarchy >> ([configuration] as Set)
+        _ * configuration.name >> "compile"
+        _ * configuration.isTransitive() >> true
+        _ * configuration.excludeRules >> excludeRules
+        _ * configuration.allDependencies >> Stub(DependencySet) {
+            iterator() >> { dependencies.iterator() }
+        }
+        _ * configuration.resolutionStrategy >> resolutionStrategy
+        _ * resolverProvider.resolvers >> resolvers
+        dependencies << dependency
+        resolvers << remoteRepository("repo")
+    }
+
+    def "calculates the same fingerprint for the same inputs"() {
+        def moduleDependencies = []
+
+        when:
+        def first = fingerprinter.fingerprint(configuration, moduleDependencies)
+
+        then:
+        first != null
+        moduleDependencies == [dependency]
+        fingerprint() == first
+    }
+
+    def "ignores self resolving dependencies"() {
+        def original = fingerprint()
+        def moduleDependencies = []
+
+        when:
+        dependencies << Mock(SelfResolvingDependency)
+
+        then:
+        fingerprinter.fingerprint(configuration, moduleDependencies) == original
+        moduleDependencies == [dependency]
+    }
+
+    def "fingerprint changes when a dependency is added"() {
+        def original = fingerprint()
+
+        when:
+        dependencies << new DefaultExternalModuleDependency("org", "other", "1.0")
+
+        then:
+        fingerprint() != original
+    }
+
+    def "fingerprint changes when the version of a dependency changes"() {
+        def original = fingerprint()
+
+        when:
+        dependencies[0] = new DefaultExternalModuleDependency("org", "lib", "1.1")
+
+        then:
+        fingerprint() != original
+    }
+
+    def "fingerprint changes when a dependency is excluded from a dependency"() {
+        def original = fingerprint()
+
+        when:
+        dependency.exclude(group: "org", module: "excluded")
+
+        then:
+        fingerprint() != original
+    }
+
+    def "fingerprint changes when a dependency is excluded from the configuration"() {
+        def original = fingerprint()
+
+        when:
+        excludeRules << new DefaultExcludeRule("org", "excluded")
+
+        then:
+        fingerprint() != original
+    }
+
+    def "fingerprint changes when the conflict resolution strategy changes"() {
+        def original = fingerprint()
+
+        when:
+        resolutionStrategy.failOnVersionConflict()
+
+        then:
+        fingerprint() != original
+    }
+
+    def "fingerprint changes when a module is forced"() {
+        def original = fingerprint()
+
+        when:
+        resolutionStrategy.force("org:lib:1.1")
+
+        then:
+        fingerprint() != original
+    }
+
+    def "fingerprint changes when a repository is added"() {
+        def original = fingerprint()
+
+        when:
+        resolvers << remoteRepository("other")
+
+        then:
+        fingerprint() != original
+    }
+
+    def "fingerprint changes when the patterns of a repository change"() {
+        def original = fingerprint()
+
+        when:
+        resolvers[0].addArtifactPattern("http://repo/[module]/[artifact]-[revision].[ext]")
+
+        then:
+        fingerprint() != original
+    }
+
+    def "has no fingerprint when configuration has a project dependency"() {
+        when:
+        dependencies << Mock(ProjectDependency)
+
+        then:
+        fingerprint() == null
+    }
+
+    def "has no fingerprint when configuration has a client module"() {
+        when:
+        dependencies << new DefaultClientModule("org", "client", "1.0")
+
+        then:
+        fingerprint() == null
+    }
+
+    def "has no fingerprint when configuration has a changing module"() {
+        when:
+        dependency.changing = true
+
+        then:
+        fingerprint() == null
+    }
+
+    @Unroll
+    def "has no fingerprint when configuration has dynamic version #version"() {
+        when:
+        dependencies << new DefaultExternalModuleDependency("org", "dynamic", version)
+
+        then:
+        fingerprint() == null
+
+        where:
+        version << ["1.+", "latest.integration", "[1.0,2.0)", "]1.0,2.0]", "(,2.0)", "1.0-SNAPSHOT", "RELEASE", "LATEST", null]
+    }
+
+    def "has no fingerprint when configuration uses a local repository"() {
+        when:
+        resolvers[0].repositoryCacheManager = new LocalFileRepositoryCacheManager("local", new ParserRegistry(new ParsedPomCache(1)))
+
+        then:
+        fingerprint() == null
+    }
+
+    def "has no fingerprint when configuration uses a repository which is not an external resource repository"() {
+        when:
+        resolvers << Mock(DependencyResolver)
+
+        then:
+        fingerprint() == null
+    }
+
+    private String fingerprint() {
+        return fingerprinter.fingerprint(configuration, [])
+    }
+
+    private ExternalResourceResolver remoteRepository(String name) {
+        def resolver = new ExternalResourceResolver(name, Mock(ExternalResourceRepository), Mock(VersionLister), Mock(LocallyAvailableResourceFinder))
+        resolver.repositoryCacheManager = Mock(RepositoryCacheManager)
+        return resolver
+    }
+}
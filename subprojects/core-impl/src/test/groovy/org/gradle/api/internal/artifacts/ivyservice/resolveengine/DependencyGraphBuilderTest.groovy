@@ -30,6 +30,7 @@ import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies.EnhancedDependencyDescriptor
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ResolvedConfigurationListener
 import org.gradle.api.specs.Spec
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import spock.lang.Specification
 import org.apache.ivy.core.module.descriptor.*
 import org.gradle.api.artifacts.*
@@ -47,6 +48,7 @@ class DependencyGraphBuilderTest extends Specification {
     final DependencyToModuleVersionIdResolver dependencyResolver = Mock()
     final ResolvedConfigurationListener listener = Mock()
     final DefaultModuleDescriptor root = revision('root')
+    final Map<String, String> fetchThreads = Collections.synchronizedMap([:])
     final DependencyGraphBuilder builder = new DependencyGraphBuilder(moduleDescriptorConverter, resolvedArtifactFactory, dependencyResolver, conflictResolver)
 
     def setup() {
@@ -818,6 +820,40 @@ class DependencyGraphBuilderTest extends Specification {
         modules(result) == ids(forced, b)
     }
 
+    def "uses prefetched meta-data for the dependencies of a configuration"() {
+        given:
+        CacheLockingManager cacheLockingManager = Mock()
+        def executorFactory = new DefaultExecutorFactory()
+        def builder = new DependencyGraphBuilder(moduleDescriptorConverter, resolvedArtifactFactory, dependencyResolver, conflictResolver, new ModuleMetaDataPrefetcher(cacheLockingManager, executorFactory, 4), null)
+        _ * cacheLockingManager.longRunningOperation(_, _ as Runnable) >> { name, action -> action.run() }
+        _ * cacheLockingManager.useCache(_, _ as Runnable) >> { name, action -> action.run() }
+        def a = revision("a")
+        def b = revision("b")
+        def c = revision("c")
+        def d = revision("d")
+        def e = revision("e")
+        traverses root, a
+        traverses root, b
+        traverses root, c
+        traverses a, d
+        traverses a, e
+        doesNotResolve b, d
+
+        when:
+        def result = builder.resolve(configuration, resolveData, listener)
+        result.rethrowFailure()
+
+        then:
+        modules(result) == ids(a, d, e, b, c)
+
+        and:
+        fetchThreads.keySet() == ['a', 'b', 'c', 'd', 'e'] as Set
+        fetchThreads.values().every { it.startsWith('Dependency meta-data fetcher') }
+
+        cleanup:
+        executorFactory.stop()
+    }
+
     def revision(String name, String revision = '1.0') {
         DefaultModuleDescriptor descriptor = new DefaultModuleDescriptor(new ModuleRevisionId(new ModuleId("group", name), revision), "release", new Date())
         config(descriptor, 'default')
@@ -835,7 +871,10 @@ class DependencyGraphBuilderTest extends Specification {
         def descriptor = dependsOn(args, from, to.moduleRevisionId)
         def idResolveResult = selectorResolvesTo(descriptor, to.moduleRevisionId)
         ModuleVersionResolveResult resolveResult = Mock()
-        1 * idResolveResult.resolve() >> resolveResult
+        1 * idResolveResult.resolve() >> {
+            fetchThreads[to.moduleRevisionId.name] = Thread.currentThread().name
+            return resolveResult
+        }
         1 * resolveResult.id >> to.moduleRevisionId
         1 * resolveResult.descriptor >> { println "RESOLVE $from.moduleRevisionId -> $to.moduleRevisionId"; return to }
     }
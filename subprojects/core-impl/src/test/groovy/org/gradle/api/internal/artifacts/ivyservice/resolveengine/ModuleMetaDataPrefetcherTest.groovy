@@ -0,0 +1,75 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine
+
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArrayList
+
+class ModuleMetaDataPrefetcherTest extends Specification {
+    final CacheLockingManager cacheLockingManager = Mock()
+    final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+    final ModuleMetaDataPrefetcher prefetcher = new ModuleMetaDataPrefetcher(cacheLockingManager, executorFactory, 3)
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "runs each fetch on a worker thread while holding the cache lock"() {
+        def threads = new CopyOnWriteArrayList<Thread>()
+        def fetches = (1..10).collect { { -> threads << Thread.currentThread() } as Runnable }
+
+        when:
+        prefetcher.prefetch(fetches)
+
+        then:
+        1 * cacheLockingManager.longRunningOperation(_, _ as Runnable) >> { name, action -> action.run() }
+        10 * cacheLockingManager.useCache(_, _ as Runnable) >> { name, action -> action.run() }
+        0 * cacheLockingManager._
+
+        and:
+        threads.size() == 10
+        !threads.contains(Thread.currentThread())
+    }
+
+    def "ignores failed fetches"() {
+        def fetched = new CopyOnWriteArrayList<Integer>()
+        def fetches = (1..5).collect { index -> { -> if (index == 2) { throw new RuntimeException("broken") }; fetched << index } as Runnable }
+
+        when:
+        prefetcher.prefetch(fetches)
+
+        then:
+        1 * cacheLockingManager.longRunningOperation(_, _ as Runnable) >> { name, action -> action.run() }
+        5 * cacheLockingManager.useCache(_, _ as Runnable) >> { name, action -> action.run() }
+
+        and:
+        fetched as Set == [1, 3, 4, 5] as Set
+    }
+
+    def "leaves a single fetch to the caller"() {
+        Runnable fetch = Mock()
+
+        when:
+        prefetcher.prefetch([fetch])
+
+        then:
+        0 * fetch._
+        0 * cacheLockingManager._
+    }
+}
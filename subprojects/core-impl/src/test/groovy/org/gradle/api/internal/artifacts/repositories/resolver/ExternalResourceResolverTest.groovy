@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.repositories.resolver
+
+import org.apache.ivy.core.cache.RepositoryCacheManager
+import org.apache.ivy.core.module.descriptor.Artifact
+import org.gradle.api.internal.externalresource.local.LocallyAvailableResourceFinder
+import org.gradle.api.internal.externalresource.transport.ExternalResourceRepository
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class ExternalResourceResolverTest extends Specification {
+    @Rule SetSystemProperties systemProperties = new SetSystemProperties()
+    final ExternalResourceRepository repository = Mock()
+    final VersionLister versionLister = Mock()
+    final LocallyAvailableResourceFinder locallyAvailableResourceFinder = Mock()
+    final RepositoryCacheManager cacheManager = Mock()
+
+    def "limits the number of artifacts downloaded at the same time"() {
+        given:
+        System.setProperty(ExternalResourceResolver.MAX_CONCURRENT_DOWNLOADS_PROPERTY, "2")
+        def resolver = new ExternalResourceResolver("repo", repository, versionLister, locallyAvailableResourceFinder)
+        resolver.repositoryCacheManager = cacheManager
+        def active = new AtomicInteger()
+        def maxActive = new AtomicInteger()
+        def bothActive = new CyclicBarrier(2)
+        _ * cacheManager.download(_, _, _, _) >> {
+            def count = active.incrementAndGet()
+            synchronized (maxActive) {
+                maxActive.set(Math.max(maxActive.get(), count))
+            }
+            bothActive.await(10, TimeUnit.SECONDS)
+            Thread.sleep(50)
+            active.decrementAndGet()
+            return null
+        }
+
+        when:
+        def artifacts = (1..6).collect { Mock(Artifact) }
+        def threads = artifacts.collect { artifact ->
+            Thread.start { resolver.download(artifact) }
+        }
+        threads*.join()
+
+        then:
+        maxActive.get() == 2
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.repositories.resolver
+
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.api.internal.externalresource.ExternalResource
+import org.gradle.api.internal.externalresource.UnchangedExternalResource
+import org.gradle.api.internal.externalresource.cached.CachedVersionListing
+import org.gradle.api.internal.externalresource.cached.CachedVersionListingIndex
+import org.gradle.api.internal.externalresource.metadata.DefaultExternalResourceMetaData
+import org.gradle.api.internal.externalresource.transport.ExternalResourceRepository
+import org.gradle.api.internal.resource.ResourceNotFoundException
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.Factory
+import org.gradle.internal.TimeProvider
+import spock.lang.Specification
+
+class VersionListingCacheTest extends Specification {
+    final ExternalResourceRepository repository = Mock()
+    final CacheLockingManager lockingManager = Mock()
+    final TimeProvider timeProvider = Mock()
+    final Map<String, byte[]> entries = [:]
+    final MavenMetadataLoader loader = new MavenMetadataLoader(repository)
+    final String metadataLocation = "http://repo/org/acme/testproject/maven-metadata.xml"
+    long now = 1000
+
+    def setup() {
+        _ * lockingManager.useCache(_, _ as Factory) >> { it[1].create() }
+        _ * lockingManager.useCache(_, _ as Runnable) >> { it[1].run() }
+        _ * lockingManager.createCache(_, String, CachedVersionListing) >> serializingCache()
+        _ * timeProvider.currentTime >> { now }
+    }
+
+    def "reuses directory listing until it is older than the time to live"() {
+        def cache = cache(500)
+
+        when:
+        def first = cache.list(repository, "http://repo/org/acme/")
+        now += 500
+        def second = cache.list(repository, "http://repo/org/acme/")
+
+        then:
+        first == ["1.0/", "1.1/"]
+        second == ["1.0/", "1.1/"]
+        1 * repository.list("http://repo/org/acme/") >> ["1.0/", "1.1/"]
+        0 * repository._
+
+        when:
+        now += 1
+        def third = cache.list(repository, "http://repo/org/acme/")
+
+        then:
+        third == ["1.0/", "1.1/", "1.2/"]
+        1 * repository.list("http://repo/org/acme/") >> ["1.0/", "1.1/", "1.2/"]
+        0 * repository._
+    }
+
+    def "reuses the fact that a directory cannot be listed"() {
+        def cache = cache(500)
+
+        when:
+        def first = cache.list(repository, "http://repo/org/acme/")
+        def second = cache.list(repository, "http://repo/org/acme/")
+
+        then:
+        first == null
+        second == null
+        1 * repository.list("http://repo/org/acme/") >> null
+        0 * repository._
+    }
+
+    def "does not request missing maven meta-data again in the next build within the missing time to live"() {
+        ExternalResource resource = Mock()
+
+        when:
+        cache(0, 500).loadVersions(loader, metadataLocation)
+
+        then:
+        thrown(ResourceNotFoundException)
+        1 * repository.getResource(metadataLocation) >> null
+
+        when:
+        now += 500
+        cache(0, 500).loadVersions(loader, metadataLocation)
+
+        then:
+        thrown(ResourceNotFoundException)
+        0 * repository._
+
+        when:
+        now += 1
+        def versions = cache(0, 500).loadVersions(loader, metadataLocation)
+
+        then:
+        versions == ["1.1"]
+        1 * repository.getResource(metadataLocation) >> resource
+        1 * resource.openStream() >> metadata("1.1")
+        _ * resource.metaData >> new DefaultExternalResourceMetaData(metadataLocation, 100, 20, "etag", null)
+        0 * repository._
+    }
+
+    def "uses separate time to live for a directory which cannot be listed"() {
+        def cache = cache(0, 500)
+
+        when:
+        cache.list(repository, "http://repo/org/acme/")
+        cache.list(repository, "http://repo/org/acme/")
+        cache.list(repository, "http://repo/org/other/")
+        now += 1
+        cache.list(repository, "http://repo/org/acme/")
+        cache.list(repository, "http://repo/org/other/")
+
+        then:
+        1 * repository.list("http://repo/org/acme/") >> null
+        2 * repository.list("http://repo/org/other/") >> ["1.0/"]
+        0 * repository._
+    }
+
+    def "always lists directory again when time to live is negative"() {
+        def cache = cache(-1)
+
+        when:
+        cache.list(repository, "http://repo/org/acme/")
+        cache.list(repository, "http://repo/org/acme/")
+
+        then:
+        2 * repository.list("http://repo/org/acme/") >> ["1.0/"]
+        0 * repository._
+    }
+
+    def "reuses versions from maven meta-data within the time to live"() {
+        def cache = cache(500)
+        ExternalResource resource = Mock()
+
+        when:
+        def first = cache.loadVersions(loader, metadataLocation)
+        def second = cache.loadVersions(loader, metadataLocation)
+
+        then:
+        first == ["1.1", "1.2"]
+        second == ["1.1", "1.2"]
+        1 * repository.getResource(metadataLocation) >> resource
+        1 * resource.openStream() >> metadata("1.1", "1.2")
+        _ * resource.metaData >> new DefaultExternalResourceMetaData(metadataLocation, 100, 20, "etag", null)
+        0 * repository._
+    }
+
+    def "revalidates expired maven meta-data with a conditional request"() {
+        def cache = cache(0)
+        ExternalResource resource = Mock()
+
+        when:
+        cache.loadVersions(loader, metadataLocation)
+        now += 1
+        def versions = cache.loadVersions(loader, metadataLocation)
+
+        then:
+        versions == ["1.1", "1.2"]
+        1 * repository.getResource(metadataLocation) >> resource
+        1 * resource.openStream() >> metadata("1.1", "1.2")
+        _ * resource.metaData >> new DefaultExternalResourceMetaData(metadataLocation, 100, 20, "etag", null)
+        1 * repository.getResourceIfChanged(metadataLocation, { it.etag == "etag" }) >> new UnchangedExternalResource(metadataLocation, null)
+        0 * repository._
+    }
+
+    def "loads changed maven meta-data"() {
+        def cache = cache(0)
+        ExternalResource resource = Mock()
+        ExternalResource changed = Mock()
+
+        when:
+        cache.loadVersions(loader, metadataLocation)
+        now += 1
+        def versions = cache.loadVersions(loader, metadataLocation)
+
+        then:
+        versions == ["1.1", "1.2", "1.3"]
+        1 * repository.getResource(metadataLocation) >> resource
+        1 * resource.openStream() >> metadata("1.1", "1.2")
+        _ * resource.metaData >> new DefaultExternalResourceMetaData(metadataLocation, 100, 20, "etag", null)
+        1 * repository.getResourceIfChanged(metadataLocation, _) >> changed
+        1 * changed.openStream() >> metadata("1.1", "1.2", "1.3")
+        0 * repository._
+    }
+
+    def "reuses the fact that maven meta-data is missing"() {
+        def cache = cache(500)
+
+        when:
+        cache.loadVersions(loader, metadataLocation)
+
+        then:
+        thrown(ResourceNotFoundException)
+        1 * repository.getResource(metadataLocation) >> null
+
+        when:
+        cache.loadVersions(loader, metadataLocation)
+
+        then:
+        thrown(ResourceNotFoundException)
+        0 * repository._
+    }
+
+    private VersionListingCache cache(long timeToLive, long missingTimeToLive = timeToLive) {
+        return new VersionListingCache(new CachedVersionListingIndex(new File("version-listings.bin"), timeProvider, lockingManager), timeProvider, timeToLive, missingTimeToLive)
+    }
+
+    private static InputStream metadata(String... versions) {
+        return new ByteArrayInputStream("""
+<metadata>
+    <versioning>
+        <versions>
+            ${versions.collect { "<version>$it</version>" }.join("\n")}
+        </versions>
+    </versioning>
+</metadata>""".bytes)
+    }
+
+    private PersistentIndexedCache<String, CachedVersionListing> serializingCache() {
+        return [
+                get: { String key ->
+                    def bytes = entries[key]
+                    return bytes == null ? null : new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject()
+                },
+                put: { String key, CachedVersionListing listing ->
+                    def outstr = new ByteArrayOutputStream()
+                    def objstr = new ObjectOutputStream(outstr)
+                    objstr.writeObject(listing)
+                    objstr.close()
+                    entries[key] = outstr.toByteArray()
+                },
+                remove: { String key -> entries.remove(key) }
+        ] as PersistentIndexedCache
+    }
+}
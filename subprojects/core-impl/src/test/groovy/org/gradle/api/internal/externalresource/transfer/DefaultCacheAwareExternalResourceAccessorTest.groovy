@@ -24,6 +24,9 @@ import org.gradle.api.internal.externalresource.metadata.ExternalResourceMetaDat
 import org.gradle.util.hash.HashValue
 import org.gradle.api.internal.externalresource.local.LocallyAvailableResource
 import org.gradle.api.internal.externalresource.LocallyAvailableExternalResource
+import org.gradle.api.internal.externalresource.ExternalResource
+import org.gradle.api.internal.externalresource.UnchangedExternalResource
+import org.gradle.api.internal.externalresource.cached.CachedExternalResourceAdapter
 
 class DefaultCacheAwareExternalResourceAccessorTest extends Specification {
     final accessor = Mock(ExternalResourceAccessor)
@@ -56,4 +59,49 @@ class DefaultCacheAwareExternalResourceAccessorTest extends Specification {
         and:
         foundResource instanceof LocallyAvailableExternalResource
     }
+
+    def "revalidates cached resource with a single conditional request"() {
+        given:
+        def cached = Mock(CachedExternalResource)
+        def cachedMetaData = Mock(ExternalResourceMetaData)
+
+        and:
+        index.lookup("location") >> cached
+        cached.getExternalResourceMetaData() >> cachedMetaData
+        cachedMetaData.etag >> "etag"
+
+        when:
+        def foundResource = cache.getResource("location", null)
+
+        then:
+        1 * accessor.getResourceIfChanged("location", cachedMetaData) >> new UnchangedExternalResource("location", cachedMetaData)
+        0 * accessor.getMetaData(_)
+        0 * accessor.getResource(_)
+
+        and:
+        foundResource instanceof CachedExternalResourceAdapter
+    }
+
+    def "uses resource fetched by conditional request when cached resource has changed"() {
+        given:
+        def cached = Mock(CachedExternalResource)
+        def cachedMetaData = Mock(ExternalResourceMetaData)
+        def remoteResource = Mock(ExternalResource)
+
+        and:
+        index.lookup("location") >> cached
+        cached.getExternalResourceMetaData() >> cachedMetaData
+        cachedMetaData.lastModified >> new Date()
+
+        when:
+        def foundResource = cache.getResource("location", null)
+
+        then:
+        1 * accessor.getResourceIfChanged("location", cachedMetaData) >> remoteResource
+        0 * accessor.getMetaData(_)
+        0 * accessor.getResource(_)
+
+        and:
+        foundResource == remoteResource
+    }
 }
@@ -29,7 +29,7 @@ class HttpClientHelperTest extends Specification {
             getCredentials() >> Stub(PasswordCredentials)
             getProxySettings() >> Stub(HttpProxySettings)
         }
-        def client = new HttpClientHelper(settings) {
+        def client = new HttpClientHelper(settings, new HttpConnectionPool(2, 2, 1000)) {
             @Override
             protected HttpResponse executeGetOrHead(HttpRequestBase method) {
                 throw new IOException("ouch")
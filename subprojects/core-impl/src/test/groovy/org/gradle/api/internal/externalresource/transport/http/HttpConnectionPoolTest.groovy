@@ -0,0 +1,101 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.externalresource.transport.http
+
+import org.apache.http.conn.ClientConnectionManager
+import org.gradle.api.artifacts.repositories.PasswordCredentials
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+class HttpConnectionPoolTest extends Specification {
+    @Rule SetSystemProperties sysProp = new SetSystemProperties()
+
+    def "limits the number of connections"() {
+        when:
+        def pool = new HttpConnectionPool(10, 4, 1000)
+
+        then:
+        pool.connectionManager.maxTotal == 10
+        pool.connectionManager.defaultMaxPerRoute == 4
+    }
+
+    def "does not allow more connections per host than in total"() {
+        when:
+        def pool = new HttpConnectionPool(3, 4, 1000)
+
+        then:
+        pool.connectionManager.defaultMaxPerRoute == 3
+    }
+
+    def "uses the same connection limits as the system default client"() {
+        System.clearProperty("http.maxConnections")
+        System.clearProperty(HttpConnectionPool.MAX_CONNECTIONS_PROPERTY)
+        System.clearProperty(HttpConnectionPool.MAX_CONNECTIONS_PER_HOST_PROPERTY)
+
+        when:
+        def pool = HttpConnectionPool.fromSystemProperties()
+
+        then:
+        pool.connectionManager.defaultMaxPerRoute == 5
+        pool.connectionManager.maxTotal == 10
+    }
+
+    def "configures the pool from the http system properties"() {
+        System.properties["http.maxConnections"] = "3"
+        System.properties["http.keepAlive"] = "false"
+
+        when:
+        def pool = HttpConnectionPool.fromSystemProperties()
+
+        then:
+        pool.connectionManager.defaultMaxPerRoute == 3
+        pool.connectionManager.maxTotal == 6
+        pool.idleTimeoutMillis == 0
+    }
+
+    def "gradle system properties override the http system properties"() {
+        System.properties["http.maxConnections"] = "3"
+        System.properties[HttpConnectionPool.MAX_CONNECTIONS_PROPERTY] = "12"
+        System.properties[HttpConnectionPool.MAX_CONNECTIONS_PER_HOST_PROPERTY] = "4"
+        System.properties[HttpConnectionPool.IDLE_TIMEOUT_PROPERTY] = "2"
+
+        when:
+        def pool = HttpConnectionPool.fromSystemProperties()
+
+        then:
+        pool.connectionManager.defaultMaxPerRoute == 4
+        pool.connectionManager.maxTotal == 12
+        pool.idleTimeoutMillis == 2000
+    }
+
+    def "clients for different repositories use the same connection pool"() {
+        def pool = new HttpConnectionPool(10, 4, 1000)
+        def settings = Stub(HttpSettings) {
+            getCredentials() >> Stub(PasswordCredentials)
+            getProxySettings() >> Stub(HttpProxySettings)
+        }
+
+        when:
+        ClientConnectionManager first = new HttpClientHelper(settings, pool).client.connectionManager
+        ClientConnectionManager second = new HttpClientHelper(settings, pool).client.connectionManager
+
+        then:
+        first.is(pool.connectionManager)
+        second.is(pool.connectionManager)
+    }
+}
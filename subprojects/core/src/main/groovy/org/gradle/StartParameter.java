@@ -67,6 +67,10 @@ public class StartParameter extends LoggingConfiguration implements Serializable
     private boolean refreshDependencies;
     private boolean recompileScripts;
     private int parallelThreadCount;
+    private int fileHashingThreadCount;
+    private int dependencyResolutionThreadCount;
+    private boolean configureOnDemand;
+    private int configurationThreadCount;
 
     /**
      * Sets the project's cache location. Set to null to use the default location.
@@ -132,6 +136,10 @@ public class StartParameter extends LoggingConfiguration implements Serializable
         startParameter.offline = offline;
         startParameter.refreshDependencies = refreshDependencies;
         startParameter.parallelThreadCount = parallelThreadCount;
+        startParameter.fileHashingThreadCount = fileHashingThreadCount;
+        startParameter.dependencyResolutionThreadCount = dependencyResolutionThreadCount;
+        startParameter.configureOnDemand = configureOnDemand;
+        startParameter.configurationThreadCount = configurationThreadCount;
         return startParameter;
     }
 
@@ -155,6 +163,10 @@ public class StartParameter extends LoggingConfiguration implements Serializable
         startParameter.recompileScripts = recompileScripts;
         startParameter.refreshDependencies = refreshDependencies;
         startParameter.parallelThreadCount = parallelThreadCount;
+        startParameter.fileHashingThreadCount = fileHashingThreadCount;
+        startParameter.dependencyResolutionThreadCount = dependencyResolutionThreadCount;
+        startParameter.configureOnDemand = configureOnDemand;
+        startParameter.configurationThreadCount = configurationThreadCount;
         return startParameter;
     }
 
@@ -608,6 +620,82 @@ public class StartParameter extends LoggingConfiguration implements Serializable
         this.parallelThreadCount = parallelThreadCount;
     }
 
+    /**
+     * Returns the number of threads to use to hash the input and output files of tasks.
+     *
+     * <0: Automatically determine the optimal number of threads to use.
+     *  0: Hash files on the thread that executes the task.
+     * >0: Use this many file hashing threads.
+     */
+    public int getFileHashingThreadCount() {
+        return fileHashingThreadCount;
+    }
+
+    /**
+     * Specifies the number of threads to use to hash the input and output files of tasks.
+     *
+     * @see #getFileHashingThreadCount()
+     */
+    public void setFileHashingThreadCount(int fileHashingThreadCount) {
+        this.fileHashingThreadCount = fileHashingThreadCount;
+    }
+
+    /**
+     * Returns the number of threads to use to fetch dependency meta-data and artifacts from repositories.
+     *
+     * <0: Automatically determine the optimal number of threads to use.
+     *  0: Fetch meta-data and artifacts on the thread that resolves the configuration.
+     * >0: Use this many threads.
+     */
+    public int getDependencyResolutionThreadCount() {
+        return dependencyResolutionThreadCount;
+    }
+
+    /**
+     * Specifies the number of threads to use to fetch dependency meta-data and artifacts from repositories.
+     *
+     * @see #getDependencyResolutionThreadCount()
+     */
+    public void setDependencyResolutionThreadCount(int dependencyResolutionThreadCount) {
+        this.dependencyResolutionThreadCount = dependencyResolutionThreadCount;
+    }
+
+    /**
+     * Returns true if only the projects required by the requested tasks should be configured. Otherwise, all projects are configured before tasks are selected.
+     */
+    public boolean isConfigureOnDemand() {
+        return configureOnDemand;
+    }
+
+    /**
+     * Specifies whether only the projects required by the requested tasks should be configured.
+     *
+     * @see #isConfigureOnDemand()
+     */
+    public void setConfigureOnDemand(boolean configureOnDemand) {
+        this.configureOnDemand = configureOnDemand;
+    }
+
+    /**
+     * Returns the number of threads to use to configure projects. Ignored when configuring on demand.
+     *
+     * <0: Automatically determine the optimal number of threads to use.
+     *  0: Configure the projects one after another on the build thread.
+     * >0: Use this many configuration threads.
+     */
+    public int getConfigurationThreadCount() {
+        return configurationThreadCount;
+    }
+
+    /**
+     * Specifies the number of threads to use to configure projects.
+     *
+     * @see #getConfigurationThreadCount()
+     */
+    public void setConfigurationThreadCount(int configurationThreadCount) {
+        this.configurationThreadCount = configurationThreadCount;
+    }
+
     @Override
     public String toString() {
         return "StartParameter{"
@@ -628,6 +716,7 @@ public class StartParameter extends LoggingConfiguration implements Serializable
                 + ", recompileScripts=" + recompileScripts
                 + ", offline=" + offline
                 + ", refreshDependencies=" + refreshDependencies
+                + ", fileHashingThreadCount=" + fileHashingThreadCount
                 + '}';
     }
 }
\ No newline at end of file
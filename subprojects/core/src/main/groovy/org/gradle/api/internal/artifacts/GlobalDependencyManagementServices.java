@@ -0,0 +1,25 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts;
+
+import org.gradle.internal.service.ServiceRegistry;
+
+/**
+ * The dependency management services which are shared by all builds in a given process, such as in-memory caches. Like {@link DependencyManagementServices},
+ * the implementation is loaded from the core implementation class loader.
+ */
+public interface GlobalDependencyManagementServices extends ServiceRegistry {
+}
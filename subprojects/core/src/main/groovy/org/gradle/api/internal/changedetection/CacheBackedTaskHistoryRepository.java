@@ -62,6 +62,15 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
             }
 
             public void update() {
+                // Update the history in its own cache action, so that the changes are written when the action completes
+                cacheAccess.useCache("update task history", new Runnable() {
+                    public void run() {
+                        doUpdate();
+                    }
+                });
+            }
+
+            private void doUpdate() {
                 if (currentExecution.inputFilesSnapshotId == null && currentExecution.inputFilesSnapshot != null) {
                     currentExecution.inputFilesSnapshotId = snapshotRepository.add(currentExecution.inputFilesSnapshot);
                 }
@@ -19,11 +19,13 @@ import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.messaging.serialize.Serializer;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class CachingHasher implements Hasher {
     private final PersistentIndexedCache<File, FileInfo> cache;
     private final Hasher hasher;
-    private long timestamp;
 
     public CachingHasher(Hasher hasher, TaskArtifactStateCacheAccess cacheAccess) {
         this.hasher = hasher;
@@ -34,7 +36,7 @@ public class CachingHasher implements Hasher {
         FileInfo info = cache.get(file);
 
         long length = file.length();
-        timestamp = file.lastModified();
+        long timestamp = file.lastModified();
         if (info != null && length == info.length && timestamp == info.timestamp) {
             return info.hash;
         }
@@ -44,6 +46,42 @@ public class CachingHasher implements Hasher {
         return hash;
     }
 
+    public List<byte[]> hash(List<File> files) {
+        // Stat all the files up-front, then use the cache to resolve as many hashes as possible before hashing the remaining files in one batch
+        long[] lengths = new long[files.size()];
+        long[] timestamps = new long[files.size()];
+        for (int i = 0; i < files.size(); i++) {
+            File file = files.get(i);
+            lengths[i] = file.length();
+            timestamps[i] = file.lastModified();
+        }
+
+        byte[][] hashes = new byte[files.size()][];
+        List<Integer> missingIndexes = new ArrayList<Integer>();
+        List<File> missingFiles = new ArrayList<File>();
+        for (int i = 0; i < files.size(); i++) {
+            File file = files.get(i);
+            FileInfo info = cache.get(file);
+            if (info != null && lengths[i] == info.length && timestamps[i] == info.timestamp) {
+                hashes[i] = info.hash;
+            } else {
+                missingIndexes.add(i);
+                missingFiles.add(file);
+            }
+        }
+
+        if (!missingFiles.isEmpty()) {
+            List<byte[]> missingHashes = hasher.hash(missingFiles);
+            for (int j = 0; j < missingFiles.size(); j++) {
+                int i = missingIndexes.get(j);
+                hashes[i] = missingHashes.get(j);
+                cache.put(missingFiles.get(j), new FileInfo(hashes[i], lengths[i], timestamps[i]));
+            }
+        }
+
+        return Arrays.asList(hashes);
+    }
+
     public static class FileInfo implements Serializable {
         private final byte[] hash;
         private final long timestamp;
@@ -22,11 +22,12 @@ import org.gradle.util.ChangeListener;
 import org.gradle.util.NoOpChangeListener;
 
 import java.io.File;
-import java.io.Serializable;
-import java.math.BigInteger;
 import java.util.*;
 
 public class DefaultFileSnapshotter implements FileSnapshotter {
+    // Marks a path which is removed by a diff. Never stored in a snapshot.
+    private static final byte REMOVED = -1;
+
     private final Hasher hasher;
 
     public DefaultFileSnapshotter(Hasher hasher) {
@@ -34,73 +35,52 @@ public class DefaultFileSnapshotter implements FileSnapshotter {
     }
 
     public FileCollectionSnapshot emptySnapshot() {
-        return new FileCollectionSnapshotImpl(new HashMap<String, FileSnapshot>());
+        return new FileCollectionSnapshotImpl(new PackedFileSnapshots.Builder().build());
     }
 
     public FileCollectionSnapshot snapshot(FileCollection sourceFiles) {
-        Map<String, FileSnapshot> snapshots = new HashMap<String, FileSnapshot>();
+        List<PackedFileSnapshots.Entry> entries = new ArrayList<PackedFileSnapshots.Entry>();
+        List<File> files = new ArrayList<File>();
         for (File file : sourceFiles.getAsFileTree()) {
             if (file.isFile()) {
-                snapshots.put(file.getAbsolutePath(), new FileHashSnapshot(hasher.hash(file)));
+                files.add(file);
             } else if (file.isDirectory()) {
-                snapshots.put(file.getAbsolutePath(), new DirSnapshot());
+                entries.add(new PackedFileSnapshots.Entry(file.getAbsolutePath(), PackedFileSnapshots.DIRECTORY, null));
             } else {
-                snapshots.put(file.getAbsolutePath(), new MissingFileSnapshot());
+                entries.add(new PackedFileSnapshots.Entry(file.getAbsolutePath(), PackedFileSnapshots.MISSING, null));
             }
         }
-        return new FileCollectionSnapshotImpl(snapshots);
-    }
-
-    private interface FileSnapshot extends Serializable {
-        boolean isUpToDate(FileSnapshot snapshot);
-    }
 
-    private static class FileHashSnapshot implements FileSnapshot {
-        private final byte[] hash;
-
-        public FileHashSnapshot(byte[] hash) {
-            this.hash = hash;
+        // Hash all the files in one batch, so that the hasher can resolve and calculate hashes in bulk
+        List<byte[]> hashes = hasher.hash(files);
+        for (int i = 0; i < files.size(); i++) {
+            entries.add(new PackedFileSnapshots.Entry(files.get(i).getAbsolutePath(), PackedFileSnapshots.FILE, hashes.get(i)));
         }
 
-        public boolean isUpToDate(FileSnapshot snapshot) {
-            if (!(snapshot instanceof FileHashSnapshot)) {
-                return false;
+        Collections.sort(entries, new Comparator<PackedFileSnapshots.Entry>() {
+            public int compare(PackedFileSnapshots.Entry entry1, PackedFileSnapshots.Entry entry2) {
+                return entry1.getPath().compareTo(entry2.getPath());
             }
-
-            FileHashSnapshot other = (FileHashSnapshot) snapshot;
-            return Arrays.equals(hash, other.hash);
-        }
-
-        @Override
-        public String toString() {
-            return new BigInteger(1, hash).toString(16);
-        }
-    }
-
-    private static class DirSnapshot implements FileSnapshot {
-        public boolean isUpToDate(FileSnapshot snapshot) {
-            return snapshot instanceof DirSnapshot;
-        }
-    }
-
-    private static class MissingFileSnapshot implements FileSnapshot {
-        public boolean isUpToDate(FileSnapshot snapshot) {
-            return snapshot instanceof MissingFileSnapshot;
+        });
+        PackedFileSnapshots.Builder builder = new PackedFileSnapshots.Builder();
+        for (PackedFileSnapshots.Entry entry : entries) {
+            builder.add(entry);
         }
+        return new FileCollectionSnapshotImpl(builder.build());
     }
 
     private static class FileCollectionSnapshotImpl implements FileCollectionSnapshot {
-        private final Map<String, FileSnapshot> snapshots;
+        private final PackedFileSnapshots snapshots;
 
-        public FileCollectionSnapshotImpl(Map<String, FileSnapshot> snapshots) {
+        public FileCollectionSnapshotImpl(PackedFileSnapshots snapshots) {
             this.snapshots = snapshots;
         }
 
         public FileCollection getFiles() {
             List<File> files = new ArrayList<File>();
-            for (Map.Entry<String, FileSnapshot> entry : snapshots.entrySet()) {
-                if (entry.getValue() instanceof FileHashSnapshot) {
-                    files.add(new File(entry.getKey()));
+            for (PackedFileSnapshots.Entry entry : snapshots) {
+                if (entry.getType() == PackedFileSnapshots.FILE) {
+                    files.add(new File(entry.getPath()));
                 }
             }
             return new SimpleFileCollection(files);
@@ -108,37 +88,21 @@ public class DefaultFileSnapshotter implements FileSnapshotter {
 
         public void changesSince(FileCollectionSnapshot oldSnapshot, final ChangeListener<File> listener) {
             FileCollectionSnapshotImpl other = (FileCollectionSnapshotImpl) oldSnapshot;
-            diff(snapshots, other.snapshots, new ChangeListener<Map.Entry<String, FileSnapshot>>() {
-                public void added(Map.Entry<String, FileSnapshot> element) {
-                    listener.added(new File(element.getKey()));
+            snapshots.diff(other.snapshots, new PackedFileSnapshots.DiffListener() {
+                public void added(PackedFileSnapshots.Entry newEntry) {
+                    listener.added(new File(newEntry.getPath()));
                 }
 
-                public void removed(Map.Entry<String, FileSnapshot> element) {
-                    listener.removed(new File(element.getKey()));
+                public void removed(PackedFileSnapshots.Entry oldEntry) {
+                    listener.removed(new File(oldEntry.getPath()));
                 }
 
-                public void changed(Map.Entry<String, FileSnapshot> element) {
-                    listener.changed(new File(element.getKey()));
+                public void changed(PackedFileSnapshots.Entry newEntry, PackedFileSnapshots.Entry oldEntry) {
+                    listener.changed(new File(newEntry.getPath()));
                 }
             });
         }
 
-        private void diff(Map<String, FileSnapshot> snapshots, Map<String, FileSnapshot> oldSnapshots,
-                          ChangeListener<Map.Entry<String, FileSnapshot>> listener) {
-            Map<String, FileSnapshot> otherSnapshots = new HashMap<String, FileSnapshot>(oldSnapshots);
-            for (Map.Entry<String, FileSnapshot> entry : snapshots.entrySet()) {
-                FileSnapshot otherFile = otherSnapshots.remove(entry.getKey());
-                if (otherFile == null) {
-                    listener.added(entry);
-                } else if (!entry.getValue().isUpToDate(otherFile)) {
-                    listener.changed(entry);
-                }
-            }
-            for (Map.Entry<String, FileSnapshot> entry : otherSnapshots.entrySet()) {
-                listener.removed(entry);
-            }
-        }
-
         public Diff changesSince(final FileCollectionSnapshot oldSnapshot) {
             final FileCollectionSnapshotImpl other = (FileCollectionSnapshotImpl) oldSnapshot;
             return new Diff() {
@@ -148,11 +112,61 @@ public class DefaultFileSnapshotter implements FileSnapshotter {
 
                 public FileCollectionSnapshot applyTo(FileCollectionSnapshot snapshot, final ChangeListener<Merge> listener) {
                     FileCollectionSnapshotImpl target = (FileCollectionSnapshotImpl) snapshot;
-                    final Map<String, FileSnapshot> newSnapshots = new HashMap<String, FileSnapshot>(target.snapshots);
-                    diff(snapshots, other.snapshots, new MapMergeChangeListener<String, FileSnapshot>(listener, newSnapshots));
-                    return new FileCollectionSnapshotImpl(newSnapshots);
+                    final List<PackedFileSnapshots.Entry> changes = new ArrayList<PackedFileSnapshots.Entry>();
+                    snapshots.diff(other.snapshots, new PackedFileSnapshots.DiffListener() {
+                        public void added(PackedFileSnapshots.Entry newEntry) {
+                            MapMergeChangeListener.DefaultMerge merge = new MapMergeChangeListener.DefaultMerge();
+                            listener.added(merge);
+                            if (!merge.isIgnore()) {
+                                changes.add(newEntry);
+                            }
+                        }
+
+                        public void removed(PackedFileSnapshots.Entry oldEntry) {
+                            MapMergeChangeListener.DefaultMerge merge = new MapMergeChangeListener.DefaultMerge();
+                            listener.removed(merge);
+                            if (!merge.isIgnore()) {
+                                changes.add(new PackedFileSnapshots.Entry(oldEntry.getPath(), REMOVED, null));
+                            }
+                        }
+
+                        public void changed(PackedFileSnapshots.Entry newEntry, PackedFileSnapshots.Entry oldEntry) {
+                            MapMergeChangeListener.DefaultMerge merge = new MapMergeChangeListener.DefaultMerge();
+                            listener.changed(merge);
+                            if (!merge.isIgnore()) {
+                                changes.add(newEntry);
+                            }
+                        }
+                    });
+                    return new FileCollectionSnapshotImpl(apply(changes, target.snapshots));
                 }
             };
         }
+
+        /**
+         * Merges the given changes, sorted by path, into the given snapshots.
+         */
+        private static PackedFileSnapshots apply(List<PackedFileSnapshots.Entry> changes, PackedFileSnapshots target) {
+            PackedFileSnapshots.Builder builder = new PackedFileSnapshots.Builder();
+            Iterator<PackedFileSnapshots.Entry> targetEntries = target.iterator();
+            PackedFileSnapshots.Entry targetEntry = targetEntries.hasNext() ? targetEntries.next() : null;
+            for (PackedFileSnapshots.Entry change : changes) {
+                while (targetEntry != null && targetEntry.getPath().compareTo(change.getPath()) < 0) {
+                    builder.add(targetEntry);
+                    targetEntry = targetEntries.hasNext() ? targetEntries.next() : null;
+                }
+                if (targetEntry != null && targetEntry.getPath().equals(change.getPath())) {
+                    targetEntry = targetEntries.hasNext() ? targetEntries.next() : null;
+                }
+                if (change.getType() != REMOVED) {
+                    builder.add(change);
+                }
+            }
+            while (targetEntry != null) {
+                builder.add(targetEntry);
+                targetEntry = targetEntries.hasNext() ? targetEntries.next() : null;
+            }
+            return builder.build();
+        }
     }
 }
@@ -16,7 +16,15 @@
 package org.gradle.api.internal.changedetection;
 
 import java.io.File;
+import java.util.List;
 
 public interface Hasher {
     byte[] hash(File file);
+
+    /**
+     * Hashes the given files.
+     *
+     * @return The hash of each file, in the same order as the given files.
+     */
+    List<byte[]> hash(List<File> files);
 }
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import org.gradle.internal.UncheckedException;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * An immutable set of file snapshots, sorted by path and packed into a single byte array.
+ *
+ * <p>Each entry is encoded as the number of leading characters its path shares with the path of the previous entry, the remainder of
+ * the path, the type of the file and, for regular files, the hash of the file. All hashes in a set have the same length, which is stored
+ * once for the set.</p>
+ *
+ * <p>Because entries are sorted, two sets can be compared by walking both of them in order, without building a map of either.</p>
+ */
+class PackedFileSnapshots implements Serializable, Iterable<PackedFileSnapshots.Entry> {
+    static final byte FILE = 0;
+    static final byte DIRECTORY = 1;
+    static final byte MISSING = 2;
+
+    private final byte[] data;
+    private final int count;
+    private final int hashLength;
+
+    private PackedFileSnapshots(byte[] data, int count, int hashLength) {
+        this.data = data;
+        this.count = count;
+        this.hashLength = hashLength;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public Iterator<Entry> iterator() {
+        return new EntryIterator();
+    }
+
+    /**
+     * Walks this set and the given set in path order, notifying the listener of each entry which has been added, removed or changed in
+     * this set relative to the given set.
+     */
+    public void diff(PackedFileSnapshots oldSnapshots, DiffListener listener) {
+        Iterator<Entry> newEntries = iterator();
+        Iterator<Entry> oldEntries = oldSnapshots.iterator();
+        Entry newEntry = next(newEntries);
+        Entry oldEntry = next(oldEntries);
+        while (newEntry != null || oldEntry != null) {
+            int order = newEntry == null ? 1 : oldEntry == null ? -1 : newEntry.getPath().compareTo(oldEntry.getPath());
+            if (order < 0) {
+                listener.added(newEntry);
+                newEntry = next(newEntries);
+            } else if (order > 0) {
+                listener.removed(oldEntry);
+                oldEntry = next(oldEntries);
+            } else {
+                if (!newEntry.isUpToDate(oldEntry)) {
+                    listener.changed(newEntry, oldEntry);
+                }
+                newEntry = next(newEntries);
+                oldEntry = next(oldEntries);
+            }
+        }
+    }
+
+    private static Entry next(Iterator<Entry> entries) {
+        return entries.hasNext() ? entries.next() : null;
+    }
+
+    interface DiffListener {
+        void added(Entry newEntry);
+
+        void removed(Entry oldEntry);
+
+        void changed(Entry newEntry, Entry oldEntry);
+    }
+
+    static class Entry {
+        private final String path;
+        private final byte type;
+        private final byte[] hash;
+
+        Entry(String path, byte type, byte[] hash) {
+            this.path = path;
+            this.type = type;
+            this.hash = hash;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public byte getType() {
+            return type;
+        }
+
+        public byte[] getHash() {
+            return hash;
+        }
+
+        public boolean isUpToDate(Entry other) {
+            return type == other.type && Arrays.equals(hash, other.hash);
+        }
+    }
+
+    private class EntryIterator implements Iterator<Entry> {
+        private final DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+        private String previousPath = "";
+        private int remaining = count;
+
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        public Entry next() {
+            if (remaining == 0) {
+                throw new NoSuchElementException();
+            }
+            remaining--;
+            try {
+                int prefixLength = readVarInt(input);
+                String path = previousPath.substring(0, prefixLength) + input.readUTF();
+                byte type = input.readByte();
+                byte[] hash = null;
+                if (type == FILE) {
+                    hash = new byte[hashLength];
+                    input.readFully(hash);
+                }
+                previousPath = path;
+                return new Entry(path, type, hash);
+            } catch (IOException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static int readVarInt(DataInput input) throws IOException {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = input.readByte();
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static void writeVarInt(DataOutput output, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            output.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    /**
+     * Builds a set from entries which are added in ascending path order. When an entry is added with the same path as the previous entry,
+     * it replaces the previous entry.
+     */
+    static class Builder {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream output = new DataOutputStream(bytes);
+        private String previousPath = "";
+        private Entry pending;
+        private int count;
+        private int hashLength = -1;
+
+        public Builder add(Entry entry) {
+            if (pending != null) {
+                int order = entry.getPath().compareTo(pending.getPath());
+                if (order < 0) {
+                    throw new IllegalArgumentException(String.format("Entry '%s' added out of order.", entry.getPath()));
+                }
+                if (order > 0) {
+                    write(pending);
+                }
+            }
+            pending = entry;
+            return this;
+        }
+
+        public Builder add(String path, byte type, byte[] hash) {
+            return add(new Entry(path, type, hash));
+        }
+
+        public PackedFileSnapshots build() {
+            if (pending != null) {
+                write(pending);
+                pending = null;
+            }
+            return new PackedFileSnapshots(bytes.toByteArray(), count, Math.max(hashLength, 0));
+        }
+
+        private void write(Entry entry) {
+            try {
+                String path = entry.getPath();
+                int prefixLength = commonPrefixLength(previousPath, path);
+                writeVarInt(output, prefixLength);
+                output.writeUTF(path.substring(prefixLength));
+                output.writeByte(entry.getType());
+                if (entry.getType() == FILE) {
+                    if (hashLength < 0) {
+                        hashLength = entry.getHash().length;
+                    } else if (entry.getHash().length != hashLength) {
+                        throw new IllegalArgumentException(String.format("Hash for '%s' has length %s, expected %s.", path, entry.getHash().length, hashLength));
+                    }
+                    output.write(entry.getHash());
+                }
+                previousPath = path;
+                count++;
+            } catch (IOException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
+        private static int commonPrefixLength(String a, String b) {
+            int max = Math.min(a.length(), b.length());
+            int i = 0;
+            while (i < max && a.charAt(i) == b.charAt(i)) {
+                i++;
+            }
+            return i;
+        }
+    }
+}
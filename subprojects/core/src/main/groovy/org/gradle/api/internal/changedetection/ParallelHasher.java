@@ -0,0 +1,60 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import org.gradle.internal.concurrent.BoundedBatchExecutor;
+import org.gradle.internal.concurrent.ExecutorFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A {@link Hasher} which hashes a batch of files concurrently, using at most the given number of threads. The delegate hasher must be thread-safe.
+ */
+public class ParallelHasher implements Hasher {
+    private final Hasher hasher;
+    private final BoundedBatchExecutor executor;
+
+    public ParallelHasher(Hasher hasher, ExecutorFactory executorFactory, int maxThreads) {
+        this.hasher = hasher;
+        this.executor = new BoundedBatchExecutor(executorFactory, "File hasher", maxThreads);
+    }
+
+    public byte[] hash(File file) {
+        return hasher.hash(file);
+    }
+
+    public List<byte[]> hash(final List<File> files) {
+        if (Math.min(executor.getMaxThreads(), files.size()) < 2) {
+            return hasher.hash(files);
+        }
+
+        final byte[][] hashes = new byte[files.size()][];
+        List<Runnable> jobs = new ArrayList<Runnable>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            final int index = i;
+            jobs.add(new Runnable() {
+                public void run() {
+                    hashes[index] = hasher.hash(files.get(index));
+                }
+            });
+        }
+        executor.run(jobs);
+        return Arrays.asList(hashes);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.filestore;
+
+import org.gradle.api.Nullable;
+import org.gradle.util.hash.HashValue;
+
+import java.io.File;
+
+/**
+ * File store that holds a single copy of each distinct content, keyed by the SHA1 of that content.
+ *
+ * Adding content that is already present discards the new copy and returns the existing entry, so each
+ * content is written and checksummed once regardless of how many keys refer to it.
+ */
+public class ContentAddressedFileStore {
+
+    private final File baseDir;
+    private final PathKeyFileStore delegate;
+
+    public ContentAddressedFileStore(File baseDir) {
+        this.baseDir = baseDir;
+        this.delegate = new UniquePathKeyFileStore(baseDir);
+    }
+
+    public FileStoreEntry move(HashValue sha1, File source) {
+        return withSha1(delegate.move(toPath(sha1), source), sha1);
+    }
+
+    public FileStoreEntry copy(HashValue sha1, File source) {
+        return withSha1(delegate.copy(toPath(sha1), source), sha1);
+    }
+
+    @Nullable
+    public FileStoreEntry get(HashValue sha1) {
+        FileStoreEntry entry = delegate.get(toPath(sha1));
+        return entry == null ? null : withSha1(entry, sha1);
+    }
+
+    File getBaseDir() {
+        return baseDir;
+    }
+
+    private static String toPath(HashValue sha1) {
+        String hexString = sha1.asHexString();
+        return String.format("%s/%s", hexString.substring(0, Math.min(2, hexString.length())), hexString);
+    }
+
+    static FileStoreEntry withSha1(final FileStoreEntry entry, final HashValue sha1) {
+        return new FileStoreEntry() {
+            public File getFile() {
+                return entry.getFile();
+            }
+
+            public HashValue getSha1() {
+                return sha1;
+            }
+        };
+    }
+}
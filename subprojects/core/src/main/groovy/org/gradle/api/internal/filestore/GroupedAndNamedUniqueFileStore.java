@@ -16,38 +16,126 @@
 package org.gradle.api.internal.filestore;
 
 import org.gradle.api.Action;
+import org.gradle.api.Nullable;
 import org.gradle.api.Transformer;
+import org.gradle.api.UncheckedIOException;
 import org.gradle.api.internal.file.TemporaryFileProvider;
+import org.gradle.internal.nativeplatform.filesystem.FileSystem;
+import org.gradle.util.GFileUtils;
 import org.gradle.util.hash.HashUtil;
+import org.gradle.util.hash.HashValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
 
+/**
+ * File store that places each entry at {@code <group>/<sha1>/<name>}.
+ *
+ * When given a {@link ContentAddressedFileStore}, the content itself is kept in that store and the entries in this store are
+ * hard links to it, so that identical content is stored and checksummed once. Whether hard links can be created between the two
+ * stores is checked the first time content is added. Where they cannot, the content is kept in this store only.
+ */
 public class GroupedAndNamedUniqueFileStore<K> implements FileStore<K>, FileStoreSearcher<K> {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(GroupedAndNamedUniqueFileStore.class);
+    private static final Pattern SHA1_PATTERN = Pattern.compile("[0-9a-f]{1,40}");
+
     private PathKeyFileStore delegate;
     private final TemporaryFileProvider temporaryFileProvider;
     private final Transformer<String, K> grouper;
     private final Transformer<String, K> namer;
-
+    private final ContentAddressedFileStore contentStore;
+    private final FileSystem fileSystem;
+    private Boolean canLinkContent;
 
     public GroupedAndNamedUniqueFileStore(PathKeyFileStore delegate, TemporaryFileProvider temporaryFileProvider, Transformer<String, K> grouper, Transformer<String, K> namer) {
+        this(delegate, temporaryFileProvider, grouper, namer, null, null);
+    }
+
+    public GroupedAndNamedUniqueFileStore(PathKeyFileStore delegate, TemporaryFileProvider temporaryFileProvider, Transformer<String, K> grouper, Transformer<String, K> namer,
+                                          @Nullable ContentAddressedFileStore contentStore, @Nullable FileSystem fileSystem) {
         this.delegate = delegate;
         this.temporaryFileProvider = temporaryFileProvider;
         this.grouper = grouper;
         this.namer = namer;
+        this.contentStore = contentStore;
+        this.fileSystem = fileSystem;
     }
 
     public FileStoreEntry move(K key, File source) {
-        return delegate.move(toPath(key, getChecksum(source)), source);
+        HashValue sha1 = getChecksum(source);
+        if (!canLinkContent()) {
+            return delegate.move(toPath(key, sha1.asHexString()), source);
+        }
+        return link(key, contentStore.move(sha1, source));
     }
 
     public FileStoreEntry copy(K key, File source) {
-        return delegate.copy(toPath(key, getChecksum(source)), source);
+        HashValue sha1 = getChecksum(source);
+        if (!canLinkContent()) {
+            return delegate.copy(toPath(key, sha1.asHexString()), source);
+        }
+        return link(key, contentStore.copy(sha1, source));
+    }
+
+    private FileStoreEntry link(K key, final FileStoreEntry content) {
+        FileStoreEntry entry = delegate.add(toPath(key, content.getSha1().asHexString()), new Action<File>() {
+            public void execute(File file) {
+                if (!fileSystem.tryCreateHardLink(file, content.getFile())) {
+                    // Should not happen often, as hard links are known to work
+                    GFileUtils.copyFile(content.getFile(), file);
+                }
+            }
+        });
+        return ContentAddressedFileStore.withSha1(entry, content.getSha1());
+    }
+
+    private synchronized boolean canLinkContent() {
+        if (canLinkContent == null) {
+            canLinkContent = contentStore != null && fileSystem != null && probeHardLink();
+        }
+        return canLinkContent;
+    }
+
+    private boolean probeHardLink() {
+        String name = String.format(".hardlink-probe-%s", UUID.randomUUID());
+        File target = new File(contentStore.getBaseDir(), name);
+        File link = new File(delegate.getBaseDir(), name);
+        try {
+            GFileUtils.writeStringToFile(target, name);
+            return fileSystem.tryCreateHardLink(link, target);
+        } catch (UncheckedIOException e) {
+            return false;
+        } finally {
+            target.delete();
+            link.delete();
+        }
     }
 
     public Set<? extends FileStoreEntry> search(K key) {
-        return delegate.search(toPath(key, "*"));
+        Set<? extends FileStoreEntry> entries = delegate.search(toPath(key, "*"));
+        Set<FileStoreEntry> result = new LinkedHashSet<FileStoreEntry>(entries.size());
+        for (FileStoreEntry entry : entries) {
+            String checksumPart = entry.getFile().getParentFile().getName();
+            if (!SHA1_PATTERN.matcher(checksumPart).matches()) {
+                result.add(entry);
+                continue;
+            }
+            // The checksum in the path was calculated when the entry was added. Entries are hard links to content shared with other entries,
+            // so the content may have been changed since, in which case the entry must not be used
+            HashValue sha1 = getChecksum(entry.getFile());
+            if (sha1.equals(new HashValue(checksumPart))) {
+                result.add(ContentAddressedFileStore.withSha1(entry, sha1));
+            } else {
+                LOGGER.info("Ignoring {} as its content no longer matches its checksum.", entry.getFile());
+            }
+        }
+        return result;
     }
 
     protected String toPath(K key, String checksumPart) {
@@ -57,8 +145,8 @@ public class GroupedAndNamedUniqueFileStore<K> implements FileStore<K>, FileStor
         return String.format("%s/%s/%s", group, checksumPart, name);
     }
 
-    private String getChecksum(File contentFile) {
-        return HashUtil.createHash(contentFile, "SHA1").asHexString();
+    private HashValue getChecksum(File contentFile) {
+        return HashUtil.createHash(contentFile, "SHA1");
     }
 
     public File getTempFile() {
@@ -72,9 +160,12 @@ public class GroupedAndNamedUniqueFileStore<K> implements FileStore<K>, FileStor
     public FileStoreEntry add(K key, Action<File> addAction) {
         //We cannot just delegate to the add method as we need the file content for checksum calculation here
         //and reexecuting the action isn't acceptable
-        final File tempFile = getTempFile();
-        addAction.execute(tempFile);
-        final String groupedAndNamedKey = toPath(key, getChecksum(tempFile));
-        return delegate.move(groupedAndNamedKey, tempFile);
+        File tempFile = getTempFile();
+        try {
+            addAction.execute(tempFile);
+            return move(key, tempFile);
+        } finally {
+            tempFile.delete();
+        }
     }
 }
@@ -64,11 +64,14 @@ public class DefaultScriptHandlerFactory implements ScriptHandlerFactory {
         ConfigurationContainer configurationContainer = services.getConfigurationContainer();
         DependencyHandler dependencyHandler = services.getDependencyHandler();
         Collection<Object> key = Arrays.asList(scriptSource.getClassName(), parentClassLoader);
-        MutableURLClassLoader classLoader = classLoaderCache.get(key);
-        if (classLoader == null) {
-            classLoader = new MutableURLClassLoader(parentClassLoader);
-            classLoaderCache.put(key, classLoader);
-            return new DefaultScriptHandler(scriptSource, repositoryHandler, dependencyHandler, configurationContainer, classLoader);
+        MutableURLClassLoader classLoader;
+        synchronized (classLoaderCache) {
+            classLoader = classLoaderCache.get(key);
+            if (classLoader == null) {
+                classLoader = new MutableURLClassLoader(parentClassLoader);
+                classLoaderCache.put(key, classLoader);
+                return new DefaultScriptHandler(scriptSource, repositoryHandler, dependencyHandler, configurationContainer, classLoader);
+            }
         }
 
         return new NoClassLoaderUpdateScriptHandler(classLoader, repositoryHandler, dependencyHandler, scriptSource, configurationContainer);
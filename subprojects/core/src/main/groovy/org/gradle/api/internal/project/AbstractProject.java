@@ -46,6 +46,7 @@ import org.gradle.api.plugins.PluginContainer;
 import org.gradle.api.resources.ResourceHandler;
 import org.gradle.api.tasks.Directory;
 import org.gradle.api.tasks.WorkResult;
+import org.gradle.configuration.ParallelProjectEvaluator;
 import org.gradle.configuration.ProjectEvaluator;
 import org.gradle.configuration.ScriptPlugin;
 import org.gradle.configuration.ScriptPluginFactory;
@@ -436,6 +437,7 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
 
     public <T> Iterable<T> configure(Iterable<T> objects, Action<? super T> configureAction) {
         for (T object : objects) {
+            assertCanConfigure(object);
             configureAction.execute(object);
         }
         return objects;
@@ -560,6 +562,7 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     private Project evaluationDependsOn(DefaultProject projectToEvaluate) {
+        ParallelProjectEvaluator.assertCanEvaluate(projectToEvaluate);
         if (projectToEvaluate.getState().getExecuting()) {
             throw new CircularReferenceException(String.format("Circular referencing during evaluation for %s.",
                     projectToEvaluate));
@@ -854,13 +857,22 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     public Project project(String path, Closure configureClosure) {
-        return ConfigureUtil.configure(configureClosure, project(path));
+        Project project = project(path);
+        assertCanConfigure(project);
+        return ConfigureUtil.configure(configureClosure, project);
     }
 
     public Object configure(Object object, Closure configureClosure) {
+        assertCanConfigure(object);
         return ConfigureUtil.configure(configureClosure, object);
     }
 
+    private void assertCanConfigure(Object object) {
+        if (object instanceof Project) {
+            ParallelProjectEvaluator.assertCanConfigure((Project) object);
+        }
+    }
+
     public Iterable<?> configure(Iterable<?> objects, Closure configureClosure) {
         for (Object object : objects) {
             configure(object, configureClosure);
@@ -18,12 +18,14 @@ package org.gradle.api.internal.project;
 
 import org.gradle.StartParameter;
 import org.gradle.api.internal.*;
+import org.gradle.api.internal.artifacts.GlobalDependencyManagementServices;
 import org.gradle.api.internal.classpath.DefaultModuleRegistry;
 import org.gradle.api.internal.classpath.DefaultPluginModuleRegistry;
 import org.gradle.api.internal.classpath.ModuleRegistry;
 import org.gradle.api.internal.classpath.PluginModuleRegistry;
 import org.gradle.cache.internal.*;
 import org.gradle.cli.CommandLineConverter;
+import org.gradle.groovy.scripts.internal.CrossBuildScriptClassCache;
 import org.gradle.initialization.ClassLoaderRegistry;
 import org.gradle.initialization.DefaultClassLoaderRegistry;
 import org.gradle.initialization.DefaultCommandLineConverter;
@@ -33,6 +35,7 @@ import org.gradle.internal.nativeplatform.services.NativeServices;
 import org.gradle.internal.reflect.DirectInstantiator;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.service.DefaultServiceRegistry;
+import org.gradle.internal.service.ServiceLocator;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.listener.DefaultListenerManager;
 import org.gradle.listener.ListenerManager;
@@ -83,6 +86,17 @@ public class GlobalServicesRegistry extends DefaultServiceRegistry {
         return new DefaultClassLoaderRegistry(get(ClassPathRegistry.class), get(ClassLoaderFactory.class));
     }
 
+    protected CrossBuildScriptClassCache createCrossBuildScriptClassCache() {
+        return new CrossBuildScriptClassCache(get(ClassLoaderRegistry.class).getRootClassLoader(),
+                Integer.getInteger(CrossBuildScriptClassCache.MAX_ENTRIES_PROPERTY, CrossBuildScriptClassCache.DEFAULT_MAX_ENTRIES));
+    }
+
+    protected GlobalDependencyManagementServices createGlobalDependencyManagementServices() {
+        ClassLoader coreImplClassLoader = get(ClassLoaderRegistry.class).getCoreImplClassLoader();
+        ServiceLocator serviceLocator = new ServiceLocator(coreImplClassLoader);
+        return serviceLocator.getFactory(GlobalDependencyManagementServices.class).newInstance();
+    }
+
     protected ListenerManager createListenerManager() {
         return new DefaultListenerManager();
     }
@@ -25,6 +25,7 @@ import org.gradle.api.invocation.Gradle;
 import org.gradle.cache.CacheRepository;
 import org.gradle.execution.taskgraph.TaskPlanExecutor;
 import org.gradle.execution.taskgraph.TaskPlanExecutorFactory;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.id.RandomLongIdGenerator;
 import org.gradle.internal.service.DefaultServiceRegistry;
 import org.gradle.internal.service.ServiceRegistry;
@@ -62,7 +63,7 @@ public class TaskExecutionServices extends DefaultServiceRegistry {
 
         FileSnapshotter fileSnapshotter = new DefaultFileSnapshotter(
                 new CachingHasher(
-                        new DefaultHasher(),
+                        fileHasher(),
                         cacheAccess));
 
         FileSnapshotter outputFilesSnapshotter = new OutputFilesSnapshotter(fileSnapshotter, new RandomLongIdGenerator(), cacheAccess);
@@ -79,9 +80,24 @@ public class TaskExecutionServices extends DefaultServiceRegistry {
                 new DefaultFileCacheListener());
     }
 
+    private Hasher fileHasher() {
+        int fileHashingThreads = get(StartParameter.class).getFileHashingThreadCount();
+        if (fileHashingThreads < 0) {
+            fileHashingThreads = Runtime.getRuntime().availableProcessors();
+        }
+        if (fileHashingThreads > 1) {
+            return new ParallelHasher(new DefaultHasher(), get(ExecutorFactory.class), fileHashingThreads);
+        }
+        return new DefaultHasher();
+    }
+
+    protected TaskDurationRepository createTaskDurationRepository() {
+        return new CacheBackedTaskDurationRepository(get(TaskArtifactStateCacheAccess.class));
+    }
+
     protected TaskPlanExecutor createTaskExecutorFactory() {
         StartParameter startParameter = gradle.getStartParameter();
         TaskArtifactStateCacheAccess cacheAccess = get(TaskArtifactStateCacheAccess.class);
-        return new TaskPlanExecutorFactory(cacheAccess, startParameter.getParallelThreadCount(), get(DocumentationRegistry.class)).create();
+        return new TaskPlanExecutorFactory(cacheAccess, get(TaskDurationRepository.class), startParameter.getParallelThreadCount(), get(DocumentationRegistry.class)).create();
     }
 }
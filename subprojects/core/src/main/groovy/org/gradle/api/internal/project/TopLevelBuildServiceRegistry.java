@@ -156,13 +156,16 @@ public class TopLevelBuildServiceRegistry extends DefaultServiceRegistry impleme
         };
         return new DefaultScriptCompilerFactory(
                 new CachingScriptClassCompiler(
-                        new ShortCircuitEmptyScriptCompiler(
-                                new FileCacheBackedScriptClassCompiler(
-                                        get(CacheRepository.class),
-                                        scriptCacheInvalidator,
-                                        new DefaultScriptCompilationHandler(
-                                                emptyScriptGenerator)),
-                                emptyScriptGenerator)),
+                        new CrossBuildCachingScriptClassCompiler(
+                                new ShortCircuitEmptyScriptCompiler(
+                                        new FileCacheBackedScriptClassCompiler(
+                                                get(CacheRepository.class),
+                                                scriptCacheInvalidator,
+                                                new DefaultScriptCompilationHandler(
+                                                        emptyScriptGenerator)),
+                                        emptyScriptGenerator),
+                                get(CrossBuildScriptClassCache.class),
+                                scriptCacheInvalidator)),
                 new DefaultScriptRunnerFactory(scriptExecutionListener));
     }
 
@@ -224,8 +227,10 @@ public class TopLevelBuildServiceRegistry extends DefaultServiceRegistry impleme
                 new IdentityFileResolver(), new LongIdGenerator());
     }
 
-    protected BuildConfigurer createBuildConfigurer() {
+    protected DefaultBuildConfigurer createBuildConfigurer() {
         return new DefaultBuildConfigurer(
+                get(ExecutorFactory.class),
+                new BuildScriptPrecompiler(get(ScriptCompilerFactory.class), get(ImportsReader.class), get(ExecutorFactory.class), Runtime.getRuntime().availableProcessors()),
                 new ProjectEvaluationConfigurer(),
                 new ProjectDependencies2TaskResolver(),
                 new ImplicitTasksConfigurer());
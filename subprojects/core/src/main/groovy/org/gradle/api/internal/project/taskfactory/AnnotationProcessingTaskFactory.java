@@ -93,10 +93,13 @@ public class AnnotationProcessingTaskFactory implements ITaskFactory {
         TaskInternal task = taskFactory.createTask(args);
 
         Class<? extends Task> type = task.getClass();
-        List<Action<Task>> actions = actionsForType.get(type);
-        if (actions == null) {
-            actions = createActionsForType(type);
-            actionsForType.put(type, actions);
+        List<Action<Task>> actions;
+        synchronized (actionsForType) {
+            actions = actionsForType.get(type);
+            if (actions == null) {
+                actions = createActionsForType(type);
+                actionsForType.put(type, actions);
+            }
         }
 
         for (Action<Task> action : actions) {
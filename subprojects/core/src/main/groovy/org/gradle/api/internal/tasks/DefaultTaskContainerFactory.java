@@ -16,6 +16,7 @@
 package org.gradle.api.internal.tasks;
 
 import org.gradle.api.Project;
+import org.gradle.configuration.ProjectConfigurer;
 import org.gradle.internal.Factory;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.api.internal.project.taskfactory.ITaskFactory;
@@ -23,15 +24,17 @@ import org.gradle.api.internal.project.taskfactory.ITaskFactory;
 public class DefaultTaskContainerFactory implements Factory<TaskContainerInternal> {
     private final Instantiator instantiator;
     private final ITaskFactory taskFactory;
+    private final ProjectConfigurer projectConfigurer;
     private Project project;
 
-    public DefaultTaskContainerFactory(Instantiator instantiator, ITaskFactory taskFactory, Project project) {
+    public DefaultTaskContainerFactory(Instantiator instantiator, ITaskFactory taskFactory, ProjectConfigurer projectConfigurer, Project project) {
         this.instantiator = instantiator;
         this.taskFactory = taskFactory;
+        this.projectConfigurer = projectConfigurer;
         this.project = project;
     }
 
     public TaskContainerInternal create() {
-        return instantiator.newInstance(DefaultTaskContainer.class, project, instantiator, taskFactory);
+        return instantiator.newInstance(DefaultTaskContainer.class, project, instantiator, taskFactory, projectConfigurer);
     }
 }
@@ -20,10 +20,15 @@ import org.gradle.cache.CacheAccess;
 import org.gradle.cache.DefaultSerializer;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
+import org.gradle.cache.internal.btree.BlockStore;
+import org.gradle.cache.internal.btree.FileBackedBlockStore;
+import org.gradle.cache.internal.btree.MemoryMappedBlockStore;
 import org.gradle.internal.Factories;
 import org.gradle.internal.Factory;
 import org.gradle.internal.UncheckedException;
 import org.gradle.messaging.serialize.Serializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -38,6 +43,11 @@ import static org.gradle.cache.internal.FileLockManager.LockMode.Exclusive;
 
 @ThreadSafe
 public class DefaultCacheAccess implements CacheAccess {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultCacheAccess.class);
+    /**
+     * System property which, when set to true, causes indexed caches to access their files through memory mapped regions.
+     */
+    public static final String MEMORY_MAPPED_PROPERTY = "org.gradle.cache.memorymapped";
     private final String cacheDiplayName;
     private final File lockFile;
     private final FileLockManager lockManager;
@@ -120,13 +130,27 @@ public class DefaultCacheAccess implements CacheAccess {
         takeOwnership(operationDisplayName);
         try {
             boolean wasStarted = onStartWork();
+            T result;
             try {
-                return factory.create();
-            } finally {
+                result = factory.create();
+            } catch (Throwable t) {
+                // Release the lock, but don't let a failure to write the caches hide the failure of the action. Changes that are
+                // still buffered are written when the caches are next flushed or closed
                 if (wasStarted) {
-                    onEndWork();
+                    try {
+                        onEndWork();
+                    } catch (Throwable endWorkFailure) {
+                        LOGGER.error(String.format("Could not release the lock on %s.", cacheDiplayName), endWorkFailure);
+                    }
                 }
+                throw UncheckedException.throwAsUncheckedException(t);
+            }
+            if (wasStarted) {
+                onEndWork();
+            } else {
+                flushCaches();
             }
+            return result;
         } finally {
             releaseOwnership(operationDisplayName);
         }
@@ -256,7 +280,11 @@ public class DefaultCacheAccess implements CacheAccess {
     }
 
     <K, V> BTreePersistentIndexedCache<K, V> doCreateCache(final File cacheFile, final Serializer<K> keySerializer, final Serializer<V> valueSerializer) {
-        return new BTreePersistentIndexedCache<K, V>(cacheFile, keySerializer, valueSerializer);
+        BlockStore backingStore = Boolean.getBoolean(MEMORY_MAPPED_PROPERTY) ? new MemoryMappedBlockStore(cacheFile) : new FileBackedBlockStore(cacheFile);
+        BTreePersistentIndexedCache<K, V> cache = new BTreePersistentIndexedCache<K, V>(cacheFile, backingStore, keySerializer, valueSerializer);
+        // The cache is flushed at the end of each cache action, and closed when the lock is released
+        cache.enableWriteBehind();
+        return cache;
     }
 
     private boolean onStartWork() {
@@ -271,6 +299,16 @@ public class DefaultCacheAccess implements CacheAccess {
         return true;
     }
 
+    /**
+     * Writes the changes buffered by the caches, when the cache action ends while the lock is still held. This happens for a cache action
+     * nested in another, and for every cache action when the cache was opened with a lock mode other than none.
+     */
+    private void flushCaches() {
+        for (MultiProcessSafePersistentIndexedCache<?, ?> cache : caches) {
+            cache.flush();
+        }
+    }
+
     private boolean onEndWork() {
         if (fileLock == null) {
             return false;
@@ -280,9 +318,12 @@ public class DefaultCacheAccess implements CacheAccess {
             for (MultiProcessSafePersistentIndexedCache<?, ?> cache : caches) {
                 cache.onEndWork();
             }
-            fileLock.close();
         } finally {
-            fileLock = null;
+            try {
+                fileLock.close();
+            } finally {
+                fileLock = null;
+            }
         }
         return true;
     }
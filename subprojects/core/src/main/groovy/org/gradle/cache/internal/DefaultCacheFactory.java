@@ -18,6 +18,7 @@ package org.gradle.cache.internal;
 import org.gradle.CacheUsage;
 import org.gradle.api.Action;
 import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
 import org.gradle.cache.*;
 import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
 import org.gradle.messaging.serialize.Serializer;
@@ -29,7 +30,9 @@ import java.util.*;
 import static org.gradle.cache.internal.FileLockManager.LockMode;
 
 public class DefaultCacheFactory implements Factory<CacheFactory> {
+    private final Object lock = new Object();
     private final Map<File, DirCacheReference> dirCaches = new HashMap<File, DirCacheReference>();
+    private final Set<File> opening = new HashSet<File>();
     private final FileLockManager lockManager;
 
     public DefaultCacheFactory(FileLockManager fileLockManager) {
@@ -47,8 +50,23 @@ public class DefaultCacheFactory implements Factory<CacheFactory> {
     }
 
     public void close() {
-        for (DirCacheReference dirCacheReference : dirCaches.values()) {
-            dirCacheReference.close();
+        synchronized (lock) {
+            for (DirCacheReference dirCacheReference : new ArrayList<DirCacheReference>(dirCaches.values())) {
+                dirCacheReference.close();
+            }
+        }
+    }
+
+    /**
+     * Waits until no other thread is opening the cache in the given directory. Must be called while holding the lock.
+     */
+    private void awaitOpen(File canonicalDir) {
+        while (opening.contains(canonicalDir)) {
+            try {
+                lock.wait();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
         }
     }
 
@@ -57,37 +75,64 @@ public class DefaultCacheFactory implements Factory<CacheFactory> {
 
         private DirCacheReference doOpenDir(File cacheDir, String displayName, CacheUsage usage, CacheValidator validator, Map<String, ?> properties, FileLockManager.LockMode lockMode, Action<? super PersistentCache> action) {
             File canonicalDir = GFileUtils.canonicalise(cacheDir);
-            DirCacheReference dirCacheReference = dirCaches.get(canonicalDir);
-            if (dirCacheReference == null) {
+            synchronized (lock) {
+                awaitOpen(canonicalDir);
+                DirCacheReference dirCacheReference = dirCaches.get(canonicalDir);
+                if (dirCacheReference != null) {
+                    if (usage == CacheUsage.REBUILD && dirCacheReference.rebuiltBy != this) {
+                        throw new IllegalStateException(String.format("Cannot rebuild cache '%s' as it is already open.", cacheDir));
+                    }
+                    if (lockMode != dirCacheReference.lockMode) {
+                        throw new IllegalStateException(String.format("Cannot open cache '%s' with %s lock mode as it is already open with %s lock mode.", cacheDir, lockMode.toString().toLowerCase(), dirCacheReference.lockMode.toString().toLowerCase()));
+                    }
+                    if (!properties.equals(dirCacheReference.properties)) {
+                        throw new IllegalStateException(String.format("Cache '%s' is already open with different state.", cacheDir));
+                    }
+                    addReference(dirCacheReference, usage);
+                    return dirCacheReference;
+                }
+                opening.add(canonicalDir);
+            }
+
+            // Open the cache without holding the lock, so that caches in other directories can be opened and initialised concurrently
+            DirCacheReference dirCacheReference = null;
+            try {
                 if (lockMode.equals(LockMode.None)) {
                     // Create nested cache with LockMode#Exclusive (tb discussed) that is opened and closed on Demand in the DelegateOnDemandPersistentDirectoryCache.
                     DefaultPersistentDirectoryCache nestedCache = new DefaultPersistentDirectoryCache(canonicalDir, displayName, usage, validator, properties, LockMode.Exclusive, action, lockManager);
                     DelegateOnDemandPersistentDirectoryCache onDemandDache = new DelegateOnDemandPersistentDirectoryCache(nestedCache);
                     onDemandDache.open();
                     dirCacheReference = new DirCacheReference(onDemandDache, properties, lockMode);
-                    dirCaches.put(canonicalDir, dirCacheReference);
                 } else {
                     ReferencablePersistentCache cache = new DefaultPersistentDirectoryCache(canonicalDir, displayName, usage, validator, properties, lockMode, action, lockManager);
                     cache.open();
                     dirCacheReference = new DirCacheReference(cache, properties, lockMode);
-                    dirCaches.put(canonicalDir, dirCacheReference);
                 }
-            } else {
-                if (usage == CacheUsage.REBUILD && dirCacheReference.rebuiltBy != this) {
-                    throw new IllegalStateException(String.format("Cannot rebuild cache '%s' as it is already open.", cacheDir));
-                }
-                if (lockMode != dirCacheReference.lockMode) {
-                    throw new IllegalStateException(String.format("Cannot open cache '%s' with %s lock mode as it is already open with %s lock mode.", cacheDir, lockMode.toString().toLowerCase(), dirCacheReference.lockMode.toString().toLowerCase()));
-                }
-                if (!properties.equals(dirCacheReference.properties)) {
-                    throw new IllegalStateException(String.format("Cache '%s' is already open with different state.", cacheDir));
+            } finally {
+                finishOpen(canonicalDir, dirCacheReference, usage);
+            }
+            return dirCacheReference;
+        }
+
+        /**
+         * Records the cache opened in the given directory, if any, and wakes up the threads waiting for it to be opened.
+         */
+        private void finishOpen(File canonicalDir, DirCacheReference dirCacheReference, CacheUsage usage) {
+            synchronized (lock) {
+                opening.remove(canonicalDir);
+                if (dirCacheReference != null) {
+                    dirCaches.put(canonicalDir, dirCacheReference);
+                    addReference(dirCacheReference, usage);
                 }
+                lock.notifyAll();
             }
+        }
+
+        private void addReference(DirCacheReference dirCacheReference, CacheUsage usage) {
             if (usage == CacheUsage.REBUILD) {
                 dirCacheReference.rebuiltBy = this;
             }
             dirCacheReference.addReference(this);
-            return dirCacheReference;
         }
 
         public PersistentCache openStore(File storeDir, String displayName, LockMode lockMode, Action<? super PersistentCache> initializer) throws CacheOpenException {
@@ -95,14 +140,25 @@ public class DefaultCacheFactory implements Factory<CacheFactory> {
                 throw new UnsupportedOperationException("Initializer actions are not currently supported by the directory store implementation.");
             }
             File canonicalDir = GFileUtils.canonicalise(storeDir);
-            DirCacheReference dirCacheReference = dirCaches.get(canonicalDir);
-            if (dirCacheReference == null) {
+            synchronized (lock) {
+                awaitOpen(canonicalDir);
+                DirCacheReference dirCacheReference = dirCaches.get(canonicalDir);
+                if (dirCacheReference != null) {
+                    dirCacheReference.addReference(this);
+                    return dirCacheReference.getCache();
+                }
+                opening.add(canonicalDir);
+            }
+
+            // Open the store without holding the lock, as for caches
+            DirCacheReference dirCacheReference = null;
+            try {
                 ReferencablePersistentCache cache = new DefaultPersistentDirectoryStore(canonicalDir, displayName, lockMode, lockManager);
                 cache.open();
                 dirCacheReference = new DirCacheReference(cache, Collections.<String, Object>emptyMap(), lockMode);
-                dirCaches.put(canonicalDir, dirCacheReference);
+            } finally {
+                finishOpen(canonicalDir, dirCacheReference, CacheUsage.ON);
             }
-            dirCacheReference.addReference(this);
             return dirCacheReference.getCache();
         }
 
@@ -112,29 +168,37 @@ public class DefaultCacheFactory implements Factory<CacheFactory> {
         }
 
         public <E> PersistentStateCache<E> openStateCache(File cacheDir, CacheUsage usage, CacheValidator validator, Map<String, ?> properties, LockMode lockMode, Serializer<E> serializer) {
-            StateCacheReference<E> cacheReference = doOpenDir(cacheDir, null, usage, validator, properties, lockMode, null).getStateCache(serializer);
-            cacheReference.addReference(this);
-            return cacheReference.getCache();
+            DirCacheReference dirCacheReference = doOpenDir(cacheDir, null, usage, validator, properties, lockMode, null);
+            synchronized (lock) {
+                StateCacheReference<E> cacheReference = dirCacheReference.getStateCache(serializer);
+                cacheReference.addReference(this);
+                return cacheReference.getCache();
+            }
         }
 
         public <K, V> PersistentIndexedCache<K, V> openIndexedCache(File cacheDir, CacheUsage usage, CacheValidator validator, Map<String, ?> properties, LockMode lockMode, Serializer<V> serializer) {
             if (lockMode != LockMode.Exclusive) {
                 throw new UnsupportedOperationException(String.format("No %s mode indexed cache implementation is available.", lockMode));
             }
-            IndexedCacheReference<K, V> cacheReference = doOpenDir(cacheDir, null, usage, validator, properties, LockMode.Exclusive, null).getIndexedCache(serializer);
-            cacheReference.addReference(this);
-            return cacheReference.getCache();
+            DirCacheReference dirCacheReference = doOpenDir(cacheDir, null, usage, validator, properties, LockMode.Exclusive, null);
+            synchronized (lock) {
+                IndexedCacheReference<K, V> cacheReference = dirCacheReference.getIndexedCache(serializer);
+                cacheReference.addReference(this);
+                return cacheReference.getCache();
+            }
         }
 
         public void close() {
-            try {
-                List<BasicCacheReference<?>> caches = new ArrayList<BasicCacheReference<?>>(this.caches);
-                Collections.reverse(caches);
-                for (BasicCacheReference cache : caches) {
-                    cache.release(this);
+            synchronized (lock) {
+                try {
+                    List<BasicCacheReference<?>> caches = new ArrayList<BasicCacheReference<?>>(this.caches);
+                    Collections.reverse(caches);
+                    for (BasicCacheReference cache : caches) {
+                        cache.release(this);
+                    }
+                } finally {
+                    caches.clear();
                 }
-            } finally {
-                caches.clear();
             }
         }
     }
@@ -73,6 +73,19 @@ public class MultiProcessSafePersistentIndexedCache<K, V> implements PersistentI
         close();
     }
 
+    /**
+     * Writes any changes buffered by the backing cache to the file.
+     */
+    public void flush() {
+        if (cache != null) {
+            fileAccess.writeFile(new Runnable() {
+                public void run() {
+                    cache.flush();
+                }
+            });
+        }
+    }
+
     public void close() {
         if (cache != null) {
             try {
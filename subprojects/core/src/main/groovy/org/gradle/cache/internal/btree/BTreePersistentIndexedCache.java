@@ -22,13 +22,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
-import java.math.BigInteger;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.*;
 
 // todo - stream serialised value to file
-// todo - handle hash collisions (properly, this time)
 // todo - don't store null links to child blocks in leaf index blocks
 // todo - align block boundaries
 // todo - thread safety control
@@ -41,26 +37,45 @@ import java.util.*;
 // todo - use more efficient lookup for free block with nearest size
 public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache<K, V> {
     private static final Logger LOGGER = LoggerFactory.getLogger(BTreePersistentIndexedCache.class);
+    private static final int MAX_PENDING_BYTES = 4 * 1024 * 1024;
     private final File cacheFile;
     private final Serializer<K> keySerializer;
     private final Serializer<V> serializer;
+    private final KeyHasher keyHasher;
     private final short maxChildIndexEntries;
     private final int minIndexChildNodes;
     private final StateCheckBlockStore store;
     private HeaderBlock header;
+    private Map<SerialisedKey, byte[]> pendingUpdates;
+    private int pendingBytes;
 
     public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
         this(cacheFile, keySerializer, valueSerializer, (short) 512, 512);
     }
 
+    public BTreePersistentIndexedCache(File cacheFile, BlockStore backingStore, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        this(cacheFile, backingStore, keySerializer, valueSerializer, (short) 512, 512);
+    }
+
     public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer,
                                        short maxChildIndexEntries, int maxFreeListEntries) {
+        this(cacheFile, new FileBackedBlockStore(cacheFile), keySerializer, valueSerializer, maxChildIndexEntries, maxFreeListEntries);
+    }
+
+    public BTreePersistentIndexedCache(File cacheFile, BlockStore backingStore, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+                                       short maxChildIndexEntries, int maxFreeListEntries) {
+        this(cacheFile, backingStore, new MurmurHash3KeyHasher(), keySerializer, valueSerializer, maxChildIndexEntries, maxFreeListEntries);
+    }
+
+    public BTreePersistentIndexedCache(File cacheFile, BlockStore backingStore, KeyHasher keyHasher, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+                                       short maxChildIndexEntries, int maxFreeListEntries) {
         this.cacheFile = cacheFile;
         this.keySerializer = keySerializer;
         this.serializer = valueSerializer;
+        this.keyHasher = keyHasher;
         this.maxChildIndexEntries = maxChildIndexEntries;
         this.minIndexChildNodes = maxChildIndexEntries / 2;
-        BlockStore cachingStore = new CachingBlockStore(new FileBackedBlockStore(cacheFile), IndexBlock.class, FreeListBlockStore.FreeListBlock.class);
+        BlockStore cachingStore = new CachingBlockStore(backingStore, IndexBlock.class, FreeListBlockStore.FreeListBlock.class);
         store = new StateCheckBlockStore(new FreeListBlockStore(cachingStore, maxFreeListEntries));
         try {
             open();
@@ -111,10 +126,26 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         header = store.readFirst(HeaderBlock.class);
     }
 
+    /**
+     * Enables write-behind for this cache. Changes are buffered in memory, and are written to the file in key hash order
+     * when {@link #flush()} or {@link #close()} is called, or when the buffer becomes too large.
+     */
+    public void enableWriteBehind() {
+        if (pendingUpdates == null) {
+            pendingUpdates = new HashMap<SerialisedKey, byte[]>();
+        }
+    }
+
     public V get(K key) {
         try {
             try {
-                DataBlock block = header.getRoot().get(key);
+                SerialisedKey serialisedKey = serialiseKey(key);
+                if (pendingUpdates != null && pendingUpdates.containsKey(serialisedKey)) {
+                    byte[] serialisedValue = pendingUpdates.get(serialisedKey);
+                    return serialisedValue == null ? null : serializer.read(new ByteArrayInputStream(serialisedValue));
+                }
+                Lookup lookup = header.getRoot().find(serialisedKey.hashCode);
+                DataBlock block = lookup.findInChain(serialisedKey.bytes);
                 if (block != null) {
                     return block.getValue();
                 }
@@ -130,23 +161,15 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
 
     public void put(K key, V value) {
         try {
-            MessageDigestStream digestStream = new MessageDigestStream();
-            keySerializer.write(digestStream, key);
-            long hashCode = digestStream.getChecksum();
-            Lookup lookup = header.getRoot().find(hashCode);
-            boolean needNewBlock = true;
-            if (lookup.entry != null) {
-                DataBlock block = store.read(lookup.entry.dataBlock, DataBlock.class);
-                needNewBlock = !block.useNewValue(value);
-                if (needNewBlock) {
-                    store.remove(block);
-                }
-            }
-            if (needNewBlock) {
-                DataBlock block = new DataBlock(value);
-                store.write(block);
-                lookup.indexBlock.put(hashCode, block.getPos());
+            SerialisedKey serialisedKey = serialiseKey(key);
+            ByteArrayOutputStream outStr = new ByteArrayOutputStream();
+            serializer.write(outStr, value);
+            byte[] serialisedValue = outStr.toByteArray();
+            if (pendingUpdates != null) {
+                addPendingUpdate(serialisedKey, serialisedValue);
+                return;
             }
+            doPut(serialisedKey, serialisedValue);
             store.flush();
         } catch (Exception e) {
             throw new UncheckedIOException(String.format("Could not add entry '%s' to %s.", key, this), e);
@@ -155,19 +178,97 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
 
     public void remove(K key) {
         try {
-            Lookup lookup = header.getRoot().find(key);
-            if (lookup.entry == null) {
+            SerialisedKey serialisedKey = serialiseKey(key);
+            if (pendingUpdates != null) {
+                addPendingUpdate(serialisedKey, null);
                 return;
             }
-            lookup.indexBlock.remove(lookup.entry);
-            DataBlock block = store.read(lookup.entry.dataBlock, DataBlock.class);
-            store.remove(block);
+            doRemove(serialisedKey);
             store.flush();
         } catch (Exception e) {
             throw new UncheckedIOException(String.format("Could not remove entry '%s' from %s.", key, this), e);
         }
     }
 
+    /**
+     * Writes any buffered changes to the file.
+     */
+    public void flush() {
+        if (pendingUpdates == null || pendingUpdates.isEmpty()) {
+            return;
+        }
+        try {
+            // Apply the changes in index order, so that each index block is visited once and stays cached while it is updated
+            List<SerialisedKey> keys = new ArrayList<SerialisedKey>(pendingUpdates.keySet());
+            Collections.sort(keys);
+            for (SerialisedKey key : keys) {
+                byte[] serialisedValue = pendingUpdates.get(key);
+                if (serialisedValue == null) {
+                    doRemove(key);
+                } else {
+                    doPut(key, serialisedValue);
+                }
+            }
+            store.flush();
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not write changes to %s.", this), e);
+        }
+        // Keep the changes buffered when the write fails, so that it can be retried
+        pendingUpdates.clear();
+        pendingBytes = 0;
+    }
+
+    private void addPendingUpdate(SerialisedKey serialisedKey, byte[] serialisedValue) {
+        pendingUpdates.put(serialisedKey, serialisedValue);
+        pendingBytes += serialisedKey.bytes.length + (serialisedValue == null ? 0 : serialisedValue.length);
+        if (pendingBytes > MAX_PENDING_BYTES) {
+            flush();
+        }
+    }
+
+    private void doPut(SerialisedKey serialisedKey, byte[] serialisedValue) throws Exception {
+        Lookup lookup = header.getRoot().find(serialisedKey.hashCode);
+        DataBlock block = lookup.findInChain(serialisedKey.bytes);
+        if (block == null) {
+            // Add to the start of the chain
+            DataBlock newBlock = new DataBlock(serialisedKey.bytes, serialisedValue, lookup.entry == null ? new BlockPointer() : lookup.entry.dataBlock);
+            store.write(newBlock);
+            lookup.indexBlock.put(serialisedKey.hashCode, newBlock.getPos());
+        } else if (!block.useNewValue(serialisedValue)) {
+            BlockPointer oldPos = block.getPos();
+            store.remove(block);
+            DataBlock newBlock = new DataBlock(serialisedKey.bytes, serialisedValue, block.next);
+            store.write(newBlock);
+            lookup.replaceInChain(oldPos, newBlock.getPos());
+        }
+    }
+
+    private void doRemove(SerialisedKey serialisedKey) throws Exception {
+        Lookup lookup = header.getRoot().find(serialisedKey.hashCode);
+        DataBlock block = lookup.findInChain(serialisedKey.bytes);
+        if (block == null) {
+            return;
+        }
+        if (block.getPos().equals(lookup.entry.dataBlock) && block.next.isNull()) {
+            // Last entry in the chain
+            lookup.indexBlock.remove(lookup.entry);
+        } else {
+            lookup.replaceInChain(block.getPos(), block.next);
+        }
+        store.remove(block);
+    }
+
+    private SerialisedKey serialiseKey(K key) throws Exception {
+        ByteArrayOutputStream outStr = new ByteArrayOutputStream();
+        keySerializer.write(outStr, key);
+        byte[] bytes = outStr.toByteArray();
+        return new SerialisedKey(bytes, hash(bytes));
+    }
+
+    private long hash(byte[] serialisedKey) {
+        return keyHasher.hash(serialisedKey, 0, serialisedKey.length);
+    }
+
     private IndexBlock load(BlockPointer pos, IndexRoot root, IndexBlock parent, int index) {
         IndexBlock block = store.read(pos, IndexBlock.class);
         block.root = root;
@@ -188,6 +289,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
     public void close() {
         LOGGER.debug("Closing {}", this);
         try {
+            flush();
             store.close();
         } catch (Exception e) {
             throw new UncheckedIOException(e);
@@ -201,7 +303,8 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
     private void rebuild() throws Exception {
         LOGGER.warn(String.format("%s is corrupt. Discarding.", this));
         store.clear();
-        close();
+        // Keep any buffered changes, to write to the new file
+        store.close();
         doOpen();
     }
 
@@ -266,8 +369,15 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
                 verifyTree(child, "   " + prefix, blocks, entry.hashCode, loadData);
             }
             if (loadData) {
-                DataBlock block = store.read(entry.dataBlock, DataBlock.class);
-                blocks.add(block);
+                BlockPointer pos = entry.dataBlock;
+                while (!pos.isNull()) {
+                    DataBlock block = store.read(pos, DataBlock.class);
+                    if (hash(block.serialisedKey) != entry.hashCode) {
+                        throw new IOException(String.format("Mismatched key hash in %s", block));
+                    }
+                    blocks.add(block);
+                    pos = block.next;
+                }
             }
         }
         if (!current.tailPos.isNull()) {
@@ -310,12 +420,13 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
 
         @Override
         protected int getType() {
-            return 0x55;
+            // Was 0x55 for the format without collision chains. Files using the old format are discarded when opened.
+            return 0x56;
         }
 
         @Override
         protected int getSize() {
-            return Block.LONG_SIZE + Block.SHORT_SIZE;
+            return Block.LONG_SIZE + Block.SHORT_SIZE + Block.INT_SIZE;
         }
 
         @Override
@@ -326,12 +437,17 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
             if (actualChildIndexEntries != maxChildIndexEntries) {
                 throw blockCorruptedException();
             }
+            int actualKeyHasher = instr.readInt();
+            if (actualKeyHasher != keyHasher.getId()) {
+                throw blockCorruptedException();
+            }
         }
 
         @Override
         protected void write(DataOutputStream outstr) throws Exception {
             outstr.writeLong(index.rootPos.getPos());
             outstr.writeShort(maxChildIndexEntries);
+            outstr.writeInt(keyHasher.getId());
         }
 
         public IndexBlock getRoot() throws Exception {
@@ -436,23 +552,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
             maybeSplit();
         }
 
-        public DataBlock get(K key) throws Exception {
-            Lookup lookup = find(key);
-            if (lookup.entry == null) {
-                return null;
-            }
-
-            return store.read(lookup.entry.dataBlock, DataBlock.class);
-        }
-
-        public Lookup find(K key) throws Exception {
-            MessageDigestStream digestStream = new MessageDigestStream();
-            keySerializer.write(digestStream, key);
-            long checksum = digestStream.getChecksum();
-            return find(checksum);
-        }
-
-        private Lookup find(long hashCode) throws Exception {
+        public Lookup find(long hashCode) throws Exception {
             int index = Collections.binarySearch(entries, new IndexEntry(hashCode));
             if (index >= 0) {
                 return new Lookup(this, entries.get(index));
@@ -619,6 +719,43 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         }
     }
 
+    private static class SerialisedKey implements Comparable<SerialisedKey> {
+        final byte[] bytes;
+        final long hashCode;
+
+        private SerialisedKey(byte[] bytes, long hashCode) {
+            this.bytes = bytes;
+            this.hashCode = hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            SerialisedKey other = (SerialisedKey) obj;
+            return hashCode == other.hashCode && Arrays.equals(bytes, other.bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (hashCode ^ (hashCode >>> 32));
+        }
+
+        public int compareTo(SerialisedKey other) {
+            if (hashCode > other.hashCode) {
+                return 1;
+            }
+            if (hashCode < other.hashCode) {
+                return -1;
+            }
+            return 0;
+        }
+    }
+
     private class Lookup {
         final IndexBlock indexBlock;
         final IndexEntry entry;
@@ -627,28 +764,59 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
             this.indexBlock = indexBlock;
             this.entry = entry;
         }
+
+        /**
+         * Locates the data block for the given key in the chain of data blocks for this entry, or null if not present.
+         */
+        public DataBlock findInChain(byte[] serialisedKey) throws Exception {
+            if (entry == null) {
+                return null;
+            }
+            BlockPointer pos = entry.dataBlock;
+            while (!pos.isNull()) {
+                DataBlock block = store.read(pos, DataBlock.class);
+                if (Arrays.equals(block.serialisedKey, serialisedKey)) {
+                    return block;
+                }
+                pos = block.next;
+            }
+            return null;
+        }
+
+        /**
+         * Replaces the link to the data block at the given position in the chain of data blocks for this entry.
+         */
+        public void replaceInChain(BlockPointer pos, BlockPointer replacement) throws Exception {
+            if (pos.equals(entry.dataBlock)) {
+                indexBlock.put(entry.hashCode, replacement);
+                return;
+            }
+            DataBlock previous = store.read(entry.dataBlock, DataBlock.class);
+            while (!previous.next.equals(pos)) {
+                previous = store.read(previous.next, DataBlock.class);
+            }
+            previous.next = replacement;
+            store.write(previous);
+        }
     }
 
     private class DataBlock extends BlockPayload {
         private int size;
+        private byte[] serialisedKey;
+        private BlockPointer next;
         private byte[] serialisedValue;
         private V value;
 
         private DataBlock() {
         }
 
-        public DataBlock(V value) throws Exception {
-            this.value = value;
-            setValue(value);
+        public DataBlock(byte[] serialisedKey, byte[] serialisedValue, BlockPointer next) {
+            this.serialisedKey = serialisedKey;
+            this.next = next;
+            this.serialisedValue = serialisedValue;
             size = serialisedValue.length;
         }
 
-        public void setValue(V value) throws Exception {
-            ByteArrayOutputStream outStr = new ByteArrayOutputStream();
-            serializer.write(outStr, value);
-            this.serialisedValue = outStr.toByteArray();
-        }
-
         public V getValue() throws Exception {
             if (value == null) {
                 value = serializer.read(new ByteArrayInputStream(serialisedValue));
@@ -658,16 +826,20 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
 
         @Override
         protected int getType() {
-            return 0x33;
+            // Was 0x33 for the format without collision chains
+            return 0x34;
         }
 
         @Override
         protected int getSize() {
-            return 2 * Block.INT_SIZE + size;
+            return 3 * Block.INT_SIZE + serialisedKey.length + Block.LONG_SIZE + size;
         }
 
         public void read(DataInputStream instr) throws Exception {
             size = instr.readInt();
+            serialisedKey = new byte[instr.readInt()];
+            instr.readFully(serialisedKey);
+            next = new BlockPointer(instr.readLong());
             int bytes = instr.readInt();
             serialisedValue = new byte[bytes];
             instr.readFully(serialisedValue);
@@ -675,46 +847,21 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
 
         public void write(DataOutputStream outstr) throws Exception {
             outstr.writeInt(size);
+            outstr.writeInt(serialisedKey.length);
+            outstr.write(serialisedKey);
+            outstr.writeLong(next.getPos());
             outstr.writeInt(serialisedValue.length);
             outstr.write(serialisedValue);
         }
 
-        public boolean useNewValue(V value) throws Exception {
-            setValue(value);
+        public boolean useNewValue(byte[] serialisedValue) throws Exception {
             boolean ok = serialisedValue.length <= size;
             if (ok) {
+                this.serialisedValue = serialisedValue;
+                value = null;
                 store.write(this);
             }
             return ok;
         }
     }
-
-    private static class MessageDigestStream extends OutputStream {
-        MessageDigest messageDigest;
-
-        private MessageDigestStream() throws NoSuchAlgorithmException {
-            messageDigest = MessageDigest.getInstance("MD5");
-        }
-
-        @Override
-        public void write(int b) throws IOException {
-            messageDigest.update((byte) b);
-        }
-
-        @Override
-        public void write(byte[] b) throws IOException {
-            messageDigest.update(b);
-        }
-
-        @Override
-        public void write(byte[] b, int off, int len) throws IOException {
-            messageDigest.update(b, off, len);
-        }
-
-        long getChecksum() {
-            byte[] digest = messageDigest.digest();
-            assert digest.length == 16;
-            return new BigInteger(digest).longValue();
-        }
-    }
 }
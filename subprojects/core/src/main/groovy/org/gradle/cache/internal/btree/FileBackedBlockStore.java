@@ -77,6 +77,15 @@ public class FileBackedBlockStore implements BlockStore {
     }
 
     public void flush() {
+        // A block may have been allocated at the end of the file and then discarded without being written, and its space
+        // added to the free list. Extend the file to cover it, so the space is not allocated again when the file is reopened
+        try {
+            if (file.length() < nextBlock) {
+                file.setLength(nextBlock);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     public <T extends BlockPayload> T readFirst(Class<T> payloadType) {
@@ -108,6 +117,29 @@ public class FileBackedBlockStore implements BlockStore {
         }
     }
 
+    /**
+     * Returns the underlying file. Only valid while this store is open.
+     */
+    protected RandomAccessFile getFile() {
+        return file;
+    }
+
+    /**
+     * Opens a stream to read the contents of this store, starting at the given position.
+     */
+    protected InputStream openInputStream(long pos) throws IOException {
+        file.seek(pos);
+        return new BufferedInputStream(new RandomAccessFileInputStream(file));
+    }
+
+    /**
+     * Opens a stream to write the contents of this store, starting at the given position.
+     */
+    protected OutputStream openOutputStream(long pos) throws IOException {
+        file.seek(pos);
+        return new BufferedOutputStream(new RandomAccessFileOutputStream(file));
+    }
+
     private long alloc(long length) {
         long pos = nextBlock;
         nextBlock += length;
@@ -168,10 +200,8 @@ public class FileBackedBlockStore implements BlockStore {
 
         public void write() throws Exception {
             long pos = getPos().getPos();
-            file.seek(pos);
 
-            Crc32OutputStream checkSumOutputStream = new Crc32OutputStream(new BufferedOutputStream(
-                    new RandomAccessFileOutputStream(file)));
+            Crc32OutputStream checkSumOutputStream = new Crc32OutputStream(openOutputStream(pos));
             DataOutputStream outputStream = new DataOutputStream(checkSumOutputStream);
 
             BlockPayload payload = getPayload();
@@ -201,10 +231,8 @@ public class FileBackedBlockStore implements BlockStore {
             if (pos + HEADER_SIZE >= file.length()) {
                 throw blockCorruptedException();
             }
-            file.seek(pos);
 
-            Crc32InputStream checkSumInputStream = new Crc32InputStream(new BufferedInputStream(
-                    new RandomAccessFileInputStream(file)));
+            Crc32InputStream checkSumInputStream = new Crc32InputStream(openInputStream(pos));
             DataInputStream inputStream = new DataInputStream(checkSumInputStream);
 
             BlockPayload payload = getPayload();
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.btree;
+
+/**
+ * Calculates the hash of a serialized key, which is used to locate the key in the index of a {@link BTreePersistentIndexedCache}.
+ * Keys with the same hash are chained together, so the hash does not need to be unique.
+ */
+public interface KeyHasher {
+    /**
+     * Returns an identifier for this hash function. This is stored in the cache file, so that a file written using a
+     * different hash function is discarded rather than used.
+     */
+    int getId();
+
+    /**
+     * Calculates the hash of the given bytes.
+     */
+    long hash(byte[] bytes, int offset, int length);
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.btree;
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link FileBackedBlockStore} which reads and writes blocks through memory mapped regions of the file, rather than
+ * seeking and copying through a {@link RandomAccessFile}. Uses exactly the same file format as {@link FileBackedBlockStore},
+ * so the two can be used interchangeably on the same file.
+ *
+ * <p>The file is mapped in fixed size regions as it grows. Only complete regions are mapped, so mapping never changes the
+ * length of the file. The unmapped tail of the file is accessed using positional reads and writes on the file channel.</p>
+ *
+ * <p>There are some trade-offs compared to {@link FileBackedBlockStore}:</p>
+ *
+ * <ul>
+ *
+ * <li>This is not a zero-copy store. Blocks are still serialized through streams, so their content is copied between the mapped
+ * regions and the stream buffers. What is saved is the seek and the system call for each block access.</li>
+ *
+ * <li>Changes to the mapped regions are forced to disk when the store is closed. Until then they are written back by the operating
+ * system, much as writes through a {@link RandomAccessFile} are.</li>
+ *
+ * <li>There is no public API to unmap a region. The regions are released using the internal {@code cleaner()} of the JVM where it is
+ * available, and otherwise when they are garbage collected. On platforms which do not allow a mapped file to be truncated or deleted,
+ * {@link #clear()} may fail in the latter case.</li>
+ *
+ * </ul>
+ */
+public class MemoryMappedBlockStore extends FileBackedBlockStore {
+    static final int DEFAULT_REGION_SIZE = 1024 * 1024;
+    private final int regionSize;
+    private final List<MappedByteBuffer> regions = new ArrayList<MappedByteBuffer>();
+    private long mappedLength;
+
+    public MemoryMappedBlockStore(File cacheFile) {
+        this(cacheFile, DEFAULT_REGION_SIZE);
+    }
+
+    MemoryMappedBlockStore(File cacheFile, int regionSize) {
+        super(cacheFile);
+        this.regionSize = regionSize;
+    }
+
+    @Override
+    public void close() {
+        force();
+        unmap();
+        super.close();
+    }
+
+    @Override
+    public void clear() {
+        unmap();
+        super.clear();
+    }
+
+    @Override
+    protected InputStream openInputStream(long pos) throws IOException {
+        mapAvailableRegions();
+        if (pos >= mappedLength) {
+            return new BufferedInputStream(new MappedInputStream(pos));
+        }
+        return new MappedInputStream(pos);
+    }
+
+    @Override
+    protected OutputStream openOutputStream(long pos) throws IOException {
+        mapAvailableRegions();
+        return new BufferedOutputStream(new MappedOutputStream(pos));
+    }
+
+    private void mapAvailableRegions() throws IOException {
+        long length = getFile().length();
+        FileChannel channel = getFile().getChannel();
+        while (mappedLength + regionSize <= length) {
+            regions.add(channel.map(FileChannel.MapMode.READ_WRITE, mappedLength, regionSize));
+            mappedLength += regionSize;
+        }
+    }
+
+    private void force() {
+        for (MappedByteBuffer region : regions) {
+            region.force();
+        }
+    }
+
+    private void unmap() {
+        for (MappedByteBuffer region : regions) {
+            release(region);
+        }
+        regions.clear();
+        mappedLength = 0;
+    }
+
+    /**
+     * Attempts to release the given region immediately, rather than when it is garbage collected. This allows the file
+     * to be truncated or deleted on platforms which do not allow this while the file is mapped. Does nothing when not supported.
+     */
+    private static void release(MappedByteBuffer region) {
+        try {
+            Method cleanerMethod = region.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(region);
+            if (cleaner != null) {
+                Method cleanMethod = cleaner.getClass().getMethod("clean");
+                cleanMethod.setAccessible(true);
+                cleanMethod.invoke(cleaner);
+            }
+        } catch (Exception e) {
+            // Ignore - the region will be released when it is garbage collected
+        }
+    }
+
+    private ByteBuffer regionAt(long pos) {
+        ByteBuffer region = regions.get((int) (pos / regionSize)).duplicate();
+        region.position((int) (pos % regionSize));
+        return region;
+    }
+
+    private class MappedInputStream extends InputStream {
+        private long pos;
+
+        private MappedInputStream(long pos) {
+            this.pos = pos;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (pos < mappedLength) {
+                int b = regions.get((int) (pos / regionSize)).get((int) (pos % regionSize)) & 0xFF;
+                pos++;
+                return b;
+            }
+            byte[] buffer = new byte[1];
+            int count = read(buffer, 0, 1);
+            return count < 0 ? -1 : buffer[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            int count;
+            if (pos < mappedLength) {
+                ByteBuffer region = regionAt(pos);
+                count = Math.min(length, region.remaining());
+                region.get(bytes, offset, count);
+            } else {
+                count = getFile().getChannel().read(ByteBuffer.wrap(bytes, offset, length), pos);
+                if (count < 0) {
+                    return -1;
+                }
+            }
+            pos += count;
+            return count;
+        }
+    }
+
+    private class MappedOutputStream extends OutputStream {
+        private long pos;
+
+        private MappedOutputStream(long pos) {
+            this.pos = pos;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                int count;
+                if (pos < mappedLength) {
+                    ByteBuffer region = regionAt(pos);
+                    count = Math.min(length, region.remaining());
+                    region.put(bytes, offset, count);
+                } else {
+                    count = getFile().getChannel().write(ByteBuffer.wrap(bytes, offset, length), pos);
+                }
+                pos += count;
+                offset += count;
+                length -= count;
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.configuration;
+
+import org.gradle.api.Project;
+import org.gradle.api.initialization.dsl.ScriptHandler;
+import org.gradle.api.internal.initialization.ScriptClassLoaderProvider;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.project.ProjectScript;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.groovy.scripts.ScriptCompiler;
+import org.gradle.groovy.scripts.ScriptCompilerFactory;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.groovy.scripts.internal.BuildScriptClasspathScriptTransformer;
+import org.gradle.groovy.scripts.internal.BuildScriptTransformer;
+import org.gradle.internal.concurrent.BoundedBatchExecutor;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.util.Clock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles the build scripts of the projects of a build concurrently, before the projects are evaluated. The scripts are compiled in the same way
+ * as {@link DefaultScriptPluginFactory} compiles them, so that evaluation then finds the compiled classes in the script caches instead of compiling
+ * the scripts one after another.
+ *
+ * <p>A build script is only compiled up-front when neither its project nor any parent project declares a build script classpath, as the classes
+ * such a script is compiled against are not known until the projects are evaluated. Compilation failures are ignored here, and are reported when the
+ * project is evaluated.</p>
+ */
+public class BuildScriptPrecompiler {
+    private static final Logger LOGGER = Logging.getLogger(BuildScriptPrecompiler.class);
+    private static final String CLASSPATH_CLOSURE_NAME = "buildscript";
+    private final ScriptCompilerFactory scriptCompilerFactory;
+    private final ImportsReader importsReader;
+    private final BoundedBatchExecutor executor;
+
+    public BuildScriptPrecompiler(ScriptCompilerFactory scriptCompilerFactory, ImportsReader importsReader, ExecutorFactory executorFactory, int maxThreads) {
+        this.scriptCompilerFactory = scriptCompilerFactory;
+        this.importsReader = importsReader;
+        this.executor = new BoundedBatchExecutor(executorFactory, "Build script compilation", maxThreads);
+    }
+
+    public void precompile(ProjectInternal rootProject) {
+        Map<ProjectInternal, Boolean> declaresClasspath = new HashMap<ProjectInternal, Boolean>();
+        List<Runnable> jobs = new ArrayList<Runnable>();
+        for (Project project : rootProject.getAllprojects()) {
+            ProjectInternal projectInternal = (ProjectInternal) project;
+            if (hasBuildScript(projectInternal) && !declaresClasspath(projectInternal, declaresClasspath)) {
+                final ScriptSource scriptSource = projectInternal.getBuildScriptSource();
+                final ClassLoader classLoader = projectInternal.getServices().get(ScriptClassLoaderProvider.class).getClassLoader();
+                jobs.add(new Runnable() {
+                    public void run() {
+                        compile(scriptSource, classLoader);
+                    }
+                });
+            }
+        }
+
+        if (Math.min(executor.getMaxThreads(), jobs.size()) < 2) {
+            return;
+        }
+
+        Clock clock = new Clock();
+        try {
+            executor.run(jobs);
+        } finally {
+            executor.stop();
+        }
+        LOGGER.debug("Timing: Compiling {} build scripts took {}", jobs.size(), clock.getTime());
+    }
+
+    private void compile(ScriptSource scriptSource, ClassLoader classLoader) {
+        try {
+            ScriptCompiler compiler = scriptCompilerFactory.createCompiler(importsReader.withImports(scriptSource));
+            compiler.setClassloader(classLoader);
+
+            BuildScriptClasspathScriptTransformer classpathScriptTransformer = new BuildScriptClasspathScriptTransformer(CLASSPATH_CLOSURE_NAME);
+            compiler.setTransformer(classpathScriptTransformer);
+            compiler.compile(ProjectScript.class);
+
+            compiler.setTransformer(new BuildScriptTransformer(classpathScriptTransformer));
+            compiler.compile(ProjectScript.class);
+        } catch (Throwable throwable) {
+            LOGGER.debug(String.format("Could not compile %s ahead of evaluation.", scriptSource.getDisplayName()), throwable);
+        }
+    }
+
+    private boolean hasBuildScript(ProjectInternal project) {
+        ScriptSource scriptSource = project.getBuildScriptSource();
+        return scriptSource.getResource().getExists() && scriptSource.getResource().getText().trim().length() > 0;
+    }
+
+    private boolean declaresClasspath(ProjectInternal project, Map<ProjectInternal, Boolean> cache) {
+        if (project == null) {
+            return false;
+        }
+        Boolean result = cache.get(project);
+        if (result == null) {
+            result = declaresClasspath(project) || declaresClasspath(project.getParent(), cache);
+            cache.put(project, result);
+        }
+        return result;
+    }
+
+    private boolean declaresClasspath(ProjectInternal project) {
+        ScriptSource scriptSource = project.getBuildScriptSource();
+        if (scriptSource.getResource().getExists() && scriptSource.getResource().getText().toLowerCase().contains(CLASSPATH_CLOSURE_NAME)) {
+            return true;
+        }
+        return !project.getBuildscript().getConfigurations().getByName(ScriptHandler.CLASSPATH_CONFIGURATION).getDependencies().isEmpty();
+    }
+}
@@ -17,18 +17,95 @@ package org.gradle.configuration;
 
 import org.gradle.api.Action;
 import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.ProjectDependency;
+import org.gradle.api.execution.TaskExecutionGraph;
+import org.gradle.api.execution.TaskExecutionGraphListener;
 import org.gradle.api.internal.Actions;
 import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.ExecutorFactory;
 
-public class DefaultBuildConfigurer implements BuildConfigurer {
-    private Action<Project> actions;
+import java.util.HashSet;
+import java.util.Set;
 
-    public DefaultBuildConfigurer(Action<? super ProjectInternal>... actions) {
+/**
+ * Configures all projects of the build, or when {@link org.gradle.StartParameter#isConfigureOnDemand()} is set, only the root and default projects.
+ * In the latter case, other projects are configured when task selection or cross-project task references require them, and a project is configured
+ * along with its parent projects and the projects it declares project dependencies on.
+ *
+ * <p>When configuring all projects and {@link org.gradle.StartParameter#getConfigurationThreadCount()} allows more than one thread, the projects are
+ * first evaluated in parallel by a {@link ParallelProjectEvaluator}. When configuring all projects, their build scripts are first compiled up-front by
+ * a {@link BuildScriptPrecompiler}. The remaining actions are then executed for each project on the build thread.</p>
+ */
+public class DefaultBuildConfigurer implements BuildConfigurer, ProjectConfigurer {
+    private static final Logger LOGGER = Logging.getLogger(DefaultBuildConfigurer.class);
+    private final ExecutorFactory executorFactory;
+    private final BuildScriptPrecompiler buildScriptPrecompiler;
+    private final Action<Project> actions;
+    private final Set<Project> configured = new HashSet<Project>();
+    private boolean onDemand;
+
+    public DefaultBuildConfigurer(ExecutorFactory executorFactory, BuildScriptPrecompiler buildScriptPrecompiler, Action<? super ProjectInternal>... actions) {
+        this.executorFactory = executorFactory;
+        this.buildScriptPrecompiler = buildScriptPrecompiler;
         this.actions = Actions.castBefore(ProjectInternal.class, Actions.composite(actions));
     }
 
-    public void configure(GradleInternal gradle) {
-        gradle.getRootProject().allprojects(actions);
+    public void configure(final GradleInternal gradle) {
+        if (!gradle.getStartParameter().isConfigureOnDemand()) {
+            buildScriptPrecompiler.precompile(gradle.getRootProject());
+            int configurationThreads = configurationThreads(gradle);
+            if (configurationThreads > 1) {
+                new ParallelProjectEvaluator(executorFactory, configurationThreads).evaluate(gradle.getRootProject());
+            }
+            gradle.getRootProject().allprojects(actions);
+            return;
+        }
+
+        synchronized (this) {
+            onDemand = true;
+        }
+        configure(gradle.getRootProject());
+        configure(gradle.getDefaultProject());
+        gradle.getTaskGraph().addTaskExecutionGraphListener(new TaskExecutionGraphListener() {
+            public void graphPopulated(TaskExecutionGraph graph) {
+                reportSkippedProjects(gradle);
+            }
+        });
+    }
+
+    private int configurationThreads(GradleInternal gradle) {
+        int configurationThreads = gradle.getStartParameter().getConfigurationThreadCount();
+        if (configurationThreads < 0) {
+            configurationThreads = Runtime.getRuntime().availableProcessors();
+        }
+        return configurationThreads;
+    }
+
+    public synchronized void configure(ProjectInternal project) {
+        if (!onDemand || configured.contains(project)) {
+            return;
+        }
+        // A project's build script may rely on its parent having been configured, as it would be when configuring all projects
+        if (project.getParent() != null) {
+            configure(project.getParent());
+        }
+        if (!configured.add(project)) {
+            return;
+        }
+        actions.execute(project);
+        for (Configuration configuration : project.getConfigurations()) {
+            for (ProjectDependency dependency : configuration.getDependencies().withType(ProjectDependency.class)) {
+                configure((ProjectInternal) dependency.getDependencyProject());
+            }
+        }
+    }
+
+    private synchronized void reportSkippedProjects(GradleInternal gradle) {
+        int total = gradle.getRootProject().getAllprojects().size();
+        LOGGER.lifecycle("Configured {} of {} projects on demand, skipped {}.", configured.size(), total, total - configured.size());
     }
 }
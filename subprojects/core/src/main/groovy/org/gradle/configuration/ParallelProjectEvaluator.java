@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.configuration;
+
+import org.gradle.api.Project;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.internal.concurrent.BoundedBatchExecutor;
+import org.gradle.internal.concurrent.ExecutorFactory;
+
+/**
+ * Evaluates the projects of a build concurrently, using at most the given number of threads. The root project is evaluated on the calling thread, and every
+ * other project is evaluated once its parent project has been evaluated, so that configuration injected by a parent project is in place before the project
+ * is evaluated. Evaluation stops at the first failure, which is rethrown once the projects currently being evaluated have finished.
+ *
+ * <p>While a project is evaluated by a worker thread, it may only configure itself and its subprojects. See {@link #assertCanConfigure(Project)}.</p>
+ */
+public class ParallelProjectEvaluator {
+    private static final ThreadLocal<ProjectInternal> CURRENT_PROJECT = new ThreadLocal<ProjectInternal>();
+    private final BoundedBatchExecutor executor;
+
+    public ParallelProjectEvaluator(ExecutorFactory executorFactory, int maxThreads) {
+        this.executor = new BoundedBatchExecutor(executorFactory, "Project configuration", maxThreads);
+    }
+
+    public void evaluate(ProjectInternal rootProject) {
+        rootProject.evaluate();
+
+        if (rootProject.getAllprojects().size() < 2) {
+            return;
+        }
+
+        try {
+            BoundedBatchExecutor.Batch batch = executor.start();
+            addChildren(batch, rootProject);
+            batch.await();
+        } finally {
+            executor.stop();
+        }
+    }
+
+    private void addChildren(BoundedBatchExecutor.Batch batch, Project project) {
+        for (Project child : project.getChildProjects().values()) {
+            batch.add(new Evaluation(batch, (ProjectInternal) child));
+        }
+    }
+
+    /**
+     * Fails when the calling thread is evaluating a project in parallel, and the given project is neither that project nor one of its subprojects.
+     */
+    public static void assertCanConfigure(Project target) {
+        ProjectInternal current = CURRENT_PROJECT.get();
+        if (current != null && !isSameOrDescendant(target, current)) {
+            throw new IllegalStateException(String.format("Cannot configure %s while evaluating %s in parallel. When projects are configured in parallel, "
+                    + "a project may only configure itself and its subprojects.", target, current));
+        }
+    }
+
+    /**
+     * Fails when the calling thread is evaluating a project in parallel, and the given project may not have been evaluated yet and is not one of its
+     * subprojects. The parents of the project have always been evaluated.
+     */
+    public static void assertCanEvaluate(Project target) {
+        ProjectInternal current = CURRENT_PROJECT.get();
+        if (current != null && !isSameOrDescendant(target, current) && !isSameOrDescendant(current, target)) {
+            throw new IllegalStateException(String.format("Cannot evaluate %s while evaluating %s in parallel. When projects are configured in parallel, "
+                    + "a project may only depend on the evaluation of its parent projects and its subprojects.", target, current));
+        }
+    }
+
+    private static boolean isSameOrDescendant(Project project, Project ancestor) {
+        for (Project candidate = project; candidate != null; candidate = candidate.getParent()) {
+            if (candidate == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private class Evaluation implements Runnable {
+        private final BoundedBatchExecutor.Batch batch;
+        private final ProjectInternal project;
+
+        Evaluation(BoundedBatchExecutor.Batch batch, ProjectInternal project) {
+            this.batch = batch;
+            this.project = project;
+        }
+
+        public void run() {
+            CURRENT_PROJECT.set(project);
+            try {
+                project.evaluate();
+            } finally {
+                CURRENT_PROJECT.remove();
+            }
+            addChildren(batch, project);
+        }
+    }
+}
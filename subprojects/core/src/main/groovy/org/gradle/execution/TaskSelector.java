@@ -21,6 +21,7 @@ import org.gradle.api.Project;
 import org.gradle.api.Task;
 import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.configuration.ProjectConfigurer;
 import org.gradle.util.NameMatcher;
 
 import java.util.Map;
@@ -53,11 +54,15 @@ public class TaskSelector {
             baseName = StringUtils.substringAfterLast(path, Project.PATH_SEPARATOR);
             prefix = project.getPath() + Project.PATH_SEPARATOR;
 
+            getProjectConfigurer().configure(project);
             tasksByName = taskNameResolver.select(baseName, project);
         } else {
             baseName = path;
             prefix = "";
 
+            for (Project p : project.getAllprojects()) {
+                getProjectConfigurer().configure((ProjectInternal) p);
+            }
             tasksByName = taskNameResolver.selectAll(path, project);
         }
 
@@ -78,6 +83,10 @@ public class TaskSelector {
         throw new TaskSelectionException(matcher.formatErrorMessage("task", project));
     }
 
+    private ProjectConfigurer getProjectConfigurer() {
+        return gradle.getServices().get(ProjectConfigurer.class);
+    }
+
     private static ProjectInternal findProject(ProjectInternal startFrom, String path) {
         if (path.equals(Project.PATH_SEPARATOR)) {
             return startFrom.getRootProject();
@@ -19,6 +19,7 @@ package org.gradle.execution.taskgraph;
 import org.gradle.api.CircularReferenceException;
 import org.gradle.api.Task;
 import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.changedetection.TaskDurationRepository;
 import org.gradle.api.internal.tasks.CachingTaskDependencyResolveContext;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.specs.Specs;
@@ -34,11 +35,17 @@ import java.util.concurrent.locks.ReentrantLock;
 /**
  * A reusable implementation of TaskExecutionPlan. The {@link #addToTaskGraph(java.util.Collection)} and {@link #clear()} methods are NOT threadsafe, and callers must synchronize
  * access to these methods.
+ *
+ * <p>Each task keeps a count of its incomplete dependencies. A task is moved to the set of ready tasks when this count reaches zero, so that the next task to execute can be
+ * handed out without scanning the whole plan. Ready tasks are handed out in priority order, and then in the order they appear in the plan.</p>
  */
 class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     private final Lock lock = new ReentrantLock();
     private final Condition condition = lock.newCondition();
     private final LinkedHashMap<Task, TaskInfo> executionPlan = new LinkedHashMap<Task, TaskInfo>();
+    private final Set<TaskInfo> pendingTasks = new LinkedHashSet<TaskInfo>();
+    private final SortedSet<TaskInfo> readyTasks = new TreeSet<TaskInfo>(new TaskPriorityComparator());
+    private int executingTasks;
     private final List<Throwable> failures = new ArrayList<Throwable>();
     private Spec<? super Task> filter = Specs.satisfyAll();
 
@@ -88,7 +95,12 @@ class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                     }
                     // else - the dependency has been filtered, so ignore it
                 }
-                executionPlan.put(task, new TaskInfo((TaskInternal) task, dependencies));
+                TaskInfo taskInfo = new TaskInfo((TaskInternal) task, dependencies, executionPlan.size());
+                executionPlan.put(task, taskInfo);
+                pendingTasks.add(taskInfo);
+                if (taskInfo.allDependenciesComplete()) {
+                    readyTasks.add(taskInfo);
+                }
             }
         }
     }
@@ -97,6 +109,9 @@ class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         lock.lock();
         try {
             executionPlan.clear();
+            pendingTasks.clear();
+            readyTasks.clear();
+            executingTasks = 0;
             failures.clear();
         } finally {
             lock.unlock();
@@ -115,30 +130,84 @@ class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         this.failureHandler = handler;
     }
 
-    public TaskInfo getTaskToExecute(Spec<TaskInfo> criteria) {
+    public void prioritise(TaskDurationRepository taskDurations) {
         lock.lock();
         try {
+            // A task always appears in the plan after the tasks it depends on, so visit the plan in reverse
+            List<TaskInfo> tasks = new ArrayList<TaskInfo>(executionPlan.values());
+            for (int i = tasks.size() - 1; i >= 0; i--) {
+                TaskInfo taskInfo = tasks.get(i);
+                long longestDependentChain = 0;
+                for (TaskInfo dependent : taskInfo.getDependents()) {
+                    longestDependentChain = Math.max(longestDependentChain, dependent.getPriority());
+                }
+                Long duration = taskDurations.getDuration(taskInfo.getTask());
+                taskInfo.setPriority(longestDependentChain + (duration == null ? 0 : duration));
+            }
 
-            TaskInfo nextMatching;
-            while ((nextMatching = getNextReadyAndMatching(criteria)) != null) {
-                while (!nextMatching.allDependenciesComplete()) {
+            // Re-sort the ready tasks using the new priorities
+            List<TaskInfo> ready = new ArrayList<TaskInfo>(readyTasks);
+            readyTasks.clear();
+            readyTasks.addAll(ready);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<TaskInfo> getCriticalPath() {
+        lock.lock();
+        try {
+            Map<TaskInfo, Long> chainTimes = new HashMap<TaskInfo, Long>();
+            Map<TaskInfo, TaskInfo> nextInChain = new HashMap<TaskInfo, TaskInfo>();
+            TaskInfo start = null;
+            List<TaskInfo> tasks = new ArrayList<TaskInfo>(executionPlan.values());
+            for (int i = tasks.size() - 1; i >= 0; i--) {
+                TaskInfo taskInfo = tasks.get(i);
+                long chainTime = 0;
+                for (TaskInfo dependent : taskInfo.getDependents()) {
+                    if (chainTimes.get(dependent) > chainTime || nextInChain.get(taskInfo) == null) {
+                        chainTime = chainTimes.get(dependent);
+                        nextInChain.put(taskInfo, dependent);
+                    }
+                }
+                chainTime += taskInfo.getExecutionTime();
+                chainTimes.put(taskInfo, chainTime);
+                if (start == null || chainTime >= chainTimes.get(start)) {
+                    start = taskInfo;
+                }
+            }
+
+            List<TaskInfo> criticalPath = new ArrayList<TaskInfo>();
+            for (TaskInfo taskInfo = start; taskInfo != null; taskInfo = nextInChain.get(taskInfo)) {
+                criticalPath.add(taskInfo);
+            }
+            return criticalPath;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public TaskInfo getTaskToExecute(Spec<TaskInfo> criteria) {
+        lock.lock();
+        try {
+            while (hasPendingMatching(criteria)) {
+                TaskInfo nextMatching = takeReadyAndMatching(criteria);
+                if (nextMatching == null) {
+                    // Matching tasks remain, but they are waiting on tasks that are still executing
                     try {
                         condition.await();
                     } catch (InterruptedException e) {
                         throw new RuntimeException(e);
                     }
-                }
-
-                // The task state could have been modified while we waited for dependency completion. Check that it is still 'ready'.
-                if (!nextMatching.isReady()) {
                     continue;
                 }
 
                 if (nextMatching.allDependenciesSuccessful()) {
                     nextMatching.startExecution();
+                    executingTasks++;
                     return nextMatching;
                 } else {
-                    nextMatching.skipExecution();
+                    skipExecution(nextMatching);
                     condition.signalAll();
                 }
             }
@@ -151,15 +220,43 @@ class DefaultTaskExecutionPlan implements TaskExecutionPlan {
 
     }
 
-    private TaskInfo getNextReadyAndMatching(Spec<TaskInfo> criteria) {
-        for (TaskInfo taskInfo : executionPlan.values()) {
-            if (taskInfo.isReady() && criteria.isSatisfiedBy(taskInfo)) {
+    private boolean hasPendingMatching(Spec<TaskInfo> criteria) {
+        for (TaskInfo taskInfo : pendingTasks) {
+            if (criteria.isSatisfiedBy(taskInfo)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private TaskInfo takeReadyAndMatching(Spec<TaskInfo> criteria) {
+        Iterator<TaskInfo> iterator = readyTasks.iterator();
+        while (iterator.hasNext()) {
+            TaskInfo taskInfo = iterator.next();
+            if (criteria.isSatisfiedBy(taskInfo)) {
+                iterator.remove();
+                pendingTasks.remove(taskInfo);
                 return taskInfo;
             }
         }
         return null;
     }
 
+    private void skipExecution(TaskInfo taskInfo) {
+        taskInfo.skipExecution();
+        pendingTasks.remove(taskInfo);
+        readyTasks.remove(taskInfo);
+        notifyDependents(taskInfo);
+    }
+
+    private void notifyDependents(TaskInfo taskInfo) {
+        for (TaskInfo dependent : taskInfo.getDependents()) {
+            if (dependent.dependencyComplete() && dependent.isReady()) {
+                readyTasks.add(dependent);
+            }
+        }
+    }
+
     public void taskComplete(TaskInfo taskInfo) {
         lock.lock();
         try {
@@ -168,6 +265,8 @@ class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             }
 
             taskInfo.finishExecution();
+            executingTasks--;
+            notifyDependents(taskInfo);
             condition.signalAll();
         } finally {
             lock.unlock();
@@ -196,11 +295,11 @@ class DefaultTaskExecutionPlan implements TaskExecutionPlan {
 
     private void abortExecution() {
         // Allow currently executing tasks to complete, but skip everything else.
-        for (TaskInfo taskInfo : executionPlan.values()) {
-            if (taskInfo.isReady()) {
-                taskInfo.skipExecution();
-            }
+        for (TaskInfo taskInfo : pendingTasks) {
+            taskInfo.skipExecution();
         }
+        pendingTasks.clear();
+        readyTasks.clear();
     }
 
     public void awaitCompletion() {
@@ -232,12 +331,16 @@ class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     }
 
     private boolean allTasksComplete() {
-        for (TaskInfo taskInfo : executionPlan.values()) {
-            if (!taskInfo.isComplete()) {
-                return false;
+        return pendingTasks.isEmpty() && executingTasks == 0;
+    }
+
+    private static class TaskPriorityComparator implements Comparator<TaskInfo> {
+        public int compare(TaskInfo taskInfo1, TaskInfo taskInfo2) {
+            if (taskInfo1.getPriority() != taskInfo2.getPriority()) {
+                return taskInfo1.getPriority() > taskInfo2.getPriority() ? -1 : 1;
             }
+            return taskInfo1.getOrdinal() - taskInfo2.getOrdinal();
         }
-        return true;
     }
 
     private static class RethrowingFailureHandler implements TaskFailureHandler {
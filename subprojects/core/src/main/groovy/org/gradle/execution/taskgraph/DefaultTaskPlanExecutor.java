@@ -18,10 +18,17 @@ package org.gradle.execution.taskgraph;
 
 import org.gradle.api.execution.TaskExecutionListener;
 import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.changedetection.TaskDurationRepository;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.specs.Specs;
+import org.gradle.util.Clock;
 
 class DefaultTaskPlanExecutor implements TaskPlanExecutor {
+    private final TaskDurationRepository taskDurations;
+
+    public DefaultTaskPlanExecutor(TaskDurationRepository taskDurations) {
+        this.taskDurations = taskDurations;
+    }
 
     public void process(TaskExecutionPlan taskExecutionPlan, TaskExecutionListener taskListener) {
         Spec<TaskInfo> anyTask = Specs.satisfyAll();
@@ -48,10 +55,15 @@ class DefaultTaskPlanExecutor implements TaskPlanExecutor {
     private void executeTask(TaskInfo taskInfo, TaskExecutionListener taskListener) {
         TaskInternal task = taskInfo.getTask();
         taskListener.beforeExecute(task);
+        Clock clock = new Clock();
         try {
             task.executeWithoutThrowingTaskFailure();
         } finally {
+            taskInfo.setExecutionTime(clock.getTimeInMs());
             taskListener.afterExecute(task, task.getState());
         }
+        if (!task.getState().getSkipped()) {
+            taskDurations.setDuration(task, taskInfo.getExecutionTime());
+        }
     }
 }
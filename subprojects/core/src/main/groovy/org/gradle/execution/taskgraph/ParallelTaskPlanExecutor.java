@@ -16,27 +16,29 @@
 
 package org.gradle.execution.taskgraph;
 
-import org.gradle.api.Project;
-import org.gradle.api.Task;
 import org.gradle.api.execution.TaskExecutionListener;
 import org.gradle.api.internal.changedetection.TaskArtifactStateCacheAccess;
+import org.gradle.api.internal.changedetection.TaskDurationRepository;
 import org.gradle.api.specs.Spec;
+import org.gradle.api.specs.Specs;
+import org.gradle.util.Clock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
+import java.util.Formatter;
 import java.util.List;
-import java.util.Set;
 
 class ParallelTaskPlanExecutor extends DefaultTaskPlanExecutor {
     private static final Logger LOGGER = LoggerFactory.getLogger(ParallelTaskPlanExecutor.class);
 
     private final List<Thread> executorThreads = new ArrayList<Thread>();
     private final TaskArtifactStateCacheAccess stateCacheAccess;
+    private final TaskDurationRepository taskDurations;
     private final int executorCount;
 
-    public ParallelTaskPlanExecutor(TaskArtifactStateCacheAccess cacheAccess, int numberOfParallelExecutors) {
+    public ParallelTaskPlanExecutor(TaskArtifactStateCacheAccess cacheAccess, TaskDurationRepository taskDurations, int numberOfParallelExecutors) {
+        super(taskDurations);
         if (numberOfParallelExecutors < 1) {
             throw new IllegalArgumentException("Not a valid number of parallel executors: " + numberOfParallelExecutors);
         }
@@ -44,30 +46,48 @@ class ParallelTaskPlanExecutor extends DefaultTaskPlanExecutor {
         LOGGER.info("Using {} parallel executor threads", numberOfParallelExecutors);
 
         this.stateCacheAccess = cacheAccess;
+        this.taskDurations = taskDurations;
         this.executorCount = numberOfParallelExecutors;
     }
 
     public void process(final TaskExecutionPlan taskExecutionPlan, final TaskExecutionListener taskListener) {
-        stateCacheAccess.longRunningOperation("Executing all tasks", new Runnable() {
-            public void run() {
-                doProcess(taskExecutionPlan, taskListener);
-                // TODO This needs to wait until all tasks have been executed, not just started....
-                taskExecutionPlan.awaitCompletion();
-            }
-        });
+        taskExecutionPlan.prioritise(taskDurations);
+        try {
+            stateCacheAccess.longRunningOperation("Executing all tasks", new Runnable() {
+                public void run() {
+                    doProcess(taskExecutionPlan, taskListener);
+                    // TODO This needs to wait until all tasks have been executed, not just started....
+                    taskExecutionPlan.awaitCompletion();
+                }
+            });
+        } finally {
+            reportCriticalPath(taskExecutionPlan);
+        }
+    }
+
+    private void reportCriticalPath(TaskExecutionPlan taskExecutionPlan) {
+        if (!LOGGER.isInfoEnabled()) {
+            return;
+        }
+        List<TaskInfo> criticalPath = taskExecutionPlan.getCriticalPath();
+        long totalTime = 0;
+        for (TaskInfo taskInfo : criticalPath) {
+            totalTime += taskInfo.getExecutionTime();
+        }
+        Formatter formatter = new Formatter();
+        formatter.format("Critical path took %s:", Clock.prettyTime(totalTime));
+        for (TaskInfo taskInfo : criticalPath) {
+            formatter.format("%n  %s (%s)", taskInfo.getTask().getPath(), Clock.prettyTime(taskInfo.getExecutionTime()));
+        }
+        LOGGER.info(formatter.toString());
     }
 
     private void doProcess(TaskExecutionPlan taskExecutionPlan, TaskExecutionListener taskListener) {
-        List<Project> projects = getAllProjects(taskExecutionPlan);
-        int numExecutors = Math.min(executorCount, projects.size());
+        // Each worker takes whichever task is next ready to execute, regardless of the project it belongs to
+        int numExecutors = Math.min(executorCount, taskExecutionPlan.getTasks().size());
 
         for (int i = 0; i < numExecutors; i++) {
             TaskExecutorWorker worker = new TaskExecutorWorker(taskExecutionPlan, taskListener);
-
-            for (int j = i; j < projects.size(); j += numExecutors) {
-                worker.addProject(projects.get(j));
-            }
-
             executorThreads.add(new Thread(worker));
         }
 
@@ -77,28 +97,19 @@ class ParallelTaskPlanExecutor extends DefaultTaskPlanExecutor {
         }
     }
 
-    private List<Project> getAllProjects(TaskExecutionPlan taskExecutionPlan) {
-        final Set<Project> uniqueProjects = new LinkedHashSet<Project>();
-        for (Task task : taskExecutionPlan.getTasks()) {
-            uniqueProjects.add(task.getProject());
-        }
-        return new ArrayList<Project>(uniqueProjects);
-    }
-
     private class TaskExecutorWorker implements Runnable {
         private final TaskExecutionPlan taskExecutionPlan;
         private final TaskExecutionListener taskListener;
 
-        private final List<Project> projects = new ArrayList<Project>();
-
         private TaskExecutorWorker(TaskExecutionPlan taskExecutionPlan, TaskExecutionListener taskListener) {
             this.taskExecutionPlan = taskExecutionPlan;
             this.taskListener = taskListener;
         }
 
         public void run() {
+            Spec<TaskInfo> anyTask = Specs.satisfyAll();
             TaskInfo taskInfo;
-            while ((taskInfo = taskExecutionPlan.getTaskToExecute(getTaskSpec())) != null) {
+            while ((taskInfo = taskExecutionPlan.getTaskToExecute(anyTask)) != null) {
                 executeTaskWithCacheLock(taskInfo);
             }
 
@@ -115,17 +126,5 @@ class ParallelTaskPlanExecutor extends DefaultTaskPlanExecutor {
             });
             LOGGER.info(taskPath + " (" + Thread.currentThread() + ") - complete");
         }
-
-        public void addProject(Project project) {
-            projects.add(project);
-        }
-
-        private Spec<TaskInfo> getTaskSpec() {
-            return new Spec<TaskInfo>() {
-                public boolean isSatisfiedBy(TaskInfo element) {
-                    return projects.contains(element.getTask().getProject());
-                }
-            };
-        }
     }
 }
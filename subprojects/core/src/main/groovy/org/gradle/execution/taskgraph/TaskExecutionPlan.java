@@ -17,6 +17,7 @@
 package org.gradle.execution.taskgraph;
 
 import org.gradle.api.Task;
+import org.gradle.api.internal.changedetection.TaskDurationRepository;
 import org.gradle.api.specs.Spec;
 
 import java.util.List;
@@ -25,9 +26,17 @@ import java.util.List;
  * Represents a graph of dependent tasks, returned in execution order.
  */
 public interface TaskExecutionPlan {
+    /**
+     * Prioritises the tasks in this plan, so that when several tasks are ready-to-execute, the task with the longest estimated chain of
+     * dependent tasks is returned first. Estimates are based on the previous execution time of each task.
+     * @param taskDurations Provides the previous execution time of each task.
+     */
+    void prioritise(TaskDurationRepository taskDurations);
+
     /**
      * Provides a ready-to-execute task that matches the specified criteria. A task is ready-to-execute if all of it's dependencies have been completed successfully.
-     * If the next matching task is not ready-to-execute, this method will block until it is ready.
+     * If several matching tasks are ready-to-execute, the one that appears first in the plan is returned.
+     * If no matching task is ready-to-execute, this method will block until one becomes ready.
      * If no tasks remain that match the criteria, null will be returned.
      * @param criteria Only tasks matching this Spec will be returned.
      * @return The next matching task, or null if no matching tasks remain.
@@ -45,6 +54,11 @@ public interface TaskExecutionPlan {
      */
     void awaitCompletion();
 
+    /**
+     * @return The chain of dependent tasks with the longest total execution time.
+     */
+    List<TaskInfo> getCriticalPath();
+
     /**
      * @return The list of all available tasks. This includes tasks that have not yet been executed, as well as tasks that have been processed.
      */
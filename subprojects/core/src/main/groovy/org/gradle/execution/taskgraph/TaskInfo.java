@@ -18,6 +18,7 @@ package org.gradle.execution.taskgraph;
 
 import org.gradle.api.internal.TaskInternal;
 
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 class TaskInfo {
@@ -28,13 +29,25 @@ class TaskInfo {
 
     private final TaskInternal task;
     private final Set<TaskInfo> dependencies;
+    private final Set<TaskInfo> dependents = new LinkedHashSet<TaskInfo>();
+    private final int ordinal;
+    private int incompleteDependencies;
+    private long priority;
+    private long executionTime;
     private TaskExecutionState state;
     private Throwable executionFailure;
 
-    public TaskInfo(TaskInternal task, Set<TaskInfo> dependencies) {
+    public TaskInfo(TaskInternal task, Set<TaskInfo> dependencies, int ordinal) {
         this.task = task;
         this.dependencies = dependencies;
+        this.ordinal = ordinal;
         this.state = TaskExecutionState.READY;
+        for (TaskInfo dependency : dependencies) {
+            if (!dependency.isComplete()) {
+                dependency.dependents.add(this);
+                incompleteDependencies++;
+            }
+        }
     }
 
     public TaskInternal getTask() {
@@ -45,6 +58,39 @@ class TaskInfo {
         return dependencies;
     }
 
+    public Set<TaskInfo> getDependents() {
+        return dependents;
+    }
+
+    /**
+     * The position of this task in the execution plan.
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    /**
+     * The estimated time, in milliseconds, to execute this task and the longest chain of tasks that depend on it.
+     */
+    public long getPriority() {
+        return priority;
+    }
+
+    public void setPriority(long priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * The time, in milliseconds, taken to execute this task. Returns 0 when the task has not been executed.
+     */
+    public long getExecutionTime() {
+        return executionTime;
+    }
+
+    public void setExecutionTime(long executionTime) {
+        this.executionTime = executionTime;
+    }
+
     public boolean isReady() {
         return state == TaskExecutionState.READY;
     }
@@ -90,12 +136,18 @@ class TaskInfo {
     }
 
     public boolean allDependenciesComplete() {
-        for (TaskInfo dependency : getDependencies()) {
-            if (!dependency.isComplete()) {
-                return false;
-            }
-        }
-        return true;
+        return incompleteDependencies == 0;
+    }
+
+    /**
+     * Notifies this task that one of its dependencies has completed.
+     *
+     * @return true if all dependencies of this task are now complete.
+     */
+    public boolean dependencyComplete() {
+        assert incompleteDependencies > 0;
+        incompleteDependencies--;
+        return incompleteDependencies == 0;
     }
 
     public boolean allDependenciesSuccessful() {
@@ -31,10 +31,22 @@ public class CachingScriptClassCompiler implements ScriptClassCompiler {
 
     public <T extends Script> Class<? extends T> compile(ScriptSource source, ClassLoader classLoader, Transformer transformer, Class<T> scriptBaseClass) {
         List<Object> key = Arrays.asList(source.getClassName(), classLoader, transformer.getId(), scriptBaseClass.getName());
-        Class<?> c = cachedClasses.get(key);
+        Class<?> c;
+        synchronized (cachedClasses) {
+            c = cachedClasses.get(key);
+        }
         if (c == null) {
+            // Compile without holding the lock, so that different scripts can be compiled concurrently. Keep the first class when
+            // the same script is compiled by several threads at once
             c = scriptClassCompiler.compile(source, classLoader, transformer, scriptBaseClass);
-            cachedClasses.put(key, c);
+            synchronized (cachedClasses) {
+                Class<?> existing = cachedClasses.get(key);
+                if (existing != null) {
+                    c = existing;
+                } else {
+                    cachedClasses.put(key, c);
+                }
+            }
         }
         return c.asSubclass(scriptBaseClass);
     }
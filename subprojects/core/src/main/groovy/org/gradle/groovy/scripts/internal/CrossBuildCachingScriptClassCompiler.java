@@ -0,0 +1,51 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.groovy.scripts.internal;
+
+import groovy.lang.Script;
+import org.gradle.cache.CacheValidator;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.groovy.scripts.Transformer;
+
+import java.util.List;
+
+/**
+ * A {@link ScriptClassCompiler} which reuses the script classes loaded by earlier builds in this process. See {@link CrossBuildScriptClassCache}.
+ */
+public class CrossBuildCachingScriptClassCompiler implements ScriptClassCompiler {
+    private final ScriptClassCompiler scriptClassCompiler;
+    private final CrossBuildScriptClassCache cache;
+    private final CacheValidator validator;
+
+    public CrossBuildCachingScriptClassCompiler(ScriptClassCompiler scriptClassCompiler, CrossBuildScriptClassCache cache, CacheValidator validator) {
+        this.scriptClassCompiler = scriptClassCompiler;
+        this.cache = cache;
+        this.validator = validator;
+    }
+
+    public <T extends Script> Class<? extends T> compile(ScriptSource source, ClassLoader classLoader, Transformer transformer, Class<T> scriptBaseClass) {
+        List<Object> key = cache.createKey(source, classLoader, transformer, scriptBaseClass);
+        if (key == null) {
+            return scriptClassCompiler.compile(source, classLoader, transformer, scriptBaseClass);
+        }
+        Class<?> c = validator.isValid() ? cache.get(key) : null;
+        if (c == null) {
+            c = scriptClassCompiler.compile(source, classLoader, transformer, scriptBaseClass);
+            cache.put(key, c);
+        }
+        return c.asSubclass(scriptBaseClass);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.groovy.scripts.internal;
+
+import org.gradle.api.Nullable;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.groovy.scripts.Transformer;
+import org.gradle.util.MultiParentClassLoader;
+import org.gradle.util.MutableURLClassLoader;
+import org.gradle.util.hash.HashUtil;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded, thread-safe, in-memory cache of compiled script classes, shared by all builds in this process so that a daemon does not load the same
+ * scripts again for every build. Entries are keyed by the script class name, a checksum of the script text, the transformer and the script base class,
+ * and a description of the class loader the script is compiled against. The least recently used classes are discarded once the cache is full.
+ *
+ * <p>The builds of a daemon each create their own script class loaders, so a class loader is described by the class loaders it delegates to rather
+ * than by its identity. A script is only cached when this description tells exactly how its class loader resolves classes, which is the case when
+ * the class loader delegates only to the given root class loader, through {@link MultiParentClassLoader}s and {@link URLClassLoader}s without any
+ * URLs. Scripts which can see classes from a build script classpath or from buildSrc are not cached.</p>
+ *
+ * <p>The classpath script of a build script, which is produced by a {@link ClasspathScriptTransformer}, is never cached. It is compiled while its
+ * class loader is still empty, and the build script classpath is added to that same class loader once the classpath script has run, so a cached
+ * classpath script would keep the class loader and classpath of an earlier build alive.</p>
+ *
+ * <p>The size of the cache can be changed using the {@value #MAX_ENTRIES_PROPERTY} system property.</p>
+ */
+public class CrossBuildScriptClassCache {
+    public static final String MAX_ENTRIES_PROPERTY = "org.gradle.script.cacheSize";
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private final ClassLoader rootClassLoader;
+    private final Map<List<Object>, Class<?>> entries;
+
+    public CrossBuildScriptClassCache(ClassLoader rootClassLoader, final int maxEntries) {
+        this.rootClassLoader = rootClassLoader;
+        entries = new LinkedHashMap<List<Object>, Class<?>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, Class<?>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Creates the key for the given script, or returns null when the script cannot be cached.
+     */
+    @Nullable
+    public List<Object> createKey(ScriptSource source, ClassLoader classLoader, Transformer transformer, Class<?> scriptBaseClass) {
+        if (transformer instanceof ClasspathScriptTransformer) {
+            return null;
+        }
+        String classLoaderKey = classLoaderKey(classLoader);
+        if (classLoaderKey == null) {
+            return null;
+        }
+        String hash = HashUtil.createCompactMD5(source.getResource().getText());
+        return Arrays.<Object>asList(source.getClassName(), hash, classLoaderKey, transformer.getId(), scriptBaseClass.getName());
+    }
+
+    @Nullable
+    private String classLoaderKey(@Nullable ClassLoader classLoader) {
+        if (classLoader == null) {
+            return null;
+        }
+        if (classLoader == rootClassLoader) {
+            return "root";
+        }
+        if (classLoader.getClass() == MultiParentClassLoader.class) {
+            StringBuilder key = new StringBuilder("multi(");
+            for (ClassLoader parent : ((MultiParentClassLoader) classLoader).getParents()) {
+                String parentKey = classLoaderKey(parent);
+                if (parentKey == null) {
+                    return null;
+                }
+                key.append(parentKey).append(',');
+            }
+            return key.append(')').toString();
+        }
+        if ((classLoader.getClass() == URLClassLoader.class || classLoader.getClass() == MutableURLClassLoader.class)
+                && ((URLClassLoader) classLoader).getURLs().length == 0) {
+            String parentKey = classLoaderKey(classLoader.getParent());
+            return parentKey == null ? null : "url(" + parentKey + ")";
+        }
+        return null;
+    }
+
+    @Nullable
+    public synchronized Class<?> get(List<Object> key) {
+        return entries.get(key);
+    }
+
+    public void put(List<Object> key, Class<?> scriptClass) {
+        loadAllClasses(scriptClass);
+        synchronized (this) {
+            entries.put(key, scriptClass);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Loads the closure classes of the script now, as its class directory is rewritten by a later build once the script has changed.
+     */
+    private void loadAllClasses(Class<?> scriptClass) {
+        ClassLoader classLoader = scriptClass.getClassLoader();
+        if (classLoader == null || classLoader.getClass() != URLClassLoader.class) {
+            return;
+        }
+        for (URL url : ((URLClassLoader) classLoader).getURLs()) {
+            try {
+                loadClasses(classLoader, new File(url.toURI()), "");
+            } catch (URISyntaxException e) {
+                // Ignore
+            }
+        }
+    }
+
+    private void loadClasses(ClassLoader classLoader, File dir, String packagePrefix) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (file.isDirectory()) {
+                loadClasses(classLoader, file, packagePrefix + name + ".");
+            } else if (name.endsWith(".class")) {
+                try {
+                    classLoader.loadClass(packagePrefix + name.substring(0, name.length() - ".class".length()));
+                } catch (ClassNotFoundException e) {
+                    // Ignore
+                }
+            }
+        }
+    }
+}
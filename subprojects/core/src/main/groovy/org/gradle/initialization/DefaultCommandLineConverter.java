@@ -55,6 +55,9 @@ public class DefaultCommandLineConverter extends AbstractCommandLineConverter<St
 
     private static final String PARALLEL = "parallel";
     private static final String PARALLEL_THREADS = "parallel-threads";
+    private static final String CONFIGURE_ON_DEMAND = "configure-on-demand";
+    private static final String PARALLEL_CONFIGURATION = "parallel-configuration";
+    private static final String FILE_HASHING_THREADS = "file-hashing-threads";
 
     private final CommandLineConverter<LoggingConfiguration> loggingConfigurationCommandLineConverter = new LoggingCommandLineConverter();
     private final SystemPropertiesCommandLineConverter systemPropertiesCommandLineConverter = new SystemPropertiesCommandLineConverter();
@@ -87,6 +90,9 @@ public class DefaultCommandLineConverter extends AbstractCommandLineConverter<St
         parser.option(REFRESH_DEPENDENCIES).hasDescription("Refresh the state of dependencies.");
         parser.option(PARALLEL).hasDescription("Build projects in parallel. Gradle will attempt to determine the optimal number of executor threads to use.").incubating();
         parser.option(PARALLEL_THREADS).hasArgument().hasDescription("Build projects in parallel, using the specified number of executor threads.").incubating();
+        parser.option(CONFIGURE_ON_DEMAND).hasDescription("Only configure the projects required by the requested tasks.").incubating();
+        parser.option(PARALLEL_CONFIGURATION).hasDescription("Configure decoupled projects in parallel. A project is configured once its parent project has been configured.").incubating();
+        parser.option(FILE_HASHING_THREADS).hasArgument().hasDescription("Hash the input and output files of tasks using the specified number of threads.").incubating();
     }
 
     @Override
@@ -198,6 +204,23 @@ public class DefaultCommandLineConverter extends AbstractCommandLineConverter<St
             }
         }
 
+        if (options.hasOption(CONFIGURE_ON_DEMAND)) {
+            startParameter.setConfigureOnDemand(true);
+        }
+
+        if (options.hasOption(PARALLEL_CONFIGURATION)) {
+            startParameter.setConfigurationThreadCount(-1);
+        }
+
+        if (options.hasOption(FILE_HASHING_THREADS)) {
+            try {
+                int fileHashingThreads = Integer.parseInt(options.option(FILE_HASHING_THREADS).getValue());
+                startParameter.setFileHashingThreadCount(fileHashingThreads);
+            } catch (NumberFormatException e) {
+                throw new CommandLineArgumentException(String.format("Not a numeric argument for %s", FILE_HASHING_THREADS));
+            }
+        }
+
         return startParameter;
     }
 
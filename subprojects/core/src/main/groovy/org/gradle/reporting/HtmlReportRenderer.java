@@ -33,10 +33,14 @@ import java.net.URL;
 import java.util.HashSet;
 import java.util.Set;
 
+/**
+ * Renders HTML reports. Renderers created by this class can be used to write pages concurrently.
+ */
 public class HtmlReportRenderer {
-    private DocumentBuilder documentBuilder;
-    private Transformer transformer;
+    private final ThreadLocal<DocumentBuilder> documentBuilder = new ThreadLocal<DocumentBuilder>();
+    private final ThreadLocal<Transformer> transformer = new ThreadLocal<Transformer>();
     private final Set<URL> resources = new HashSet<URL>();
+    private final Set<File> resourceDirs = new HashSet<File>();
 
     public void requireResource(URL resource) {
         resources.add(resource);
@@ -46,8 +50,10 @@ public class HtmlReportRenderer {
         return renderer(new TextReportRenderer<T>() {
             @Override
             protected void writeTo(T model, Writer writer) throws Exception {
+                DocumentBuilder documentBuilder = HtmlReportRenderer.this.documentBuilder.get();
                 if (documentBuilder == null) {
                     documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+                    HtmlReportRenderer.this.documentBuilder.set(documentBuilder);
                 }
                 Document document = documentBuilder.newDocument();
 
@@ -55,12 +61,14 @@ public class HtmlReportRenderer {
                 document.appendChild(html);
                 renderer.render(model, html);
 
+                Transformer transformer = HtmlReportRenderer.this.transformer.get();
                 if (transformer == null) {
                     TransformerFactory factory = TransformerFactory.newInstance();
                     transformer = factory.newTransformer();
                     transformer.setOutputProperty(OutputKeys.INDENT, "yes");
                     transformer.setOutputProperty(OutputKeys.METHOD, "html");
                     transformer.setOutputProperty(OutputKeys.MEDIA_TYPE, "text/html");
+                    HtmlReportRenderer.this.transformer.set(transformer);
                 }
 
                 writer.write("<!DOCTYPE HTML PUBLIC \"-//W3C//DTD HTML 4.01//EN\" \"http://www.w3.org/TR/html4/strict.dtd\">");
@@ -80,14 +88,23 @@ public class HtmlReportRenderer {
             @Override
             public void writeTo(T model, File file) {
                 super.writeTo(model, file);
-                for (URL resource : resources) {
-                    String name = StringUtils.substringAfterLast(resource.getPath(), "/");
-                    File destFile = new File(file.getParentFile(), name);
-                    if (!destFile.exists()) {
-                        GFileUtils.copyURLToFile(resource, destFile);
-                    }
-                }
+                copyResources(file.getParentFile());
             }
         };
     }
+
+    private void copyResources(File dir) {
+        synchronized (resourceDirs) {
+            if (!resourceDirs.add(dir)) {
+                return;
+            }
+            for (URL resource : resources) {
+                String name = StringUtils.substringAfterLast(resource.getPath(), "/");
+                File destFile = new File(dir, name);
+                if (!destFile.exists()) {
+                    GFileUtils.copyURLToFile(resource, destFile);
+                }
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -39,6 +39,10 @@ public class MultiParentClassLoader extends ClassLoader implements ClasspathSour
         parents.add(parent);
     }
 
+    public List<ClassLoader> getParents() {
+        return Collections.unmodifiableList(parents);
+    }
+
     public void collectClasspath(Collection<? super URL> classpath) {
         for (ClassLoader parent : parents) {
             new ClassLoaderBackedClasspathSource(parent).collectClasspath(classpath);
@@ -34,6 +34,10 @@ import java.io.IOException;
 import java.lang.reflect.*;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.gradle.util.HelperUtil.TEST_CLOSURE;
 import static org.gradle.util.HelperUtil.call;
@@ -664,6 +668,39 @@ public class AsmBackedClassGeneratorTest {
         new DslObject(generator.generate(Bean.class).newInstance());
     }
 
+    @Test
+    public void generatesEachClassOnceWhenGeneratingConcurrently() throws Exception {
+        final List<Class<?>> types = Arrays.<Class<?>>asList(Bean.class, BeanWithReadOnlyProperties.class, CollectionBean.class, BeanWithDslMethods.class, BeanSubClass.class);
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<Class<?>>>> results = new ArrayList<Future<List<Class<?>>>>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(new Callable<List<Class<?>>>() {
+                    public List<Class<?>> call() throws Exception {
+                        start.await();
+                        List<Class<?>> generated = new ArrayList<Class<?>>();
+                        for (Class<?> type : types) {
+                            generated.add(generator.generate(type));
+                        }
+                        return generated;
+                    }
+                }));
+            }
+            start.countDown();
+
+            List<Class<?>> expected = results.get(0).get();
+            for (Future<List<Class<?>>> result : results) {
+                assertThat(result.get(), equalTo(expected));
+            }
+            for (int i = 0; i < types.size(); i++) {
+                assertSame(expected.get(i), generator.generate(types.get(i)));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     public static class Bean {
         private String prop;
 
@@ -27,6 +27,9 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import static org.gradle.util.Matchers.reflectionEquals;
 import static org.hamcrest.Matchers.*;
@@ -105,4 +108,35 @@ public class CachingHasherTest {
 
         assertThat(hasher.hash(file), sameInstance(hash));
     }
+
+    @Test
+    public void hashesOnlyFilesWhoseHashIsNotCachedWhenHashingABatch() {
+        final File other = tmpDir.createFile("otherfile").write("other content");
+        final byte[] otherHash = "other".getBytes();
+        context.checking(new Expectations() {{
+            one(cache).get(file);
+            will(returnValue(new CachingHasher.FileInfo(hash, file.length(), file.lastModified())));
+            one(cache).get(other);
+            will(returnValue(null));
+            one(delegate).hash(Collections.singletonList(other));
+            will(returnValue(Collections.singletonList(otherHash)));
+            one(cache).put(with(equalTo(other)), with(reflectionEquals(new CachingHasher.FileInfo(otherHash, other.length(),
+                    other.lastModified()))));
+        }});
+
+        List<byte[]> hashes = hasher.hash(Arrays.asList(file, other));
+        assertThat(hashes.get(0), sameInstance(hash));
+        assertThat(hashes.get(1), sameInstance(otherHash));
+    }
+
+    @Test
+    public void doesNotHashAnyFilesWhenAllHashesAreCached() {
+        context.checking(new Expectations() {{
+            one(cache).get(file);
+            will(returnValue(new CachingHasher.FileInfo(hash, file.length(), file.lastModified())));
+        }});
+
+        List<byte[]> hashes = hasher.hash(Collections.singletonList(file));
+        assertThat(hashes.get(0), sameInstance(hash));
+    }
 }
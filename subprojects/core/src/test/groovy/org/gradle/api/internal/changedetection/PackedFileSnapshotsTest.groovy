@@ -0,0 +1,101 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection
+
+import spock.lang.Specification
+
+import static org.gradle.api.internal.changedetection.PackedFileSnapshots.*
+
+class PackedFileSnapshotsTest extends Specification {
+    final byte[] hash1 = [1, 2, 3, 4] as byte[]
+    final byte[] hash2 = [5, 6, 7, 8] as byte[]
+
+    def "iterates over entries in the order they were added"() {
+        when:
+        def snapshots = new PackedFileSnapshots.Builder()
+                .add("/a/b/c", FILE, hash1)
+                .add("/a/b/d", DIRECTORY, null)
+                .add("/a/e", MISSING, null)
+                .add("/b", FILE, hash2)
+                .build()
+
+        then:
+        snapshots.size() == 4
+        snapshots*.path == ["/a/b/c", "/a/b/d", "/a/e", "/b"]
+        snapshots*.type == [FILE, DIRECTORY, MISSING, FILE]
+        snapshots*.hash == [hash1, null, null, hash2]
+    }
+
+    def "later entry with the same path replaces earlier entry"() {
+        when:
+        def snapshots = new PackedFileSnapshots.Builder()
+                .add("/a", FILE, hash1)
+                .add("/a", FILE, hash2)
+                .build()
+
+        then:
+        snapshots*.hash == [hash2]
+    }
+
+    def "cannot add entries out of order"() {
+        when:
+        new PackedFileSnapshots.Builder().add("/b", MISSING, null).add("/a", MISSING, null)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "can serialize and deserialize"() {
+        given:
+        def snapshots = new PackedFileSnapshots.Builder()
+                .add("/a/b/c", FILE, hash1)
+                .add("/a/b/d", DIRECTORY, null)
+                .build()
+
+        when:
+        def bytes = new ByteArrayOutputStream()
+        new ObjectOutputStream(bytes).writeObject(snapshots)
+        def copy = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject()
+
+        then:
+        copy*.path == ["/a/b/c", "/a/b/d"]
+        copy*.hash == [hash1, null]
+    }
+
+    def "diff reports added, removed and changed entries"() {
+        given:
+        def oldSnapshots = new PackedFileSnapshots.Builder()
+                .add("/a", FILE, hash1)
+                .add("/b", FILE, hash1)
+                .add("/c", FILE, hash1)
+                .build()
+        def newSnapshots = new PackedFileSnapshots.Builder()
+                .add("/b", FILE, hash2)
+                .add("/c", FILE, hash1)
+                .add("/d", DIRECTORY, null)
+                .build()
+        PackedFileSnapshots.DiffListener listener = Mock()
+
+        when:
+        newSnapshots.diff(oldSnapshots, listener)
+
+        then:
+        1 * listener.removed({ it.path == "/a" })
+        1 * listener.changed({ it.path == "/b" }, { it.path == "/b" })
+        1 * listener.added({ it.path == "/d" })
+        0 * listener._
+    }
+}
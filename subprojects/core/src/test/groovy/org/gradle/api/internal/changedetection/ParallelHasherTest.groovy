@@ -0,0 +1,56 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection
+
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class ParallelHasherTest extends Specification {
+    @Rule TemporaryFolder tmpDir = new TemporaryFolder()
+    final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+    final DefaultHasher delegate = new DefaultHasher()
+    final ParallelHasher hasher = new ParallelHasher(delegate, executorFactory, 3)
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "hashes files in the order they are given"() {
+        given:
+        def files = (1..20).collect { tmpDir.createFile("file$it").write("content $it") }
+
+        expect:
+        hasher.hash(files) == delegate.hash(files)
+    }
+
+    def "rethrows failure to hash a file"() {
+        given:
+        def failure = new RuntimeException("broken")
+        Hasher broken = Mock()
+        def files = [tmpDir.file("a"), tmpDir.file("b")]
+        def hasher = new ParallelHasher(broken, executorFactory, 2)
+        broken.hash(_ as File) >> { throw failure }
+
+        when:
+        hasher.hash(files)
+
+        then:
+        RuntimeException e = thrown()
+        e == failure
+    }
+}
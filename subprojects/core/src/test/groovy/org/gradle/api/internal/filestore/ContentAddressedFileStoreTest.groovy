@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.filestore
+
+import org.gradle.util.TemporaryFolder
+import org.gradle.util.hash.HashUtil
+import org.junit.Rule
+import spock.lang.Specification
+
+class ContentAddressedFileStoreTest extends Specification {
+
+    @Rule TemporaryFolder temporaryFolder = new TemporaryFolder()
+
+    ContentAddressedFileStore store
+
+    def setup() {
+        store = new ContentAddressedFileStore(temporaryFolder.file("content"))
+    }
+
+    def "moves content into store under its sha1"() {
+        def source = temporaryFolder.createFile("source")
+        source.text = "content"
+        def sha1 = HashUtil.sha1(source)
+
+        when:
+        def entry = store.move(sha1, source)
+
+        then:
+        entry.file == temporaryFolder.file("content/${sha1.asHexString().substring(0, 2)}/${sha1.asHexString()}")
+        entry.file.text == "content"
+        entry.sha1 == sha1
+        !source.exists()
+    }
+
+    def "keeps a single copy of content that is added more than once"() {
+        def first = temporaryFolder.createFile("first")
+        first.text = "content"
+        def second = temporaryFolder.createFile("second")
+        second.text = "content"
+        def sha1 = HashUtil.sha1(first)
+
+        when:
+        def entry1 = store.move(sha1, first)
+        def lastModified = entry1.file.lastModified()
+        def entry2 = store.copy(sha1, second)
+
+        then:
+        entry1.file == entry2.file
+        entry2.file.lastModified() == lastModified
+        second.exists()
+    }
+
+    def "get returns entry for known content"() {
+        def source = temporaryFolder.createFile("source")
+        source.text = "content"
+        def sha1 = HashUtil.sha1(source)
+
+        expect:
+        store.get(sha1) == null
+
+        when:
+        store.copy(sha1, source)
+
+        then:
+        store.get(sha1).file.text == "content"
+        store.get(sha1).sha1 == sha1
+    }
+}
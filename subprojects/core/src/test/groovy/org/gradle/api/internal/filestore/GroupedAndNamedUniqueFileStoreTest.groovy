@@ -0,0 +1,188 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.filestore
+
+import org.gradle.api.Action
+import org.gradle.api.Transformer
+import org.gradle.api.internal.file.TemporaryFileProvider
+import org.gradle.internal.nativeplatform.filesystem.FileSystem
+import org.gradle.internal.nativeplatform.filesystem.FileSystems
+import org.gradle.util.Requires
+import org.gradle.util.TemporaryFolder
+import org.gradle.util.TestPrecondition
+import org.gradle.util.hash.HashUtil
+import org.junit.Rule
+import spock.lang.Specification
+
+class GroupedAndNamedUniqueFileStoreTest extends Specification {
+
+    @Rule TemporaryFolder temporaryFolder = new TemporaryFolder()
+    TemporaryFileProvider temporaryFileProvider = Mock()
+    FileSystem fileSystem = Mock()
+    Transformer<String, String> grouper = { "group" } as Transformer
+    Transformer<String, String> namer = { String key -> key } as Transformer
+
+    PathKeyFileStore delegate
+    ContentAddressedFileStore contentStore
+    GroupedAndNamedUniqueFileStore<String> store
+
+    def setup() {
+        delegate = new UniquePathKeyFileStore(temporaryFolder.file("fsbase"))
+        contentStore = new ContentAddressedFileStore(temporaryFolder.file("content"))
+        store = new GroupedAndNamedUniqueFileStore<String>(delegate, temporaryFileProvider, grouper, namer, contentStore, fileSystem)
+    }
+
+    @Requires(TestPrecondition.SYMLINKS)
+    def "moves content into content store and links entry to it"() {
+        def store = new GroupedAndNamedUniqueFileStore<String>(delegate, temporaryFileProvider, grouper, namer, contentStore, FileSystems.default)
+        def source = temporaryFolder.createFile("source")
+        source.text = "content"
+        def sha1 = HashUtil.sha1(source)
+
+        when:
+        def entry = store.move("a.jar", source)
+
+        then:
+        entry.file == temporaryFolder.file("fsbase/group/${sha1.asHexString()}/a.jar")
+        entry.file.text == "content"
+        entry.sha1 == sha1
+        !source.exists()
+
+        when:
+        contentStore.get(sha1).file.text = "changed"
+
+        then:
+        entry.file.text == "changed"
+    }
+
+    @Requires(TestPrecondition.SYMLINKS)
+    def "stores identical content once for different keys"() {
+        def store = new GroupedAndNamedUniqueFileStore<String>(delegate, temporaryFileProvider, grouper, namer, contentStore, FileSystems.default)
+        def first = temporaryFolder.createFile("first")
+        first.text = "content"
+        def second = temporaryFolder.createFile("second")
+        second.text = "content"
+
+        when:
+        def entry1 = store.move("a.jar", first)
+        def entry2 = store.move("b.jar", second)
+
+        then:
+        entry1.file.text == "content"
+        entry2.file.text == "content"
+        temporaryFolder.file("content").listFiles()*.listFiles().flatten().size() == 1
+    }
+
+    def "keeps content in this store only when hard links cannot be created"() {
+        def first = temporaryFolder.createFile("first")
+        first.text = "content"
+        def second = temporaryFolder.createFile("second")
+        second.text = "other"
+        def sha1 = HashUtil.sha1(first)
+
+        when:
+        def entry1 = store.move("a.jar", first)
+        def entry2 = store.copy("b.jar", second)
+
+        then:
+        1 * fileSystem.tryCreateHardLink(_, _) >> false
+        entry1.file == temporaryFolder.file("fsbase/group/${sha1.asHexString()}/a.jar")
+        entry1.file.text == "content"
+        entry2.file.text == "other"
+        !first.exists()
+        second.exists()
+        temporaryFolder.file("content").list().length == 0
+    }
+
+    def "copies content into entry when hard link to content cannot be created"() {
+        def source = temporaryFolder.createFile("source")
+        source.text = "content"
+
+        when:
+        def entry = store.copy("a.jar", source)
+
+        then:
+        1 * fileSystem.tryCreateHardLink({ it.name.startsWith(".hardlink-probe-") }, _) >> true
+        1 * fileSystem.tryCreateHardLink({ it.name == "a.jar" }, _) >> false
+        entry.file.text == "content"
+        source.exists()
+    }
+
+    def "add executes action once and stores result"() {
+        def tempFile = temporaryFolder.file("temp")
+        Action<File> action = Mock()
+        _ * fileSystem.tryCreateHardLink(_, _) >> false
+
+        when:
+        def entry = store.add("a.jar", action)
+
+        then:
+        1 * temporaryFileProvider.createTemporaryFile("filestore", "bin") >> tempFile
+        1 * action.execute(tempFile) >> { File f -> f.text = "content" }
+        entry.file.text == "content"
+        !tempFile.exists()
+    }
+
+    def "add deletes temporary file when action fails"() {
+        def tempFile = temporaryFolder.file("temp")
+        def failure = new RuntimeException("broken")
+        Action<File> action = Mock()
+
+        when:
+        store.add("a.jar", action)
+
+        then:
+        RuntimeException e = thrown()
+        e.is(failure)
+        1 * temporaryFileProvider.createTemporaryFile("filestore", "bin") >> tempFile
+        1 * action.execute(tempFile) >> { File f -> f.text = "partial"; throw failure }
+
+        and:
+        !tempFile.exists()
+        store.search("a.jar").empty
+    }
+
+    def "search returns entries whose content matches the checksum in their path"() {
+        def source = temporaryFolder.createFile("source")
+        source.text = "content"
+        def sha1 = HashUtil.sha1(source)
+        _ * fileSystem.tryCreateHardLink(_, _) >> false
+        store.move("a.jar", source)
+
+        when:
+        def entries = store.search("a.jar")
+
+        then:
+        entries.size() == 1
+        def entry = entries.iterator().next()
+        entry.file == temporaryFolder.file("fsbase/group/${sha1.asHexString()}/a.jar")
+        entry.sha1 == sha1
+    }
+
+    def "search ignores entries whose content has changed since they were added"() {
+        def source = temporaryFolder.createFile("source")
+        source.text = "content"
+        _ * fileSystem.tryCreateHardLink(_, _) >> false
+        def entry = store.move("a.jar", source)
+
+        when:
+        entry.file.text = "changed"
+
+        then:
+        store.search("a.jar").empty
+    }
+}
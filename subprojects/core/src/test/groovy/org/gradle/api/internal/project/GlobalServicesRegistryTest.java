@@ -27,6 +27,7 @@ import org.gradle.cache.internal.DefaultFileLockManager;
 import org.gradle.cache.internal.FileLockManager;
 import org.gradle.initialization.ClassLoaderRegistry;
 import org.gradle.cli.CommandLineConverter;
+import org.gradle.groovy.scripts.internal.CrossBuildScriptClassCache;
 import org.gradle.initialization.DefaultClassLoaderRegistry;
 import org.gradle.initialization.DefaultCommandLineConverter;
 import org.gradle.internal.nativeplatform.*;
@@ -135,6 +136,11 @@ public class GlobalServicesRegistryTest {
         assertThat(registry.get(FileSystem.class), notNullValue());
     }
 
+    @Test
+    public void providesACrossBuildScriptClassCache() {
+        assertThat(registry.get(CrossBuildScriptClassCache.class), instanceOf(CrossBuildScriptClassCache.class));
+    }
+
     @Test
     public void providesADocumentationRegistry() throws Exception {
         assertThat(registry.get(DocumentationRegistry.class), instanceOf(DocumentationRegistry.class));
@@ -29,6 +29,7 @@ import org.gradle.configuration.DefaultScriptPluginFactory
 import org.gradle.configuration.ScriptPluginFactory
 import org.gradle.groovy.scripts.DefaultScriptCompilerFactory
 import org.gradle.groovy.scripts.ScriptCompilerFactory
+import org.gradle.groovy.scripts.internal.CrossBuildScriptClassCache
 import org.gradle.internal.Factory
 import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.concurrent.ExecutorFactory
@@ -111,6 +112,7 @@ public class TopLevelBuildServiceRegistryTest extends Specification {
     def providesAScriptCompilerFactory() {
         setup:
         expectListenerManagerCreated()
+        parent.get(CrossBuildScriptClassCache) >> new CrossBuildScriptClassCache(new ClassLoader() {}, 10)
 
         expect:
         registry.get(ScriptCompilerFactory) instanceof DefaultScriptCompilerFactory
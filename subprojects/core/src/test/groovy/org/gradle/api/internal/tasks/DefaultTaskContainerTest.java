@@ -23,6 +23,7 @@ import org.gradle.api.UnknownTaskException;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.project.taskfactory.ITaskFactory;
+import org.gradle.configuration.ProjectConfigurer;
 import org.gradle.util.GUtil;
 import org.gradle.util.HelperUtil;
 import org.jmock.Expectations;
@@ -44,7 +45,8 @@ public class DefaultTaskContainerTest {
     private final ITaskFactory taskFactory = context.mock(ITaskFactory.class);
     private final ProjectInternal project = context.mock(ProjectInternal.class, "<project>");
     private int taskCount;
-    private final DefaultTaskContainer container = new DefaultTaskContainer(project, context.mock(org.gradle.internal.reflect.Instantiator.class), taskFactory);
+    private final ProjectConfigurer projectConfigurer = context.mock(ProjectConfigurer.class);
+    private final DefaultTaskContainer container = new DefaultTaskContainer(project, context.mock(org.gradle.internal.reflect.Instantiator.class), taskFactory, projectConfigurer);
 
     @Test
     public void addsTaskWithMap() {
@@ -269,6 +271,8 @@ public class DefaultTaskContainerTest {
             allowing(project).findProject(projectPath);
             will(returnValue(otherProject));
 
+            one(projectConfigurer).configure(otherProject);
+
             allowing(otherProject).getTasks();
             will(returnValue(otherTaskContainer));
 
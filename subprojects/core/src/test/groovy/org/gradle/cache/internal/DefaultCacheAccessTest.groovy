@@ -15,6 +15,7 @@
  */
 package org.gradle.cache.internal
 
+import org.gradle.cache.DefaultSerializer
 import org.gradle.cache.internal.btree.BTreePersistentIndexedCache
 import org.gradle.internal.Factory
 import org.gradle.messaging.serialize.Serializer
@@ -400,6 +401,30 @@ class DefaultCacheAccessTest extends Specification {
         0 * _._
     }
 
+    def "releases lock without hiding failure of the cache action when caches cannot be closed"() {
+        def failure = new RuntimeException("broken")
+
+        given:
+        manager.open(None)
+        def cache = manager.newCache(targetFile, String, Integer)
+
+        when:
+        manager.useCache("some operation", { cache.get("key"); throw failure } as Factory)
+
+        then:
+        RuntimeException e = thrown()
+        e.is(failure)
+
+        and:
+        1 * lockManager.lock(lockFile, Exclusive, "<display-name>", "some operation") >> lock
+        _ * lock.readFile(_) >> {Factory factory -> factory.create()}
+        _ * lock.writeFile(_) >> {Runnable runnable -> runnable.run()}
+        1 * backingCache.get("key")
+        1 * backingCache.close() >> { throw new RuntimeException("could not close") }
+        1 * lock.close()
+        0 * _._
+    }
+
     def "closes caches on close when initial lock mode is not none"() {
         given:
         1 * lockManager.lock(lockFile, Exclusive, "<display-name>") >> lock
@@ -422,6 +447,92 @@ class DefaultCacheAccessTest extends Specification {
         0 * _._
     }
 
+    def "flushes caches at the end of the cache action when initial lock mode is exclusive"() {
+        Factory<String> action = Mock()
+
+        given:
+        1 * lockManager.lock(lockFile, Exclusive, "<display-name>") >> lock
+        _ * lock.readFile(_) >> {Factory factory -> factory.create()}
+        _ * lock.writeFile(_) >> {Runnable runnable -> runnable.run()}
+        manager.open(Exclusive)
+        def cache = manager.newCache(targetFile, String, Integer)
+
+        when:
+        manager.useCache("some operation", action)
+
+        then:
+        1 * action.create() >> {
+            cache.put("key", 1)
+        }
+        1 * backingCache.put("key", 1)
+
+        then:
+        1 * backingCache.flush()
+        0 * backingCache._
+        0 * lock.close()
+    }
+
+    def "does not flush caches when the cache action fails and initial lock mode is exclusive"() {
+        def failure = new RuntimeException("broken")
+
+        given:
+        1 * lockManager.lock(lockFile, Exclusive, "<display-name>") >> lock
+        _ * lock.readFile(_) >> {Factory factory -> factory.create()}
+        _ * lock.writeFile(_) >> {Runnable runnable -> runnable.run()}
+        manager.open(Exclusive)
+        def cache = manager.newCache(targetFile, String, Integer)
+
+        when:
+        manager.useCache("some operation", { cache.put("key", 1); throw failure } as Factory)
+
+        then:
+        RuntimeException e = thrown()
+        e.is(failure)
+
+        and:
+        1 * backingCache.put("key", 1)
+        0 * backingCache._
+        0 * lock.close()
+    }
+
+    def "changes made by a cache action are written to the file when the lock is held until the cache is closed"() {
+        def cacheAccess = new DefaultCacheAccess("<display-name>", lockFile, lockManager)
+        _ * lockManager.lock(lockFile, Exclusive, "<display-name>") >> lock
+        _ * lock.readFile(_) >> {Factory factory -> factory.create()}
+        _ * lock.writeFile(_) >> {Runnable runnable -> runnable.run()}
+        def entriesAfterTask = null
+
+        given:
+        cacheAccess.open(Exclusive)
+        def cache = cacheAccess.newCache(targetFile, String, Integer)
+
+        when:
+        cacheAccess.useCache("execute tasks", {
+            cacheAccess.useCache("task 1", {
+                cache.put("key_1", 1)
+                cache.put("key_2", 2)
+            } as Factory)
+            // Read the file as a new process would if this process was killed at this point
+            entriesAfterTask = readEntries("key_1", "key_2")
+        } as Factory)
+
+        then:
+        entriesAfterTask == [1, 2]
+        readEntries("key_1", "key_2") == [1, 2]
+
+        cleanup:
+        cacheAccess.close()
+    }
+
+    def readEntries(String... keys) {
+        def cache = new BTreePersistentIndexedCache<String, Integer>(targetFile, new DefaultSerializer<String>(), new DefaultSerializer<Integer>())
+        try {
+            return keys.collect { cache.get(it) }
+        } finally {
+            cache.close()
+        }
+    }
+
     def canAccess(def cache) {
         try {
             cache.get("key")
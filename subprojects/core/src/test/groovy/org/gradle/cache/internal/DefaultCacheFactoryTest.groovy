@@ -23,6 +23,10 @@ import org.junit.Rule
 import spock.lang.Specification
 import org.gradle.cache.CacheValidator
 
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
 class DefaultCacheFactoryTest extends Specification {
     @Rule
     public final TemporaryFolder tmpDir = new TemporaryFolder()
@@ -414,4 +418,92 @@ class DefaultCacheFactoryTest extends Specification {
         validator.isValid() >>> [false, true]
         cache != null
     }
+
+    public void "threads opening the same directory wait for the first open and share the cache"() {
+        given:
+        def factory1 = factoryFactory.create()
+        def factory2 = factoryFactory.create()
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def initialized = new AtomicInteger()
+        def initializer = { started.countDown(); release.await(); initialized.incrementAndGet() } as Action
+        def cache1 = null
+        def cache2 = null
+
+        when:
+        def first = Thread.start { cache1 = factory1.open(tmpDir.dir, null, CacheUsage.ON, null, [prop: 'value'], FileLockManager.LockMode.Exclusive, initializer) }
+        started.await()
+        def second = Thread.start { cache2 = factory2.open(tmpDir.dir, null, CacheUsage.ON, null, [prop: 'value'], FileLockManager.LockMode.Exclusive, initializer) }
+        second.join(200)
+
+        then:
+        second.alive
+
+        when:
+        release.countDown()
+        first.join()
+        second.join()
+
+        then:
+        cache1 != null
+        cache2.is(cache1)
+        initialized.get() == 1
+    }
+
+    public void "caches in different directories are opened concurrently"() {
+        given:
+        def factory1 = factoryFactory.create()
+        def factory2 = factoryFactory.create()
+        def started = new CountDownLatch(1)
+        def otherOpened = new CountDownLatch(1)
+        def sawOtherOpen = false
+        def initializer = { started.countDown(); sawOtherOpen = otherOpened.await(10, TimeUnit.SECONDS) } as Action
+
+        when:
+        def first = Thread.start { factory1.open(tmpDir.file("dir1"), null, CacheUsage.ON, null, [prop: 'value'], FileLockManager.LockMode.Exclusive, initializer) }
+        started.await()
+        def cache2 = factory2.open(tmpDir.file("dir2"), null, CacheUsage.ON, null, [prop: 'value'], FileLockManager.LockMode.Exclusive, null)
+        otherOpened.countDown()
+        first.join()
+
+        then:
+        cache2 != null
+        sawOtherOpen
+    }
+
+    public void "a failed open wakes up the threads waiting to open the same directory"() {
+        given:
+        def factory1 = factoryFactory.create()
+        def factory2 = factoryFactory.create()
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def failing = { started.countDown(); release.await(); throw new RuntimeException("broken") } as Action
+        def failure = null
+        def cache2 = null
+
+        when:
+        def first = Thread.start {
+            try {
+                factory1.open(tmpDir.dir, null, CacheUsage.ON, null, [prop: 'value'], FileLockManager.LockMode.Exclusive, failing)
+            } catch (Exception e) {
+                failure = e
+            }
+        }
+        started.await()
+        def second = Thread.start { cache2 = factory2.open(tmpDir.dir, null, CacheUsage.ON, null, [prop: 'value'], FileLockManager.LockMode.Exclusive, null) }
+        second.join(200)
+
+        then:
+        second.alive
+
+        when:
+        release.countDown()
+        first.join()
+        second.join(10000)
+
+        then:
+        failure != null
+        !second.alive
+        cache2 != null
+    }
 }
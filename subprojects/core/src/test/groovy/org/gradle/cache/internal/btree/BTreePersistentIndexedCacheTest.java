@@ -15,6 +15,7 @@
  */
 package org.gradle.cache.internal.btree;
 
+import org.gradle.api.UncheckedIOException;
 import org.gradle.cache.DefaultSerializer;
 import org.gradle.messaging.serialize.Serializer;
 import org.gradle.util.TemporaryFolder;
@@ -31,6 +32,7 @@ import java.util.*;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 public class BTreePersistentIndexedCacheTest {
     @Rule
@@ -126,7 +128,7 @@ public class BTreePersistentIndexedCacheTest {
         assertThat(cacheFile.length(), equalTo(len));
 
         cache.remove("key_1");
-        cache.put("key_new", "a1b2");
+        cache.put("key_new", "a1");
         assertThat(cacheFile.length(), equalTo(len));
 
         cache.put("key_new", "longer value");
@@ -258,6 +260,141 @@ public class BTreePersistentIndexedCacheTest {
         assertThat(cache.get(key2), equalTo(2));
     }
 
+    @Test
+    public void buffersChangesUntilFlushedWhenWriteBehindIsEnabled() {
+        cache.put("key_1", 1);
+        cache.put("key_2", 2);
+        cache.enableWriteBehind();
+        long len = cacheFile.length();
+
+        cache.put("key_2", 12);
+        cache.put("key_3", 3);
+        cache.put("key_4", 4);
+        cache.remove("key_1");
+        cache.remove("key_4");
+
+        assertThat(cacheFile.length(), equalTo(len));
+        assertNull(cache.get("key_1"));
+        assertThat(cache.get("key_2"), equalTo(12));
+        assertThat(cache.get("key_3"), equalTo(3));
+        assertNull(cache.get("key_4"));
+
+        cache.flush();
+
+        BTreePersistentIndexedCache<String, Integer> other = new BTreePersistentIndexedCache<String, Integer>(cacheFile, stringSerializer, integerSerializer, (short) 4, 100);
+        assertNull(other.get("key_1"));
+        assertThat(other.get("key_2"), equalTo(12));
+        assertThat(other.get("key_3"), equalTo(3));
+        assertNull(other.get("key_4"));
+        other.verify();
+        other.close();
+    }
+
+    @Test
+    public void keepsBufferedChangesWhenFlushFails() {
+        final RuntimeException failure = new RuntimeException("broken");
+        final boolean[] failFlush = new boolean[]{true};
+        cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, new FileBackedBlockStore(cacheFile) {
+            @Override
+            public void flush() {
+                if (failFlush[0]) {
+                    failFlush[0] = false;
+                    throw failure;
+                }
+                super.flush();
+            }
+        }, stringSerializer, integerSerializer, (short) 4, 100);
+        cache.enableWriteBehind();
+        cache.put("key_1", 1);
+        cache.put("key_2", 2);
+
+        try {
+            cache.flush();
+            fail();
+        } catch (UncheckedIOException e) {
+            assertThat(e.getCause(), sameInstance((Throwable) failure));
+        }
+
+        cache.close();
+
+        cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, stringSerializer, integerSerializer, (short) 4, 100);
+        assertThat(cache.get("key_1"), equalTo(1));
+        assertThat(cache.get("key_2"), equalTo(2));
+        cache.verify();
+    }
+
+    @Test
+    public void writesBufferedChangesOnClose() {
+        cache.enableWriteBehind();
+        checkAdds(3, 2, 11, 5, 7, 1, 10, 8, 9, 4, 6, 0);
+        cache.remove("key_5");
+        cache.remove("key_7");
+        cache.close();
+
+        cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, stringSerializer, integerSerializer, (short) 4, 100);
+        assertNull(cache.get("key_5"));
+        assertNull(cache.get("key_7"));
+        assertThat(cache.get("key_11"), equalTo(11));
+        assertThat(cache.get("key_0"), equalTo(0));
+        cache.verify();
+    }
+
+    @Test
+    public void handlesKeysWithSameKeyHash() {
+        KeyHasher keyHasher = new KeyHasher() {
+            public int getId() {
+                return 99;
+            }
+
+            public long hash(byte[] bytes, int offset, int length) {
+                return bytes[offset + length - 1] % 2;
+            }
+        };
+        cache.close();
+        cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, new FileBackedBlockStore(cacheFile), keyHasher, stringSerializer, integerSerializer, (short) 4, 100);
+
+        checkAdds(1, 2, 3, 4, 5, 6, 7, 8);
+        cache.verify();
+
+        cache.put("key_3", 33);
+        cache.put("key_5", 555555555);
+        cache.remove("key_1");
+        cache.remove("key_7");
+        cache.remove("key_4");
+
+        cache.reset();
+
+        assertNull(cache.get("key_1"));
+        assertThat(cache.get("key_2"), equalTo(2));
+        assertThat(cache.get("key_3"), equalTo(33));
+        assertNull(cache.get("key_4"));
+        assertThat(cache.get("key_5"), equalTo(555555555));
+        assertThat(cache.get("key_6"), equalTo(6));
+        assertNull(cache.get("key_7"));
+        assertThat(cache.get("key_8"), equalTo(8));
+        cache.verify();
+    }
+
+    @Test
+    public void discardsCacheFileWrittenUsingDifferentKeyHasher() {
+        cache.put("key_1", 1);
+        cache.close();
+
+        KeyHasher keyHasher = new KeyHasher() {
+            public int getId() {
+                return 99;
+            }
+
+            public long hash(byte[] bytes, int offset, int length) {
+                return 0;
+            }
+        };
+        cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, new FileBackedBlockStore(cacheFile), keyHasher, stringSerializer, integerSerializer, (short) 4, 100);
+
+        assertNull(cache.get("key_1"));
+        cache.verify();
+    }
+
     private void checkAdds(Integer... values) {
         checkAdds(Arrays.asList(values));
     }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.btree;
+
+import org.gradle.cache.DefaultSerializer;
+import org.gradle.messaging.serialize.Serializer;
+import org.gradle.util.TemporaryFolder;
+import org.gradle.util.TestFile;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+public class MemoryMappedBlockStoreTest {
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+    private final Serializer<String> stringSerializer = new DefaultSerializer<String>();
+    private final Serializer<Integer> integerSerializer = new DefaultSerializer<Integer>();
+    private TestFile cacheFile;
+
+    @Before
+    public void setup() {
+        cacheFile = tmpDir.file("cache.bin");
+    }
+
+    @Test
+    public void persistsEntriesWhichSpanMultipleRegions() {
+        BTreePersistentIndexedCache<String, Integer> cache = mappedCache();
+        for (int i = 0; i < 200; i++) {
+            cache.put(String.format("key_%d", i), i);
+        }
+        assertEntries(cache, 0, 200);
+
+        cache.reset();
+
+        assertEntries(cache, 0, 200);
+        cache.verify();
+    }
+
+    @Test
+    public void persistsReplacedAndRemovedEntries() {
+        BTreePersistentIndexedCache<String, Integer> cache = mappedCache();
+        for (int i = 0; i < 100; i++) {
+            cache.put(String.format("key_%d", i), i);
+        }
+        for (int i = 0; i < 100; i += 2) {
+            cache.remove(String.format("key_%d", i));
+        }
+        for (int i = 1; i < 100; i += 2) {
+            cache.put(String.format("key_%d", i), i * 10);
+        }
+
+        cache.reset();
+
+        for (int i = 0; i < 100; i++) {
+            if (i % 2 == 0) {
+                assertNull(cache.get(String.format("key_%d", i)));
+            } else {
+                assertThat(cache.get(String.format("key_%d", i)), equalTo(i * 10));
+            }
+        }
+        cache.verify();
+    }
+
+    @Test
+    public void usesSameFileFormatAsFileBackedStore() {
+        BTreePersistentIndexedCache<String, Integer> cache = mappedCache();
+        for (int i = 0; i < 100; i++) {
+            cache.put(String.format("key_%d", i), i);
+        }
+        cache.close();
+
+        cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, stringSerializer, integerSerializer, (short) 4, 100);
+        assertEntries(cache, 0, 100);
+        for (int i = 100; i < 200; i++) {
+            cache.put(String.format("key_%d", i), i);
+        }
+        cache.close();
+
+        cache = mappedCache();
+        assertEntries(cache, 0, 200);
+        cache.verify();
+    }
+
+    private BTreePersistentIndexedCache<String, Integer> mappedCache() {
+        return new BTreePersistentIndexedCache<String, Integer>(cacheFile, new MemoryMappedBlockStore(cacheFile, 256), stringSerializer, integerSerializer, (short) 4, 100);
+    }
+
+    private void assertEntries(BTreePersistentIndexedCache<String, Integer> cache, int from, int to) {
+        for (int i = from; i < to; i++) {
+            assertThat(cache.get(String.format("key_%d", i)), equalTo(i));
+        }
+    }
+}
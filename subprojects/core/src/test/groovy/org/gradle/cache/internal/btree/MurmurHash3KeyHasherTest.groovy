@@ -0,0 +1,42 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.btree
+
+import spock.lang.Specification
+
+class MurmurHash3KeyHasherTest extends Specification {
+    final MurmurHash3KeyHasher hasher = new MurmurHash3KeyHasher()
+
+    def "calculates MurmurHash3 x64 128 bit hash"() {
+        expect:
+        hasher.hash(bytes(value), 0, value.length()) == hash
+
+        where:
+        value                                         | hash
+        ""                                            | 0L
+        "hello"                                       | -3758069500696749310L
+        "The quick brown fox jumps over the lazy dog" | -2068352364225029268L
+    }
+
+    def "hashes only the given range of bytes"() {
+        expect:
+        hasher.hash(bytes("--hello--"), 2, 5) == hasher.hash(bytes("hello"), 0, 5)
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes("UTF-8")
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.configuration
+
+import org.gradle.api.Project
+import org.gradle.api.artifacts.Configuration
+import org.gradle.api.artifacts.ConfigurationContainer
+import org.gradle.api.artifacts.DependencySet
+import org.gradle.api.initialization.dsl.ScriptHandler
+import org.gradle.api.internal.initialization.ScriptClassLoaderProvider
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ServiceRegistryFactory
+import org.gradle.api.internal.resource.Resource
+import org.gradle.groovy.scripts.ScriptCompiler
+import org.gradle.groovy.scripts.ScriptCompilerFactory
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+class BuildScriptPrecompilerTest extends Specification {
+    final ScriptCompilerFactory scriptCompilerFactory = Mock()
+    final ImportsReader importsReader = Mock()
+    final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+    final BuildScriptPrecompiler precompiler = new BuildScriptPrecompiler(scriptCompilerFactory, importsReader, executorFactory, 4)
+    final List<ScriptSource> compiled = Collections.synchronizedList([])
+
+    def setup() {
+        _ * importsReader.withImports(_) >> { args -> args[0] }
+    }
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "compiles the build scripts of all projects"() {
+        def root = project("root", null)
+        def child1 = project("child1", root)
+        def child2 = project("child2", root)
+        allprojects(root, child1, child2)
+
+        when:
+        precompiler.precompile(root)
+
+        then:
+        compiled as Set == [root, child1, child2]*.buildScriptSource as Set
+    }
+
+    def "does not compile build scripts of projects which have no build script"() {
+        def root = project("root", null)
+        def child1 = project("child1", root, null)
+        def child2 = project("child2", root, "  \n")
+        def child3 = project("child3", root)
+        allprojects(root, child1, child2, child3)
+
+        when:
+        precompiler.precompile(root)
+
+        then:
+        compiled as Set == [root, child3]*.buildScriptSource as Set
+    }
+
+    def "does not compile build scripts of projects which inherit a build script classpath"() {
+        def root = project("root", null)
+        def child1 = project("child1", root, "buildscript { dependencies { classpath 'group:module:1.0' } }")
+        def child2 = project("child2", child1)
+        def child3 = project("child3", root, "println 'child3'", true)
+        def child4 = project("child4", root)
+        allprojects(root, child1, child2, child3, child4)
+
+        when:
+        precompiler.precompile(root)
+
+        then:
+        compiled as Set == [root, child4]*.buildScriptSource as Set
+    }
+
+    def "does nothing when fewer than two build scripts can be compiled"() {
+        def root = project("root", null)
+        def child = project("child", root, null)
+        allprojects(root, child)
+
+        when:
+        precompiler.precompile(root)
+
+        then:
+        compiled.empty
+    }
+
+    def "ignores compilation failures"() {
+        def root = project("root", null)
+        def child1 = project("child1", root)
+        def child2 = project("child2", root)
+        allprojects(root, child1, child2)
+
+        when:
+        precompiler.precompile(root)
+
+        then:
+        _ * scriptCompilerFactory.createCompiler(child1.buildScriptSource) >> { throw new RuntimeException("broken") }
+        compiled as Set == [root, child2]*.buildScriptSource as Set
+    }
+
+    def project(String name, ProjectInternal parent, String text = "println '$name'", boolean hasClasspathDependencies = false) {
+        ProjectInternal project = Mock(ProjectInternal, name: name)
+        Resource resource = Mock()
+        ScriptSource source = Mock(ScriptSource, name: "$name build script")
+        ServiceRegistryFactory services = Mock()
+        ScriptClassLoaderProvider classLoaderProvider = Mock()
+        ScriptHandler scriptHandler = Mock()
+        ConfigurationContainer configurations = Mock()
+        Configuration classpath = Mock()
+        DependencySet dependencies = Mock()
+        ScriptCompiler compiler = Mock()
+
+        _ * project.parent >> parent
+        _ * project.buildScriptSource >> source
+        _ * project.services >> services
+        _ * project.buildscript >> scriptHandler
+        _ * source.resource >> resource
+        _ * source.displayName >> "$name build script"
+        _ * resource.getExists() >> (text != null)
+        _ * resource.text >> text
+        _ * services.get(ScriptClassLoaderProvider) >> classLoaderProvider
+        _ * classLoaderProvider.classLoader >> getClass().classLoader
+        _ * scriptHandler.configurations >> configurations
+        _ * configurations.getByName(ScriptHandler.CLASSPATH_CONFIGURATION) >> classpath
+        _ * classpath.dependencies >> dependencies
+        _ * dependencies.isEmpty() >> !hasClasspathDependencies
+        _ * scriptCompilerFactory.createCompiler(source) >> { compiled << source; compiler }
+        return project
+    }
+
+    def allprojects(ProjectInternal root, ProjectInternal... projects) {
+        _ * root.allprojects >> (([root] + (projects as List)) as Set<Project>)
+    }
+}
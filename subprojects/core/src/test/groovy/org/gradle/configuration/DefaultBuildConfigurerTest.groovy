@@ -15,8 +15,12 @@
  */
 package org.gradle.configuration
 
+import org.gradle.StartParameter
 import org.gradle.api.internal.GradleInternal
 import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.execution.TaskGraphExecuter
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.util.HelperUtil
 import spock.lang.Specification
 import org.gradle.api.Action
 
@@ -24,7 +28,18 @@ class DefaultBuildConfigurerTest extends Specification {
     private final GradleInternal gradle = Mock()
     private final ProjectInternal rootProject = Mock()
     private final Action<? super ProjectInternal> action = Mock()
-    private final DefaultBuildConfigurer configurer = new DefaultBuildConfigurer(action)
+    private final StartParameter startParameter = new StartParameter()
+    private final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+    private final BuildScriptPrecompiler precompiler = Mock()
+    private final DefaultBuildConfigurer configurer = new DefaultBuildConfigurer(executorFactory, precompiler, action)
+
+    def setup() {
+        _ * gradle.startParameter >> startParameter
+    }
+
+    def cleanup() {
+        executorFactory.stop()
+    }
 
     def executesActionsForEachProject() {
         when:
@@ -37,4 +52,138 @@ class DefaultBuildConfigurerTest extends Specification {
         }
         1 * action.execute(rootProject)
     }
+
+    def "compiles build scripts before evaluating projects"() {
+        _ * gradle.rootProject >> rootProject
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        1 * precompiler.precompile(rootProject)
+
+        then:
+        1 * rootProject.allprojects(!null)
+    }
+
+    def "ignores requests to configure a single project when configuring all projects"() {
+        given:
+        _ * gradle.rootProject >> rootProject
+        configurer.configure(gradle)
+        def project = Mock(ProjectInternal)
+
+        when:
+        configurer.configure(project)
+
+        then:
+        0 * action._
+    }
+
+    def "configures only root and default projects up-front when configuring on demand"() {
+        def root = HelperUtil.createRootProject()
+        def child1 = HelperUtil.createChildProject(root, "child1")
+        def child2 = HelperUtil.createChildProject(root, "child2")
+        startParameter.configureOnDemand = true
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        _ * gradle.rootProject >> root
+        _ * gradle.defaultProject >> child1
+        _ * gradle.taskGraph >> Mock(TaskGraphExecuter)
+        1 * action.execute(root)
+        1 * action.execute(child1)
+        0 * action.execute(child2)
+        0 * precompiler._
+    }
+
+    def "configures each project once when configuring on demand"() {
+        def root = HelperUtil.createRootProject()
+        def child = HelperUtil.createChildProject(root, "child")
+        startParameter.configureOnDemand = true
+        _ * gradle.rootProject >> root
+        _ * gradle.defaultProject >> root
+        _ * gradle.taskGraph >> Mock(TaskGraphExecuter)
+
+        when:
+        configurer.configure(gradle)
+        configurer.configure(child)
+        configurer.configure(child)
+        configurer.configure(root)
+
+        then:
+        1 * action.execute(root)
+        1 * action.execute(child)
+    }
+
+    def "configures the parents of a project before the project when configuring on demand"() {
+        def root = HelperUtil.createRootProject()
+        def child = HelperUtil.createChildProject(root, "child")
+        def grandchild = HelperUtil.createChildProject(child, "grandchild")
+        def sibling = HelperUtil.createChildProject(root, "sibling")
+        startParameter.configureOnDemand = true
+        _ * gradle.rootProject >> root
+        _ * gradle.defaultProject >> root
+        _ * gradle.taskGraph >> Mock(TaskGraphExecuter)
+
+        given:
+        configurer.configure(gradle)
+
+        when:
+        configurer.configure(grandchild)
+
+        then:
+        1 * action.execute(child)
+
+        then:
+        1 * action.execute(grandchild)
+        0 * action.execute(root)
+        0 * action.execute(sibling)
+    }
+
+    def "configures the projects a project depends on when configuring on demand"() {
+        def root = HelperUtil.createRootProject()
+        def child1 = HelperUtil.createChildProject(root, "child1")
+        def child2 = HelperUtil.createChildProject(root, "child2")
+        child1.configurations.add("compile")
+        child1.dependencies.add("compile", child2)
+        startParameter.configureOnDemand = true
+        _ * gradle.rootProject >> root
+        _ * gradle.defaultProject >> root
+        _ * gradle.taskGraph >> Mock(TaskGraphExecuter)
+
+        when:
+        configurer.configure(gradle)
+        configurer.configure(child1)
+
+        then:
+        1 * action.execute(child1)
+        1 * action.execute(child2)
+    }
+
+    def "evaluates projects in parallel before executing actions for each project"() {
+        def child = Mock(ProjectInternal)
+        startParameter.configurationThreadCount = 2
+        _ * gradle.rootProject >> rootProject
+        _ * rootProject.allprojects >> ([rootProject, child] as Set)
+        _ * rootProject.childProjects >> [child: child]
+        _ * child.childProjects >> [:]
+        _ * child.parent >> rootProject
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        1 * rootProject.evaluate()
+        1 * child.evaluate()
+
+        then:
+        1 * rootProject.allprojects(!null) >> { args ->
+            args[0].execute(rootProject)
+            args[0].execute(child)
+        }
+        1 * action.execute(rootProject)
+        1 * action.execute(child)
+    }
 }
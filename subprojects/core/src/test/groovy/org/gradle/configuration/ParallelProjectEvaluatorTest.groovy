@@ -0,0 +1,166 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.configuration
+
+import org.gradle.api.Project
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+class ParallelProjectEvaluatorTest extends Specification {
+    final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+    final ParallelProjectEvaluator evaluator = new ParallelProjectEvaluator(executorFactory, 3)
+    final List<Project> evaluated = Collections.synchronizedList([])
+    ProjectInternal root
+
+    def setup() {
+        root = project("root", null)
+    }
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "evaluates each project once and after its parent"() {
+        def child1 = project("child1", root)
+        def child2 = project("child2", root)
+        def grandChild = project("grandChild", child1)
+        allprojects(root, child1, child2, grandChild)
+
+        when:
+        evaluator.evaluate(root)
+
+        then:
+        evaluated.size() == 4
+        evaluated as Set == [root, child1, child2, grandChild] as Set
+        evaluated[0] == root
+        evaluated.indexOf(grandChild) > evaluated.indexOf(child1)
+    }
+
+    def "evaluates root project only when it has no children"() {
+        allprojects(root)
+
+        when:
+        evaluator.evaluate(root)
+
+        then:
+        evaluated == [root]
+    }
+
+    def "rethrows failure and does not evaluate the children of a failed project"() {
+        def failure = new RuntimeException("broken")
+        def child = project("child", root, { throw failure })
+        def grandChild = project("grandChild", child)
+        allprojects(root, child, grandChild)
+
+        when:
+        evaluator.evaluate(root)
+
+        then:
+        RuntimeException e = thrown()
+        e == failure
+        !evaluated.contains(grandChild)
+    }
+
+    def "project evaluated in parallel can configure itself and its subprojects"() {
+        ProjectInternal grandChild
+        def child = project("child", root, {
+            ParallelProjectEvaluator.assertCanConfigure(it)
+            ParallelProjectEvaluator.assertCanConfigure(grandChild)
+            ParallelProjectEvaluator.assertCanEvaluate(root)
+        })
+        grandChild = project("grandChild", child)
+        allprojects(root, child, grandChild)
+
+        when:
+        evaluator.evaluate(root)
+
+        then:
+        evaluated.contains(grandChild)
+    }
+
+    def "project evaluated in parallel cannot configure another project"() {
+        ProjectInternal child2
+        def child1 = project("child1", root, { ParallelProjectEvaluator.assertCanConfigure(child2) })
+        child2 = project("child2", root)
+        allprojects(root, child1, child2)
+
+        when:
+        evaluator.evaluate(root)
+
+        then:
+        IllegalStateException e = thrown()
+        e.message.startsWith("Cannot configure ${child2} while evaluating ${child1} in parallel.")
+    }
+
+    def "project evaluated in parallel cannot configure its parent"() {
+        def child = project("child", root, { ParallelProjectEvaluator.assertCanConfigure(root) })
+        allprojects(root, child)
+
+        when:
+        evaluator.evaluate(root)
+
+        then:
+        IllegalStateException e = thrown()
+        e.message.startsWith("Cannot configure ${root} while evaluating ${child} in parallel.")
+    }
+
+    def "project evaluated in parallel cannot evaluate a sibling project"() {
+        ProjectInternal child2
+        def child1 = project("child1", root, { ParallelProjectEvaluator.assertCanEvaluate(child2) })
+        child2 = project("child2", root)
+        allprojects(root, child1, child2)
+
+        when:
+        evaluator.evaluate(root)
+
+        then:
+        IllegalStateException e = thrown()
+        e.message.startsWith("Cannot evaluate ${child2} while evaluating ${child1} in parallel.")
+    }
+
+    def "can configure any project when not evaluating in parallel"() {
+        def child = project("child", root)
+
+        when:
+        ParallelProjectEvaluator.assertCanConfigure(root)
+        ParallelProjectEvaluator.assertCanConfigure(child)
+        ParallelProjectEvaluator.assertCanEvaluate(child)
+
+        then:
+        noExceptionThrown()
+    }
+
+    private ProjectInternal project(String name, ProjectInternal parent, Closure evaluation = {}) {
+        ProjectInternal project = Mock(ProjectInternal, name: name)
+        Map<String, Project> children = [:]
+        _ * project.parent >> parent
+        _ * project.childProjects >> children
+        _ * project.evaluate() >> {
+            evaluation.call(project)
+            evaluated << project
+            project
+        }
+        if (parent != null) {
+            parent.childProjects[name] = project
+        }
+        return project
+    }
+
+    private void allprojects(ProjectInternal root, ProjectInternal... others) {
+        _ * root.allprojects >> ([root] + others.toList() as Set)
+    }
+}
@@ -21,6 +21,7 @@ import org.gradle.api.CircularReferenceException
 import org.gradle.api.Task
 import org.gradle.api.internal.TaskInternal
 import org.gradle.api.internal.changedetection.TaskArtifactStateCacheAccess
+import org.gradle.api.internal.changedetection.TaskDurationRepository
 import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.api.specs.Spec
 import org.gradle.api.specs.Specs
@@ -148,6 +149,66 @@ public class DefaultTaskExecutionPlanTest extends Specification {
         executedTasks == [c, d, b, a]
     }
 
+    def "returns a ready task while an earlier task is waiting on an executing dependency"() {
+        given:
+        Task a = task("a");
+        Task b = task("b", a);
+        Task c = task("c");
+
+        when:
+        executionPlan.addToTaskGraph(toList(b, c));
+        def taskInfoA = executionPlan.getTaskToExecute(anyTask)
+        def taskInfoC = executionPlan.getTaskToExecute(anyTask)
+
+        then:
+        taskInfoA.task == a
+        taskInfoC.task == c
+
+        when:
+        executionPlan.taskComplete(taskInfoC)
+        executionPlan.taskComplete(taskInfoA)
+
+        then:
+        executedTasks == [b]
+    }
+
+    def "returns ready task with longest chain of dependent tasks first"() {
+        given:
+        Task a = task("a");
+        Task b = task("b");
+        Task c = task("c", b);
+        TaskDurationRepository taskDurations = Mock()
+        taskDurations.getDuration(a) >> 10L
+        taskDurations.getDuration(b) >> 5L
+        taskDurations.getDuration(c) >> 20L
+
+        when:
+        executionPlan.addToTaskGraph(toList(a, c));
+        executionPlan.prioritise(taskDurations)
+
+        then:
+        executedTasks == [b, c, a]
+    }
+
+    def "critical path is the chain of tasks with longest execution time"() {
+        given:
+        Task a = task("a");
+        Task b = task("b", a);
+        Task c = task("c", a);
+        Task d = task("d", b, c);
+        executionPlan.addToTaskGraph(toList(d));
+
+        when:
+        def taskInfo
+        while ((taskInfo = executionPlan.getTaskToExecute(anyTask)) != null) {
+            taskInfo.executionTime = taskInfo.task == c ? 100 : 10
+            executionPlan.taskComplete(taskInfo)
+        }
+
+        then:
+        executionPlan.criticalPath*.task == [a, c, d]
+    }
+
     def "cannot add task with circular reference"() {
         Task a = createTask("a");
         Task b = task("b", a);
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.groovy.scripts.internal
+
+import org.gradle.cache.CacheValidator
+import org.gradle.groovy.scripts.Script
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.groovy.scripts.StringScriptSource
+import org.gradle.groovy.scripts.Transformer
+import org.gradle.util.MultiParentClassLoader
+import spock.lang.Specification
+
+class CrossBuildCachingScriptClassCompilerTest extends Specification {
+    final ScriptClassCompiler target = Mock()
+    final CacheValidator validator = Mock()
+    final ClassLoader rootClassLoader = new ClassLoader(getClass().classLoader) {}
+    final CrossBuildScriptClassCache cache = new CrossBuildScriptClassCache(rootClassLoader, 10)
+    final ScriptSource source = new StringScriptSource("script", "println 'hi'")
+    final Transformer transformer = Mock()
+
+    def setup() {
+        _ * transformer.id >> "id"
+        _ * validator.valid >> true
+    }
+
+    def "reuses script class compiled by an earlier build"() {
+        def classLoader1 = new MultiParentClassLoader(rootClassLoader)
+        def classLoader2 = new MultiParentClassLoader(rootClassLoader)
+
+        when:
+        def c1 = new CrossBuildCachingScriptClassCompiler(target, cache, validator).compile(source, classLoader1, transformer, Script)
+        def c2 = new CrossBuildCachingScriptClassCompiler(target, cache, validator).compile(source, classLoader2, transformer, Script)
+
+        then:
+        c1 == Script
+        c2 == Script
+        1 * target.compile(source, classLoader1, transformer, Script) >> Script
+        0 * target._
+    }
+
+    def "does not cache script class when class loader cannot be cached"() {
+        def classLoader = new ClassLoader() {}
+        def compiler = new CrossBuildCachingScriptClassCompiler(target, cache, validator)
+
+        when:
+        compiler.compile(source, classLoader, transformer, Script)
+        compiler.compile(source, classLoader, transformer, Script)
+
+        then:
+        2 * target.compile(source, classLoader, transformer, Script) >> Script
+        cache.size() == 0
+    }
+
+    def "compiles script again when cache is invalid"() {
+        def compiler = new CrossBuildCachingScriptClassCompiler(target, cache, validator)
+
+        when:
+        compiler.compile(source, rootClassLoader, transformer, Script)
+        compiler.compile(source, rootClassLoader, transformer, Script)
+
+        then:
+        _ * validator.valid >> false
+        2 * target.compile(source, rootClassLoader, transformer, Script) >> Script
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.groovy.scripts.internal
+
+import org.gradle.groovy.scripts.Script
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.groovy.scripts.StringScriptSource
+import org.gradle.groovy.scripts.TestScript
+import org.gradle.groovy.scripts.Transformer
+import org.gradle.util.MultiParentClassLoader
+import org.gradle.util.MutableURLClassLoader
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class CrossBuildScriptClassCacheTest extends Specification {
+    @Rule final TemporaryFolder tmpDir = new TemporaryFolder()
+    final ClassLoader rootClassLoader = new ClassLoader(getClass().classLoader) {}
+    final CrossBuildScriptClassCache cache = new CrossBuildScriptClassCache(rootClassLoader, 2)
+    final ScriptSource source = new StringScriptSource("script", "println 'hi'")
+    final Transformer transformer = Mock()
+
+    def setup() {
+        _ * transformer.id >> "id"
+    }
+
+    def "creates equal keys for equivalent class loaders created by different builds"() {
+        expect:
+        def key1 = cache.createKey(source, scriptClassLoader(), transformer, Script)
+        def key2 = cache.createKey(source, scriptClassLoader(), transformer, Script)
+        key1 != null
+        key1 == key2
+    }
+
+    def "creates different keys for different script text, transformer and base class"() {
+        Transformer other = Mock()
+        _ * other.id >> "other"
+        def key = cache.createKey(source, rootClassLoader, transformer, Script)
+
+        expect:
+        cache.createKey(new StringScriptSource("script", "println 'bye'"), rootClassLoader, transformer, Script) != key
+        cache.createKey(source, rootClassLoader, other, Script) != key
+        cache.createKey(source, rootClassLoader, transformer, TestScript) != key
+        cache.createKey(source, new MultiParentClassLoader(rootClassLoader), transformer, Script) != key
+    }
+
+    def "does not create key for class loader which can see other classes"() {
+        expect:
+        cache.createKey(source, new MutableURLClassLoader(rootClassLoader, new URL("file:/some.jar")), transformer, Script) == null
+        cache.createKey(source, new MultiParentClassLoader(rootClassLoader, new ClassLoader() {}), transformer, Script) == null
+        cache.createKey(source, new ClassLoader(rootClassLoader) {}, transformer, Script) == null
+        cache.createKey(source, getClass().classLoader, transformer, Script) == null
+    }
+
+    def "does not create key for classpath script"() {
+        expect:
+        cache.createKey(source, scriptClassLoader(), new BuildScriptClasspathScriptTransformer("buildscript"), Script) == null
+    }
+
+    def "loads all classes of a script class directory, including those in packages, when the script class is cached"() {
+        def classesDir = tmpDir.createDir("classes")
+        copyClassFile(CrossBuildScriptClassCache.name, classesDir)
+        copyClassFile(CrossBuildScriptClassCache.name + '$1', classesDir)
+        def classLoader = new URLClassLoader([classesDir.toURI().toURL()] as URL[], (ClassLoader) null)
+        def scriptClass = classLoader.loadClass(CrossBuildScriptClassCache.name)
+
+        when:
+        cache.put(cache.createKey(source, rootClassLoader, transformer, Script), scriptClass)
+        classesDir.deleteDir()
+
+        then:
+        classLoader.loadClass(CrossBuildScriptClassCache.name + '$1').classLoader == classLoader
+    }
+
+    def "discards least recently used entry when full"() {
+        def key1 = cache.createKey(new StringScriptSource("script", "1"), rootClassLoader, transformer, Script)
+        def key2 = cache.createKey(new StringScriptSource("script", "2"), rootClassLoader, transformer, Script)
+        def key3 = cache.createKey(new StringScriptSource("script", "3"), rootClassLoader, transformer, Script)
+
+        when:
+        cache.put(key1, Script)
+        cache.put(key2, TestScript)
+        cache.get(key1)
+        cache.put(key3, Script)
+
+        then:
+        cache.size() == 2
+        cache.get(key1) == Script
+        cache.get(key2) == null
+        cache.get(key3) == Script
+    }
+
+    private void copyClassFile(String className, File classesDir) {
+        def resourceName = className.replace('.', '/') + ".class"
+        def classFile = new File(classesDir, resourceName)
+        classFile.parentFile.mkdirs()
+        classFile.bytes = getClass().classLoader.getResource(resourceName).bytes
+    }
+
+    private ClassLoader scriptClassLoader() {
+        def root = new MultiParentClassLoader(rootClassLoader, new URLClassLoader(new URL[0], rootClassLoader))
+        return new MutableURLClassLoader(root)
+    }
+}
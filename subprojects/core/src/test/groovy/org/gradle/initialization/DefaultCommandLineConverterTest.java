@@ -72,6 +72,9 @@ public class DefaultCommandLineConverterTest {
     private RefreshOptions expectedRefreshOptions = RefreshOptions.NONE;
     private boolean expectedRecompileScripts;
     private int expectedParallelExecutorCount;
+    private boolean expectedConfigureOnDemand;
+    private int expectedConfigurationThreadCount;
+    private int expectedFileHashingThreadCount;
 
     @Test
     public void withoutAnyOptions() {
@@ -111,6 +114,9 @@ public class DefaultCommandLineConverterTest {
         assertEquals(expectedRefreshDependencies, startParameter.isRefreshDependencies());
         assertEquals(expectedProjectCacheDir, startParameter.getProjectCacheDir());
         assertEquals(expectedParallelExecutorCount, startParameter.getParallelThreadCount());
+        assertEquals(expectedConfigureOnDemand, startParameter.isConfigureOnDemand());
+        assertEquals(expectedConfigurationThreadCount, startParameter.getConfigurationThreadCount());
+        assertEquals(expectedFileHashingThreadCount, startParameter.getFileHashingThreadCount());
     }
 
     @Test
@@ -406,4 +412,27 @@ public class DefaultCommandLineConverterTest {
     public void withInvalidParallelExecutorThreads() {
         checkConversion("--parallel-threads", "foo");
     }
+
+    @Test
+    public void withConfigureOnDemand() {
+        expectedConfigureOnDemand = true;
+        checkConversion("--configure-on-demand");
+    }
+
+    @Test
+    public void withParallelConfiguration() {
+        expectedConfigurationThreadCount = -1;
+        checkConversion("--parallel-configuration");
+    }
+
+    @Test
+    public void withFileHashingThreads() {
+        expectedFileHashingThreadCount = 4;
+        checkConversion("--file-hashing-threads", "4");
+    }
+
+    @Test(expected = CommandLineArgumentException.class)
+    public void withInvalidFileHashingThreads() {
+        checkConversion("--file-hashing-threads", "foo");
+    }
 }
@@ -20,6 +20,8 @@ import org.gradle.api.invocation.Gradle
 import org.gradle.api.artifacts.ResolvableDependencies
 import org.gradle.api.Project
 
+import java.util.concurrent.CyclicBarrier
+
 class BuildProfileTest extends Specification {
     final Gradle gradle = Mock()
     final BuildProfile profile = new BuildProfile(gradle)
@@ -52,6 +54,29 @@ class BuildProfileTest extends Specification {
         profile.projectConfiguration.operations == [a.evaluation, b.evaluation]
     }
 
+    def "creates one profile for each project when projects are evaluated concurrently"() {
+        given:
+        def projects = (1..20).collect { project(":p$it") }
+        def threads = 8
+        def start = new CyclicBarrier(threads)
+        def results = Collections.synchronizedList([])
+
+        when:
+        def workers = (1..threads).collect {
+            Thread.start {
+                start.await()
+                results << projects.collect { profile.getProjectProfile(it) }
+            }
+        }
+        workers*.join()
+
+        then:
+        results.size() == threads
+        results.every { it == results[0] }
+        profile.projects.size() == projects.size()
+        profile.projects == results[0]
+    }
+
     def dependencySet(String path) {
         ResolvableDependencies dependencies = Mock()
         _ * dependencies.path >> path
@@ -66,6 +66,15 @@ public interface FileSystem extends Chmod {
      */
     boolean tryCreateSymbolicLink(File link, File target);
 
+    /**
+     * Tries to create a hard link to a target file. The link and the target must be on the same file system.
+     *
+     * @param link the link to be created
+     * @param target the file to link to
+     * @return <tt>true</tt> if the operation was successful, <tt>false</tt> otherwise
+     */
+    boolean tryCreateHardLink(File link, File target);
+
     /**
      * Returns the Unix permissions for a provided file. Some file systems may not
      * support Unix permissions, in which case sensible default values are returned
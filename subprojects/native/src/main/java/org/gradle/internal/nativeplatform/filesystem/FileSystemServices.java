@@ -51,11 +51,13 @@ public class FileSystemServices {
             serviceRegistry.add(Chmod.class, new EmptyChmod());
             serviceRegistry.add(Stat.class, new FallbackStat());
             serviceRegistry.add(Symlink.class, new FallbackSymlink());
+            serviceRegistry.add(Hardlink.class, new FallbackHardlink());
             return;
         }
 
         LibC libC = loadLibC();
         serviceRegistry.add(Symlink.class, createSymlink(libC));
+        serviceRegistry.add(Hardlink.class, createHardlink(libC));
 
         // Use libc backed implementations on Linux and Mac, if libc available
         if (libC != null && (operatingSystem.isLinux() || operatingSystem.isMacOsX())) {
@@ -93,6 +95,14 @@ public class FileSystemServices {
         return new FallbackSymlink();
     }
 
+    private static Hardlink createHardlink(LibC libC) {
+        if (libC != null) {
+            return new LibcHardlink(libC);
+        }
+        LOGGER.debug("Using FallbackHardlink implementation.");
+        return new FallbackHardlink();
+    }
+
     private static Stat createStat() {
         POSIX posix = PosixUtil.current();
         if (posix instanceof JavaPOSIX) {
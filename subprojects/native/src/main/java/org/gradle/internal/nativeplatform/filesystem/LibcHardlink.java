@@ -0,0 +1,40 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.nativeplatform.filesystem;
+
+import com.sun.jna.LastErrorException;
+import org.gradle.internal.nativeplatform.jna.LibC;
+
+import java.io.File;
+import java.io.IOException;
+
+public class LibcHardlink implements Hardlink {
+    private final LibC libC;
+
+    public LibcHardlink(LibC libC) {
+        this.libC = libC;
+    }
+
+    public void hardlink(File link, File target) throws IOException {
+        link.getParentFile().mkdirs();
+        try {
+            libC.link(target.getPath(), link.getPath());
+        } catch (LastErrorException e) {
+            throw new IOException(String.format("Could not create hard link from '%s' to '%s'. Errno is %s.", link.getPath(), target.getPath(), e.getErrorCode()));
+        }
+    }
+}
@@ -98,6 +98,46 @@ class CommonFileSystemTest extends Specification {
         link.readLink() == target.absolutePath
     }
 
+    @Requires(TestPrecondition.SYMLINKS)
+    def "can create hard link on platforms that support symlinks"() {
+        def target = tmpDir.createFile("target.txt")
+        target.text = "content"
+        def link = tmpDir.file("dir/link.txt")
+
+        when:
+        def created = fs.tryCreateHardLink(link, target)
+
+        then:
+        created
+        link.text == "content"
+
+        when:
+        target.text = "changed"
+
+        then:
+        link.text == "changed"
+    }
+
+    def "cannot create hard link when link already exists"() {
+        def target = tmpDir.createFile("target.txt")
+        def link = tmpDir.createFile("link.txt")
+        link.text = "existing"
+
+        expect:
+        !fs.tryCreateHardLink(link, target)
+        link.text == "existing"
+    }
+
+    @Requires(TestPrecondition.NO_SYMLINKS)
+    def "cannot create hard links on platforms that do not support symlinks"() {
+        def target = tmpDir.createFile("target.txt")
+        def link = tmpDir.file("link.txt")
+
+        expect:
+        !fs.tryCreateHardLink(link, target)
+        !link.exists()
+    }
+
     @Requires(TestPrecondition.NO_SYMLINKS)
     def "cannot create symlinks on platforms that do not support symlinks"() {
         def target = tmpDir.createFile("target.txt")
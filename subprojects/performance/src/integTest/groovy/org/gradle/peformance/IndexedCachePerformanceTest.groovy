@@ -0,0 +1,78 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.peformance
+
+import org.gradle.cache.DefaultSerializer
+import org.gradle.cache.internal.btree.BTreePersistentIndexedCache
+import org.gradle.cache.internal.btree.BlockStore
+import org.gradle.cache.internal.btree.FileBackedBlockStore
+import org.gradle.cache.internal.btree.MemoryMappedBlockStore
+import org.gradle.peformance.fixture.BaselineVersion
+import org.gradle.peformance.fixture.DataAmount
+import org.gradle.peformance.fixture.MeasuredOperation
+import org.gradle.peformance.fixture.MeasuredOperationList
+import org.gradle.peformance.fixture.PerformanceResults
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+import static org.gradle.peformance.fixture.DataAmount.kbytes
+import static org.gradle.peformance.fixture.Duration.millis
+
+class IndexedCachePerformanceTest extends Specification {
+    static final int ENTRIES = 20000
+    @Rule TemporaryFolder tmpDir = new TemporaryFolder()
+
+    def "memory mapped block store is not slower than file backed block store"() {
+        expect:
+        def results = new PerformanceResults(
+                displayName: "Results for an indexed cache with $ENTRIES entries",
+                baselineVersions: [new BaselineVersion(version: "file backed block store",
+                        maxExecutionTimeRegression: millis(500),
+                        maxMemoryRegression: kbytes(10240),
+                        results: new MeasuredOperationList(name: "File backed"))])
+        results.current.name = "Memory mapped"
+
+        def fileBacked = { File file -> new FileBackedBlockStore(file) }
+        def mapped = { File file -> new MemoryMappedBlockStore(file) }
+        // The first run warms up the JVM
+        runOnce(fileBacked, results.baselineVersions[0].results)
+        runOnce(mapped, results.current)
+        results.clear()
+        5.times {
+            runOnce(fileBacked, results.baselineVersions[0].results)
+            runOnce(mapped, results.current)
+        }
+        results.assertCurrentVersionHasNotRegressed()
+    }
+
+    private void runOnce(Closure<BlockStore> storeFactory, MeasuredOperationList results) {
+        def cacheFile = tmpDir.file("cache.bin")
+        def operation = MeasuredOperation.measure {
+            def cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, storeFactory(cacheFile), new DefaultSerializer<String>(), new DefaultSerializer<Integer>())
+            try {
+                ENTRIES.times { cache.put("key_$it".toString(), it) }
+                ENTRIES.times { assert cache.get("key_$it".toString()) == it }
+            } finally {
+                cache.close()
+            }
+        }
+        def runtime = Runtime.runtime
+        operation.totalMemoryUsed = DataAmount.bytes(runtime.totalMemory() - runtime.freeMemory())
+        cacheFile.delete()
+        results << operation
+    }
+}
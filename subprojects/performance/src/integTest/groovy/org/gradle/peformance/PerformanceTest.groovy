@@ -81,8 +81,9 @@ class PerformanceTest extends Specification {
         result.assertCurrentVersionHasNotRegressed()
 
         where:
-        testProject       | runs | maxExecutionTimeRegression
-        "lotDependencies" | 5    | millis(1000)
+        testProject        | runs | maxExecutionTimeRegression
+        "lotDependencies"  | 5    | millis(1000)
+        "manyDependencies" | 5    | millis(1000)
     }
 
     @Unroll("Project '#testProject' eclipse")
@@ -23,6 +23,8 @@ import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.api.internal.tasks.testing.processors.MaxNParallelTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RestartEveryNTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.processors.TestClassDurationRecorder;
+import org.gradle.api.internal.tasks.testing.processors.TestClassDurationStore;
 import org.gradle.api.internal.tasks.testing.processors.TestMainAction;
 import org.gradle.api.internal.tasks.testing.worker.ForkingTestClassProcessor;
 import org.gradle.api.tasks.testing.Test;
@@ -31,6 +33,9 @@ import org.gradle.internal.TrueTimeProvider;
 import org.gradle.messaging.actor.ActorFactory;
 import org.gradle.process.internal.WorkerProcessBuilder;
 
+import java.io.File;
+import java.util.Map;
+
 /**
  * The default test class scanner factory.
  *
@@ -60,20 +65,26 @@ public class DefaultTestExecuter implements TestExecuter {
             }
         };
 
+        TestClassDurationStore durationStore = new TestClassDurationStore(new File(testTask.getTemporaryDir(), "test-class-durations.bin"));
+        Map<String, Long> durations = durationStore.load();
         TestClassProcessor processor = new MaxNParallelTestClassProcessor(testTask.getMaxParallelForks(),
-                reforkingProcessorFactory, actorFactor);
+                reforkingProcessorFactory, actorFactor, durations);
 
         final FileTree testClassFiles = testTask.getCandidateClassFiles();
+        File testClassesDir = testTask.getTestClassesDir();
 
         Runnable detector;
         if (testTask.isScanForTestClasses()) {
             TestFrameworkDetector testFrameworkDetector = testTask.getTestFramework().getDetector();
-            testFrameworkDetector.setTestClassesDirectory(testTask.getTestClassesDir());
+            testFrameworkDetector.setTestClassesDirectory(testClassesDir);
             testFrameworkDetector.setTestClasspath(testTask.getClasspath());
             detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor);
         } else {
             detector = new DefaultTestClassScanner(testClassFiles, null, processor);
         }
-        new TestMainAction(detector, processor, testResultProcessor, new TrueTimeProvider()).run();
+        TestClassDurationRecorder durationRecorder = new TestClassDurationRecorder(testResultProcessor);
+        new TestMainAction(detector, processor, durationRecorder, new TrueTimeProvider()).run();
+
+        durationStore.store(durations, durationRecorder.getDurations(), testClassesDir);
     }
 }
@@ -16,7 +16,12 @@
 package org.gradle.api.internal.tasks.testing.junit.report;
 
 import org.apache.commons.lang.StringUtils;
+import org.gradle.api.internal.tasks.testing.junit.result.TestResultsProvider;
+import org.gradle.api.tasks.testing.TestOutputEvent;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.Collection;
 import java.util.Set;
 import java.util.TreeSet;
@@ -30,6 +35,7 @@ public class ClassTestResults extends CompositeTestResults {
     private final Set<TestResult> results = new TreeSet<TestResult>();
     private final StringBuilder standardOutput = new StringBuilder();
     private final StringBuilder standardError = new StringBuilder();
+    private TestResultsProvider outputProvider;
 
     public ClassTestResults(String name, PackageTestResults packageResults) {
         super(packageResults);
@@ -63,11 +69,43 @@ public class ClassTestResults extends CompositeTestResults {
     }
 
     public CharSequence getStandardError() {
-        return standardError;
+        return outputProvider == null ? standardError : readOutput(TestOutputEvent.Destination.StdErr);
     }
 
     public CharSequence getStandardOutput() {
-        return standardOutput;
+        return outputProvider == null ? standardOutput : readOutput(TestOutputEvent.Destination.StdOut);
+    }
+
+    public boolean hasStandardError() {
+        return outputProvider == null ? standardError.length() > 0 : outputProvider.hasOutput(name, TestOutputEvent.Destination.StdErr);
+    }
+
+    public boolean hasStandardOutput() {
+        return outputProvider == null ? standardOutput.length() > 0 : outputProvider.hasOutput(name, TestOutputEvent.Destination.StdOut);
+    }
+
+    /**
+     * Reads the output of this class from the given provider when it is needed, rather than holding on to it.
+     */
+    public void setOutputProvider(TestResultsProvider outputProvider) {
+        this.outputProvider = outputProvider;
+    }
+
+    /**
+     * Writes the given output of this class to the given writer, without holding on to the whole output.
+     */
+    public void writeOutput(TestOutputEvent.Destination destination, Writer writer) throws IOException {
+        if (outputProvider != null) {
+            outputProvider.provideOutputs(name, destination, writer);
+        } else {
+            writer.append(destination == TestOutputEvent.Destination.StdOut ? standardOutput : standardError);
+        }
+    }
+
+    private CharSequence readOutput(TestOutputEvent.Destination destination) {
+        StringWriter writer = new StringWriter();
+        outputProvider.provideOutputs(name, destination, writer);
+        return writer.getBuffer();
     }
 
     public TestResult addTest(String testName, long duration) {
@@ -15,9 +15,17 @@
  */
 package org.gradle.api.internal.tasks.testing.junit.report;
 
+import org.gradle.api.Action;
 import org.gradle.api.GradleException;
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
+import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult;
+import org.gradle.api.internal.tasks.testing.junit.result.TestResultsProvider;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.internal.CompositeStoppable;
+import org.gradle.internal.concurrent.BoundedBatchExecutor;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.reporting.HtmlReportRenderer;
 import org.gradle.util.Clock;
 import org.w3c.dom.Document;
@@ -30,14 +38,30 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.gradle.api.tasks.testing.TestResult.ResultType.SKIPPED;
 
 public class DefaultTestReport implements TestReporter {
     private final HtmlReportRenderer htmlRenderer = new HtmlReportRenderer();
+    private final ExecutorFactory executorFactory;
+    private final int maxThreads;
     private File resultDir;
+    private TestResultsProvider resultsProvider;
     private File reportDir;
     private final static Logger LOG = Logging.getLogger(DefaultTestReport.class);
 
     public DefaultTestReport() {
+        this(null, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param executorFactory The factory to create the page generator threads with, or null to use a factory which is created and stopped for each report.
+     */
+    public DefaultTestReport(ExecutorFactory executorFactory, int maxThreads) {
+        this.executorFactory = executorFactory;
+        this.maxThreads = maxThreads;
         htmlRenderer.requireResource(getClass().getResource("/org/gradle/reporting/report.js"));
         htmlRenderer.requireResource(getClass().getResource("/org/gradle/reporting/base-style.css"));
         htmlRenderer.requireResource(getClass().getResource("/org/gradle/reporting/css3-pie-1.0beta3.htc"));
@@ -48,6 +72,10 @@ public class DefaultTestReport implements TestReporter {
         this.resultDir = resultDir;
     }
 
+    public void setTestResultsProvider(TestResultsProvider resultsProvider) {
+        this.resultsProvider = resultsProvider;
+    }
+
     public void setTestReportDir(File reportDir) {
         this.reportDir = reportDir;
     }
@@ -61,7 +89,9 @@ public class DefaultTestReport implements TestReporter {
 
     private AllTestResults loadModel() {
         AllTestResults model = new AllTestResults();
-        if (resultDir.exists()) {
+        if (resultsProvider != null) {
+            mergeFromProvider(model);
+        } else if (resultDir.exists()) {
             for (File file : resultDir.listFiles()) {
                 if (file.getName().startsWith("TEST-") && file.getName().endsWith(".xml")) {
                     mergeFromFile(file, model);
@@ -71,6 +101,25 @@ public class DefaultTestReport implements TestReporter {
         return model;
     }
 
+    private void mergeFromProvider(final AllTestResults model) {
+        resultsProvider.visitClasses(new Action<TestClassResult>() {
+            public void execute(TestClassResult classResult) {
+                String className = classResult.getClassName();
+                for (TestMethodResult methodResult : classResult.getResults()) {
+                    if (methodResult.getResultType() == SKIPPED) {
+                        model.addTest(className, methodResult.name, 0).ignored();
+                        continue;
+                    }
+                    TestResult testResult = model.addTest(className, methodResult.name, methodResult.getDuration());
+                    for (TestMethodResult.Failure failure : methodResult.getFailures()) {
+                        testResult.addFailure(failure.getMessage(), failure.getStackTrace());
+                    }
+                }
+                model.addTestClass(className).setOutputProvider(resultsProvider);
+            }
+        });
+    }
+
     private void mergeFromFile(File file, AllTestResults model) {
         try {
             InputStream inputStream = new FileInputStream(file);
@@ -119,19 +168,66 @@ public class DefaultTestReport implements TestReporter {
 
     private void generateFiles(AllTestResults model) {
         try {
+            PageFingerprints fingerprints = new PageFingerprints(new File(reportDir, ".page-fingerprints"));
             generatePage(model, new OverviewPageRenderer(), new File(reportDir, "index.html"));
+            List<Runnable> pages = new ArrayList<Runnable>();
             for (PackageTestResults packageResults : model.getPackages()) {
-                generatePage(packageResults, new PackagePageRenderer(), new File(reportDir, packageResults.getName() + ".html"));
+                pages.add(new PageGenerator<PackageTestResults>(packageResults, new File(reportDir, packageResults.getName() + ".html"), fingerprints) {
+                    @Override
+                    protected PageRenderer<PackageTestResults> createRenderer() {
+                        return new PackagePageRenderer();
+                    }
+                });
                 for (ClassTestResults classResults : packageResults.getClasses()) {
-                    generatePage(classResults, new ClassPageRenderer(), new File(reportDir, classResults.getName() + ".html"));
+                    pages.add(new PageGenerator<ClassTestResults>(classResults, new File(reportDir, classResults.getName() + ".html"), fingerprints) {
+                        @Override
+                        protected PageRenderer<ClassTestResults> createRenderer() {
+                            return new ClassPageRenderer();
+                        }
+                    });
                 }
             }
+            generatePages(pages);
+            fingerprints.store();
         } catch (Exception e) {
             throw new GradleException(String.format("Could not generate test report to '%s'.", reportDir), e);
         }
     }
 
+    /**
+     * Generates the given pages, using at most {@link #maxThreads} threads.
+     */
+    private void generatePages(List<Runnable> pages) {
+        DefaultExecutorFactory reportExecutorFactory = executorFactory == null ? new DefaultExecutorFactory() : null;
+        BoundedBatchExecutor executor = new BoundedBatchExecutor(executorFactory == null ? reportExecutorFactory : executorFactory, "Test report generator", Math.max(1, maxThreads));
+        try {
+            executor.run(pages);
+        } finally {
+            CompositeStoppable.stoppable(executor, reportExecutorFactory).stop();
+        }
+    }
+
     private <T extends CompositeTestResults> void generatePage(T model, PageRenderer<T> renderer, File outputFile) throws Exception {
         htmlRenderer.renderer(renderer).writeTo(model, outputFile);
     }
+
+    private abstract class PageGenerator<T extends CompositeTestResults> implements Runnable {
+        private final T model;
+        private final File outputFile;
+        private final PageFingerprints fingerprints;
+
+        protected PageGenerator(T model, File outputFile, PageFingerprints fingerprints) {
+            this.model = model;
+            this.outputFile = outputFile;
+            this.fingerprints = fingerprints;
+        }
+
+        protected abstract PageRenderer<T> createRenderer();
+
+        public void run() {
+            if (fingerprints.update(outputFile, model)) {
+                htmlRenderer.renderer(createRenderer()).writeTo(model, outputFile);
+            }
+        }
+    }
 }
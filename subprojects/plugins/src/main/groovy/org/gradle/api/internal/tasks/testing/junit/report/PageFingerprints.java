@@ -0,0 +1,187 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit.report;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.UncheckedException;
+import org.gradle.util.GradleVersion;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of a hash of the results each page of a report was generated from, so that pages whose results have not
+ * changed since the previous report do not need to be generated again.
+ */
+class PageFingerprints {
+    private final File file;
+    private final Map<String, String> previous;
+    private final Map<String, String> current = new ConcurrentHashMap<String, String>();
+
+    PageFingerprints(File file) {
+        this.file = file;
+        this.previous = load(file);
+        // Forget the previous fingerprints until this report is complete, in case it is not
+        file.delete();
+    }
+
+    /**
+     * Records the fingerprint of the given page. Returns true when the page needs to be generated.
+     */
+    boolean update(File page, CompositeTestResults results) {
+        String fingerprint = fingerprint(results);
+        current.put(page.getName(), fingerprint);
+        return !page.isFile() || !fingerprint.equals(previous.get(page.getName()));
+    }
+
+    void store() {
+        try {
+            file.getParentFile().mkdirs();
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            try {
+                outputStream.writeInt(current.size());
+                for (Map.Entry<String, String> entry : current.entrySet()) {
+                    outputStream.writeUTF(entry.getKey());
+                    outputStream.writeUTF(entry.getValue());
+                }
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private static Map<String, String> load(File file) {
+        Map<String, String> fingerprints = new HashMap<String, String>();
+        if (!file.isFile()) {
+            return fingerprints;
+        }
+        try {
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                int count = inputStream.readInt();
+                for (int i = 0; i < count; i++) {
+                    String page = inputStream.readUTF();
+                    fingerprints.put(page, inputStream.readUTF());
+                }
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            // Generate all pages again
+            fingerprints.clear();
+        }
+        return fingerprints;
+    }
+
+    private static String fingerprint(CompositeTestResults results) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        DataOutputStream outputStream = new DataOutputStream(new DigestOutputStream(new NullOutputStream(), digest));
+        try {
+            writeString(outputStream, GradleVersion.current().getVersion());
+            // Durations are compared as they are rendered on the page, as the raw durations change in almost every run
+            writeString(outputStream, results.getFormattedDuration());
+            if (results instanceof ClassTestResults) {
+                ClassTestResults classResults = (ClassTestResults) results;
+                writeClass(outputStream, classResults);
+                writeOutput(outputStream, classResults, TestOutputEvent.Destination.StdOut);
+                writeOutput(outputStream, classResults, TestOutputEvent.Destination.StdErr);
+            } else if (results instanceof PackageTestResults) {
+                for (ClassTestResults classResults : ((PackageTestResults) results).getClasses()) {
+                    writeClass(outputStream, classResults);
+                }
+            } else {
+                throw new IllegalArgumentException(String.format("Cannot fingerprint %s.", results.getTitle()));
+            }
+            outputStream.flush();
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        return new BigInteger(1, digest.digest()).toString(36);
+    }
+
+    private static void writeClass(DataOutputStream outputStream, ClassTestResults classResults) throws IOException {
+        writeString(outputStream, classResults.getName());
+        writeString(outputStream, classResults.getFormattedDuration());
+        outputStream.writeInt(classResults.getTestResults().size());
+        for (TestResult test : classResults.getTestResults()) {
+            writeString(outputStream, test.getName());
+            writeString(outputStream, test.getFormattedDuration());
+            outputStream.writeByte(test.getResultType().ordinal());
+            outputStream.writeInt(test.getFailures().size());
+            for (TestFailure failure : test.getFailures()) {
+                writeString(outputStream, failure.getMessage());
+                writeString(outputStream, failure.getStackTrace());
+            }
+        }
+    }
+
+    /**
+     * Hashes the output as it is read, followed by its length, rather than reading the whole output into memory.
+     */
+    private static void writeOutput(DataOutputStream outputStream, ClassTestResults classResults, TestOutputEvent.Destination destination) throws IOException {
+        CountingWriter writer = new CountingWriter(new OutputStreamWriter(outputStream, "UTF-8"));
+        classResults.writeOutput(destination, writer);
+        writer.flush();
+        outputStream.writeLong(writer.count);
+    }
+
+    private static void writeString(DataOutputStream outputStream, String value) throws IOException {
+        byte[] bytes = value.getBytes("UTF-8");
+        outputStream.writeInt(bytes.length);
+        outputStream.write(bytes);
+    }
+
+    private static class CountingWriter extends FilterWriter {
+        private long count;
+
+        private CountingWriter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            super.write(c);
+            count++;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            super.write(buffer, offset, length);
+            count += length;
+        }
+
+        @Override
+        public void write(String str, int offset, int length) throws IOException {
+            super.write(str, offset, length);
+            count += length;
+        }
+    }
+}
@@ -15,11 +15,18 @@
  */
 package org.gradle.api.internal.tasks.testing.junit.report;
 
+import org.gradle.api.internal.tasks.testing.junit.result.TestResultsProvider;
+
 import java.io.File;
 
 public interface TestReporter {
     void setTestResultsDir(File resultDir);
 
+    /**
+     * Sets the provider to read the test results from. When set, it is used instead of the test results dir.
+     */
+    void setTestResultsProvider(TestResultsProvider resultsProvider);
+
     void setTestReportDir(File reportDir);
 
     void generateReport();
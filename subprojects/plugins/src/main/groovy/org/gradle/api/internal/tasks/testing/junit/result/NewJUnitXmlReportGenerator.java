@@ -17,19 +17,20 @@
 package org.gradle.api.internal.tasks.testing.junit.result;
 
 import org.apache.commons.io.IOUtils;
+import org.gradle.api.Action;
 import org.gradle.api.GradleException;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.util.Clock;
 
 import javax.xml.stream.XMLOutputFactory;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Writer;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
-import java.util.Map;
 
 /**
  * This will replace the existing report generator.
@@ -49,22 +50,21 @@ public class NewJUnitXmlReportGenerator {
 
     public void generate() {
         Clock clock = new Clock();
-        Map<String, TestClassResult> results = testResultsProvider.provideResults();
-        for (Map.Entry<String, TestClassResult> entry : results.entrySet()) {
-            String className = entry.getKey();
-            TestClassResult result = entry.getValue();
-
-            File file = new File(testResultsDir, "TEST-" + className + ".xml");
-            Writer output = null;
-            try {
-                output = new FileWriter(file);
-                saxWriter.write(className, result, output);
-            } catch (IOException e) {
-                throw new GradleException("Problems writing xml test results to file: " + file, e);
-            } finally {
-                IOUtils.closeQuietly(output);
+        testResultsProvider.visitClasses(new Action<TestClassResult>() {
+            public void execute(TestClassResult result) {
+                String className = result.getClassName();
+                File file = new File(testResultsDir, "TEST-" + className + ".xml");
+                Writer output = null;
+                try {
+                    output = new BufferedWriter(new FileWriter(file));
+                    saxWriter.write(className, result, output);
+                } catch (IOException e) {
+                    throw new GradleException("Problems writing xml test results to file: " + file, e);
+                } finally {
+                    IOUtils.closeQuietly(output);
+                }
             }
-        }
+        });
         LOG.info("Finished generating test xml results (" + clock.getTime() + ")");
     }
 
@@ -23,9 +23,8 @@ import org.gradle.api.tasks.testing.TestResult;
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
+import java.io.FilterWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.io.StringWriter;
 import java.io.Writer;
 import java.util.Set;
 
@@ -67,12 +66,12 @@ public class SaxJUnitXmlResultWriter {
 
             writer.writeCharacters("\n  ");
             output.write("<system-out><![CDATA[");
-            testResultsProvider.provideOutputs(className, TestOutputEvent.Destination.StdOut, output);
+            testResultsProvider.provideOutputs(className, TestOutputEvent.Destination.StdOut, new CDataEscapingWriter(output));
             output.write("]]></system-out>");
 
             writer.writeCharacters("\n  ");
             output.write("<system-err><![CDATA[");
-            testResultsProvider.provideOutputs(className, TestOutputEvent.Destination.StdErr, output);
+            testResultsProvider.provideOutputs(className, TestOutputEvent.Destination.StdErr, new CDataEscapingWriter(output));
             output.write("]]></system-err>\n");
 
             writer.writeEndElement();
@@ -85,19 +84,19 @@ public class SaxJUnitXmlResultWriter {
     private void writeTests(XMLStreamWriter writer, Set<TestMethodResult> methodResults, String className) throws XMLStreamException {
         for (TestMethodResult methodResult : methodResults) {
             writer.writeCharacters("\n    ");
-            String testCase = methodResult.result.getResultType() == TestResult.ResultType.SKIPPED ? "ignored-testcase" : "testcase";
+            String testCase = methodResult.getResultType() == TestResult.ResultType.SKIPPED ? "ignored-testcase" : "testcase";
             writer.writeStartElement(testCase);
             writer.writeAttribute("name", methodResult.name);
             writer.writeAttribute("classname", className);
             writer.writeAttribute("time", String.valueOf(methodResult.getDuration() / 1000.0));
 
-            for (Throwable failure : methodResult.result.getExceptions()) {
+            for (TestMethodResult.Failure failure : methodResult.getFailures()) {
                 writer.writeCharacters("\n      ");
                 writer.writeStartElement("failure");
-                writer.writeAttribute("message", failureMessage(failure));
-                writer.writeAttribute("type", failure.getClass().getName());
+                writer.writeAttribute("message", failure.getMessage());
+                writer.writeAttribute("type", failure.getExceptionType());
 
-                writer.writeCData(escapeCDATA(stackTrace(failure)));
+                writer.writeCData(escapeCDATA(failure.getStackTrace()));
 
                 writer.writeEndElement();
             }
@@ -106,30 +105,19 @@ public class SaxJUnitXmlResultWriter {
         }
     }
 
-    //below methods are "inherited" from the original xml writer
+    private static class CDataEscapingWriter extends FilterWriter {
+        private CDataEscapingWriter(Writer out) {
+            super(out);
+        }
 
-    private String failureMessage(Throwable throwable) {
-        try {
-            return throwable.toString();
-        } catch (Throwable t) {
-            return String.format("Could not determine failure message for exception of type %s: %s",
-                    throwable.getClass().getName(), t);
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            out.write(escapeCDATA(str.substring(off, off + len)));
         }
-    }
 
-    private String stackTrace(Throwable throwable) {
-        try {
-            StringWriter stringWriter = new StringWriter();
-            PrintWriter writer = new PrintWriter(stringWriter);
-            throwable.printStackTrace(writer);
-            writer.close();
-            return stringWriter.toString();
-        } catch (Throwable t) {
-            StringWriter stringWriter = new StringWriter();
-            PrintWriter writer = new PrintWriter(stringWriter);
-            t.printStackTrace(writer);
-            writer.close();
-            return stringWriter.toString();
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            out.write(escapeCDATA(new String(cbuf, off, len)));
         }
     }
 }
\ No newline at end of file
@@ -27,21 +27,27 @@ import java.util.Set;
 public class TestClassResult {
 
     Set<TestMethodResult> methodResults = new LinkedHashSet<TestMethodResult>();
+    private final String className;
     private final long startTime;
     private int failuresCount;
 
-    public TestClassResult(long startTime) {
+    public TestClassResult(String className, long startTime) {
+        this.className = className;
         this.startTime = startTime;
     }
 
     public TestClassResult add(TestMethodResult methodResult) {
-        if (methodResult.result.getResultType() == TestResult.ResultType.FAILURE) {
+        if (methodResult.getResultType() == TestResult.ResultType.FAILURE) {
             failuresCount++;
         }
         methodResults.add(methodResult);
         return this;
     }
 
+    public String getClassName() {
+        return className;
+    }
+
     public Set<TestMethodResult> getResults() {
         return methodResults;
     }
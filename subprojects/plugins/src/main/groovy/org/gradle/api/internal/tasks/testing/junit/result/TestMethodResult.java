@@ -18,20 +18,109 @@ package org.gradle.api.internal.tasks.testing.junit.result;
 
 import org.gradle.api.tasks.testing.TestResult;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * by Szczepan Faber, created at: 11/13/12
  */
 public class TestMethodResult {
 
     public final String name;
-    public final TestResult result;
+    private final TestResult.ResultType resultType;
+    private final long startTime;
+    private final long endTime;
+    private final List<Failure> failures = new ArrayList<Failure>();
 
-    public TestMethodResult(String name, TestResult result) {
+    public TestMethodResult(String name, TestResult.ResultType resultType, long startTime, long endTime) {
         this.name = name;
-        this.result = result;
+        this.resultType = resultType;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    public TestMethodResult(String name, TestResult result) {
+        this(name, result.getResultType(), result.getStartTime(), result.getEndTime());
+        for (Throwable failure : result.getExceptions()) {
+            addFailure(failureMessage(failure), failure.getClass().getName(), stackTrace(failure));
+        }
+    }
+
+    public TestMethodResult addFailure(String message, String exceptionType, String stackTrace) {
+        failures.add(new Failure(message, exceptionType, stackTrace));
+        return this;
+    }
+
+    public TestResult.ResultType getResultType() {
+        return resultType;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
     }
 
     public long getDuration() {
-        return result.getEndTime() - result.getStartTime();
+        return endTime - startTime;
+    }
+
+    public List<Failure> getFailures() {
+        return failures;
+    }
+
+    //below methods are "inherited" from the original xml writer
+
+    private static String failureMessage(Throwable throwable) {
+        try {
+            return throwable.toString();
+        } catch (Throwable t) {
+            return String.format("Could not determine failure message for exception of type %s: %s",
+                    throwable.getClass().getName(), t);
+        }
+    }
+
+    private static String stackTrace(Throwable throwable) {
+        try {
+            StringWriter stringWriter = new StringWriter();
+            PrintWriter writer = new PrintWriter(stringWriter);
+            throwable.printStackTrace(writer);
+            writer.close();
+            return stringWriter.toString();
+        } catch (Throwable t) {
+            StringWriter stringWriter = new StringWriter();
+            PrintWriter writer = new PrintWriter(stringWriter);
+            t.printStackTrace(writer);
+            writer.close();
+            return stringWriter.toString();
+        }
+    }
+
+    public static class Failure {
+        private final String message;
+        private final String exceptionType;
+        private final String stackTrace;
+
+        public Failure(String message, String exceptionType, String stackTrace) {
+            this.message = message;
+            this.exceptionType = exceptionType;
+            this.stackTrace = stackTrace;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public String getExceptionType() {
+            return exceptionType;
+        }
+
+        public String getStackTrace() {
+            return stackTrace;
+        }
     }
-}
\ No newline at end of file
+}
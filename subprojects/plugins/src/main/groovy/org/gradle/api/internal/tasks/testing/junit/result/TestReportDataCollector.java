@@ -17,102 +17,340 @@
 package org.gradle.api.internal.tasks.testing.junit.result;
 
 import org.apache.commons.io.IOUtils;
+import org.gradle.api.Action;
 import org.gradle.api.tasks.testing.*;
 import org.gradle.internal.UncheckedException;
-import org.gradle.util.TextUtil;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.Writer;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.*;
+import java.util.*;
 
 /**
+ * Collects the test results and outputs into an append-only binary log, as they arrive. Only a small index is kept in
+ * memory for each test class, which holds the position and length of each record of the class. The results of a class
+ * are read back from the log only when they are asked for, reading the records of the class in the order they were
+ * written. The output most recently read is kept in memory up to a limit, so that the reports which each read the
+ * output of a class one after another only read it from the log once.
+ *
  * by Szczepan Faber, created at: 11/13/12
  */
 public class TestReportDataCollector implements TestListener, TestOutputListener, TestResultsProvider {
 
-    private final Map<String, TestClassResult> results = new HashMap<String, TestClassResult>();
-    private final File resultsDir;
-    CachingFileWriter cachingFileWriter = new CachingFileWriter(10); //TODO SF calculate based on parallel forks
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_SHARED_OUTPUT_CHARS = 1024 * 1024;
+    private final Map<String, ClassIndex> classes = new LinkedHashMap<String, ClassIndex>();
+    private final File resultsFile;
+    private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+    private final DataOutputStream record = new DataOutputStream(recordBytes);
+    private DataOutputStream log;
+    private long logLength;
+    private final Map<List<Object>, String> sharedOutputs = new LinkedHashMap<List<Object>, String>(16, 0.75f, true);
+    private int sharedOutputChars;
 
     public TestReportDataCollector(File resultsDir) {
-        this.resultsDir = resultsDir;
         if (!resultsDir.isDirectory()) {
             throw new IllegalArgumentException("Directory [" + resultsDir + "] for binary test results does not exist or it is not a valid folder.");
         }
         if (resultsDir.list().length > 0) {
             throw new IllegalArgumentException("Directory [" + resultsDir + "] for binary test results must be empty!");
         }
+        this.resultsFile = new File(resultsDir, "results.bin");
     }
 
     public void beforeSuite(TestDescriptor suite) {
     }
 
-    public void afterSuite(TestDescriptor suite, TestResult result) {
+    public synchronized void afterSuite(TestDescriptor suite, TestResult result) {
         if (suite.getParent() == null) {
-            cachingFileWriter.closeAll();
+            closeLog();
         }
     }
 
     public void beforeTest(TestDescriptor testDescriptor) {
     }
 
-    public void afterTest(TestDescriptor testDescriptor, TestResult result) {
+    public synchronized void afterTest(TestDescriptor testDescriptor, TestResult result) {
         if (!testDescriptor.isComposite()) {
             TestMethodResult methodResult = new TestMethodResult(testDescriptor.getName(), result);
-            TestClassResult classResult = results.get(testDescriptor.getClassName());
-            if (classResult == null) {
-                classResult = new TestClassResult(result.getStartTime());
-                results.put(testDescriptor.getClassName(), classResult);
+            ClassIndex classIndex = classIndex(testDescriptor.getClassName(), result.getStartTime());
+            try {
+                writeString(methodResult.name);
+                record.writeByte(methodResult.getResultType().ordinal());
+                record.writeLong(methodResult.getStartTime());
+                record.writeLong(methodResult.getEndTime());
+                record.writeInt(methodResult.getFailures().size());
+                for (TestMethodResult.Failure failure : methodResult.getFailures()) {
+                    writeString(failure.getMessage());
+                    writeString(failure.getExceptionType());
+                    writeString(failure.getStackTrace());
+                }
+                appendRecord(classIndex.tests);
+            } catch (IOException e) {
+                throw new RuntimeException("Problems writing binary test results to file: " + resultsFile, e);
             }
-
-            classResult.add(methodResult);
         }
     }
 
-    public void onOutput(TestDescriptor testDescriptor, TestOutputEvent outputEvent) {
+    public synchronized void onOutput(TestDescriptor testDescriptor, TestOutputEvent outputEvent) {
         String className = testDescriptor.getClassName();
         if (className == null) {
             //this means that we receive an output before even starting any class (or too late).
             //we don't have a place for such output in any of the reports so skipping.
             return;
         }
-        //the format is optimized for the junit xml results
-        String message = TextUtil.escapeCDATA(outputEvent.getMessage());
-        cachingFileWriter.write(outputsFile(className, outputEvent.getDestination()), message);
+        ClassIndex classIndex = classIndex(className, 0);
+        boolean stdOut = outputEvent.getDestination() == TestOutputEvent.Destination.StdOut;
+        try {
+            writeString(outputEvent.getMessage());
+            appendRecord(stdOut ? classIndex.stdOut : classIndex.stdErr);
+        } catch (IOException e) {
+            throw new RuntimeException("Problems writing binary test results to file: " + resultsFile, e);
+        }
     }
 
-    private File outputsFile(String className, TestOutputEvent.Destination destination) {
-        return destination == TestOutputEvent.Destination.StdOut? standardOutputFile(className) : standardErrorFile(className);
+    private ClassIndex classIndex(String className, long startTime) {
+        ClassIndex classIndex = classes.get(className);
+        if (classIndex == null) {
+            classIndex = new ClassIndex(className);
+            classes.put(className, classIndex);
+        }
+        if (classIndex.tests.isEmpty() && startTime != 0) {
+            classIndex.startTime = startTime;
+        }
+        return classIndex;
     }
 
-    private File standardErrorFile(String className) {
-        return new File(resultsDir, className + ".stderr.bin");
+    private void writeString(String value) throws IOException {
+        // Not writeUTF(), as messages and stack traces can be longer than it allows
+        byte[] bytes = value.getBytes("UTF-8");
+        record.writeInt(bytes.length);
+        record.write(bytes);
     }
 
-    private File standardOutputFile(String className) {
-        return new File(resultsDir, className + ".stdout.bin");
+    /**
+     * Appends the current record to the log, and adds its position and length to the given records.
+     */
+    private void appendRecord(Records records) throws IOException {
+        if (log == null) {
+            log = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(resultsFile, true)));
+        }
+        records.add(logLength, recordBytes.size());
+        recordBytes.writeTo(log);
+        logLength += recordBytes.size();
+        recordBytes.reset();
+    }
+
+    private void closeLog() {
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            } finally {
+                log = null;
+            }
+        }
+    }
+
+    public boolean hasOutput(String className, TestOutputEvent.Destination destination) {
+        ClassIndex classIndex = classes.get(className);
+        if (classIndex == null) {
+            return false;
+        }
+        return !classIndex.outputs(destination).isEmpty();
     }
 
     public void provideOutputs(String className, TestOutputEvent.Destination destination, Writer writer) {
-        File file = outputsFile(className, destination);
-        if (!file.exists()) {
+        if (!hasOutput(className, destination)) {
             return; //test has no outputs
         }
-        FileInputStream in = null;
         try {
-            in = new FileInputStream(file);
-            IOUtils.copy(in, writer);
+            Records records = classes.get(className).outputs(destination);
+            // Include the number of records, so that output shared before more output was added is not used
+            List<Object> key = Arrays.<Object>asList(className, destination, records.count);
+            String output = getSharedOutput(key);
+            if (output != null) {
+                writer.write(output);
+                return;
+            }
+
+            StringBuilder shared = new StringBuilder();
+            LogReader reader = openLog();
+            try {
+                for (int i = 0; i < records.count; i++) {
+                    String message = readString(reader.read(records.positions[i], records.lengths[i]));
+                    writer.write(message);
+                    if (shared != null) {
+                        shared.append(message);
+                        if (shared.length() > MAX_SHARED_OUTPUT_CHARS) {
+                            shared = null;
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+            if (shared != null) {
+                addSharedOutput(key, shared.toString());
+            }
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private synchronized String getSharedOutput(List<Object> key) {
+        return sharedOutputs.get(key);
+    }
+
+    private synchronized void addSharedOutput(List<Object> key, String output) {
+        if (sharedOutputs.containsKey(key)) {
+            return;
+        }
+        sharedOutputs.put(key, output);
+        sharedOutputChars += output.length();
+        Iterator<String> iterator = sharedOutputs.values().iterator();
+        while (sharedOutputChars > MAX_SHARED_OUTPUT_CHARS) {
+            sharedOutputChars -= iterator.next().length();
+            iterator.remove();
+        }
+    }
+
+    public void visitClasses(Action<? super TestClassResult> visitor) {
+        if (classes.isEmpty()) {
+            return;
+        }
+        LogReader reader = openLog();
+        try {
+            for (ClassIndex classIndex : classes.values()) {
+                Records records = classIndex.tests;
+                if (records.isEmpty()) {
+                    continue; //only output, no tests
+                }
+                TestClassResult classResult = new TestClassResult(classIndex.className, classIndex.startTime);
+                for (int i = 0; i < records.count; i++) {
+                    DataInputStream input = reader.read(records.positions[i], records.lengths[i]);
+                    String name = readString(input);
+                    TestResult.ResultType resultType = TestResult.ResultType.values()[input.readByte()];
+                    long startTime = input.readLong();
+                    long endTime = input.readLong();
+                    TestMethodResult methodResult = new TestMethodResult(name, resultType, startTime, endTime);
+                    int failures = input.readInt();
+                    for (int j = 0; j < failures; j++) {
+                        methodResult.addFailure(readString(input), readString(input), readString(input));
+                    }
+                    classResult.add(methodResult);
+                }
+                visitor.execute(classResult);
+            }
         } catch (IOException e) {
             throw UncheckedException.throwAsUncheckedException(e);
         } finally {
-            IOUtils.closeQuietly(in);
+            reader.close();
         }
     }
 
-    public Map<String, TestClassResult> provideResults() {
-        return results;
+    private synchronized LogReader openLog() {
+        try {
+            if (log != null) {
+                log.flush();
+            }
+            return new LogReader(new RandomAccessFile(resultsFile, "r"));
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    /**
+     * Reads records from the log through a buffer. The records of a class are read in the order they were written, so
+     * consecutive records are usually served from the same buffer, and the log is read sequentially.
+     */
+    private static class LogReader {
+        private final RandomAccessFile file;
+        private final byte[] buffer = new byte[READ_BUFFER_SIZE];
+        private long bufferStart;
+        private int bufferLength;
+
+        LogReader(RandomAccessFile file) {
+            this.file = file;
+        }
+
+        DataInputStream read(long position, int length) throws IOException {
+            byte[] bytes = new byte[length];
+            if (position < bufferStart || position + length > bufferStart + bufferLength) {
+                if (length > buffer.length) {
+                    file.seek(position);
+                    file.readFully(bytes);
+                    return new DataInputStream(new ByteArrayInputStream(bytes));
+                }
+                fill(position);
+            }
+            System.arraycopy(buffer, (int) (position - bufferStart), bytes, 0, length);
+            return new DataInputStream(new ByteArrayInputStream(bytes));
+        }
+
+        private void fill(long position) throws IOException {
+            file.seek(position);
+            bufferStart = position;
+            bufferLength = 0;
+            while (bufferLength < buffer.length) {
+                int count = file.read(buffer, bufferLength, buffer.length - bufferLength);
+                if (count < 0) {
+                    break;
+                }
+                bufferLength += count;
+            }
+        }
+
+        void close() {
+            IOUtils.closeQuietly(file);
+        }
+    }
+
+    /**
+     * The positions and lengths of a sequence of records in the log, in the order they were written.
+     */
+    private static class Records {
+        long[] positions = new long[4];
+        int[] lengths = new int[4];
+        int count;
+
+        void add(long position, int length) {
+            if (count == positions.length) {
+                long[] newPositions = new long[count * 2];
+                System.arraycopy(positions, 0, newPositions, 0, count);
+                positions = newPositions;
+                int[] newLengths = new int[count * 2];
+                System.arraycopy(lengths, 0, newLengths, 0, count);
+                lengths = newLengths;
+            }
+            positions[count] = position;
+            lengths[count] = length;
+            count++;
+        }
+
+        boolean isEmpty() {
+            return count == 0;
+        }
+    }
+
+    private static class ClassIndex {
+        final String className;
+        long startTime;
+        final Records tests = new Records();
+        final Records stdOut = new Records();
+        final Records stdErr = new Records();
+
+        ClassIndex(String className) {
+            this.className = className;
+        }
+
+        Records outputs(TestOutputEvent.Destination destination) {
+            return destination == TestOutputEvent.Destination.StdOut ? stdOut : stdErr;
+        }
     }
-}
\ No newline at end of file
+}
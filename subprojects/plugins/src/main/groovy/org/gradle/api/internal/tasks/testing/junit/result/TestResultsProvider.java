@@ -16,17 +16,27 @@
 
 package org.gradle.api.internal.tasks.testing.junit.result;
 
+import org.gradle.api.Action;
 import org.gradle.api.tasks.testing.TestOutputEvent;
 
 import java.io.Writer;
-import java.util.Map;
 
 /**
  * by Szczepan Faber, created at: 11/16/12
  */
 public interface TestResultsProvider {
 
+    /**
+     * Writes the output of the given test class to the given writer, in the order it was produced. The output is not
+     * escaped.
+     */
     void provideOutputs(String className, TestOutputEvent.Destination destination, Writer writer);
 
-    Map<String, TestClassResult> provideResults();
+    boolean hasOutput(String className, TestOutputEvent.Destination destination);
+
+    /**
+     * Visits the results of each test class. The results of one class are loaded at a time, so the visitor should not
+     * hold on to them.
+     */
+    void visitClasses(Action<? super TestClassResult> visitor);
 }
@@ -17,36 +17,69 @@
 package org.gradle.api.internal.tasks.testing.processors;
 
 import org.gradle.internal.Factory;
-import org.gradle.api.internal.tasks.testing.TestClassProcessor;
-import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
-import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.*;
+import org.gradle.api.tasks.testing.TestOutputEvent;
 import org.gradle.internal.CompositeStoppable;
 import org.gradle.internal.UncheckedException;
 import org.gradle.messaging.actor.Actor;
 import org.gradle.messaging.actor.ActorFactory;
 import org.gradle.messaging.dispatch.DispatchException;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 /**
- * Manages a set of parallel TestClassProcessors. Uses a simple round-robin algorithm to assign test classes to
- * processors.
+ * Manages a set of parallel TestClassProcessors. Each processor is started with the first test class it is given. Once all processors have been
+ * started, each test class is handed to the next processor which becomes free, that is, which reports that it has started the last test class it was
+ * given. Test classes which arrive while no processor is free are held back, and the longest of them is handed out first, using the durations recorded
+ * by a previous run.
+ *
+ * <p>Not all test frameworks run the test classes as they are given them, and a processor may stop reporting progress. So once test detection has
+ * finished, the held back test classes are only handed out as processors become free while the processors keep reporting that tests are starting.
+ * When they have not reported any tests, or stop reporting for a while, the remaining test classes are assigned longest first, each to the processor
+ * with the least estimated work. Test classes with no recorded duration are assumed to take the average duration, so that without any history the test
+ * classes are spread evenly across the processors.</p>
  */
 public class MaxNParallelTestClassProcessor implements TestClassProcessor {
+    private static final long PROGRESS_TIMEOUT_MILLIS = 10000;
     private final int maxProcessors;
     private final Factory<TestClassProcessor> factory;
     private final ActorFactory actorFactory;
+    private final Map<String, Long> durations;
+    private final long defaultDuration;
+    private final long progressTimeout;
     private TestResultProcessor resultProcessor;
-    private int pos;
-    private List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
+    private List<Fork> forks = new ArrayList<Fork>();
+    private List<TestClassRunInfo> pending = new ArrayList<TestClassRunInfo>();
     private List<Actor> actors = new ArrayList<Actor>();
     private Actor resultProcessorActor;
+    private long lastProgress;
 
     public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory) {
+        this(maxProcessors, factory, actorFactory, Collections.<String, Long>emptyMap());
+    }
+
+    public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Map<String, Long> durations) {
+        this(maxProcessors, factory, actorFactory, durations, PROGRESS_TIMEOUT_MILLIS);
+    }
+
+    MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Map<String, Long> durations, long progressTimeout) {
         this.maxProcessors = maxProcessors;
         this.factory = factory;
         this.actorFactory = actorFactory;
+        this.durations = durations;
+        this.defaultDuration = averageOf(durations.values());
+        this.progressTimeout = progressTimeout;
+    }
+
+    private static long averageOf(Collection<Long> durations) {
+        if (durations.isEmpty()) {
+            return 1;
+        }
+        long total = 0;
+        for (Long duration : durations) {
+            total += duration;
+        }
+        return Math.max(1, total / durations.size());
     }
 
     public void startProcessing(TestResultProcessor resultProcessor) {
@@ -54,27 +87,155 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
         this.resultProcessor = resultProcessorActor.getProxy(TestResultProcessor.class);
     }
 
-    public void processTestClass(TestClassRunInfo testClass) {
-        TestClassProcessor processor;
-        if (processors.size() < maxProcessors) {
-            processor = factory.create();
+    public synchronized void processTestClass(TestClassRunInfo testClass) {
+        if (forks.size() < maxProcessors) {
+            TestClassProcessor processor = factory.create();
             Actor actor = actorFactory.createActor(processor);
-            processor = actor.getProxy(TestClassProcessor.class);
+            Fork fork = new Fork(actor.getProxy(TestClassProcessor.class));
             actors.add(actor);
-            processors.add(processor);
-            processor.startProcessing(resultProcessor);
-        } else {
-            processor = processors.get(pos);
-            pos = (pos + 1) % processors.size();
+            forks.add(fork);
+            fork.processor.startProcessing(new ProgressTrackingResultProcessor(fork, resultProcessor));
+            fork.assign(testClass);
+            return;
+        }
+        if (forks.size() == 1) {
+            forks.get(0).processor.processTestClass(testClass);
+            return;
+        }
+        for (Fork fork : forks) {
+            if (fork.isFree()) {
+                fork.assign(testClass);
+                return;
+            }
+        }
+        pending.add(testClass);
+    }
+
+    private synchronized void testStarted(Fork fork, String className) {
+        lastProgress = System.currentTimeMillis();
+        if (fork.isFree() || !className.equals(fork.lastAssigned)) {
+            return;
+        }
+        fork.lastAssignedStarted = true;
+        if (!pending.isEmpty()) {
+            fork.assign(removeLongestPending());
+            notifyAll();
+        }
+    }
+
+    private TestClassRunInfo removeLongestPending() {
+        int longest = 0;
+        for (int i = 1; i < pending.size(); i++) {
+            if (durationOf(pending.get(i)) > durationOf(pending.get(longest))) {
+                longest = i;
+            }
+        }
+        return pending.remove(longest);
+    }
+
+    private synchronized void dispatchPending() {
+        // Keep handing out test classes as processors become free, until they stop reporting progress
+        while (!pending.isEmpty() && lastProgress > 0) {
+            long remaining = lastProgress + progressTimeout - System.currentTimeMillis();
+            if (remaining <= 0) {
+                break;
+            }
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
+        // Stable sort, so test classes with the same duration are assigned in the order they were found
+        Collections.sort(pending, new Comparator<TestClassRunInfo>() {
+            public int compare(TestClassRunInfo left, TestClassRunInfo right) {
+                long leftDuration = durationOf(left);
+                long rightDuration = durationOf(right);
+                return leftDuration > rightDuration ? -1 : leftDuration < rightDuration ? 1 : 0;
+            }
+        });
+        for (TestClassRunInfo testClass : pending) {
+            Fork target = forks.get(0);
+            for (Fork fork : forks) {
+                if (fork.assignedDuration < target.assignedDuration) {
+                    target = fork;
+                }
+            }
+            target.assign(testClass);
         }
-        processor.processTestClass(testClass);
+        pending.clear();
+    }
+
+    private long durationOf(TestClassRunInfo testClass) {
+        Long duration = durations.get(testClass.getTestClassName());
+        return duration == null ? defaultDuration : duration;
     }
 
     public void stop() {
         try {
+            dispatchPending();
+            List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
+            for (Fork fork : forks) {
+                processors.add(fork.processor);
+            }
             CompositeStoppable.stoppable(processors).add(actors).add(resultProcessorActor).stop();
         } catch (DispatchException e) {
             throw UncheckedException.throwAsUncheckedException(e.getCause());
         }
     }
+
+    private class Fork {
+        private final TestClassProcessor processor;
+        private long assignedDuration;
+        private String lastAssigned;
+        private boolean lastAssignedStarted;
+
+        private Fork(TestClassProcessor processor) {
+            this.processor = processor;
+        }
+
+        /**
+         * Returns true when this fork has started the last test class it was given, so has nothing else to do once that test class is finished.
+         */
+        boolean isFree() {
+            return lastAssignedStarted;
+        }
+
+        void assign(TestClassRunInfo testClass) {
+            lastAssigned = testClass.getTestClassName();
+            lastAssignedStarted = false;
+            assignedDuration += durationOf(testClass);
+            processor.processTestClass(testClass);
+        }
+    }
+
+    private class ProgressTrackingResultProcessor implements TestResultProcessor {
+        private final Fork fork;
+        private final TestResultProcessor processor;
+
+        private ProgressTrackingResultProcessor(Fork fork, TestResultProcessor processor) {
+            this.fork = fork;
+            this.processor = processor;
+        }
+
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+            if (test.getClassName() != null) {
+                testStarted(fork, test.getClassName());
+            }
+            processor.started(test, event);
+        }
+
+        public void completed(Object testId, TestCompleteEvent event) {
+            processor.completed(testId, event);
+        }
+
+        public void output(Object testId, TestOutputEvent event) {
+            processor.output(testId, event);
+        }
+
+        public void failure(Object testId, Throwable result) {
+            processor.failure(testId, result);
+        }
+    }
 }
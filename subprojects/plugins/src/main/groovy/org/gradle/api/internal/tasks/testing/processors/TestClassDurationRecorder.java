@@ -0,0 +1,86 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link TestResultProcessor} which adds up the execution time of the tests of each test class. Only individual
+ * tests are counted, as not all test frameworks report the test classes as suites.
+ */
+public class TestClassDurationRecorder implements TestResultProcessor {
+    private final TestResultProcessor processor;
+    private final Map<Object, RunningTest> running = new HashMap<Object, RunningTest>();
+    private final Map<String, Long> durations = new HashMap<String, Long>();
+
+    public TestClassDurationRecorder(TestResultProcessor processor) {
+        this.processor = processor;
+    }
+
+    /**
+     * Returns the execution time of each test class, in milliseconds.
+     */
+    public synchronized Map<String, Long> getDurations() {
+        return new HashMap<String, Long>(durations);
+    }
+
+    public void started(TestDescriptorInternal test, TestStartEvent event) {
+        if (!test.isComposite() && test.getClassName() != null) {
+            synchronized (this) {
+                running.put(test.getId(), new RunningTest(test.getClassName(), event.getStartTime()));
+            }
+        }
+        processor.started(test, event);
+    }
+
+    public void completed(Object testId, TestCompleteEvent event) {
+        synchronized (this) {
+            RunningTest test = running.remove(testId);
+            if (test != null) {
+                Long duration = durations.get(test.className);
+                long total = duration == null ? 0 : duration;
+                durations.put(test.className, total + Math.max(0, event.getEndTime() - test.startTime));
+            }
+        }
+        processor.completed(testId, event);
+    }
+
+    public void output(Object testId, TestOutputEvent event) {
+        processor.output(testId, event);
+    }
+
+    public void failure(Object testId, Throwable result) {
+        processor.failure(testId, result);
+    }
+
+    private static class RunningTest {
+        final String className;
+        final long startTime;
+
+        private RunningTest(String className, long startTime) {
+            this.className = className;
+            this.startTime = startTime;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.UncheckedException;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Persists the execution time of each test class, so that a subsequent test run can schedule its test classes.
+ */
+public class TestClassDurationStore {
+    private static final Logger LOGGER = Logging.getLogger(TestClassDurationStore.class);
+    private static final int FORMAT_VERSION = 1;
+    private final File file;
+
+    public TestClassDurationStore(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the durations recorded by the previous run, in milliseconds. Returns an empty map when nothing has been
+     * recorded or the file cannot be read.
+     */
+    public Map<String, Long> load() {
+        Map<String, Long> durations = new HashMap<String, Long>();
+        if (!file.isFile()) {
+            return durations;
+        }
+        try {
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                if (inputStream.readInt() != FORMAT_VERSION) {
+                    return durations;
+                }
+                int count = inputStream.readInt();
+                for (int i = 0; i < count; i++) {
+                    String className = inputStream.readUTF();
+                    durations.put(className, inputStream.readLong());
+                }
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            LOGGER.debug(String.format("Could not read test class durations from %s. Ignoring.", file), e);
+            durations.clear();
+        }
+        return durations;
+    }
+
+    /**
+     * Stores the durations recorded by the current run. The durations recorded by the previous run are kept for the test classes which were not
+     * run this time, for example because of a test filter, as long as the class file of the test class still exists in the given directory.
+     * This way, the durations of deleted and renamed test classes are discarded.
+     */
+    public void store(Map<String, Long> previousDurations, Map<String, Long> currentDurations, File testClassesDir) {
+        Map<String, Long> durations = new HashMap<String, Long>();
+        for (Map.Entry<String, Long> entry : previousDurations.entrySet()) {
+            if (new File(testClassesDir, entry.getKey().replace('.', '/') + ".class").isFile()) {
+                durations.put(entry.getKey(), entry.getValue());
+            }
+        }
+        durations.putAll(currentDurations);
+        store(durations);
+    }
+
+    public void store(Map<String, Long> durations) {
+        try {
+            file.getParentFile().mkdirs();
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            try {
+                outputStream.writeInt(FORMAT_VERSION);
+                outputStream.writeInt(durations.size());
+                for (Map.Entry<String, Long> entry : durations.entrySet()) {
+                    outputStream.writeUTF(entry.getKey());
+                    outputStream.writeLong(entry.getValue());
+                }
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+}
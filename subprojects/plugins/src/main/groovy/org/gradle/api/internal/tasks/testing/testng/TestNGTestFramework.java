@@ -25,6 +25,7 @@ import org.gradle.api.internal.tasks.testing.detection.ClassFileExtractionManage
 import org.gradle.api.internal.tasks.testing.junit.JULRedirector;
 import org.gradle.api.internal.tasks.testing.junit.report.DefaultTestReport;
 import org.gradle.api.internal.tasks.testing.junit.report.TestReporter;
+import org.gradle.api.internal.tasks.testing.junit.result.TestResultsProvider;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.api.tasks.testing.Test;
@@ -48,6 +49,7 @@ public class TestNGTestFramework implements TestFramework {
     private TestNGDetector detector;
     final Test testTask;
     final TestReporter reporter;
+    private TestResultsProvider resultsProvider;
 
     public TestNGTestFramework(Test testTask) {
         this(testTask, new DefaultTestReport());
@@ -85,9 +87,19 @@ public class TestNGTestFramework implements TestFramework {
         LOG.info("Generating html test report...");
         reporter.setTestReportDir(testTask.getTestReportDir());
         reporter.setTestResultsDir(testTask.getTestResultsDir());
+        if (resultsProvider != null) {
+            reporter.setTestResultsProvider(resultsProvider);
+        }
         reporter.generateReport();
     }
 
+    /**
+     * Sets the binary test results to generate the html test report from, rather than from the xml results.
+     */
+    public void setTestResultsProvider(TestResultsProvider resultsProvider) {
+        this.resultsProvider = resultsProvider;
+    }
+
     public TestNGOptions getOptions() {
         return options;
     }
@@ -424,10 +424,14 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
 
         if (testReportDataCollector != null) {
             new NewJUnitXmlReportGenerator(getTestResultsDir(), testReportDataCollector).generate();
-            getProject().delete(binaryResultsDir);
+            ((TestNGTestFramework) testFramework).setTestResultsProvider(testReportDataCollector);
         }
 
         testFramework.report();
+
+        if (testReportDataCollector != null) {
+            getProject().delete(binaryResultsDir);
+        }
         testFramework = null;
 
         if (testCountLogger.hadFailures()) {
@@ -23,9 +23,12 @@ import org.gradle.api.internal.tasks.testing.TestResultProcessor
 import org.gradle.api.tasks.testing.Test
 import org.gradle.messaging.actor.Actor
 import org.gradle.messaging.actor.ActorFactory
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
 import spock.lang.Specification
 
 class DefaultTestExecuterTest extends Specification {
+    @Rule TemporaryFolder tmpDir = new TemporaryFolder()
 
     TestResultProcessor testResultProcessor = Mock()
     Test testTask = Mock()
@@ -47,6 +50,7 @@ class DefaultTestExecuterTest extends Specification {
         _ * resultProcessorActor.getProxy(_) >> resultProcessor
         _ * testTask.isScanForTestClasses() >> true
         _ * testFramework.getDetector() >> testFrameworkTestDetector
+        _ * testTask.getTemporaryDir() >> tmpDir.dir
     }
 
     def "testClassDirectory for testclassdetector is configured before executing"() {
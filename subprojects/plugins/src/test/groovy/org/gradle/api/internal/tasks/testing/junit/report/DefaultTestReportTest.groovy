@@ -15,12 +15,21 @@
  */
 package org.gradle.api.internal.tasks.testing.junit.report
 
+import org.gradle.api.Action
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult
+import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult
+import org.gradle.api.internal.tasks.testing.junit.result.TestResultsProvider
+import org.gradle.api.tasks.testing.TestOutputEvent
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.util.TemporaryFolder
 import org.gradle.util.TestFile
 import org.junit.Rule
 import spock.lang.Specification
 import org.cyberneko.html.parsers.SAXParser
 
+import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdOut
+import static org.gradle.api.tasks.testing.TestResult.ResultType.*
+
 class DefaultTestReportTest extends Specification {
     @Rule public final TemporaryFolder tmpDir = new TemporaryFolder()
     final DefaultTestReport report = new DefaultTestReport()
@@ -148,6 +157,130 @@ message">this is a failure.</failure></testcase>
         testClassFile.assertHasFailure('test2', 'this is a failure.')
     }
 
+    def generatesReportFromTestResultsProvider() {
+        def test = new TestClassResult('org.gradle.Test', 0)
+        test.add(new TestMethodResult('test1', SUCCESS, 0, 1))
+        test.add(new TestMethodResult('test2', FAILURE, 0, 4).addFailure('something failed', 'java.lang.RuntimeException', 'this is the failure\nat someClass\n'))
+        test.add(new TestMethodResult('test3', SKIPPED, 0, 0))
+        TestResultsProvider provider = Mock()
+        _ * provider.visitClasses(_) >> { Action action -> action.execute(test) }
+        _ * provider.hasOutput('org.gradle.Test', StdOut) >> true
+        _ * provider.provideOutputs('org.gradle.Test', StdOut, _) >> { String className, TestOutputEvent.Destination destination, Writer writer ->
+            writer.write('this is\nstandard output')
+        }
+        report.testResultsProvider = provider
+
+        when:
+        report.generateReport()
+
+        then:
+        def index = results(indexFile)
+        index.assertHasTests(3)
+        index.assertHasFailures(1)
+        index.assertHasFailedTest('org.gradle.Test', 'test2')
+
+        def testClassFile = results(reportDir.file('org.gradle.Test.html'))
+        testClassFile.assertHasTests(3)
+        testClassFile.assertHasFailures(1)
+        testClassFile.assertHasDuration("0.005s")
+        testClassFile.assertHasTest('test1')
+        testClassFile.assertHasFailure('test2', 'this is the failure\nat someClass\n')
+        testClassFile.assertTestIgnored('test3')
+        testClassFile.assertHasStandardOutput('this is\nstandard output')
+    }
+
+    def doesNotRegeneratePagesWhoseResultsHaveNotChanged() {
+        resultsDir.file('TEST-someClass.xml') << '''
+<testsuite name="org.gradle.Test">
+    <testcase classname="org.gradle.Test" name="test1" time="0.0010"/>
+</testsuite>
+'''
+        resultsDir.file('TEST-someOtherClass.xml') << '''
+<testsuite name="org.gradle.sub.Test">
+    <testcase classname="org.gradle.sub.Test" name="test1" time="0.0010"/>
+</testsuite>
+'''
+        report.generateReport()
+        reportDir.file('org.gradle.Test.html').text = 'unchanged'
+        reportDir.file('org.gradle.html').text = 'unchanged'
+        reportDir.file('org.gradle.sub.Test.html').text = 'unchanged'
+        reportDir.file('org.gradle.sub.html').delete()
+
+        when:
+        resultsDir.file('TEST-someOtherClass.xml').text = '''
+<testsuite name="org.gradle.sub.Test">
+    <testcase classname="org.gradle.sub.Test" name="test1" time="0.0020"/>
+</testsuite>
+'''
+        report.generateReport()
+
+        then:
+        reportDir.file('org.gradle.Test.html').text == 'unchanged'
+        reportDir.file('org.gradle.html').text == 'unchanged'
+        results(reportDir.file('org.gradle.sub.Test.html')).assertHasDuration("0.002s")
+        results(reportDir.file('org.gradle.sub.html')).assertHasTests(1)
+    }
+
+    def doesNotRegeneratePagesWhenDurationChangesButIsRenderedTheSame() {
+        resultsDir.file('TEST-someClass.xml') << '''
+<testsuite name="org.gradle.Test">
+    <testcase classname="org.gradle.Test" name="test1" time="61.001"/>
+    <system-out>some output</system-out>
+</testsuite>
+'''
+        report.generateReport()
+        reportDir.file('org.gradle.Test.html').text = 'unchanged'
+
+        when:
+        resultsDir.file('TEST-someClass.xml').text = '''
+<testsuite name="org.gradle.Test">
+    <testcase classname="org.gradle.Test" name="test1" time="61.003"/>
+    <system-out>some output</system-out>
+</testsuite>
+'''
+        report.generateReport()
+
+        then:
+        reportDir.file('org.gradle.Test.html').text == 'unchanged'
+
+        when:
+        resultsDir.file('TEST-someClass.xml').text = '''
+<testsuite name="org.gradle.Test">
+    <testcase classname="org.gradle.Test" name="test1" time="61.003"/>
+    <system-out>some other output</system-out>
+</testsuite>
+'''
+        report.generateReport()
+
+        then:
+        results(reportDir.file('org.gradle.Test.html')).assertHasStandardOutput('some other output')
+    }
+
+    def generatesPagesConcurrently() {
+        def report = new DefaultTestReport(new DefaultExecutorFactory(), 4)
+        report.testReportDir = reportDir
+        report.testResultsDir = resultsDir
+        10.times { i ->
+            resultsDir.file("TEST-someClass${i}.xml") << """
+<testsuite name="org.gradle.p${i % 3}.Test${i}">
+    <testcase classname="org.gradle.p${i % 3}.Test${i}" name="test1" time="0.0010"/>
+</testsuite>
+"""
+        }
+
+        when:
+        report.generateReport()
+
+        then:
+        results(indexFile).assertHasTests(10)
+        10.times { i ->
+            results(reportDir.file("org.gradle.p${i % 3}.Test${i}.html")).assertHasTest('test1')
+        }
+        3.times { i ->
+            results(reportDir.file("org.gradle.p${i}.html")).assertHasFailures(0)
+        }
+    }
+
     def generatesReportWhenThereAreIgnoredTests() {
         resultsDir.file('TEST-someClass.xml') << '''
 <testsuite>
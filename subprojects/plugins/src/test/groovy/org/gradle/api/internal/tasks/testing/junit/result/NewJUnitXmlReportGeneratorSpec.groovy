@@ -16,12 +16,14 @@
 
 package org.gradle.api.internal.tasks.testing.junit.result
 
+import org.gradle.api.Action
 import org.gradle.api.GradleException
-import org.gradle.api.tasks.testing.TestResult
 import org.gradle.util.TemporaryFolder
 import org.junit.Rule
 import spock.lang.Specification
 
+import static org.gradle.api.tasks.testing.TestResult.ResultType.SUCCESS
+
 /**
  * by Szczepan Faber, created at: 11/19/12
  */
@@ -36,14 +38,14 @@ class NewJUnitXmlReportGeneratorSpec extends Specification {
     }
 
     def "writes results"() {
-        def fooTest = new TestClassResult(100)
-            .add(new TestMethodResult("foo", Mock(TestResult)))
+        def fooTest = new TestClassResult('FooTest', 100)
+            .add(new TestMethodResult("foo", SUCCESS, 0, 10))
 
-        def barTest = new TestClassResult(100)
-            .add(new TestMethodResult("bar", Mock(TestResult)))
-            .add(new TestMethodResult("bar2", Mock(TestResult)))
+        def barTest = new TestClassResult('BarTest', 100)
+            .add(new TestMethodResult("bar", SUCCESS, 0, 10))
+            .add(new TestMethodResult("bar2", SUCCESS, 0, 10))
 
-        resultsProvider.provideResults() >> ['FooTest': fooTest, 'BarTest': barTest]
+        resultsProvider.visitClasses(_) >> { Action action -> [fooTest, barTest].each { action.execute(it) } }
 
         when:
         generator.generate()
@@ -55,10 +57,10 @@ class NewJUnitXmlReportGeneratorSpec extends Specification {
     }
 
     def "adds context information to the failure if something goes wrong"() {
-        def fooTest = new TestClassResult(100)
-                .add(new TestMethodResult("foo", Mock(TestResult)))
+        def fooTest = new TestClassResult('FooTest', 100)
+                .add(new TestMethodResult("foo", SUCCESS, 0, 10))
 
-        resultsProvider.provideResults() >> ['FooTest': fooTest]
+        resultsProvider.visitClasses(_) >> { Action action -> action.execute(fooTest) }
         generator.saxWriter.write('FooTest', fooTest, _) >> { throw new IOException("Boo!") }
 
         when:
@@ -38,18 +38,18 @@ class SaxJUnitXmlResultWriterSpec extends Specification {
 
     def "writes xml JUnit result"() {
         StringWriter sw = new StringWriter()
-        TestClassResult result = new TestClassResult(new Date(1353344968049).getTime())
+        TestClassResult result = new TestClassResult("com.foo.FooTest", new Date(1353344968049).getTime())
         result.add(new TestMethodResult("some test", new DefaultTestResult(SUCCESS, 10, 25, 1, 1, 0, emptyList())))
         result.add(new TestMethodResult("some test two", new DefaultTestResult(SUCCESS, 10, 25, 1, 1, 0, emptyList())))
         result.add(new TestMethodResult("some failing test", new DefaultTestResult(FAILURE, 15, 25, 1, 0, 1, asList(new RuntimeException("Boo! ]]> cdata check!")))))
         result.add(new TestMethodResult("some skipped test", new DefaultTestResult(SKIPPED, 15, 25, 1, 0, 1, asList())))
 
-        provider.provideOutputs("com.foo.FooTest", TestOutputEvent.Destination.StdOut, sw) >> {
-            sw.write("1st output message\n")
-            sw.write("2nd output message\n")
-            sw.write("cdata check: ]]&gt; end\n")
+        provider.provideOutputs("com.foo.FooTest", TestOutputEvent.Destination.StdOut, _) >> { String className, TestOutputEvent.Destination destination, Writer writer ->
+            writer.write("1st output message\n")
+            writer.write("2nd output message\n")
+            writer.write("cdata check: ]]> end\n")
         }
-        provider.provideOutputs("com.foo.FooTest", TestOutputEvent.Destination.StdErr, sw) >> { sw.write("err") }
+        provider.provideOutputs("com.foo.FooTest", TestOutputEvent.Destination.StdErr, _) >> { String className, TestOutputEvent.Destination destination, Writer writer -> writer.write("err") }
 
         when:
         generator.write("com.foo.FooTest", result, sw)
@@ -87,7 +87,7 @@ cdata check: ]]&gt; end
 
     def "writes results with empty outputs"() {
         StringWriter sw = new StringWriter()
-        TestClassResult result = new TestClassResult(new Date(1353344968049).getTime())
+        TestClassResult result = new TestClassResult("com.foo.FooTest", new Date(1353344968049).getTime())
         result.add(new TestMethodResult("some test", new DefaultTestResult(SUCCESS, 100, 300, 1, 1, 0, emptyList())))
 
         when:
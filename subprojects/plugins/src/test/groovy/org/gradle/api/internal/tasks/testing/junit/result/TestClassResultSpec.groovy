@@ -28,7 +28,7 @@ import static java.util.Arrays.asList
 class TestClassResultSpec extends Specification {
 
     def "provides test class result information"() {
-        def result = new TestClassResult(100)
+        def result = new TestClassResult('FooTest', 100)
 
         when:
         result.add(new TestMethodResult("foo",   new DefaultTestResult(TestResult.ResultType.SUCCESS, 100, 200, 1, 1, 0, asList())))
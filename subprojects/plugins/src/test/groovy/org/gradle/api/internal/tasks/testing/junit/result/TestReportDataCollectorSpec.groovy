@@ -16,7 +16,9 @@
 
 package org.gradle.api.internal.tasks.testing.junit.result
 
+import org.gradle.api.Action
 import org.gradle.api.internal.tasks.testing.results.DefaultTestResult
+import org.gradle.api.tasks.testing.TestOutputEvent
 import org.gradle.util.TemporaryFolder
 import org.junit.Rule
 import spock.lang.Specification
@@ -36,8 +38,6 @@ class TestReportDataCollectorSpec extends Specification {
     @Rule private TemporaryFolder temp = new TemporaryFolder()
     private collector = new TestReportDataCollector(temp.dir)
 
-    //TODO SF add concurrent coverage for this and CachingFileWriter
-
     def "validates results directory"() {
         temp.file("foo.txt").createNewFile()
         temp.file("empty").createDir()
@@ -58,27 +58,6 @@ class TestReportDataCollectorSpec extends Specification {
         noExceptionThrown()
     }
 
-    def "closes all files when root finishes"() {
-        collector.cachingFileWriter = Mock(CachingFileWriter)
-
-        def root = new DefaultTestSuiteDescriptor("1", "Suite")
-        def clazz = new DecoratingTestDescriptor(new DefaultTestClassDescriptor("1.1", "Class"), root)
-
-        def dummyResult = new DefaultTestResult(SUCCESS, 0, 0, 0, 0, 0, asList())
-
-        when:
-        collector.afterSuite(clazz, dummyResult)
-
-        then:
-        0 * collector.cachingFileWriter.closeAll()
-
-        when:
-        collector.afterSuite(root, dummyResult)
-
-        then:
-        1 * collector.cachingFileWriter.closeAll()
-    }
-
     def "keeps track of test results"() {
         def root = new DefaultTestSuiteDescriptor("1", "Suite")
         def clazz = new DecoratingTestDescriptor(new DefaultTestClassDescriptor("1.1", "FooTest"), root)
@@ -101,67 +80,133 @@ class TestReportDataCollectorSpec extends Specification {
         collector.afterSuite(root, new DefaultTestResult(FAILURE, 0, 500, 2, 1, 1, asList(new RuntimeException("Boo!"))))
 
         then:
-        def results = collector.provideResults()
+        def results = visitClasses()
         results.size() == 1
-        def fooTest = results['FooTest']
+        def fooTest = results[0]
+        fooTest.className == 'FooTest'
         fooTest.startTime == 100
         fooTest.testsCount == 2
         fooTest.failuresCount == 1
         fooTest.duration == 150
-        fooTest.results.size() == 2
-        fooTest.results.find { it.name == 'testMethod' && it.result == result1 && it.duration == 100 }
-        fooTest.results.find { it.name == 'testMethod2' && it.result == result2 && it.duration == 50 }
+        fooTest.results*.name == ['testMethod', 'testMethod2']
+        fooTest.results.find { it.name == 'testMethod' && it.resultType == SUCCESS && it.duration == 100 && it.failures.empty }
+        def failed = fooTest.results.find { it.name == 'testMethod2' && it.resultType == FAILURE && it.duration == 50 }
+        failed.failures.size() == 1
+        failed.failures[0].message == 'java.lang.RuntimeException: Boo!'
+        failed.failures[0].exceptionType == 'java.lang.RuntimeException'
+        failed.failures[0].stackTrace.startsWith('java.lang.RuntimeException: Boo!')
     }
 
-    def "keeps track of outputs"() {
+    def "keeps results of each class separate"() {
+        def fooTest = new DefaultTestDescriptor("1.1.1", "FooTest", "testMethod")
+        def barTest = new DefaultTestDescriptor("1.2.1", "BarTest", "testMethod")
+        def fooTest2 = new DefaultTestDescriptor("1.1.2", "FooTest", "testMethod2")
+
+        when:
+        collector.afterTest(fooTest, new DefaultTestResult(SUCCESS, 100, 200, 1, 1, 0, asList()))
+        collector.afterTest(barTest, new DefaultTestResult(SUCCESS, 150, 200, 1, 1, 0, asList()))
+        collector.afterTest(fooTest2, new DefaultTestResult(SUCCESS, 200, 300, 1, 1, 0, asList()))
+
+        then:
+        def results = visitClasses()
+        results*.className == ['FooTest', 'BarTest']
+        results[0].results*.name == ['testMethod', 'testMethod2']
+        results[1].results*.name == ['testMethod']
+        results[1].startTime == 150
+    }
+
+    def "provides outputs"() {
         def test = new DefaultTestDescriptor("1.1.1", "FooTest", "testMethod")
         def test2 = new DefaultTestDescriptor("1.1.2", "FooTest", "testMethod2")
+        def test3 = new DefaultTestDescriptor("1.1.3", "BarTest", "testMethod")
         def suite = new DefaultTestSuiteDescriptor("1", "Suite")
 
-        collector.cachingFileWriter = Mock(CachingFileWriter)
-
         when:
-        collector.onOutput(suite, new DefaultTestOutputEvent(StdOut, "out"))
+        collector.onOutput(suite, new DefaultTestOutputEvent(StdOut, "out, no class"))
         collector.onOutput(test, new DefaultTestOutputEvent(StdErr, "err"))
+        collector.onOutput(test, new DefaultTestOutputEvent(StdErr, " err2 ]]>"))
         collector.onOutput(test2, new DefaultTestOutputEvent(StdOut, "out"))
+        collector.onOutput(test3, new DefaultTestOutputEvent(StdOut, "out, don't show"))
 
         then:
-        1 * collector.cachingFileWriter.write(new File(temp.dir, "FooTest.stderr.bin"), "err")
-        1 * collector.cachingFileWriter.write(new File(temp.dir, "FooTest.stdout.bin"), "out")
-        0 * collector.cachingFileWriter._
+        outputs("FooTest", StdErr) == 'err err2 ]]>'
+        outputs("FooTest", StdOut) == 'out'
+        outputs("BarTest", StdErr) == ''
+        outputs("Unknown", StdOut) == ''
+        collector.hasOutput("FooTest", StdOut)
+        !collector.hasOutput("BarTest", StdErr)
+        !collector.hasOutput("Unknown", StdOut)
     }
 
-    def "keeps track output in right format"() {
+    def "provides outputs which are interleaved with other classes and larger than the read buffer"() {
+        def fooTest = new DefaultTestDescriptor("1.1.1", "FooTest", "testMethod")
+        def barTest = new DefaultTestDescriptor("1.2.1", "BarTest", "testMethod")
+        def large = "x" * 100000
+        def expectedFoo = new StringBuilder()
+        def expectedBar = new StringBuilder()
+
+        when:
+        2000.times {
+            collector.onOutput(fooTest, new DefaultTestOutputEvent(StdOut, "foo $it\n"))
+            expectedFoo << "foo $it\n"
+            collector.onOutput(barTest, new DefaultTestOutputEvent(StdOut, "bar $it\n"))
+            expectedBar << "bar $it\n"
+        }
+        collector.onOutput(fooTest, new DefaultTestOutputEvent(StdOut, large))
+        expectedFoo << large
+
+        then:
+        outputs("FooTest", StdOut) == expectedFoo.toString()
+        outputs("BarTest", StdOut) == expectedBar.toString()
+        outputs("FooTest", StdOut) == expectedFoo.toString()
+    }
+
+    def "provides output added after the output was provided"() {
         def test = new DefaultTestDescriptor("1.1.1", "FooTest", "testMethod")
-        collector.cachingFileWriter = Mock(CachingFileWriter)
 
         when:
-        collector.onOutput(test, new DefaultTestOutputEvent(StdErr, "hey ]]> foo"))
+        collector.onOutput(test, new DefaultTestOutputEvent(StdOut, "out"))
+        def first = outputs("FooTest", StdOut)
+        collector.onOutput(test, new DefaultTestOutputEvent(StdOut, " more"))
 
         then:
-        1 * collector.cachingFileWriter.write(new File(temp.dir, "FooTest.stderr.bin"), "hey ]]&gt; foo")
+        first == "out"
+        outputs("FooTest", StdOut) == "out more"
     }
 
-    def "provides outputs"() {
+    def "does not visit classes that only have outputs"() {
         def test = new DefaultTestDescriptor("1.1.1", "FooTest", "testMethod")
-        def test2 = new DefaultTestDescriptor("1.1.2", "FooTest", "testMethod2")
-        def test3 = new DefaultTestDescriptor("1.1.3", "BarTest", "testMethod")
 
         when:
-        collector.onOutput(test, new DefaultTestOutputEvent(StdErr, "err"))
-        collector.onOutput(test, new DefaultTestOutputEvent(StdErr, " err2"))
-        collector.onOutput(test2, new DefaultTestOutputEvent(StdOut, "out"))
-        collector.onOutput(test3, new DefaultTestOutputEvent(StdOut, "out, don't show"))
+        collector.onOutput(test, new DefaultTestOutputEvent(StdOut, "out"))
+
+        then:
+        visitClasses().empty
+    }
 
-        collector.afterSuite(new DefaultTestSuiteDescriptor("1", "suite"), null) //force closing of files
+    def "provides results after root finishes"() {
+        def root = new DefaultTestSuiteDescriptor("1", "Suite")
+        def test = new DecoratingTestDescriptor(new DefaultTestDescriptor("1.1.1", "FooTest", "testMethod"), root)
+
+        when:
+        collector.onOutput(test, new DefaultTestOutputEvent(StdOut, "out"))
+        collector.afterTest(test, new DefaultTestResult(SUCCESS, 100, 200, 1, 1, 0, asList()))
+        collector.afterSuite(root, new DefaultTestResult(SUCCESS, 0, 500, 1, 1, 0, asList()))
 
         then:
-        StringWriter sw = new StringWriter()
-        collector.provideOutputs("FooTest", StdErr, sw)
-        sw.toString() == 'err err2'
+        visitClasses()*.className == ['FooTest']
+        outputs("FooTest", StdOut) == 'out'
+    }
+
+    private List<TestClassResult> visitClasses() {
+        def results = []
+        collector.visitClasses({ results << it } as Action)
+        return results
+    }
 
-        StringWriter sw2 = new StringWriter()
-        collector.provideOutputs("FooTest", StdOut, sw2)
-        sw2.toString() == 'out'
+    private String outputs(String className, TestOutputEvent.Destination destination) {
+        def writer = new StringWriter()
+        collector.provideOutputs(className, destination, writer)
+        return writer.toString()
     }
 }
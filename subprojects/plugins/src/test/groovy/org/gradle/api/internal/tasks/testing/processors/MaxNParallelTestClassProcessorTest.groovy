@@ -16,9 +16,12 @@
 
 package org.gradle.api.internal.tasks.testing.processors
 
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.DefaultTestMethodDescriptor
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
 import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
 import org.gradle.messaging.actor.Actor
 import org.gradle.messaging.actor.ActorFactory
 import spock.lang.Specification
@@ -73,7 +76,7 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * factory.create() >> processor1
         1 * actorFactory.createActor(processor1) >> actor1
         1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
-        1 * asyncProcessor1.startProcessing(asyncResultProcessor)
+        1 * asyncProcessor1.startProcessing(!null)
         1 * asyncProcessor1.processTestClass(test)
 
         when:
@@ -103,7 +106,7 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * factory.create() >> processor1
         1 * actorFactory.createActor(processor1) >> actor1
         1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
-        1 * asyncProcessor1.startProcessing(asyncResultProcessor)
+        1 * asyncProcessor1.startProcessing(!null)
         1 * asyncProcessor1.processTestClass(test)
 
         when:
@@ -113,7 +116,7 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * factory.create() >> processor2
         1 * actorFactory.createActor(processor2) >> actor2
         1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
-        1 * asyncProcessor2.startProcessing(asyncResultProcessor)
+        1 * asyncProcessor2.startProcessing(!null)
         1 * asyncProcessor2.processTestClass(test)
 
         when:
@@ -124,7 +127,7 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * asyncProcessor2.stop()
     }
 
-    def roundRobinsTestClassesToProcessors() {
+    def spreadsRemainingTestClassesEvenlyAcrossProcessorsOnStop() {
         TestClassRunInfo test = Mock()
         TestClassProcessor processor1 = Mock()
         TestClassProcessor processor2 = Mock()
@@ -142,7 +145,7 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * factory.create() >> processor1
         1 * actorFactory.createActor(processor1) >> actor1
         1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
-        1 * asyncProcessor1.startProcessing(asyncResultProcessor)
+        1 * asyncProcessor1.startProcessing(!null)
         1 * asyncProcessor1.processTestClass(test)
 
         when:
@@ -152,19 +155,230 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * factory.create() >> processor2
         1 * actorFactory.createActor(processor2) >> actor2
         1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
-        1 * asyncProcessor2.startProcessing(asyncResultProcessor)
+        1 * asyncProcessor2.startProcessing(!null)
         1 * asyncProcessor2.processTestClass(test)
 
         when:
         processor.processTestClass(test)
+        processor.processTestClass(test)
+
+        then:
+        0 * asyncProcessor1._
+        0 * asyncProcessor2._
+
+        when:
+        processor.stop()
 
         then:
         1 * asyncProcessor1.processTestClass(test)
+        1 * asyncProcessor2.processTestClass(test)
+
+        then:
+        1 * asyncProcessor1.stop()
+        1 * asyncProcessor2.stop()
+    }
+
+    def assignsLongestTestClassesFirstToLeastBusyProcessor() {
+        def processor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, [a: 10L, b: 50L, c: 30L, d: 40L, e: 20L])
+        TestClassProcessor processor1 = Mock()
+        TestClassProcessor processor2 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        Actor actor1 = Mock()
+        Actor actor2 = Mock()
+        _ * factory.create() >>> [processor1, processor2]
+        _ * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        _ * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        _ * actorFactory.createActor(processor1) >> actor1
+        _ * actorFactory.createActor(processor2) >> actor2
+        _ * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        _ * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
 
         when:
+        processor.startProcessing(resultProcessor)
+        ['a', 'b', 'c', 'd', 'e', 'unknown'].each { processor.processTestClass(new DefaultTestClassRunInfo(it)) }
+
+        then:
+        1 * asyncProcessor1.processTestClass({ it.testClassName == 'a' })
+        1 * asyncProcessor2.processTestClass({ it.testClassName == 'b' })
+        0 * asyncProcessor1.processTestClass(_)
+        0 * asyncProcessor2.processTestClass(_)
+
+        when:
+        processor.stop()
+
+        then:
+        1 * asyncProcessor1.processTestClass({ it.testClassName == 'd' })
+
+        then:
+        1 * asyncProcessor1.processTestClass({ it.testClassName == 'c' })
+
+        then:
+        1 * asyncProcessor2.processTestClass({ it.testClassName == 'unknown' })
+
+        then:
+        1 * asyncProcessor1.processTestClass({ it.testClassName == 'e' })
+
+        then:
+        1 * asyncProcessor1.stop()
+        1 * asyncProcessor2.stop()
+    }
+
+    def sendsTestClassesStraightToProcessorWhenOnlyOneProcessorIsUsed() {
+        def processor = new MaxNParallelTestClassProcessor(1, factory, actorFactory, [a: 10L])
+        TestClassRunInfo test = Mock()
+        TestClassProcessor processor1 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        Actor actor1 = Mock()
+        _ * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        _ * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        _ * factory.create() >> processor1
+        _ * actorFactory.createActor(processor1) >> actor1
+        _ * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(test)
         processor.processTestClass(test)
 
         then:
-        1 * asyncProcessor2.processTestClass(test)
+        2 * asyncProcessor1.processTestClass(test)
+    }
+
+    def forwardsResultsOfEachProcessorToResultProcessor() {
+        def processor = new MaxNParallelTestClassProcessor(2, factory, actorFactory)
+        TestResultProcessor results1 = null
+        def forks = forks(processor, { results1 = it })
+        def test = new DefaultTestMethodDescriptor(1, 'a', 'test')
+        def event = new TestStartEvent(0)
+
+        given:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(new DefaultTestClassRunInfo('a'))
+
+        when:
+        results1.started(test, event)
+        results1.completed(1, null)
+
+        then:
+        1 * asyncResultProcessor.started(test, event)
+        1 * asyncResultProcessor.completed(1, null)
+        0 * forks[0].processTestClass(_)
+    }
+
+    def handsHeldTestClassToProcessorWhichHasStartedItsLastTestClass() {
+        def processor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, [a: 10L, b: 10L, c: 30L, d: 40L])
+        TestResultProcessor results1 = null
+        def forks = forks(processor, { results1 = it })
+
+        when:
+        processor.startProcessing(resultProcessor)
+        ['a', 'b', 'c', 'd'].each { processor.processTestClass(new DefaultTestClassRunInfo(it)) }
+
+        then:
+        1 * forks[0].processTestClass({ it.testClassName == 'a' })
+        1 * forks[1].processTestClass({ it.testClassName == 'b' })
+        0 * forks[0].processTestClass(_)
+        0 * forks[1].processTestClass(_)
+
+        when:
+        results1.started(new DefaultTestMethodDescriptor(1, 'a', 'test'), new TestStartEvent(0))
+
+        then:
+        1 * forks[0].processTestClass({ it.testClassName == 'd' })
+        0 * forks[1].processTestClass(_)
+
+        when:
+        results1.started(new DefaultTestMethodDescriptor(2, 'a', 'other'), new TestStartEvent(0))
+
+        then:
+        0 * forks[0].processTestClass(_)
+
+        when:
+        results1.started(new DefaultTestMethodDescriptor(3, 'd', 'test'), new TestStartEvent(0))
+
+        then:
+        1 * forks[0].processTestClass({ it.testClassName == 'c' })
+    }
+
+    def handsTestClassStraightToFreeProcessor() {
+        def processor = new MaxNParallelTestClassProcessor(2, factory, actorFactory)
+        TestResultProcessor results2 = null
+        def forks = forks(processor, {}, { results2 = it })
+
+        given:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(new DefaultTestClassRunInfo('a'))
+        processor.processTestClass(new DefaultTestClassRunInfo('b'))
+        results2.started(new DefaultTestMethodDescriptor(1, 'b', 'test'), new TestStartEvent(0))
+
+        when:
+        processor.processTestClass(new DefaultTestClassRunInfo('c'))
+
+        then:
+        1 * forks[1].processTestClass({ it.testClassName == 'c' })
+        0 * forks[0].processTestClass(_)
+    }
+
+    def keepsHandingOutHeldTestClassesAsProcessorsBecomeFreeOnStop() {
+        def processor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, [a: 50L, b: 10L, c: 5L, d: 20L])
+        TestResultProcessor results1 = null
+        TestResultProcessor results2 = null
+        def forks = forks(processor, { results1 = it }, { results2 = it })
+
+        given:
+        processor.startProcessing(resultProcessor)
+        ['a', 'b', 'c', 'd'].each { processor.processTestClass(new DefaultTestClassRunInfo(it)) }
+        results2.started(new DefaultTestMethodDescriptor(1, 'b', 'test'), new TestStartEvent(0))
+
+        when:
+        def stopper = Thread.start { processor.stop() }
+        results1.started(new DefaultTestMethodDescriptor(2, 'a', 'test'), new TestStartEvent(0))
+        stopper.join()
+
+        then:
+        1 * forks[0].processTestClass({ it.testClassName == 'c' })
+        0 * forks[1].processTestClass({ it.testClassName == 'c' })
+        1 * forks[0].stop()
+        1 * forks[1].stop()
+    }
+
+    def assignsHeldTestClassesByEstimateWhenProcessorsStopReportingProgress() {
+        def processor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, [a: 50L, b: 10L, c: 5L, d: 20L], 100)
+        TestResultProcessor results2 = null
+        def forks = forks(processor, {}, { results2 = it })
+
+        given:
+        processor.startProcessing(resultProcessor)
+        ['a', 'b', 'c', 'd'].each { processor.processTestClass(new DefaultTestClassRunInfo(it)) }
+        results2.started(new DefaultTestMethodDescriptor(1, 'b', 'test'), new TestStartEvent(0))
+
+        when:
+        processor.stop()
+
+        then:
+        1 * forks[1].processTestClass({ it.testClassName == 'c' })
+        0 * forks[0].processTestClass(_)
+        1 * forks[0].stop()
+        1 * forks[1].stop()
+    }
+
+    private List<TestClassProcessor> forks(MaxNParallelTestClassProcessor processor, Closure... onStart) {
+        _ * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        _ * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        def forks = []
+        def processors = []
+        onStart.each { Closure action ->
+            TestClassProcessor target = Mock()
+            TestClassProcessor async = Mock()
+            Actor actor = Mock()
+            _ * actorFactory.createActor(target) >> actor
+            _ * actor.getProxy(TestClassProcessor) >> async
+            _ * async.startProcessing(_) >> { action.call(it[0]) }
+            processors << target
+            forks << async
+        }
+        _ * factory.create() >>> processors
+        return forks
     }
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassDescriptor
+import org.gradle.api.internal.tasks.testing.DefaultTestDescriptor
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
+import spock.lang.Specification
+
+class TestClassDurationRecorderTest extends Specification {
+    final TestResultProcessor target = Mock()
+    final TestClassDurationRecorder recorder = new TestClassDurationRecorder(target)
+
+    def "adds up durations of the tests of each test class"() {
+        def suite = new DefaultTestClassDescriptor(1, 'a')
+        def test1 = new DefaultTestDescriptor(2, 'a', 'test1')
+        def test2 = new DefaultTestDescriptor(3, 'a', 'test2')
+        def test3 = new DefaultTestDescriptor(4, 'b', 'test1')
+
+        when:
+        recorder.started(suite, new TestStartEvent(100))
+        recorder.started(test1, new TestStartEvent(110))
+        recorder.completed(2, new TestCompleteEvent(130))
+        recorder.started(test3, new TestStartEvent(120))
+        recorder.started(test2, new TestStartEvent(140))
+        recorder.completed(3, new TestCompleteEvent(145))
+        recorder.completed(4, new TestCompleteEvent(200))
+        recorder.completed(1, new TestCompleteEvent(300))
+
+        then:
+        recorder.durations == [a: 25L, b: 80L]
+    }
+
+    def "forwards events to target"() {
+        def test = new DefaultTestDescriptor(2, 'a', 'test1')
+        def startEvent = new TestStartEvent(110)
+        def completeEvent = new TestCompleteEvent(130)
+
+        when:
+        recorder.started(test, startEvent)
+        recorder.completed(2, completeEvent)
+
+        then:
+        1 * target.started(test, startEvent)
+
+        then:
+        1 * target.completed(2, completeEvent)
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors
+
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class TestClassDurationStoreTest extends Specification {
+    @Rule TemporaryFolder tmpDir = new TemporaryFolder()
+    final File file = tmpDir.file("durations.bin")
+    final TestClassDurationStore store = new TestClassDurationStore(file)
+
+    def "loads empty durations when file does not exist"() {
+        expect:
+        store.load().isEmpty()
+    }
+
+    def "loads durations that were stored"() {
+        when:
+        store.store([a: 12L, 'org.gradle.SomeTest': 12345L])
+
+        then:
+        new TestClassDurationStore(file).load() == [a: 12L, 'org.gradle.SomeTest': 12345L]
+    }
+
+    def "keeps previous durations only for test classes which still exist"() {
+        def classesDir = tmpDir.createDir("classes")
+        classesDir.createFile("org/gradle/FilteredTest.class")
+        classesDir.createFile("org/gradle/Outer\$NestedTest.class")
+
+        when:
+        store.store(['org.gradle.FilteredTest': 1L, 'org.gradle.Outer$NestedTest': 2L, 'org.gradle.DeletedTest': 3L, 'org.gradle.RunTest': 4L],
+                ['org.gradle.RunTest': 5L, 'org.gradle.NewTest': 6L],
+                classesDir)
+
+        then:
+        store.load() == ['org.gradle.FilteredTest': 1L, 'org.gradle.Outer$NestedTest': 2L, 'org.gradle.RunTest': 5L, 'org.gradle.NewTest': 6L]
+    }
+
+    def "ignores unreadable file"() {
+        given:
+        file.text = "broken"
+
+        expect:
+        store.load().isEmpty()
+    }
+}